@@ -19,6 +19,7 @@ import com.atlassian.migration.datacenter.api.db.DatabaseMigrationStatus
 import com.atlassian.migration.datacenter.api.db.stageToStatus
 import com.atlassian.migration.datacenter.core.aws.db.DatabaseMigrationService
 import com.atlassian.migration.datacenter.core.aws.db.restore.SsmPsqlDatabaseRestoreService
+import com.atlassian.migration.datacenter.core.db.DatabaseDumpProgress
 import com.atlassian.migration.datacenter.core.fs.captor.S3FinalSyncService
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.MigrationStage
@@ -49,7 +50,8 @@ class FinalSyncEndpoint(
         private val databaseMigrationService: DatabaseMigrationService,
         private val migrationService: MigrationService,
         private val ssmPsqlDatabaseRestoreService: SsmPsqlDatabaseRestoreService,
-        private val finalSyncService: S3FinalSyncService
+        private val finalSyncService: S3FinalSyncService,
+        private val databaseDumpProgress: DatabaseDumpProgress
 ) {
     private val mapper: ObjectMapper = ObjectMapper().registerKotlinModule()
 
@@ -126,7 +128,8 @@ class FinalSyncEndpoint(
         val errorMessage = migrationService.currentContext.getErrorMessage()
         val db = DatabaseMigrationStatus(
                 stageToStatus(currentStage),
-                elapsed
+                elapsed,
+                databaseDumpProgress.snapshot()
         )
         val isCurrentStageAfterFinalSync = currentStage.isAfterWithoutRetries(MigrationStage.FINAL_SYNC_WAIT)
         val fsSyncStatus = finalSyncService.getFinalSyncStatus()
@@ -16,6 +16,7 @@
 
 package com.atlassian.migration.datacenter.api.db
 
+import com.atlassian.migration.datacenter.core.db.DatabaseDumpProgress
 import com.atlassian.migration.datacenter.spi.MigrationStage
 import com.atlassian.migration.datacenter.spi.MigrationStage.*
 import java.time.Duration
@@ -70,4 +71,7 @@ fun stageToStatus(stage: MigrationStage): DbMigrationStatus {
     }
 }
 
-data class DatabaseMigrationStatus(val status: DbMigrationStatus, val elapsedTime: Duration)
+/**
+ * @param export progress of the database dump, once one has been started
+ */
+data class DatabaseMigrationStatus(val status: DbMigrationStatus, val elapsedTime: Duration, val export: DatabaseDumpProgress.Snapshot? = null)
@@ -18,6 +18,7 @@ package com.atlassian.migration.datacenter.api.fs
 import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager
 import com.atlassian.migration.datacenter.core.fs.ReportType
 import com.atlassian.migration.datacenter.core.fs.captor.AttachmentSyncManager
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournalFactory
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.MigrationStage
 import com.atlassian.migration.datacenter.spi.exceptions.InvalidMigrationStageError
@@ -30,13 +31,16 @@ import com.fasterxml.jackson.core.JsonProcessingException
 import com.fasterxml.jackson.databind.ObjectMapper
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import java.io.IOException
 import java.util.stream.Collectors
 import javax.ws.rs.Consumes
 import javax.ws.rs.DELETE
+import javax.ws.rs.DefaultValue
 import javax.ws.rs.GET
 import javax.ws.rs.PUT
 import javax.ws.rs.Path
 import javax.ws.rs.Produces
+import javax.ws.rs.QueryParam
 import javax.ws.rs.core.MediaType
 import javax.ws.rs.core.Response
 
@@ -45,12 +49,14 @@ import javax.ws.rs.core.Response
 class FileSystemMigrationEndpoint(private val fsMigrationService: FilesystemMigrationService,
                                   private val attachmentSyncManager: AttachmentSyncManager,
                                   private val reportManager: FileSystemMigrationReportManager,
-                                  private val migrationService: MigrationService
+                                  private val migrationService: MigrationService,
+                                  private val failureJournalFactory: FailureJournalFactory
 )
 {
 
     companion object {
         val log: Logger = LoggerFactory.getLogger(FileSystemMigrationEndpoint::class.java)
+        const val MAX_FAILURES_PAGE_SIZE = 1000
     }
 
     private val mapper: ObjectMapper = ObjectMapper()
@@ -101,7 +107,7 @@ class FileSystemMigrationEndpoint(private val fsMigrationService: FilesystemMigr
     @Produces(MediaType.APPLICATION_JSON)
     @WebSudoNotRequired // Avoids tripping the websudo redirect until advancing to the next stage. The report should not contain any sensitive information.
     fun getFilesystemMigrationStatus(): Response {
-        val report = reportManager.getCurrentReport(ReportType.Filesystem)
+        val report = reportManager.getCurrentSnapshot(ReportType.Filesystem)
             ?: return Response
                 .status(Response.Status.BAD_REQUEST)
                 .entity(mapOf("error" to "no file system migration exists"))
@@ -118,6 +124,35 @@ class FileSystemMigrationEndpoint(private val fsMigrationService: FilesystemMigr
         }
     }
 
+    /**
+     * Pages through every file which failed to migrate in the latest upload. Pass the `next` cursor of a page to get the
+     * following one; a page with fewer failures than the limit is the end of the failures logged so far.
+     */
+    @GET
+    @Path("/failures")
+    @Produces(MediaType.APPLICATION_JSON)
+    fun getFailedFiles(@QueryParam("cursor") @DefaultValue("0") cursor: Long,
+                       @QueryParam("limit") @DefaultValue("100") limit: Int): Response {
+        if (cursor < 0 || limit < 1) {
+            return Response
+                .status(Response.Status.BAD_REQUEST)
+                .entity(mapOf("error" to "cursor must not be negative and limit must be positive"))
+                .build()
+        }
+        return try {
+            val page = failureJournalFactory.read(cursor, limit.coerceAtMost(MAX_FAILURES_PAGE_SIZE))
+            Response
+                .ok(mapper.writeValueAsString(page))
+                .build()
+        } catch (e: IOException) {
+            log.error("Unable to read the files which failed to migrate", e)
+            Response
+                .serverError()
+                .entity(mapOf("error" to "Unable to read the files which failed to migrate: ${e.message}"))
+                .build()
+        }
+    }
+
     @DELETE
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/abort")
@@ -139,6 +174,18 @@ class FileSystemMigrationEndpoint(private val fsMigrationService: FilesystemMigr
     @Path("/retry")
     fun retryFileSystemMigration(): Response {
         log.debug("[Retry operation] Retrying file system migration")
+        return retry { fsMigrationService.scheduleMigration() }
+    }
+
+    @PUT
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/retry-failed")
+    fun retryFailedFiles(): Response {
+        log.debug("[Retry operation] Retrying the files which failed to migrate")
+        return retry { fsMigrationService.scheduleFailedFileRetry() }
+    }
+
+    private fun retry(schedule: () -> Boolean): Response {
         try {
             log.debug("[Retry operation] Aborting current migration, if there is a migration in progress")
             fsMigrationService.abortMigration()
@@ -154,7 +201,7 @@ class FileSystemMigrationEndpoint(private val fsMigrationService: FilesystemMigr
             return Response.status(Response.Status.BAD_REQUEST).build()
         }
 
-        val isMigrationScheduled = fsMigrationService.scheduleMigration()
+        val isMigrationScheduled = schedule()
 
         log.info("[Retry operation] Retrying FS migration operation success status {}", isMigrationScheduled)
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.api.fs
+
+import com.atlassian.migration.datacenter.core.fs.throttle.ThrottleSettings
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle
+import com.atlassian.sal.api.websudo.WebSudoRequired
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import javax.ws.rs.Consumes
+import javax.ws.rs.GET
+import javax.ws.rs.PUT
+import javax.ws.rs.Path
+import javax.ws.rs.Produces
+import javax.ws.rs.core.MediaType
+import javax.ws.rs.core.Response
+
+/**
+ * Reads and changes the limits on how fast the file system migration uploads the shared home. Changes apply straight
+ * away, including to a migration which is already running, but aren't kept across restarts.
+ */
+@Path("/migration/fs/throttle")
+@WebSudoRequired
+class FileSystemThrottleEndpoint(private val uploadThrottle: UploadThrottle) {
+
+    companion object {
+        val log: Logger = LoggerFactory.getLogger(FileSystemThrottleEndpoint::class.java)
+    }
+
+    private val mapper = ObjectMapper()
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    fun getThrottle(): Response {
+        return throttleResponse()
+    }
+
+    @PUT
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    fun setThrottle(body: String): Response {
+        val settings = try {
+            mapper.readValue(body, ThrottleSettings::class.java)
+        } catch (e: JsonProcessingException) {
+            log.warn("Invalid file system migration throttle settings", e)
+            return Response
+                .status(Response.Status.BAD_REQUEST)
+                .entity(mapOf("error" to (e.cause?.message ?: e.originalMessage)))
+                .build()
+        } ?: return Response
+            .status(Response.Status.BAD_REQUEST)
+            .entity(mapOf("error" to "throttle settings are required"))
+            .build()
+
+        uploadThrottle.settings = settings
+        return throttleResponse()
+    }
+
+    private fun throttleResponse(): Response {
+        return Response
+            .ok(mapper.writeValueAsString(mapOf(
+                "settings" to uploadThrottle.settings,
+                "throttling" to uploadThrottle.isThrottling
+            )))
+            .build()
+    }
+}
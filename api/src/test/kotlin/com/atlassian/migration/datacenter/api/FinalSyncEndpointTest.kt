@@ -19,6 +19,7 @@ package com.atlassian.migration.datacenter.api
 import com.atlassian.migration.datacenter.api.db.DbMigrationStatus
 import com.atlassian.migration.datacenter.core.aws.db.DatabaseMigrationService
 import com.atlassian.migration.datacenter.core.aws.db.restore.SsmPsqlDatabaseRestoreService
+import com.atlassian.migration.datacenter.core.db.DatabaseDumpProgress
 import com.atlassian.migration.datacenter.core.fs.captor.FinalFileSyncStatus
 import com.atlassian.migration.datacenter.core.fs.captor.S3FinalSyncService
 import com.atlassian.migration.datacenter.dto.MigrationContext
@@ -65,6 +66,8 @@ internal class FinalSyncEndpointTest {
     @MockK
     lateinit var s3FinalSyncService: S3FinalSyncService
     @MockK
+    lateinit var databaseDumpProgress: DatabaseDumpProgress
+    @MockK
     lateinit var migrationContext: MigrationContext
     @InjectMockKs
     lateinit var sut: FinalSyncEndpoint
@@ -85,6 +88,7 @@ internal class FinalSyncEndpointTest {
         every { migrationService.currentContext } returns migrationContext
         every { migrationContext.getErrorMessage() } returns ""
         every { s3FinalSyncService.getFinalSyncStatus() } returns FinalFileSyncStatus(0, 0, 0)
+        every { databaseDumpProgress.snapshot() } returns null
 
         val resp = sut.getMigrationStatus()
         val json = resp.entity as String
@@ -103,6 +107,7 @@ internal class FinalSyncEndpointTest {
         every { migrationService.currentContext } returns migrationContext
         every { migrationContext.getErrorMessage() } returns ""
         every { s3FinalSyncService.getFinalSyncStatus() } returns FinalFileSyncStatus(150, 50, 12)
+        every { databaseDumpProgress.snapshot() } returns null
 
         val resp = sut.getMigrationStatus()
         val json = resp.entity as String
@@ -114,6 +119,30 @@ internal class FinalSyncEndpointTest {
         assertEquals(null, result.errorMessage)
     }
 
+    @Test
+    fun shouldReportDbExportProgress() {
+        every { databaseMigrationService.elapsedTime } returns Optional.of(Duration.ofSeconds(600))
+        every { migrationService.currentStage } returns MigrationStage.DB_MIGRATION_EXPORT_WAIT
+        every { migrationService.currentContext } returns migrationContext
+        every { migrationContext.getErrorMessage() } returns ""
+        every { s3FinalSyncService.getFinalSyncStatus() } returns FinalFileSyncStatus(0, 0, 0)
+        every { databaseDumpProgress.snapshot() } returns DatabaseDumpProgress.Snapshot(
+                120, 400, 3_000_000_000, 4_000_000_000, 700_000_000, Duration.ofSeconds(600), Duration.ofSeconds(200))
+
+        val resp = sut.getMigrationStatus()
+        val json = resp.entity as String
+
+        val result = mapper.readValue<FinalSyncEndpoint.FinalSyncStatus>(json)
+
+        assertEquals(DbMigrationStatus.EXPORTING, result.db.status)
+        assertEquals(120, result.db.export?.tablesDumped)
+        assertEquals(400, result.db.export?.tables)
+        assertEquals(3_000_000_000, result.db.export?.tableBytesDumped)
+        assertEquals(4_000_000_000, result.db.export?.tableBytes)
+        assertEquals(700_000_000, result.db.export?.bytesWritten)
+        assertEquals(200, result.db.export?.estimatedTimeRemaining?.seconds)
+    }
+
     @Test
     fun shouldReportDbSyncStatusWithErrorWhenDbErrorEncountered() {
         every { databaseMigrationService.elapsedTime } returns Optional.of(Duration.ofSeconds(20))
@@ -121,6 +150,7 @@ internal class FinalSyncEndpointTest {
         every { migrationService.currentContext } returns migrationContext
         every { migrationContext.getErrorMessage() } returns "could not connect to server"
         every { s3FinalSyncService.getFinalSyncStatus() } returns FinalFileSyncStatus(0, 0, 0)
+        every { databaseDumpProgress.snapshot() } returns null
 
         val resp = sut.getMigrationStatus()
         val json = resp.entity as String
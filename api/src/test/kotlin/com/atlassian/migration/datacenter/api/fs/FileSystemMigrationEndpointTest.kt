@@ -18,10 +18,13 @@ package com.atlassian.migration.datacenter.api.fs
 
 import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager
 import com.atlassian.migration.datacenter.core.fs.captor.AttachmentSyncManager
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournal
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournalFactory
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.MigrationStage
 import com.atlassian.migration.datacenter.spi.exceptions.InvalidMigrationStageError
 import com.atlassian.migration.datacenter.spi.fs.FilesystemMigrationService
+import com.fasterxml.jackson.databind.ObjectMapper
 import io.mockk.*
 import io.mockk.impl.annotations.InjectMockKs
 import io.mockk.impl.annotations.MockK
@@ -46,6 +49,9 @@ internal class FileSystemMigrationEndpointTest {
     @MockK
     lateinit var reportManager: FileSystemMigrationReportManager
 
+    @MockK
+    lateinit var failureJournalFactory: FailureJournalFactory
+
     @InjectMockKs
     lateinit var endpoint: FileSystemMigrationEndpoint
 
@@ -120,4 +126,45 @@ internal class FileSystemMigrationEndpointTest {
         assertEquals(response.status, Response.Status.CONFLICT.statusCode)
     }
 
-}
\ No newline at end of file
+    @Test
+    fun shouldRetryOnlyFailedFiles() {
+        every { fsMigrationService.abortMigration() } just runs
+        every { migrationService.transition(MigrationStage.FS_MIGRATION_COPY) } just runs
+        every { fsMigrationService.scheduleFailedFileRetry() } returns true
+
+        val response = endpoint.retryFailedFiles()
+
+        assertEquals(response.status, Response.Status.ACCEPTED.statusCode)
+        verify(exactly = 0) { fsMigrationService.scheduleMigration() }
+    }
+
+    @Test
+    fun shouldReturnPageOfFailedFiles() {
+        val failure = FailureJournal.Entry("data/attachments/1", "it broke", 2, 1000)
+        every { failureJournalFactory.read(0, 100) } returns FailureJournal.Page(listOf(failure), 42)
+
+        val response = endpoint.getFailedFiles(0, 100)
+
+        assertEquals(Response.Status.OK.statusCode, response.status)
+        val tree = ObjectMapper().readTree(response.entity as String)
+        assertEquals("data/attachments/1", tree.at("/failures/0/path").asText())
+        assertEquals(2, tree.at("/failures/0/attempt").asInt())
+        assertEquals(42L, tree.at("/next").asLong())
+    }
+
+    @Test
+    fun shouldLimitSizeOfFailedFilesPage() {
+        every { failureJournalFactory.read(0, FileSystemMigrationEndpoint.MAX_FAILURES_PAGE_SIZE) } returns FailureJournal.Page(emptyList(), 0)
+
+        val response = endpoint.getFailedFiles(0, Int.MAX_VALUE)
+
+        assertEquals(Response.Status.OK.statusCode, response.status)
+    }
+
+    @Test
+    fun shouldRejectNegativeFailedFilesCursor() {
+        val response = endpoint.getFailedFiles(-1, 100)
+
+        assertEquals(Response.Status.BAD_REQUEST.statusCode, response.status)
+    }
+}
@@ -18,6 +18,8 @@ package com.atlassian.migration.datacenter.api.fs
 import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager
 import com.atlassian.migration.datacenter.core.fs.ReportType
 import com.atlassian.migration.datacenter.core.fs.captor.AttachmentSyncManager
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournalFactory
+import com.atlassian.migration.datacenter.core.fs.reporting.ReportSnapshot
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.fs.FilesystemMigrationService
 import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration
@@ -61,6 +63,9 @@ class FileSystemMigrationProgressEndpointTest {
     @MockK
     lateinit var migrationService: MigrationService
 
+    @MockK
+    lateinit var failureJournalFactory: FailureJournalFactory
+
     @InjectMockKs
     lateinit var endpoint: FileSystemMigrationEndpoint
 
@@ -74,7 +79,7 @@ class FileSystemMigrationProgressEndpointTest {
         val failedFileMigration = FailedFileMigration(testFile, testReason)
         val failedFilesCollection = hashSetOf<FailedFileMigration>()
         failedFilesCollection.add(failedFileMigration)
-        every { reportManager.getCurrentReport(ReportType.Filesystem) } returns mockk {
+        every { reportManager.getCurrentSnapshot(ReportType.Filesystem) } returns ReportSnapshot.of(mockk {
             every { status } returns FilesystemMigrationStatus.UPLOADING
             every { getNumberOfCommencedFileUploads() } returns 1L
             every { getNumberOfFilesFound() } returns 1L
@@ -83,7 +88,18 @@ class FileSystemMigrationProgressEndpointTest {
             every { elapsedTime } returns Duration.ofMinutes(1)
             every { getCountOfDownloadFiles() } returns 1L
             every { isCrawlingFinished() } returns true
-        }
+            every { getNumberOfBytesFound() } returns 4096L
+            every { getNumberOfBytesInFlight() } returns 1024L
+            every { getCountOfUploadedBytes() } returns 2048L
+            every { getNumberOfUploadRetries() } returns 3L
+            every { getUploadConcurrencyLimit() } returns 64
+            every { getUploadLatencyP50Millis() } returns 20L
+            every { getUploadLatencyP99Millis() } returns 250L
+            every { getBytesPerSecond() } returns 512.0
+            every { getFilesPerSecond() } returns 0.5
+            every { getAverageBytesPerSecond() } returns 256.0
+            every { getEstimatedTimeRemaining() } returns Duration.ofSeconds(4)
+        })
 
         val response = endpoint.getFilesystemMigrationStatus()
 
@@ -105,17 +121,38 @@ class FileSystemMigrationProgressEndpointTest {
         assertEquals(1, responseSuccessFileCount)
         assertEquals(1, responseDownloadFileCount)
         assertTrue(responseAllFilesFound)
+        assertEquals(4096, tree.at("/bytesFound").asLong())
+        assertEquals(1024, tree.at("/bytesInFlight").asLong())
+        assertEquals(2048, tree.at("/uploadedBytes").asLong())
+        assertEquals(3, tree.at("/uploadRetries").asLong())
+        assertEquals(64, tree.at("/uploadConcurrencyLimit").asInt())
+        assertEquals(250, tree.at("/uploadLatencyP99Millis").asLong())
+        assertEquals(512.0, tree.at("/bytesPerSecond").asDouble())
+        assertEquals(0.5, tree.at("/filesPerSecond").asDouble())
+        assertEquals(256.0, tree.at("/averageBytesPerSecond").asDouble())
+        assertEquals(4, tree.at("/estimatedTimeRemaining/seconds").asLong())
     }
 
     @Test
     fun shouldHandleVeryLargeReport() {
-        every { reportManager.getCurrentReport(ReportType.Filesystem) } returns report
+        every { reportManager.getCurrentSnapshot(ReportType.Filesystem) } answers { ReportSnapshot.of(report) }
         every { report.status } returns FilesystemMigrationStatus.UPLOADING
         every { report.elapsedTime } returns Duration.ofMinutes(1)
         every { report.getNumberOfFilesFound() } returns 1000000L
         every { report.getNumberOfCommencedFileUploads() } returns 1000000L
         every { report.getCountOfDownloadFiles() } returns 1000000L
         every { report.isCrawlingFinished() } returns true
+        every { report.getNumberOfBytesFound() } returns 1000000L
+        every { report.getNumberOfBytesInFlight() } returns 0L
+        every { report.getCountOfUploadedBytes() } returns 1000000L
+        every { report.getNumberOfUploadRetries() } returns 0L
+        every { report.getUploadConcurrencyLimit() } returns 50
+        every { report.getUploadLatencyP50Millis() } returns 0L
+        every { report.getUploadLatencyP99Millis() } returns 0L
+        every { report.getBytesPerSecond() } returns 0.0
+        every { report.getFilesPerSecond() } returns 0.0
+        every { report.getAverageBytesPerSecond() } returns 0.0
+        every { report.getEstimatedTimeRemaining() } returns null
         val failedFiles: MutableSet<FailedFileMigration?> = HashSet()
         val testReason = "test reason"
         val testFile = Paths.get("file")
@@ -150,7 +187,7 @@ class FileSystemMigrationProgressEndpointTest {
 
     @Test
     fun shouldReturnBadRequestWhenNoReportExists() {
-        every { reportManager.getCurrentReport(ReportType.Filesystem) } returns null
+        every { reportManager.getCurrentSnapshot(ReportType.Filesystem) } returns null
 
         val response = endpoint.getFilesystemMigrationStatus()
 
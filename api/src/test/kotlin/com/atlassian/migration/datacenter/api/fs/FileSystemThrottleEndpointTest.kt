@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.api.fs
+
+import com.atlassian.migration.datacenter.core.fs.throttle.ThrottleSettings
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.time.DayOfWeek
+import javax.ws.rs.core.Response
+
+internal class FileSystemThrottleEndpointTest {
+
+    private val mapper = ObjectMapper()
+
+    lateinit var uploadThrottle: UploadThrottle
+
+    lateinit var endpoint: FileSystemThrottleEndpoint
+
+    @BeforeEach
+    fun setUp() {
+        uploadThrottle = UploadThrottle.unlimited()
+        endpoint = FileSystemThrottleEndpoint(uploadThrottle)
+    }
+
+    @Test
+    fun shouldReturnUnlimitedSettingsByDefault() {
+        val response = endpoint.getThrottle()
+
+        assertEquals(Response.Status.OK.statusCode, response.status)
+        val body = mapper.readTree(response.entity as String)
+        assertEquals(0, body["settings"]["bytesPerSecond"].asLong())
+        assertEquals(0, body["settings"]["operationsPerSecond"].asInt())
+        assertFalse(body["throttling"].asBoolean())
+    }
+
+    @Test
+    fun shouldApplyNewSettings() {
+        val response = endpoint.setThrottle("""
+            {
+                "bytesPerSecond": 1048576,
+                "operationsPerSecond": 50,
+                "schedule": {"days": ["MONDAY", "FRIDAY"], "from": "09:00", "to": "17:00"}
+            }
+        """.trimIndent())
+
+        assertEquals(Response.Status.OK.statusCode, response.status)
+        val settings = uploadThrottle.settings
+        assertEquals(1048576, settings.bytesPerSecond)
+        assertEquals(50, settings.operationsPerSecond)
+        assertEquals(setOf(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), settings.schedule.days)
+        assertEquals("09:00", settings.schedule.from)
+        assertEquals("17:00", settings.schedule.to)
+    }
+
+    @Test
+    fun shouldThrottleAllTheTimeWithoutASchedule() {
+        val response = endpoint.setThrottle("""{"bytesPerSecond": 1048576}""")
+
+        assertEquals(Response.Status.OK.statusCode, response.status)
+        assertTrue(mapper.readTree(response.entity as String)["throttling"].asBoolean())
+    }
+
+    @Test
+    fun shouldRejectNegativeLimits() {
+        val response = endpoint.setThrottle("""{"bytesPerSecond": -1}""")
+
+        assertEquals(Response.Status.BAD_REQUEST.statusCode, response.status)
+        assertEquals(ThrottleSettings.UNLIMITED, uploadThrottle.settings)
+    }
+
+    @Test
+    fun shouldRejectInvalidScheduleTimes() {
+        val response = endpoint.setThrottle("""{"bytesPerSecond": 1, "schedule": {"from": "9am", "to": "17:00"}}""")
+
+        assertEquals(Response.Status.BAD_REQUEST.statusCode, response.status)
+        assertEquals(ThrottleSettings.UNLIMITED, uploadThrottle.settings)
+    }
+
+    @Test
+    fun shouldRejectMissingSettings() {
+        val response = endpoint.setThrottle("null")
+
+        assertEquals(Response.Status.BAD_REQUEST.statusCode, response.status)
+    }
+}
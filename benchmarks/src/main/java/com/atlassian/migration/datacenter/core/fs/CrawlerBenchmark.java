@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to crawl a synthetic shared home into an {@link UploadQueue} which is drained as fast as possible, i.e. the
+ * crawler's throughput when the uploader keeps up. A parallelism of 1 uses the {@link DirectoryStreamCrawler}, anything
+ * higher the {@link ForkJoinCrawler}.
+ * <p>
+ * The tree is created once per trial, so after the first iteration it is crawled from the page cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CrawlerBenchmark {
+
+    @Param({"100000"})
+    public int files;
+
+    @Param({"20"})
+    public int filesPerDirectory;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"1000"})
+    public int queueCapacity;
+
+    private Path home;
+    private ExecutorService consumer;
+
+    @Setup(Level.Trial)
+    public void createHome() throws Exception {
+        home = Files.createTempDirectory("dc-migration-crawler-benchmark");
+        SharedHomeFixture.create(home, files, filesPerDirectory, 0);
+        consumer = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteHome() throws Exception {
+        consumer.shutdownNow();
+        SharedHomeFixture.delete(home);
+    }
+
+    @Benchmark
+    public int crawl() throws Exception {
+        final UploadQueue<Path> queue = new UploadQueue<>(queueCapacity);
+        final Future<Integer> drained = consumer.submit(() -> {
+            final List<Path> batch = new ArrayList<>(64);
+            int count = 0;
+            for (int n = queue.drainTo(batch, 64); n >= 0; n = queue.drainTo(batch, 64)) {
+                count += n;
+                batch.clear();
+            }
+            return count;
+        });
+
+        final DefaultFileSystemMigrationReport report = new DefaultFileSystemMigrationReport();
+        final Crawler crawler = parallelism > 1 ? new ForkJoinCrawler(report, parallelism) : new DirectoryStreamCrawler(report);
+        // the crawler finishes the queue itself
+        crawler.crawlDirectory(home, queue);
+
+        final int count = drained.get();
+        if (count != files) {
+            throw new IllegalStateException(String.format("Crawled %d files but expected %d", count, files));
+        }
+        return count;
+    }
+}
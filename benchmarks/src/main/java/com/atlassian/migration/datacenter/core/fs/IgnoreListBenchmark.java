@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking a path against {@link DirectoryStreamCrawler#defaultIgnoreList}, which both crawlers do for every
+ * file and directory they find, including turning the path into the relative string that is matched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class IgnoreListBenchmark {
+    private static final String[] RELATIVE_PATHS = {
+            "data/attachments/PROJ/10000/PROJ-1/10001",
+            "data/attachments/PROJ/10000/PROJ-1/thumbs/_thumb_10001.png",
+            "data/avatars/10100_avatar.png",
+            "plugins/installed-plugins/plugin_123.jar",
+            "plugins/.osgi-plugins",
+            "caches",
+            "dbconfig.xml",
+            "log",
+            "import",
+            "export"
+    };
+
+    private Path home;
+    private Path[] paths;
+    private int next;
+
+    @Setup
+    public void createPaths() {
+        home = Paths.get("/var/atlassian/application-data/jira/shared");
+        paths = new Path[RELATIVE_PATHS.length];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = home.resolve(RELATIVE_PATHS[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean matchIgnoreList() {
+        final Path path = paths[next];
+        next = (next + 1) % paths.length;
+        final String subpath = path.subpath(home.getNameCount(), path.getNameCount()).toString();
+        return DirectoryStreamCrawler.defaultIgnoreList.matcher(subpath).matches();
+    }
+}
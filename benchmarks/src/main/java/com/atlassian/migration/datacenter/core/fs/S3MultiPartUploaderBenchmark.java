@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for the {@link S3MultiPartUploader} to upload one large file to the {@link StubS3AsyncClient}, for a few part
+ * sizes and numbers of parts in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class S3MultiPartUploaderBenchmark {
+    private static final int MB = 1024 * 1024;
+
+    @Param({"256"})
+    public int fileSizeMb;
+
+    @Param({"8", "32"})
+    public int partSizeMb;
+
+    @Param({"4", "16"})
+    public int maxInFlightParts;
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    private Path home;
+    private Path file;
+    private StubS3AsyncClient s3AsyncClient;
+
+    @Setup(Level.Trial)
+    public void createFile() throws Exception {
+        home = Files.createTempDirectory("dc-migration-multipart-benchmark");
+        file = home.resolve("large-attachment");
+        final byte[] chunk = new byte[MB];
+        new Random(0).nextBytes(chunk);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < fileSizeMb; i++) {
+                out.write(chunk);
+            }
+        }
+        s3AsyncClient = new StubS3AsyncClient(latencyMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws Exception {
+        s3AsyncClient.close();
+        SharedHomeFixture.delete(home);
+    }
+
+    @Benchmark
+    public long upload() throws Exception {
+        final S3UploadConfig config = new S3UploadConfig("benchmark", s3AsyncClient, home);
+        config.setMaxInFlightParts(maxInFlightParts);
+
+        final long before = s3AsyncClient.getBytesReceived();
+        final S3MultiPartUploader uploader = new S3MultiPartUploader(config, file.toFile(), "large-attachment");
+        uploader.setSizeToUpload(partSizeMb * MB);
+        uploader.upload();
+
+        final long uploaded = s3AsyncClient.getBytesReceived() - before;
+        if (uploaded != (long) fileSizeMb * MB) {
+            throw new IllegalStateException(String.format("Uploaded %d bytes of %d", uploaded, (long) fileSizeMb * MB));
+        }
+        return uploaded;
+    }
+}
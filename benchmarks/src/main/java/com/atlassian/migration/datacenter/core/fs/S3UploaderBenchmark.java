@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for the {@link S3Uploader}, or the {@link PackingS3Uploader} when packing, to upload a set of small files to
+ * the {@link StubS3AsyncClient}. With some latency this shows how well the upload window hides the round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class S3UploaderBenchmark {
+
+    @Param({"5000"})
+    public int files;
+
+    @Param({"16384"})
+    public int fileSize;
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    @Param({"false", "true"})
+    public boolean pack;
+
+    private Path home;
+    private List<Path> attachments;
+    private StubS3AsyncClient s3AsyncClient;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createHome() throws Exception {
+        home = Files.createTempDirectory("dc-migration-uploader-benchmark");
+        attachments = SharedHomeFixture.create(home, files, 20, fileSize);
+        s3AsyncClient = new StubS3AsyncClient(latencyMillis);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteHome() throws Exception {
+        executor.shutdownNow();
+        s3AsyncClient.close();
+        SharedHomeFixture.delete(home);
+    }
+
+    @Benchmark
+    public long upload() throws Exception {
+        final S3UploadConfig config = new S3UploadConfig("benchmark", s3AsyncClient, home);
+        final DefaultFileSystemMigrationReport report = new DefaultFileSystemMigrationReport();
+        final Uploader uploader = pack ? new PackingS3Uploader(config, report) : new S3Uploader(config, report);
+
+        final UploadQueue<Path> queue = new UploadQueue<>(uploader.maxConcurrent());
+        final Future<?> upload = executor.submit(() -> {
+            uploader.upload(queue);
+            return null;
+        });
+        for (Path attachment : attachments) {
+            queue.put(attachment);
+        }
+        queue.finish();
+        upload.get();
+
+        if (report.getCountOfUploadedFiles() != files || !report.getFailedFiles().isEmpty()) {
+            throw new IllegalStateException(String.format("Uploaded %d of %d files, %d failed", report.getCountOfUploadedFiles(), files, report.getFailedFiles().size()));
+        }
+        return report.getCountOfUploadedFiles();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Synthetic shared home laid out like Jira's: attachments spread over projects and issues, a few avatars, and the
+ * directories the crawler ignores (caches, logs, bundled plugins) so the ignore list is exercised too.
+ */
+final class SharedHomeFixture {
+    private static final int PROJECTS = 20;
+    private static final int IGNORED_FILES = 200;
+
+    private SharedHomeFixture() {
+    }
+
+    /**
+     * @param home              empty directory to fill
+     * @param files             number of attachments
+     * @param filesPerDirectory attachments per issue directory
+     * @param fileSize          size of each attachment in bytes
+     * @return the attachments, which are the files expected to be uploaded
+     */
+    static List<Path> create(Path home, int files, int filesPerDirectory, int fileSize) throws IOException {
+        final byte[] content = new byte[fileSize];
+        Arrays.fill(content, (byte) 'x');
+
+        final List<Path> attachments = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            final int issue = i / filesPerDirectory;
+            final Path directory = home.resolve("data/attachments")
+                    .resolve("PROJ" + issue % PROJECTS)
+                    .resolve(String.valueOf(10000 + issue / 1000 * 1000))
+                    .resolve("PROJ" + issue % PROJECTS + "-" + issue);
+            if (i % filesPerDirectory == 0) {
+                Files.createDirectories(directory);
+            }
+            attachments.add(Files.write(directory.resolve(String.valueOf(10000 + i)), content));
+        }
+
+        for (String ignored : new String[]{"caches/indexes", "log", "plugins/.osgi-plugins"}) {
+            final Path directory = Files.createDirectories(home.resolve(ignored));
+            for (int i = 0; i < IGNORED_FILES; i++) {
+                Files.write(directory.resolve("ignored-" + i), content);
+            }
+        }
+        Files.write(home.resolve("dbconfig.xml"), content);
+
+        return attachments;
+    }
+
+    static void delete(Path home) throws IOException {
+        if (home == null || !Files.exists(home)) {
+            return;
+        }
+        Files.walkFileTree(home, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
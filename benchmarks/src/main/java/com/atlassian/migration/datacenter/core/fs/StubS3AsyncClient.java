@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process S3 which reads every request body to the end, as the SDK would when sending it, then answers after a
+ * fixed latency standing in for the round trip. It only implements the calls the uploaders make.
+ */
+class StubS3AsyncClient implements S3AsyncClient {
+    private static final SdkHttpResponse OK = SdkHttpResponse.builder().statusCode(200).build();
+
+    private final long latencyMillis;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final LongAdder bytesReceived = new LongAdder();
+
+    StubS3AsyncClient(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody body) {
+        return receive(body).thenCompose(bytes -> respond((PutObjectResponse) PutObjectResponse.builder()
+                .eTag(UUID.randomUUID().toString())
+                .sdkHttpResponse(OK)
+                .build()));
+    }
+
+    @Override
+    public CompletableFuture<CreateMultipartUploadResponse> createMultipartUpload(CreateMultipartUploadRequest request) {
+        return respond((CreateMultipartUploadResponse) CreateMultipartUploadResponse.builder()
+                .uploadId(UUID.randomUUID().toString())
+                .sdkHttpResponse(OK)
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResponse> uploadPart(UploadPartRequest request, AsyncRequestBody body) {
+        return receive(body).thenCompose(bytes -> respond((UploadPartResponse) UploadPartResponse.builder()
+                .eTag(request.uploadId() + "-" + request.partNumber())
+                .sdkHttpResponse(OK)
+                .build()));
+    }
+
+    @Override
+    public CompletableFuture<CompleteMultipartUploadResponse> completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return respond((CompleteMultipartUploadResponse) CompleteMultipartUploadResponse.builder()
+                .sdkHttpResponse(OK)
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<AbortMultipartUploadResponse> abortMultipartUpload(AbortMultipartUploadRequest request) {
+        return respond((AbortMultipartUploadResponse) AbortMultipartUploadResponse.builder()
+                .sdkHttpResponse(OK)
+                .build());
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> respond(T response) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        if (latencyMillis == 0) {
+            future.complete(response);
+        } else {
+            scheduler.schedule(() -> future.complete(response), latencyMillis, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Consumes the body, completing with its length once it has all been read.
+     */
+    private CompletableFuture<Long> receive(AsyncRequestBody body) {
+        final CompletableFuture<Long> received = new CompletableFuture<>();
+        body.subscribe(new Subscriber<ByteBuffer>() {
+            private long length;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                length += buffer.remaining();
+                // The re-typing is to provide compatibility when compiling with Java 9+ and running on Java 8
+                ((Buffer) buffer).position(buffer.limit());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                received.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                bytesReceived.add(length);
+                received.complete(length);
+            }
+        });
+        return received;
+    }
+}
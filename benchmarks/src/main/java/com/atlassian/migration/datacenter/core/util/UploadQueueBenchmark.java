@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Put/take throughput of the {@link UploadQueue}. The benchmark threads are the producers (set their number with
+ * {@code -t}) while the consumers run in the background for the whole iteration, either taking one value at a time or
+ * draining batches. As the queue is bounded, the put rate is also the rate at which values get through it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class UploadQueueBenchmark {
+    private static final Path VALUE = Paths.get("data/attachments/PROJ/10000/PROJ-1/10001");
+
+    @Param({"16", "1024"})
+    public int capacity;
+
+    @Param({"1", "4"})
+    public int consumers;
+
+    /**
+     * 1 consumes with {@link UploadQueue#take()}, anything higher with {@link UploadQueue#drainTo}
+     */
+    @Param({"1", "64"})
+    public int batchSize;
+
+    private UploadQueue<Path> queue;
+    private ExecutorService consumerThreads;
+
+    @Setup(Level.Iteration)
+    public void startConsumers() {
+        queue = new UploadQueue<>(capacity);
+        consumerThreads = Executors.newFixedThreadPool(consumers);
+        for (int i = 0; i < consumers; i++) {
+            consumerThreads.submit(batchSize > 1 ? this::drain : this::take);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopConsumers() throws InterruptedException {
+        queue.finish();
+        consumerThreads.shutdown();
+        if (!consumerThreads.awaitTermination(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Consumers didn't finish");
+        }
+    }
+
+    @Benchmark
+    public void put() throws InterruptedException {
+        queue.put(VALUE);
+    }
+
+    private Void take() throws InterruptedException {
+        for (Optional<Path> value = queue.take(); value.isPresent(); value = queue.take()) {
+            // consumed
+        }
+        return null;
+    }
+
+    private Void drain() throws InterruptedException {
+        final List<Path> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) >= 0) {
+            batch.clear();
+        }
+        return null;
+    }
+}
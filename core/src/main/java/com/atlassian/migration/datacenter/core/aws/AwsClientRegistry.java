@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.aws;
+
+import com.atlassian.migration.datacenter.core.aws.auth.ReadCredentialsService;
+import com.atlassian.migration.datacenter.core.aws.region.RegionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches one AWS SDK client per service and profile, so that code asking its supplier for a client on every call shares
+ * one connection pool, set of event loops and TLS sessions instead of building new ones each time. A client is built
+ * for the region and credentials which are current when it is asked for, and is closed and replaced once either
+ * changes.
+ * <p>
+ * Clients must not be closed by the code using them. A client which is replaced is closed straight away, so requests
+ * still running on it will fail.
+ */
+public class AwsClientRegistry implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(AwsClientRegistry.class);
+
+    static final int MAX_CONNECTIONS = Integer
+            .getInteger("com.atlassian.migration.datacenter.aws.http.maxConnections", 100);
+    static final Duration CONNECTION_MAX_IDLE_TIME = Duration.ofSeconds(Long
+            .getLong("com.atlassian.migration.datacenter.aws.http.connectionMaxIdleSeconds", 60));
+    static final Duration CONNECTION_TIME_TO_LIVE = Duration.ofSeconds(Long
+            .getLong("com.atlassian.migration.datacenter.aws.http.connectionTimeToLiveSeconds", 300));
+
+    private final RegionService regionService;
+    private final ReadCredentialsService credentialsService;
+    private final ConcurrentMap<String, CachedClient> clients = new ConcurrentHashMap<>();
+
+    public AwsClientRegistry(RegionService regionService, ReadCredentialsService credentialsService) {
+        this.regionService = regionService;
+        this.credentialsService = credentialsService;
+    }
+
+    /**
+     * @param factory builds a client of the service for the given region
+     * @return a supplier of the cached client of the service
+     */
+    public <T extends SdkClient> Supplier<T> supplier(Class<T> service, Function<Region, T> factory) {
+        return () -> get(service, factory);
+    }
+
+    /**
+     * @param profile name which keeps a differently configured client of the service apart from the default one
+     * @return a supplier of the cached client of the service with the given profile
+     */
+    public <T extends SdkClient> Supplier<T> supplier(Class<T> service, String profile, Function<Region, T> factory) {
+        return () -> get(service, profile, factory);
+    }
+
+    public <T extends SdkClient> T get(Class<T> service, Function<Region, T> factory) {
+        return get(service, null, factory);
+    }
+
+    public <T extends SdkClient> T get(Class<T> service, String profile, Function<Region, T> factory) {
+        final String name = profile == null ? service.getName() : service.getName() + " (" + profile + ")";
+        // The access key id tells the credentials apart without keeping the secret key around
+        final Key key = new Key(regionService.getRegion(), credentialsService.getAccessKeyId());
+        final List<SdkClient> replaced = new ArrayList<>(1);
+        final CachedClient cached = clients.compute(name, (client, existing) -> {
+            if (existing != null && existing.key.equals(key)) {
+                return existing;
+            }
+            if (existing != null) {
+                logger.info("AWS region or credentials have changed, replacing the {} client", client);
+                replaced.add(existing.client);
+            }
+            return new CachedClient(key, factory.apply(Region.of(key.region)));
+        });
+        replaced.forEach(AwsClientRegistry::close);
+        return service.cast(cached.client);
+    }
+
+    /**
+     * Closes all clients, the next one asked for of each service will be built again.
+     */
+    public void invalidate() {
+        clients.keySet().forEach(name -> {
+            final CachedClient removed = clients.remove(name);
+            if (removed != null) {
+                close(removed.client);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        invalidate();
+    }
+
+    /**
+     * @return HTTP client settings shared by the synchronous clients
+     */
+    public static SdkHttpClient.Builder syncHttpClient() {
+        return ApacheHttpClient.builder()
+                .maxConnections(MAX_CONNECTIONS)
+                .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                .connectionTimeToLive(CONNECTION_TIME_TO_LIVE);
+    }
+
+    /**
+     * @return HTTP client settings shared by the asynchronous clients
+     */
+    public static SdkAsyncHttpClient.Builder asyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(MAX_CONNECTIONS)
+                .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                .connectionTimeToLive(CONNECTION_TIME_TO_LIVE);
+    }
+
+    private static void close(SdkClient client) {
+        try {
+            client.close();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to close {} client", client.serviceName(), e);
+        }
+    }
+
+    private static final class Key {
+        private final String region;
+        private final String credentialsVersion;
+
+        private Key(String region, String credentialsVersion) {
+            this.region = region;
+            this.credentialsVersion = credentialsVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return region.equals(other.region) && Objects.equals(credentialsVersion, other.credentialsVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(region, credentialsVersion);
+        }
+    }
+
+    private static final class CachedClient {
+        private final Key key;
+        private final SdkClient client;
+
+        private CachedClient(Key key, SdkClient client) {
+            this.key = key;
+            this.client = client;
+        }
+    }
+}
@@ -28,6 +28,8 @@ import java.nio.file.Path;
 
 public class DatabaseArchivalService {
 
+    static final String DUMP_DIRECTORY = "db.dump";
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private DatabaseExtractorFactory databaseExtractorFactory;
@@ -39,25 +41,47 @@ public class DatabaseArchivalService {
     }
 
     public Path archiveDatabase(Path tempDirectory) throws InvalidMigrationStageError {
-        Path target = tempDirectory.resolve("db.dump");
+        Path target = tempDirectory.resolve(DUMP_DIRECTORY);
+        Process extractorProcess = startArchive(target);
+        awaitArchive(extractorProcess);
+        return target;
+    }
+
+    /**
+     * Starts dumping the database into the target directory without waiting for the dump to finish, so that it can be
+     * uploaded while it is being written. The dump must then be finished with {@link #awaitArchive(Process)}.
+     */
+    public Process startArchive(Path target) throws InvalidMigrationStageError {
         logger.info("Dumping database to "+target);
 
         this.migrationStageCallback.assertInStartingStage();
 
         DatabaseExtractor databaseExtractor = databaseExtractorFactory.getExtractor();
-        Process extractorProcess = databaseExtractor.startDatabaseDump(target);
+        Process extractorProcess = databaseExtractor.startDatabaseDump(target, true);
         this.migrationStageCallback.transitionToServiceWaitStage();
+        return extractorProcess;
+    }
 
+    /**
+     * Waits for a dump started by {@link #startArchive(Path)} to finish and moves on to the next stage if it succeeded.
+     */
+    public void awaitArchive(Process extractorProcess) throws InvalidMigrationStageError {
+        final int exitCode;
         try {
-            extractorProcess.waitFor();
+            exitCode = extractorProcess.waitFor();
         } catch (Exception e) {
             String msg = "Error while waiting for DB extractor to finish";
             this.migrationStageCallback.transitionToServiceErrorStage(e.getMessage());
             throw new DatabaseMigrationFailure(msg, e);
         }
 
+        if (exitCode != 0) {
+            String msg = "DB extractor exited with non-zero status: " + exitCode;
+            this.migrationStageCallback.transitionToServiceErrorStage(msg);
+            throw new DatabaseMigrationFailure(msg);
+        }
+
         this.migrationStageCallback.transitionToServiceNextStage();
-        return target;
     }
 }
 
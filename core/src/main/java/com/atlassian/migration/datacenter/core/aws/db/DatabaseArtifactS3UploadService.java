@@ -68,11 +68,39 @@ public class DatabaseArtifactS3UploadService {
         return report;
     }
 
+    /**
+     * Uploads the database dump while pg_dump is still writing it, each file once pg_dump appears to have finished with
+     * it. Stays in the dump's wait stage until pg_dump exits, then moves through the upload stages while the rest of
+     * the dump is uploaded.
+     *
+     * @param dumpFinished called once pg_dump has exited, to check the dump succeeded and end its stage
+     */
+    public FileSystemMigrationReport uploadWhileDumping(Path target, String targetBucketName, Process dump, DumpDirectoryCrawler.DumpListener dumpFinished) throws InvalidMigrationStageError, FileUploadException
+    {
+        s3AsyncClient = s3AsyncClientSupplier.get();
+
+        FileSystemMigrationReport report = reportManager.resetReport(ReportType.Database);
+        Crawler crawler = new DumpDirectoryCrawler(report, dump, () -> {
+            dumpFinished.dumpFinished();
+            this.migrationStageCallback.assertInStartingStage();
+            this.migrationStageCallback.transitionToServiceWaitStage();
+        });
+        FilesystemUploader filesystemUploader = buildFileSystemUploader(target, targetBucketName, report, s3AsyncClient, crawler);
+
+        filesystemUploader.uploadDirectory(target);
+
+        this.migrationStageCallback.transitionToServiceNextStage();
+        return report;
+    }
+
     //TODO: Use builder pattern instead of creating dependencies like this.
     private static FilesystemUploader buildFileSystemUploader(Path target, String targetBucketName, FileSystemMigrationReport migrationReport, S3AsyncClient s3Client) {
+        return buildFileSystemUploader(target, targetBucketName, migrationReport, s3Client, new DirectoryStreamCrawler(migrationReport));
+    }
+
+    private static FilesystemUploader buildFileSystemUploader(Path target, String targetBucketName, FileSystemMigrationReport migrationReport, S3AsyncClient s3Client, Crawler crawler) {
         S3UploadConfig config = new S3UploadConfig(targetBucketName, s3Client, target.getParent());
         S3Uploader uploader = new S3Uploader(config, migrationReport);
-        Crawler crawler = new DirectoryStreamCrawler(migrationReport);
         return new DefaultFilesystemUploader(crawler, uploader);
     }
 }
@@ -42,6 +42,9 @@ import java.util.concurrent.atomic.AtomicReference;
 public class DatabaseMigrationService implements CancellableMigrationService, DisposableBean {
     private static Logger logger = LoggerFactory.getLogger(DatabaseMigrationService.class);
 
+    private static final boolean PIPELINED_UPLOAD = Boolean
+            .parseBoolean(System.getProperty("com.atlassian.migration.datacenter.db.pipelinedUpload", "true"));
+
     private final Path tempDirectory;
     private final DatabaseArchivalService databaseArchivalService;
     private final DatabaseArtifactS3UploadService s3UploadService;
@@ -49,6 +52,7 @@ public class DatabaseMigrationService implements CancellableMigrationService, Di
     private final MigrationService migrationService;
     private final MigrationRunner migrationRunner;
     private final AWSMigrationHelperDeploymentService migrationHelperDeploymentService;
+    private final boolean pipelinedUpload;
 
     private final AtomicReference<Optional<LocalDateTime>> startTime = new AtomicReference<>(Optional.empty());
 
@@ -57,6 +61,16 @@ public class DatabaseMigrationService implements CancellableMigrationService, Di
                                     DatabaseArtifactS3UploadService s3UploadService,
                                     SsmPsqlDatabaseRestoreService restoreService,
                                     AWSMigrationHelperDeploymentService migrationHelperDeploymentService) {
+        this(tempDirectory, migrationService, migrationRunner, databaseArchivalService, s3UploadService, restoreService,
+                migrationHelperDeploymentService, PIPELINED_UPLOAD);
+    }
+
+    DatabaseMigrationService(Path tempDirectory, MigrationService migrationService,
+                             MigrationRunner migrationRunner, DatabaseArchivalService databaseArchivalService,
+                             DatabaseArtifactS3UploadService s3UploadService,
+                             SsmPsqlDatabaseRestoreService restoreService,
+                             AWSMigrationHelperDeploymentService migrationHelperDeploymentService,
+                             boolean pipelinedUpload) {
         this.tempDirectory = tempDirectory;
         this.databaseArchivalService = databaseArchivalService;
         this.s3UploadService = s3UploadService;
@@ -64,6 +78,7 @@ public class DatabaseMigrationService implements CancellableMigrationService, Di
         this.migrationService = migrationService;
         this.migrationRunner = migrationRunner;
         this.migrationHelperDeploymentService = migrationHelperDeploymentService;
+        this.pipelinedUpload = pipelinedUpload;
     }
 
     /**
@@ -76,6 +91,27 @@ public class DatabaseMigrationService implements CancellableMigrationService, Di
         migrationService.transition(MigrationStage.DB_MIGRATION_EXPORT);
         startTime.set(Optional.of(LocalDateTime.now()));
 
+        String bucketName;
+        try {
+            bucketName = migrationHelperDeploymentService.getMigrationS3BucketName();
+        } catch (InfrastructureDeploymentError infrastructureDeploymentError) {
+            migrationService.error(infrastructureDeploymentError);
+            throw new DatabaseMigrationFailure("error getting migration bucket", infrastructureDeploymentError);
+        }
+
+        FileSystemMigrationErrorReport report = pipelinedUpload ? uploadWhileDumping(bucketName) : dumpThenUpload(bucketName);
+
+        try {
+            restoreService.restoreDatabase();
+        } catch (Exception e) {
+            migrationService.error(e);
+            throw new DatabaseMigrationFailure("Error when restoring database", e);
+        }
+
+        return report;
+    }
+    
+    private FileSystemMigrationErrorReport dumpThenUpload(String bucketName) throws InvalidMigrationStageError {
         Path pathToDatabaseFile;
         try {
             pathToDatabaseFile = databaseArchivalService.archiveDatabase(tempDirectory);
@@ -84,33 +120,36 @@ public class DatabaseMigrationService implements CancellableMigrationService, Di
             throw e;
         }
 
-        FileSystemMigrationErrorReport report;
-
-        String bucketName = null;
         try {
-            bucketName = migrationHelperDeploymentService.getMigrationS3BucketName();
-        } catch (InfrastructureDeploymentError infrastructureDeploymentError) {
-            migrationService.error(infrastructureDeploymentError);
-            throw new DatabaseMigrationFailure("error getting migration bucket", infrastructureDeploymentError);
-        }
-
-        try {
-            report = s3UploadService.upload(pathToDatabaseFile, bucketName);
+            return s3UploadService.upload(pathToDatabaseFile, bucketName);
         } catch (FileUploadException e) {
             migrationService.error(e);
             throw new DatabaseMigrationFailure("Error when uploading database dump to S3", e);
         }
+    }
 
+    /**
+     * Uploads the dump while it is being written, rather than waiting for the whole dump to be on disk first.
+     */
+    private FileSystemMigrationErrorReport uploadWhileDumping(String bucketName) throws InvalidMigrationStageError {
+        Path target = tempDirectory.resolve(DatabaseArchivalService.DUMP_DIRECTORY);
+        Process dump;
         try {
-            restoreService.restoreDatabase();
-        } catch (Exception e) {
+            dump = databaseArchivalService.startArchive(target);
+        } catch (DatabaseMigrationFailure e) {
             migrationService.error(e);
-            throw new DatabaseMigrationFailure("Error when restoring database", e);
+            throw e;
         }
 
-        return report;
+        try {
+            return s3UploadService.uploadWhileDumping(target, bucketName, dump, () -> databaseArchivalService.awaitArchive(dump));
+        } catch (FileUploadException e) {
+            dump.destroy();
+            migrationService.error(e);
+            throw new DatabaseMigrationFailure("Error when uploading database dump to S3", e);
+        }
     }
-    
+
     public Optional<Duration> getElapsedTime() {
         Optional<LocalDateTime> start = startTime.get();
         if (!start.isPresent()) {
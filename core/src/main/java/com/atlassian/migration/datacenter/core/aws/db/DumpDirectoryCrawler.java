@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.aws.db;
+
+import com.atlassian.migration.datacenter.core.fs.Crawler;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues the files of a directory format database dump for upload while pg_dump is still writing it, so that the dump
+ * and the upload overlap. pg_dump doesn't say when it has finished with a file, so a file is queued once it hasn't
+ * changed for a while.
+ * <p>
+ * Once pg_dump has exited, every file which wasn't queued yet or has changed since it was queued is queued again. A
+ * file queued before pg_dump had finished with it is therefore uploaded again, and the bucket always ends up with the
+ * complete dump.
+ */
+class DumpDirectoryCrawler implements Crawler {
+    private static final Logger logger = LoggerFactory.getLogger(DumpDirectoryCrawler.class);
+
+    static final Duration DEFAULT_SETTLE_TIME = Duration.ofSeconds(Long
+            .getLong("com.atlassian.migration.datacenter.db.dumpFileSettleSeconds", 30));
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final FileSystemMigrationReport report;
+    private final Process dump;
+    private final DumpListener listener;
+    private final Duration settleTime;
+    private final Clock clock;
+    private final Map<Path, FileVersion> queued = new HashMap<>();
+
+    DumpDirectoryCrawler(FileSystemMigrationReport report, Process dump, DumpListener listener) {
+        this(report, dump, listener, DEFAULT_SETTLE_TIME, Clock.systemUTC());
+    }
+
+    DumpDirectoryCrawler(FileSystemMigrationReport report, Process dump, DumpListener listener, Duration settleTime, Clock clock) {
+        this.report = report;
+        this.dump = dump;
+        this.listener = listener;
+        this.settleTime = settleTime;
+        this.clock = clock;
+    }
+
+    @Override
+    public void crawlDirectory(Path start, UploadQueue<Path> queue) throws IOException {
+        try {
+            while (dump.isAlive()) {
+                queueFiles(start, queue, true);
+                dump.waitFor(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            listener.dumpFinished();
+            queueFiles(start, queue, false);
+            logger.info("Queued {} database dump files for upload", queued.size());
+        } catch (IOException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading the database dump", e);
+        } catch (Exception e) {
+            throw new IOException("Database dump failed", e);
+        } finally {
+            try {
+                report.reportCrawlingFinished();
+                queue.finish();
+            } catch (InterruptedException e) {
+                logger.error("Failed to finalise upload queue.", e);
+            }
+        }
+    }
+
+    /**
+     * @param settledOnly whether to leave files which have changed within the settle time, as pg_dump may still be
+     *                    writing them
+     */
+    private void queueFiles(Path directory, UploadQueue<Path> queue, boolean settledOnly) throws IOException, InterruptedException {
+        final long settledBefore = clock.millis() - settleTime.toMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                final FileVersion version = new FileVersion(attributes);
+                final FileVersion previous = queued.get(file);
+                if (version.equals(previous) || (settledOnly && version.lastModified > settledBefore)) {
+                    continue;
+                }
+                if (previous != null) {
+                    logger.debug("{} changed after it was queued for upload, queueing it again", file);
+                }
+                queued.put(file, version);
+                report.reportFileFound();
+                report.reportBytesFound(version.size);
+                queue.put(file);
+            }
+        } catch (NoSuchFileException e) {
+            if (settledOnly) {
+                // pg_dump hasn't created the directory yet
+                return;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Called once pg_dump has exited, before the files it wrote last are queued.
+     */
+    @FunctionalInterface
+    interface DumpListener {
+        void dumpFinished() throws Exception;
+    }
+
+    private static final class FileVersion {
+        private final long size;
+        private final long lastModified;
+
+        private FileVersion(BasicFileAttributes attributes) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileVersion)) {
+                return false;
+            }
+            final FileVersion other = (FileVersion) o;
+            return size == other.size && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
 import com.atlassian.migration.datacenter.core.aws.ssm.SuccessfulSSMCommandConsumer;
 import com.atlassian.migration.datacenter.core.fs.download.s3sync.EnsureSuccessfulSSMCommandConsumer;
 import com.atlassian.migration.datacenter.core.fs.download.s3sync.S3SyncFileSystemDownloader;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.exceptions.DatabaseMigrationFailure;
 import com.atlassian.migration.datacenter.spi.exceptions.InvalidMigrationStageError;
 import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
@@ -33,15 +34,32 @@ import software.amazon.awssdk.services.ssm.model.GetCommandInvocationResponse;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class SsmPsqlDatabaseRestoreService {
 
     private static final Logger logger = LoggerFactory.getLogger(SsmPsqlDatabaseRestoreService.class);
 
+    /**
+     * Parallel pg_restore jobs on the migration host. When not set the restore document uses one per vCPU.
+     */
+    private static final int RESTORE_JOBS = Integer.getInteger("com.atlassian.migration.datacenter.db.restoreJobs", 0);
+
+    /**
+     * Whether the migration host restores each table as soon as its data is downloaded, rather than once the whole dump is
+     */
+    private static final boolean PIPELINED_RESTORE = Boolean
+            .parseBoolean(System.getProperty("com.atlassian.migration.datacenter.db.pipelinedRestore", "true"));
+
     private final SSMApi ssm;
     private final AWSMigrationHelperDeploymentService migrationHelperDeploymentService;
     private final MigrationStageCallback migrationStageCallback;
     private final RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService;
+    private final PollingScheduler pollingScheduler;
+    private final int restoreJobs;
+    private final boolean pipelinedRestore;
     private final String CRITICAL_ERROR_001 = "could not connect to server";
     private final String CRITICAL_ERROR_002 = "could not translate host name";
     private final String CRITICAL_ERROR_003 = "Connection timed out";
@@ -61,11 +79,18 @@ public class SsmPsqlDatabaseRestoreService {
     
     private String commandId;
 
-    public SsmPsqlDatabaseRestoreService(SSMApi ssm, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, DatabaseRestoreStageTransitionCallback migrationStageCallback, RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService) {
+    public SsmPsqlDatabaseRestoreService(SSMApi ssm, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, DatabaseRestoreStageTransitionCallback migrationStageCallback, RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService, PollingScheduler pollingScheduler) {
+        this(ssm, migrationHelperDeploymentService, migrationStageCallback, remoteInstanceCommandRunnerService, pollingScheduler, RESTORE_JOBS, PIPELINED_RESTORE);
+    }
+
+    SsmPsqlDatabaseRestoreService(SSMApi ssm, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, DatabaseRestoreStageTransitionCallback migrationStageCallback, RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService, PollingScheduler pollingScheduler, int restoreJobs, boolean pipelinedRestore) {
         this.ssm = ssm;
         this.migrationHelperDeploymentService = migrationHelperDeploymentService;
         this.migrationStageCallback = migrationStageCallback;
         this.remoteInstanceCommandRunnerService = remoteInstanceCommandRunnerService;
+        this.pollingScheduler = pollingScheduler;
+        this.restoreJobs = restoreJobs;
+        this.pipelinedRestore = pipelinedRestore;
     }
 
     public void restoreDatabase() throws DatabaseMigrationFailure, InvalidMigrationStageError {
@@ -88,13 +113,13 @@ public class SsmPsqlDatabaseRestoreService {
         remoteInstanceCommandRunnerService.setJiraRunStateTo(RemoteServiceState.STOP);
         
         try {
-            this.commandId = ssm.runSSMDocument(dbRestorePlaybook, migrationInstanceId, Collections.emptyMap());
+            this.commandId = ssm.runSSMDocument(dbRestorePlaybook, migrationInstanceId, restoreParameters());
         } catch (S3SyncFileSystemDownloader.CannotLaunchCommandException e) {
             throw new DatabaseMigrationFailure("unable to run db restore SSM playbook");
         }
 
         SuccessfulSSMCommandConsumer consumer = new EnsureSuccessfulSSMCommandConsumer(ssm, commandId,
-                migrationInstanceId);
+                migrationInstanceId, pollingScheduler);
         
         migrationStageCallback.transitionToServiceWaitStage();
         try {
@@ -113,6 +138,23 @@ public class SsmPsqlDatabaseRestoreService {
         }
     }
 
+    /**
+     * Parameters are only passed when they differ from the document's own defaults, of one job per vCPU and a
+     * pipelined restore.
+     */
+    private Map<String, List<String>> restoreParameters() {
+        final Map<String, List<String>> parameters = new HashMap<>();
+        if (restoreJobs > 0) {
+            logger.info("Restoring the database with {} parallel jobs", restoreJobs);
+            parameters.put("jobs", Collections.singletonList(String.valueOf(restoreJobs)));
+        }
+        if (!pipelinedRestore) {
+            logger.info("Restoring the database once the whole dump has been downloaded");
+            parameters.put("pipelined", Collections.singletonList("false"));
+        }
+        return parameters;
+    }
+
     public SsmCommandResult fetchCommandResult() throws SsmCommandNotInitialisedException {
         if (getCommandId() == null) {
             throw new SsmCommandNotInitialisedException("SSM command was not executed");
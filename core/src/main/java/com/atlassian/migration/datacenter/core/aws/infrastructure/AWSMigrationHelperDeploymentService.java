@@ -18,6 +18,7 @@ package com.atlassian.migration.datacenter.core.aws.infrastructure;
 
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
 import com.atlassian.migration.datacenter.core.util.LogUtils;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.dto.MigrationContext;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.MigrationStage;
@@ -59,12 +60,12 @@ public class AWSMigrationHelperDeploymentService extends CloudformationDeploymen
     private final MigrationService migrationService;
     private final CfnApi cfnApi;
 
-    public AWSMigrationHelperDeploymentService(CfnApi cfnApi, Supplier<AutoScalingClient> autoScalingClientFactory, MigrationService migrationService) {
-        this(cfnApi, autoScalingClientFactory, migrationService, 30);
+    public AWSMigrationHelperDeploymentService(CfnApi cfnApi, Supplier<AutoScalingClient> autoScalingClientFactory, MigrationService migrationService, PollingScheduler pollingScheduler) {
+        this(cfnApi, autoScalingClientFactory, migrationService, pollingScheduler, 30);
     }
 
-    AWSMigrationHelperDeploymentService(CfnApi cfnApi, Supplier<AutoScalingClient> autoScalingClientFactory, MigrationService migrationService, int pollIntervalSeconds) {
-        super(cfnApi, pollIntervalSeconds, migrationService);
+    AWSMigrationHelperDeploymentService(CfnApi cfnApi, Supplier<AutoScalingClient> autoScalingClientFactory, MigrationService migrationService, PollingScheduler pollingScheduler, int pollIntervalSeconds) {
+        super(cfnApi, pollIntervalSeconds, migrationService, pollingScheduler);
         this.migrationService = migrationService;
         this.cfnApi = cfnApi;
         this.autoScalingClientFactory = autoScalingClientFactory;
@@ -17,6 +17,7 @@
 package com.atlassian.migration.datacenter.core.aws.infrastructure;
 
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.dto.MigrationContext;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
@@ -25,11 +26,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -44,16 +46,17 @@ public abstract class CloudformationDeploymentService {
     private final CfnApi cfnApi;
     private final int deployStatusPollIntervalSeconds;
     private final MigrationService migrationService;
-    private ScheduledFuture<?> deploymentWatcher;
+    private final PollingScheduler pollingScheduler;
 
-    CloudformationDeploymentService(CfnApi cfnApi, MigrationService migrationService) {
-        this(cfnApi, 30, migrationService);
+    CloudformationDeploymentService(CfnApi cfnApi, MigrationService migrationService, PollingScheduler pollingScheduler) {
+        this(cfnApi, 30, migrationService, pollingScheduler);
     }
 
-    CloudformationDeploymentService(CfnApi cfnApi, int deployStatusPollIntervalSeconds, MigrationService migrationService) {
+    CloudformationDeploymentService(CfnApi cfnApi, int deployStatusPollIntervalSeconds, MigrationService migrationService, PollingScheduler pollingScheduler) {
         this.cfnApi = cfnApi;
         this.migrationService = migrationService;
         this.deployStatusPollIntervalSeconds = deployStatusPollIntervalSeconds;
+        this.pollingScheduler = pollingScheduler;
     }
 
     /**
@@ -68,8 +71,8 @@ public abstract class CloudformationDeploymentService {
     protected abstract void handleFailedDeployment(String error);
 
     /**
-     * Deploys a cloudformation stack and starts a thread to monitor the deployment. If the deployment succeeds,
-     * the {@link CloudformationDeploymentService#handleSuccessfulDeployment()} callback will be invoked. If the
+     * Deploys a cloudformation stack and starts polling its status on the {@link PollingScheduler}. If the deployment
+     * succeeds, the {@link CloudformationDeploymentService#handleSuccessfulDeployment()} callback will be invoked. If the
      * deployment fails, the {@link CloudformationDeploymentService#handleFailedDeployment(String)} will be invoked
      * with the error message as the value.
      *
@@ -91,47 +94,81 @@ public abstract class CloudformationDeploymentService {
         return migrationService.getCurrentContext().getDeploymentState();
     }
 
+    /**
+     * Polls the stack status until the stack has finished deploying, then runs the handler for the outcome once. Only
+     * reading the status is retried by the poll; the handlers run after the watch has completed, so a handler which
+     * throws can't be run again and a failed success handler is reported as a failed deployment.
+     */
     private CompletableFuture<String> beginWatchingDeployment(String stackName) {
-        CompletableFuture<String> stackCompleteFuture = new CompletableFuture<>();
-
-        final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-
-        deploymentWatcher = scheduledExecutorService.scheduleAtFixedRate(() -> {
+        final CompletableFuture<InfrastructureDeploymentState> watch = pollingScheduler.poll("stack " + stackName, check -> {
             final InfrastructureDeploymentState status = cfnApi.getStatus(stackName);
             MigrationContext context = migrationService.getCurrentContext();
             context.setDeploymentState(status);
             context.save();
-            if (status.equals(InfrastructureDeploymentState.CREATE_COMPLETE)) {
-                logger.info("stack {} creation succeeded", stackName);
-                handleSuccessfulDeployment();
-                stackCompleteFuture.complete("");
+            if (status.equals(InfrastructureDeploymentState.CREATE_COMPLETE) || isFailedToCreateDeploymentState(status)) {
+                check.complete(status);
+            }
+        }, deployStatusPollIntervalSeconds, TimeUnit.SECONDS);
+
+        try {
+            ScheduledFuture<?> canceller = pollingScheduler.schedule(() -> watch.completeExceptionally(
+                    new TimeoutException(String.format("timed out while waiting for stack %s to deploy", stackName))),
+                    1, TimeUnit.HOURS);
+
+            watch.whenComplete((result, thrown) -> canceller.cancel(false));
+        } catch (RejectedExecutionException e) {
+            watch.completeExceptionally(e);
+        }
+
+        final CompletableFuture<String> stackCompleteFuture = new CompletableFuture<>();
+        watch.whenComplete((status, thrown) -> {
+            if (thrown instanceof CancellationException) {
+                stackCompleteFuture.cancel(false);
+            } else if (thrown != null && !(thrown instanceof TimeoutException)) {
+                stackCompleteFuture.completeExceptionally(thrown);
+            } else {
+                try {
+                    handleDeploymentFinished(stackName, status, thrown);
+                } finally {
+                    stackCompleteFuture.complete("");
+                }
             }
-            if (isFailedToCreateDeploymentState(status)) {
+        });
+        return stackCompleteFuture;
+    }
+
+    private void handleDeploymentFinished(String stackName, InfrastructureDeploymentState status, Throwable timeout) {
+        try {
+            if (timeout != null) {
+                logger.error(timeout.getMessage());
+                handleFailedDeployment(timeout.getMessage());
+            } else if (status.equals(InfrastructureDeploymentState.CREATE_COMPLETE)) {
+                logger.info("stack {} creation succeeded", stackName);
+                try {
+                    handleSuccessfulDeployment();
+                } catch (RuntimeException e) {
+                    logger.error("stack {} was created but could not be set up", stackName, e);
+                    handleFailedDeployment(e.getMessage());
+                }
+            } else {
                 //FIXME: implement getting a good error
-                String reason = cfnApi.getStackErrorRootCause(stackName).orElse("Deployment failed for unknown reason. Try checking the cloudformation console");
+                String reason = getStackErrorRootCause(stackName);
                 logger.error("stack {} creation failed with reason {}", stackName, reason);
                 handleFailedDeployment(reason);
-                stackCompleteFuture.complete("");
-            }
-        }, 0, deployStatusPollIntervalSeconds, TimeUnit.SECONDS);
-
-        ScheduledFuture<?> canceller = scheduledExecutorService.scheduleAtFixedRate(() -> {
-            if (deploymentWatcher.isCancelled()) {
-                return;
             }
-            String message = String.format("timed out while waiting for stack %s to deploy", stackName);
-            logger.error(message);
-            handleFailedDeployment(message);
-            deploymentWatcher.cancel(true);
-            // Need to have non-zero period otherwise we get illegal argument exception
-        }, 1, 100, TimeUnit.HOURS);
-
-        stackCompleteFuture.whenComplete((result, thrown) -> {
-            deploymentWatcher.cancel(true);
-            canceller.cancel(true);
-        });
+        } catch (RuntimeException e) {
+            logger.error("error handling the deployment of stack {}", stackName, e);
+        }
+    }
 
-        return stackCompleteFuture;
+    private String getStackErrorRootCause(String stackName) {
+        final String unknown = "Deployment failed for unknown reason. Try checking the cloudformation console";
+        try {
+            return cfnApi.getStackErrorRootCause(stackName).orElse(unknown);
+        } catch (RuntimeException e) {
+            logger.warn("unable to get the reason stack {} failed", stackName, e);
+            return unknown;
+        }
     }
 
     private boolean isFailedToCreateDeploymentState(InfrastructureDeploymentState state) {
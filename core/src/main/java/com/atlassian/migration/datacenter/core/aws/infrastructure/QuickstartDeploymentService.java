@@ -19,6 +19,7 @@ package com.atlassian.migration.datacenter.core.aws.infrastructure;
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
 import com.atlassian.migration.datacenter.core.aws.db.restore.TargetDbCredentialsStorageService;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.migrationStack.MigrationStackInputGatheringStrategyFactory;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.dto.MigrationContext;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.MigrationStage;
@@ -61,8 +62,9 @@ public class QuickstartDeploymentService extends CloudformationDeploymentService
             MigrationService migrationService,
             TargetDbCredentialsStorageService dbCredentialsStorageService,
             AWSMigrationHelperDeploymentService migrationHelperDeploymentService,
-            MigrationStackInputGatheringStrategyFactory strategyFactory) {
-        super(cfnApi, migrationService);
+            MigrationStackInputGatheringStrategyFactory strategyFactory,
+            PollingScheduler pollingScheduler) {
+        super(cfnApi, migrationService, pollingScheduler);
 
         this.cfnApi = cfnApi;
         this.migrationService = migrationService;
@@ -16,62 +16,162 @@
 
 package com.atlassian.migration.datacenter.core.aws.ssm;
 
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.ssm.model.CommandInvocationStatus;
 import software.amazon.awssdk.services.ssm.model.GetCommandInvocationResponse;
 import software.amazon.awssdk.services.ssm.model.InvocationDoesNotExistException;
 
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls an SSM command until it has finished and handles its output once it has succeeded. Most commands finish
+ * within a few seconds, so the command is checked straight away and then at doubling intervals up to a maximum.
+ * Polls are scheduled on the {@link PollingScheduler} rather than slept between, so waiting on a command doesn't hold a
+ * thread.
+ */
 public abstract class SuccessfulSSMCommandConsumer<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(SuccessfulSSMCommandConsumer.class);
 
+    private static final Duration INITIAL_POLL_INTERVAL = Duration.ofMillis(Long
+            .getLong("com.atlassian.migration.datacenter.ssm.initialPollIntervalMillis", 500));
+    private static final Duration MAX_POLL_INTERVAL = Duration.ofMillis(Long
+            .getLong("com.atlassian.migration.datacenter.ssm.maxPollIntervalMillis", 10000));
+
+    /**
+     * Status retries used to be counted in polls this far apart, so they are converted to a deadline with it
+     */
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(10);
 
     private final SSMApi ssmApi;
     private final String commandId;
     private final String instanceId;
+    private final PollingScheduler scheduler;
+    private final Duration initialPollInterval;
+    private final Duration maxPollInterval;
 
-    protected SuccessfulSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId) {
+    protected SuccessfulSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId, PollingScheduler scheduler) {
+        this(ssmApi, commandId, instanceId, scheduler, INITIAL_POLL_INTERVAL, MAX_POLL_INTERVAL);
+    }
+
+    SuccessfulSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId, PollingScheduler scheduler,
+                                 Duration initialPollInterval, Duration maxPollInterval) {
         this.ssmApi = ssmApi;
         this.commandId = commandId;
         this.instanceId = instanceId;
+        this.scheduler = scheduler;
+        this.initialPollInterval = initialPollInterval;
+        this.maxPollInterval = maxPollInterval;
     }
 
     public T handleCommandOutput() throws UnsuccessfulSSMCommandInvocationException, SSMCommandInvocationProcessingError {
         return handleCommandOutput(0);
     }
 
+    /**
+     * Blocks until the command has finished. Prefer {@link #handleCommandOutputAsync(int)} where the caller doesn't
+     * need to wait.
+     */
     public T handleCommandOutput(int maxCommandStatusRetries) throws UnsuccessfulSSMCommandInvocationException, SSMCommandInvocationProcessingError {
-        int attempt = 0;
-        GetCommandInvocationResponse command = null;
-        do {
-            attempt++;
-            logger.debug("Checking delivery of s3 sync ssm command. Attempt {}", attempt);
-
-            try {
-                command = ssmApi.getSSMCommand(commandId, instanceId);
-                final CommandInvocationStatus status = command.status();
-
-                logger.debug("S3 sync command status is {}", status);
-
-                if (status.equals(CommandInvocationStatus.SUCCESS)) {
-                    return handleSuccessfulCommand(command);
-                } else if (status.equals(CommandInvocationStatus.FAILED)) {
-                    throw new UnsuccessfulSSMCommandInvocationException(String.format("SSM command %s failed with message: %s", commandId, command.statusDetails()));
-                }
-            } catch (InvocationDoesNotExistException e) {
-                logger.debug("Command does not exist - maybe it hasn't reached the EC2 instance yet. Will continue retrying");
+        final CompletableFuture<T> result = handleCommandOutputAsync(maxCommandStatusRetries);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            logger.error("interrupted while waiting for ssm command {} to complete", commandId, e);
+            throw new UnsuccessfulSSMCommandInvocationException("Interrupted while waiting to check command status", e);
+        } catch (CancellationException e) {
+            throw new UnsuccessfulSSMCommandInvocationException("Stopped checking command status", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof UnsuccessfulSSMCommandInvocationException) {
+                throw (UnsuccessfulSSMCommandInvocationException) cause;
+            } else if (cause instanceof SSMCommandInvocationProcessingError) {
+                throw (SSMCommandInvocationProcessingError) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new UnsuccessfulSSMCommandInvocationException("Unable to check command status", cause);
+        }
+    }
+
+    public CompletableFuture<T> handleCommandOutputAsync() {
+        return handleCommandOutputAsync(0);
+    }
+
+    /**
+     * Starts polling the command. Cancelling the returned future stops polling, as does resetting the migration.
+     *
+     * @param maxCommandStatusRetries how many 10 second intervals to wait for the command to finish, or 0 to wait
+     *                                until it does
+     * @return completed with the handled output of the command, or exceptionally with an
+     * {@link UnsuccessfulSSMCommandInvocationException} or {@link SSMCommandInvocationProcessingError}
+     */
+    public CompletableFuture<T> handleCommandOutputAsync(int maxCommandStatusRetries) {
+        final CompletableFuture<T> result = scheduler.register(new CompletableFuture<>());
+        final long deadline = maxCommandStatusRetries > 0
+                ? System.nanoTime() + RETRY_INTERVAL.multipliedBy(maxCommandStatusRetries).toNanos()
+                : 0;
+        poll(result, 1, initialPollInterval, deadline);
+        return result;
+    }
+
+    private void poll(CompletableFuture<T> result, int attempt, Duration interval, long deadline) {
+        if (result.isDone()) {
+            return;
+        }
+        logger.debug("Checking status of ssm command {}. Attempt {}", commandId, attempt);
 
-            try {
-                Thread.sleep(10000);
-            } catch (InterruptedException e) {
-                logger.error("interrupted while waiting for s3 sync ssm command to be delivered", e);
-                throw new UnsuccessfulSSMCommandInvocationException("Interrupted while waiting to check command status", e);
+        GetCommandInvocationResponse command = null;
+        try {
+            command = ssmApi.getSSMCommand(commandId, instanceId);
+            final CommandInvocationStatus status = command.status();
+
+            logger.debug("SSM command {} status is {}", commandId, status);
+
+            if (status.equals(CommandInvocationStatus.SUCCESS)) {
+                result.complete(handleSuccessfulCommand(command));
+                return;
+            } else if (status.equals(CommandInvocationStatus.FAILED)) {
+                result.completeExceptionally(new UnsuccessfulSSMCommandInvocationException(String.format("SSM command %s failed with message: %s", commandId, command.statusDetails())));
+                return;
+            } else if (isFinished(status)) {
+                result.completeExceptionally(neverCompleted(command));
+                return;
             }
-        } while (attempt == maxCommandStatusRetries || command == null || !isFinished(command.status()));
+        } catch (InvocationDoesNotExistException e) {
+            logger.debug("Command does not exist - maybe it hasn't reached the EC2 instance yet. Will continue retrying");
+        } catch (SSMCommandInvocationProcessingError | RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            result.completeExceptionally(command == null
+                    ? new UnsuccessfulSSMCommandInvocationException(String.format("SSM command %s never reached the instance", commandId))
+                    : neverCompleted(command));
+            return;
+        }
+
+        final Duration nextInterval = interval.multipliedBy(2).compareTo(maxPollInterval) > 0 ? maxPollInterval : interval.multipliedBy(2);
+        try {
+            scheduler.schedule(() -> poll(result, attempt + 1, nextInterval, deadline), interval.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new UnsuccessfulSSMCommandInvocationException("Stopped checking command status", e));
+        }
+    }
 
-        throw new UnsuccessfulSSMCommandInvocationException(
+    private UnsuccessfulSSMCommandInvocationException neverCompleted(GetCommandInvocationResponse command) {
+        return new UnsuccessfulSSMCommandInvocationException(
                 String.format(
                         "Command never completed successfully. Latest status is: %s. Latest response from SSM API is: %s",
                         command.status().toString(),
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of concurrent S3 requests with additive increase, multiplicative decrease (AIMD), like TCP does
+ * with its congestion window.
+ * <p>
+ * Completed requests are measured in windows of at least as many requests as the current limit. At the end of a window
+ * the limit grows by one if throughput in bytes per second has held up, and is cut by a quarter if its p99 latency has
+ * more than doubled from the best seen. Latencies are normalised per MB, counting requests of less than a MB as a whole
+ * MB, so a window of 16MB parts isn't mistaken for a slower S3 than a window of small files. A throttled or timed out request cuts the limit straight away, at most once per window, as every
+ * request in flight at the time is likely to be throttled too.
+ * <p>
+ * A limiter with the same minimum and maximum limit is a fixed window.
+ */
+class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    static final double BACKOFF_RATIO = 0.75;
+    static final double LATENCY_TOLERANCE = 2.0;
+    static final double THROUGHPUT_TOLERANCE = 0.95;
+    static final int MIN_WINDOW_SIZE = 20;
+    private static final long BEST_LATENCY_DRIFT_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long LATENCY_UNIT_BYTES = 1024 * 1024;
+
+    enum Outcome {
+        /**
+         * The request succeeded, so its latency is a sample of how loaded S3 and the network are
+         */
+        SUCCESS,
+        /**
+         * The request was throttled or timed out, a sign of too many concurrent requests
+         */
+        DROPPED,
+        /**
+         * The request failed for a reason which says nothing about the load, e.g. a missing file
+         */
+        IGNORED
+    }
+
+    /**
+     * Called at the end of every window with the limit and the latencies per MB observed during the window
+     */
+    @FunctionalInterface
+    interface Listener {
+        void windowCompleted(int limit, long p50Millis, long p99Millis);
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final LongSupplier nanoTime;
+    private final Listener listener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private int limit;
+    private int inFlight;
+
+    private long[] latencies = new long[MIN_WINDOW_SIZE];
+    private int samples;
+    private long windowBytes;
+    private long windowStart;
+    private boolean windowDropped;
+    private double previousThroughput;
+    private long bestP99 = Long.MAX_VALUE;
+
+    AdaptiveConcurrencyLimiter(S3UploadConfig config, Listener listener) {
+        this(Math.min(config.getMinInFlightUploads(), config.getMaxInFlightUploads()),
+                config.getMaxInFlightUploads(),
+                Math.max(config.getMaxAdaptiveInFlightUploads(), config.getMaxInFlightUploads()),
+                listener, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int minLimit, int initialLimit, int maxLimit, Listener listener, LongSupplier nanoTime) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.listener = listener;
+        this.nanoTime = nanoTime;
+        this.windowStart = nanoTime.getAsLong();
+    }
+
+    /**
+     * A window which never changes size
+     */
+    static AdaptiveConcurrencyLimiter fixed(int limit) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, limit, (l, p50, p99) -> {}, System::nanoTime);
+    }
+
+    /**
+     * Blocks until the number of requests in flight is below the limit and takes a slot.
+     *
+     * @return the time the request started, to pass to {@link #release(long, long, Outcome)}
+     */
+    long acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= limit) {
+                changed.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return nanoTime.getAsLong();
+    }
+
+    /**
+     * Gives up the slot of a completed request and adapts the limit to how it went.
+     *
+     * @param start the time returned by {@link #acquire()}
+     * @param bytes the number of bytes the request sent
+     */
+    void release(long start, long bytes, Outcome outcome) {
+        final long now = nanoTime.getAsLong();
+        lock.lock();
+        try {
+            inFlight--;
+            if (outcome == Outcome.SUCCESS) {
+                addSample(now - start, bytes);
+            } else if (outcome == Outcome.DROPPED && !windowDropped) {
+                windowDropped = true;
+                decrease("request was throttled");
+            }
+            if (samples >= Math.max(MIN_WINDOW_SIZE, limit)) {
+                completeWindow(now);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cuts the limit for a request which was throttled or timed out, but keeps its slot to be retried.
+     */
+    void dropped() {
+        lock.lock();
+        try {
+            if (!windowDropped) {
+                windowDropped = true;
+                decrease("request was throttled");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until no requests are in flight.
+     */
+    void awaitIdle() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight > 0) {
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addSample(long latency, long bytes) {
+        if (samples == latencies.length) {
+            latencies = Arrays.copyOf(latencies, samples * 2);
+        }
+        latencies[samples++] = (long) (latency * (LATENCY_UNIT_BYTES / (double) Math.max(bytes, LATENCY_UNIT_BYTES)));
+        windowBytes += bytes;
+    }
+
+    private void completeWindow(long now) {
+        Arrays.sort(latencies, 0, samples);
+        final long p50 = latencies[(samples - 1) / 2];
+        final long p99 = latencies[(int) Math.ceil(samples * 0.99) - 1];
+        final double throughput = windowBytes / (double) Math.max(now - windowStart, 1);
+
+        if (!windowDropped) {
+            if (bestP99 != Long.MAX_VALUE && p99 > bestP99 * LATENCY_TOLERANCE) {
+                decrease("p99 latency rose to " + TimeUnit.NANOSECONDS.toMillis(p99) + "ms per MB");
+            } else if (throughput >= previousThroughput * THROUGHPUT_TOLERANCE && limit < maxLimit) {
+                limit++;
+            }
+        }
+        // Let the best latency drift up over time, so a lasting change such as larger files doesn't shrink the limit forever
+        final long drift = (long) (bestP99 * ((now - windowStart) / (double) BEST_LATENCY_DRIFT_NANOS));
+        bestP99 = Math.min(p99, bestP99 == Long.MAX_VALUE ? p99 : bestP99 + drift);
+        previousThroughput = throughput;
+
+        samples = 0;
+        windowBytes = 0;
+        windowStart = now;
+        windowDropped = false;
+        listener.windowCompleted(limit, TimeUnit.NANOSECONDS.toMillis(p50), TimeUnit.NANOSECONDS.toMillis(p99));
+    }
+
+    private void decrease(String reason) {
+        final int decreased = Math.max(minLimit, (int) (limit * BACKOFF_RATIO));
+        if (decreased < limit) {
+            logger.debug("Reducing concurrent uploads from {} to {} as {}", limit, decreased, reason);
+            limit = decreased;
+        }
+    }
+
+    /**
+     * @return {@link Outcome#DROPPED} if the request was throttled or timed out, {@link Outcome#IGNORED} otherwise
+     */
+    static Outcome outcomeOf(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof AwsServiceException) {
+            final AwsServiceException serviceException = (AwsServiceException) throwable;
+            return serviceException.isThrottlingException() || isThrottlingStatus(serviceException.statusCode()) ? Outcome.DROPPED : Outcome.IGNORED;
+        }
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiCallTimeoutException || cause instanceof ApiCallAttemptTimeoutException
+                    || cause instanceof TimeoutException || cause instanceof SocketTimeoutException) {
+                return Outcome.DROPPED;
+            }
+        }
+        return Outcome.IGNORED;
+    }
+
+    static Outcome outcomeOf(SdkHttpResponse response) {
+        if (response.isSuccessful()) {
+            return Outcome.SUCCESS;
+        }
+        return isThrottlingStatus(response.statusCode()) ? Outcome.DROPPED : Outcome.IGNORED;
+    }
+
+    private static boolean isThrottlingStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Request body which publishes a read-only view of a buffer instead of copying it, unlike
+ * {@link AsyncRequestBody#fromByteBuffer(ByteBuffer)} which copies the content onto the heap.
+ * <p>
+ * Every subscription (e.g. an SDK retry) gets its own view of the same bytes. The caller must not modify the buffer
+ * until the request using this body has completed.
+ */
+class ByteBufferAsyncRequestBody implements AsyncRequestBody {
+    private final ByteBuffer buffer;
+    private final long length;
+
+    ByteBufferAsyncRequestBody(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.length = buffer.remaining();
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+        return Optional.of(length);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        final ByteBuffer view = buffer.duplicate();
+        subscriber.onSubscribe(new Subscription() {
+            private final AtomicBoolean done = new AtomicBoolean(false);
+
+            @Override
+            public void request(long n) {
+                if (!done.compareAndSet(false, true)) {
+                    return;
+                }
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("Demand must be positive but was " + n));
+                    return;
+                }
+                subscriber.onNext(view);
+                subscriber.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+                done.set(true);
+            }
+        });
+    }
+}
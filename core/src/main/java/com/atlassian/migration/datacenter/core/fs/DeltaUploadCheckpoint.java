@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Skips files which are already in the migration bucket according to an {@link S3ObjectIndex}, on top of whatever the
+ * delegate checkpoint skips.
+ */
+public class DeltaUploadCheckpoint implements UploadCheckpoint, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DeltaUploadCheckpoint.class);
+
+    private final UploadCheckpoint delegate;
+    private final S3ObjectIndex index;
+    private final Path home;
+    private final AtomicLong skippedFiles = new AtomicLong();
+
+    public DeltaUploadCheckpoint(UploadCheckpoint delegate, S3ObjectIndex index, Path home) {
+        this.delegate = delegate;
+        this.index = index;
+        this.home = home;
+    }
+
+    @Override
+    public boolean isCompleted(Path directory) {
+        return delegate.isCompleted(directory);
+    }
+
+    @Override
+    public boolean isUploaded(Path file, BasicFileAttributes attributes) {
+        if (delegate.isUploaded(file, attributes)) {
+            return true;
+        }
+        if (attributes == null) {
+            // let the uploader report it
+            return false;
+        }
+        final String key = home.relativize(file).toString();
+        if (index.isUploaded(key, attributes.size(), attributes.lastModifiedTime().toMillis())) {
+            logger.trace("Skipping {} which is already in the bucket", file);
+            skippedFiles.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void directoryFound(Path directory) {
+        delegate.directoryFound(directory);
+    }
+
+    @Override
+    public void fileQueued(Path file) {
+        delegate.fileQueued(file);
+    }
+
+    @Override
+    public void directoryListed(Path directory) {
+        delegate.directoryListed(directory);
+    }
+
+    @Override
+    public void fileUploaded(Path file) {
+        delegate.fileUploaded(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        logger.info("Skipped {} files which were already in the bucket", skippedFiles.get());
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.aws.infrastructure.AWSMigrationHelperDeploymentService;
+import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Opens checkpoints which also skip files already in the migration bucket when delta sync is enabled with the
+ * {@code com.atlassian.migration.datacenter.fs.deltaSync} system property, e.g. for a second attempt or when the bucket
+ * was seeded ahead of the cutover. Otherwise the delegate's checkpoint is used as is.
+ * <p>
+ * Files packed into segments by an earlier upload aren't in the {@link S3ObjectIndex}, so when small files are also
+ * packed they are all uploaded again, which is logged when the checkpoint is opened.
+ */
+public class DeltaUploadCheckpointFactory implements UploadCheckpointFactory {
+    private static final Logger logger = LoggerFactory.getLogger(DeltaUploadCheckpointFactory.class);
+    private static final boolean DELTA_SYNC = Boolean.getBoolean("com.atlassian.migration.datacenter.fs.deltaSync");
+    private static final boolean PACK_SMALL_FILES = Boolean.getBoolean("com.atlassian.migration.datacenter.fs.packSmallFiles");
+
+    private final UploadCheckpointFactory delegate;
+    private final AWSMigrationHelperDeploymentService deploymentService;
+    private final Supplier<S3AsyncClient> clientSupplier;
+    private final boolean enabled;
+
+    public DeltaUploadCheckpointFactory(UploadCheckpointFactory delegate, AWSMigrationHelperDeploymentService deploymentService, Supplier<S3AsyncClient> clientSupplier) {
+        this(delegate, deploymentService, clientSupplier, DELTA_SYNC);
+    }
+
+    DeltaUploadCheckpointFactory(UploadCheckpointFactory delegate, AWSMigrationHelperDeploymentService deploymentService, Supplier<S3AsyncClient> clientSupplier, boolean enabled) {
+        this.delegate = delegate;
+        this.deploymentService = deploymentService;
+        this.clientSupplier = clientSupplier;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public UploadCheckpoint open(Path home) throws IOException {
+        final UploadCheckpoint checkpoint = delegate.open(home);
+        if (!enabled) {
+            return checkpoint;
+        }
+
+        final S3ObjectIndex index;
+        try {
+            index = S3ObjectIndex.load(clientSupplier.get(), deploymentService.getMigrationS3BucketName());
+        } catch (InfrastructureDeploymentError | IOException | RuntimeException e) {
+            logger.warn("Unable to index the migration bucket, files already in it will be uploaded again", e);
+            return checkpoint;
+        }
+        if (PACK_SMALL_FILES) {
+            logger.warn("Small files are packed into segments, which delta sync doesn't index. Files up to {} bytes will be uploaded again",
+                    S3UploadConfig.DEFAULT_PACKED_FILE_SIZE_LIMIT);
+        }
+        return new DeltaUploadCheckpoint(checkpoint, index, home);
+    }
+}
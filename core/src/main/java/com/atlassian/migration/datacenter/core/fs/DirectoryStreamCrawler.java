@@ -16,10 +16,12 @@
 
 package com.atlassian.migration.datacenter.core.fs;
 
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle;
 import com.atlassian.migration.datacenter.core.util.UploadQueue;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FilesystemMigrationStatus;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,26 +30,45 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.regex.Pattern;
 
 public class DirectoryStreamCrawler implements Crawler {
     private static final Logger logger = LoggerFactory.getLogger(DirectoryStreamCrawler.class);
 
     private static final String ignorePattern = "^(dbconfig\\.xml|cluster\\.properties|log|caches|import|export|plugins/.bundled_plugins|plugins/.osgi-plugins|keyFile|saltFile)";
-    private static final Pattern defaultIgnoreList = Pattern.compile(ignorePattern);
+    static final Pattern defaultIgnoreList = Pattern.compile(ignorePattern);
 
     private FileSystemMigrationReport report;
+    private final UploadCheckpoint checkpoint;
+    private final UploadThrottle throttle;
 
     public DirectoryStreamCrawler(FileSystemMigrationReport report) {
+        this(report, UploadCheckpoint.NONE);
+    }
+
+    public DirectoryStreamCrawler(FileSystemMigrationReport report, UploadCheckpoint checkpoint) {
+        this(report, checkpoint, UploadThrottle.unlimited());
+    }
+
+    public DirectoryStreamCrawler(FileSystemMigrationReport report, UploadCheckpoint checkpoint, UploadThrottle throttle) {
         this.report = report;
+        this.checkpoint = checkpoint;
+        this.throttle = throttle;
     }
 
     @Override
     public void crawlDirectory(Path start, UploadQueue<Path> queue) throws IOException {
         try {
+            if (checkpoint.isCompleted(start)) {
+                logger.info("{} was completely uploaded by a previous attempt, nothing to crawl", start);
+                return;
+            }
+            checkpoint.directoryFound(start);
             final DirectoryStream<Path> paths;
             paths = Files.newDirectoryStream(start);
             listDirectories(start, queue, paths);
+            checkpoint.directoryListed(start);
         } catch (NoSuchFileException e) {
             logger.error("Failed to find path " + start, e);
             report.reportFileNotMigrated(new FailedFileMigration(start, e.getMessage()));
@@ -56,7 +77,7 @@ public class DirectoryStreamCrawler implements Crawler {
 
         } finally {
             try {
-                logger.info("Crawled and added {} files for upload.", report.getNumberOfFilesFound());
+                logger.info("Crawled and added {} files ({}) for upload.", report.getNumberOfFilesFound(), FileUtils.byteCountToDisplaySize(report.getNumberOfBytesFound()));
                 report.reportCrawlingFinished();
                 queue.finish();
             } catch (InterruptedException e) {
@@ -74,24 +95,62 @@ public class DirectoryStreamCrawler implements Crawler {
             if (defaultIgnoreList.matcher(subpath).matches())
                 return;
 
-            if (Files.isDirectory(p)) {
+            final BasicFileAttributes attributes = readAttributes(p, throttle);
+            if (attributes != null && attributes.isDirectory()) {
+                if (checkpoint.isCompleted(p)) {
+                    logger.debug("Skipping {} which was completely uploaded by a previous attempt", p);
+                    return;
+                }
                 logger.trace("Found directory while crawling home: {}", p);
+                checkpoint.directoryFound(p);
                 try (final DirectoryStream<Path> newPaths = Files.newDirectoryStream(p.toAbsolutePath())) {
                     listDirectories(base, queue, newPaths);
+                    checkpoint.directoryListed(p);
                 } catch (Exception e) {
                     logger.error("Error when traversing directory {}, with exception {}", p, e);
                     report.reportFileNotMigrated(new FailedFileMigration(p, e.getMessage()));
                 }
             } else {
+                if (checkpoint.isUploaded(p, attributes)) {
+                    return;
+                }
+                // Report the file before queueing it, so it is never seen as commenced before it was found
+                report.reportFileFound();
+                report.reportBytesFound(attributes == null ? 0 : attributes.size());
                 try {
                     logger.trace("queueing file: {}", p);
+                    checkpoint.fileQueued(p);
                     queue.put(p);
                 } catch (InterruptedException e) {
                     logger.error("Error when queuing {}, with exception {}", p, e);
                     report.reportFileNotMigrated(new FailedFileMigration(p, e.getMessage()));
                 }
-                report.reportFileFound();
             }
         });
     }
+
+    /**
+     * Reads the attributes of a path once the throttle allows another file to be read. An interrupted wait reads them
+     * anyway and keeps the interrupt, so queueing the file fails as it would have without the throttle.
+     */
+    static BasicFileAttributes readAttributes(Path p, UploadThrottle throttle) {
+        try {
+            throttle.acquireOperation();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return readAttributes(p);
+    }
+
+    /**
+     * Reads the attributes of a path, following links as {@link Files#isDirectory} does. Returns null if they can't be
+     * read, in which case the path is queued as a file so that the uploader reports why it couldn't be migrated.
+     */
+    static BasicFileAttributes readAttributes(Path p) {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
 }
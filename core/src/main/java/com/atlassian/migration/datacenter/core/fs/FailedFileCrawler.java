@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+
+import static com.atlassian.migration.datacenter.core.fs.DirectoryStreamCrawler.defaultIgnoreList;
+import static com.atlassian.migration.datacenter.core.fs.DirectoryStreamCrawler.readAttributes;
+
+/**
+ * Queues only the files which failed to migrate in a previous upload, rather than crawling the whole home. A failed
+ * directory is one which couldn't be listed, so it is listed again and all of its files are queued, skipping the same
+ * paths as the other crawlers and reading attributes under the same {@link UploadThrottle}.
+ */
+public class FailedFileCrawler implements Crawler {
+    private static final Logger logger = LoggerFactory.getLogger(FailedFileCrawler.class);
+
+    private final FileSystemMigrationReport report;
+    private final Collection<Path> failedFiles;
+    private final UploadThrottle throttle;
+
+    public FailedFileCrawler(FileSystemMigrationReport report, Collection<Path> failedFiles) {
+        this(report, failedFiles, UploadThrottle.unlimited());
+    }
+
+    public FailedFileCrawler(FileSystemMigrationReport report, Collection<Path> failedFiles, UploadThrottle throttle) {
+        this.report = report;
+        this.failedFiles = failedFiles;
+        this.throttle = throttle;
+    }
+
+    @Override
+    public void crawlDirectory(Path start, UploadQueue<Path> queue) throws IOException {
+        try {
+            for (Path path : failedFiles) {
+                final BasicFileAttributes attributes = readAttributes(path, throttle);
+                if (attributes != null && attributes.isDirectory()) {
+                    queueDirectory(start, path, queue);
+                } else {
+                    queueFile(path, attributes, queue);
+                }
+            }
+        } finally {
+            try {
+                logger.info("Queued {} previously failed files for upload.", report.getNumberOfFilesFound());
+                report.reportCrawlingFinished();
+                queue.finish();
+            } catch (InterruptedException e) {
+                logger.error("Failed to finalise upload queue.", e);
+            }
+        }
+    }
+
+    private void queueDirectory(Path start, Path directory, UploadQueue<Path> queue) {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            for (Path p : paths) {
+                if (p.startsWith(start) && defaultIgnoreList.matcher(start.relativize(p).toString()).matches()) {
+                    continue;
+                }
+                final BasicFileAttributes attributes = readAttributes(p, throttle);
+                if (attributes != null && attributes.isDirectory()) {
+                    queueDirectory(start, p, queue);
+                } else {
+                    queueFile(p, attributes, queue);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            logger.error("Error when traversing directory {}, with exception {}", directory, e);
+            report.reportFileNotMigrated(new FailedFileMigration(directory, e.getMessage()));
+        }
+    }
+
+    private void queueFile(Path file, BasicFileAttributes attributes, UploadQueue<Path> queue) {
+        // A file which no longer exists is queued anyway, the uploader reports it as not migrated
+        report.reportFileFound();
+        report.reportBytesFound(attributes == null ? 0 : attributes.size());
+        try {
+            logger.trace("queueing file: {}", file);
+            queue.put(file);
+        } catch (InterruptedException e) {
+            logger.error("Error when queuing {}, with exception {}", file, e);
+            report.reportFileNotMigrated(new FailedFileMigration(file, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a file into fixed size parts (except the last one) which can each be read independently by part number.
+ * <p>
+ * Parts are read with positional {@link FileChannel} reads, which don't touch the channel's position, so several parts
+ * can be read concurrently and a failed part can be read again without re-reading the rest of the file. The number of
+ * parts is based on the size of the file when the source is opened.
+ */
+public class FilePartSource implements Closeable {
+    private final Path file;
+    private final FileChannel channel;
+    private final int partSize;
+    private final long fileSize;
+
+    public FilePartSource(Path file, int partSize) throws IOException {
+        if (partSize < 1) {
+            throw new IllegalArgumentException("Part size must be at least 1 byte but was " + partSize);
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.partSize = partSize;
+        this.fileSize = channel.size();
+    }
+
+    /**
+     * @return number of parts the file is split into
+     */
+    public int getPartCount() {
+        return (int) ((fileSize + partSize - 1) / partSize);
+    }
+
+    /**
+     * @param partNumber 1-based part number, as used by S3
+     * @return size of the given part in bytes
+     */
+    public int getPartLength(int partNumber) {
+        return (int) Math.min(partSize, fileSize - getPartOffset(partNumber));
+    }
+
+    /**
+     * @param partNumber 1-based part number, as used by S3
+     * @return offset of the first byte of the given part in the file
+     */
+    public long getPartOffset(int partNumber) {
+        if (partNumber < 1 || partNumber > getPartCount()) {
+            throw new IndexOutOfBoundsException(String.format("Part %d is out of range for %s with %d parts", partNumber, file, getPartCount()));
+        }
+        return (long) (partNumber - 1) * partSize;
+    }
+
+    /**
+     * Reads the given part into the buffer, replacing its content. The buffer must be able to hold a whole part.
+     *
+     * @param partNumber 1-based part number, as used by S3
+     * @param buffer     buffer to read into, ideally a direct buffer so the read doesn't go through an intermediate copy
+     * @return the buffer, flipped so it contains exactly the bytes of the part
+     * @throws IOException if the file can't be read or is shorter than when the source was opened
+     */
+    public ByteBuffer readPart(int partNumber, ByteBuffer buffer) throws IOException {
+        final long offset = getPartOffset(partNumber);
+        final int length = getPartLength(partNumber);
+
+        // The re-typing is to provide compatibility when compiling with Java 9+ and running on Java 8
+        ((Buffer) buffer).clear();
+        ((Buffer) buffer).limit(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new EOFException(String.format("%s was truncated while reading part %d", file, partNumber));
+            }
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FilesystemMigrationStatus;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.atlassian.migration.datacenter.core.fs.DirectoryStreamCrawler.defaultIgnoreList;
+import static com.atlassian.migration.datacenter.core.fs.DirectoryStreamCrawler.readAttributes;
+
+/**
+ * Crawls the home directory using a dedicated {@link ForkJoinPool}, with one task per directory. Idle workers
+ * steal pending directories from busy ones, so deep or uneven trees (e.g. data/attachments) are listed concurrently.
+ * <p>
+ * Files are put on the same {@link UploadQueue} as {@link DirectoryStreamCrawler}; workers block when the queue is
+ * full so crawling never runs further ahead of the uploader than the queue allows. Crawling is only reported as
+ * finished, and the queue only finished, once every directory task has completed.
+ */
+public class ForkJoinCrawler implements Crawler {
+    private static final Logger logger = LoggerFactory.getLogger(ForkJoinCrawler.class);
+
+    private final FileSystemMigrationReport report;
+    private final int parallelism;
+    private final UploadCheckpoint checkpoint;
+    private final UploadThrottle throttle;
+
+    public ForkJoinCrawler(FileSystemMigrationReport report, int parallelism) {
+        this(report, parallelism, UploadCheckpoint.NONE);
+    }
+
+    public ForkJoinCrawler(FileSystemMigrationReport report, int parallelism, UploadCheckpoint checkpoint) {
+        this(report, parallelism, checkpoint, UploadThrottle.unlimited());
+    }
+
+    public ForkJoinCrawler(FileSystemMigrationReport report, int parallelism, UploadCheckpoint checkpoint, UploadThrottle throttle) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Crawler parallelism must be at least 1 but was " + parallelism);
+        }
+        this.report = report;
+        this.parallelism = parallelism;
+        this.checkpoint = checkpoint;
+        this.throttle = throttle;
+    }
+
+    @Override
+    public void crawlDirectory(Path start, UploadQueue<Path> queue) throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Fail on the calling thread if the start directory can't be listed, as DirectoryStreamCrawler does.
+            try (DirectoryStream<Path> ignored = Files.newDirectoryStream(start)) {
+                logger.debug("Crawling {} with parallelism {}", start, parallelism);
+            }
+            if (checkpoint.isCompleted(start)) {
+                logger.info("{} was completely uploaded by a previous attempt, nothing to crawl", start);
+                return;
+            }
+            checkpoint.directoryFound(start);
+            pool.submit(new DirectoryTask(start.getNameCount(), start, queue)).get();
+        } catch (NoSuchFileException e) {
+            logger.error("Failed to find path " + start, e);
+            report.reportFileNotMigrated(new FailedFileMigration(start, e.getMessage()));
+            report.setStatus(FilesystemMigrationStatus.FAILED);
+            throw e;
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while crawling {}, stopping crawler", start, e);
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Unexpected error when crawling {}", start, e.getCause());
+        } finally {
+            pool.shutdown();
+            try {
+                logger.info("Crawled and added {} files ({}) for upload.", report.getNumberOfFilesFound(), FileUtils.byteCountToDisplaySize(report.getNumberOfBytesFound()));
+                report.reportCrawlingFinished();
+                queue.finish();
+            } catch (InterruptedException e) {
+                logger.error("Failed to finalise upload queue.", e);
+            }
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final int baseNameCount;
+        private final Path directory;
+        private final UploadQueue<Path> queue;
+
+        DirectoryTask(int baseNameCount, Path directory, UploadQueue<Path> queue) {
+            this.baseNameCount = baseNameCount;
+            this.directory = directory;
+            this.queue = queue;
+        }
+
+        @Override
+        protected void compute() {
+            final List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory.toAbsolutePath())) {
+                for (Path p : paths) {
+                    String subpath = p.subpath(baseNameCount, p.getNameCount()).toString();
+                    if (defaultIgnoreList.matcher(subpath).matches()) {
+                        continue;
+                    }
+
+                    final BasicFileAttributes attributes = readAttributes(p, throttle);
+                    if (attributes != null && attributes.isDirectory()) {
+                        if (checkpoint.isCompleted(p)) {
+                            logger.debug("Skipping {} which was completely uploaded by a previous attempt", p);
+                            continue;
+                        }
+                        logger.trace("Found directory while crawling home: {}", p);
+                        checkpoint.directoryFound(p);
+                        DirectoryTask task = new DirectoryTask(baseNameCount, p, queue);
+                        task.fork();
+                        subdirectories.add(task);
+                    } else {
+                        queueFile(p, attributes);
+                    }
+                }
+                checkpoint.directoryListed(directory);
+            } catch (Exception e) {
+                logger.error("Error when traversing directory {}, with exception {}", directory, e);
+                report.reportFileNotMigrated(new FailedFileMigration(directory, e.getMessage()));
+            }
+            // Join after the stream is closed so we don't hold a file handle for every level of the tree
+            subdirectories.forEach(DirectoryTask::join);
+        }
+
+        private void queueFile(Path p, BasicFileAttributes attributes) {
+            if (checkpoint.isUploaded(p, attributes)) {
+                return;
+            }
+            // Counted before it is queued, as in DirectoryStreamCrawler
+            report.reportFileFound();
+            report.reportBytesFound(attributes == null ? 0 : attributes.size());
+            try {
+                logger.trace("queueing file: {}", p);
+                checkpoint.fileQueued(p);
+                queue.put(p);
+            } catch (InterruptedException e) {
+                logger.error("Error when queuing {}, with exception {}", p, e);
+                report.reportFileNotMigrated(new FailedFileMigration(p, e.getMessage()));
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link UploadCheckpoint} backed by an append-only journal of completed directories, one path relative to the home per
+ * line. Children always complete before their parent, so when the journal is loaded every directory under a completed
+ * directory is dropped. Only the highest completed directories are kept in memory and written back, which is bounded by
+ * how far the interrupted upload got through the tree rather than by the number of files in the home.
+ * <p>
+ * Directories are tracked in memory only while they are being listed or still have files in flight.
+ */
+public class JournalUploadCheckpoint implements UploadCheckpoint, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(JournalUploadCheckpoint.class);
+
+    private final Path home;
+    private final Set<String> completed;
+    private final Map<String, DirectoryState> inProgress = new ConcurrentHashMap<>();
+    private final BufferedWriter journal;
+
+    private JournalUploadCheckpoint(Path home, Set<String> completed, BufferedWriter journal) {
+        this.home = home.toAbsolutePath();
+        this.completed = completed;
+        this.journal = journal;
+    }
+
+    /**
+     * Loads and compacts the journal, creating it if it doesn't exist, and opens it for appending.
+     *
+     * @param journalFile journal of a previous upload of the same home, if any
+     * @param home        directory being uploaded
+     */
+    public static JournalUploadCheckpoint open(Path journalFile, Path home) throws IOException {
+        final NavigableSet<String> completed = load(journalFile);
+        if (!completed.isEmpty()) {
+            logger.info("Resuming upload of {}, skipping {} directories which were already uploaded", home, completed.size());
+        }
+
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        final Path compacted = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        Files.write(compacted, completed, StandardCharsets.UTF_8);
+        Files.move(compacted, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        final BufferedWriter writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        return new JournalUploadCheckpoint(home, Collections.unmodifiableSet(completed), writer);
+    }
+
+    static NavigableSet<String> load(Path journalFile) throws IOException {
+        final NavigableSet<String> completed = new TreeSet<>();
+        if (!Files.exists(journalFile)) {
+            return completed;
+        }
+
+        // The last line may have been cut short by a crash, and a truncated path could name another directory
+        final boolean lastLineComplete = endsWithNewline(journalFile);
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                final String next = reader.readLine();
+                if (next != null || lastLineComplete) {
+                    addCompleted(completed, line);
+                }
+                line = next;
+            }
+        }
+        return completed;
+    }
+
+    private static void addCompleted(NavigableSet<String> completed, String directory) {
+        if (directory.isEmpty()) {
+            // the home itself
+            completed.clear();
+        } else {
+            if (completed.contains("") || hasCompletedAncestor(completed, directory)) {
+                return;
+            }
+            // '0' is the character after '/', so this is every path under the directory
+            completed.subSet(directory + "/", true, directory + "0", false).clear();
+        }
+        completed.add(directory);
+    }
+
+    private static boolean hasCompletedAncestor(Set<String> completed, String directory) {
+        for (int i = directory.indexOf('/'); i >= 0; i = directory.indexOf('/', i + 1)) {
+            if (completed.contains(directory.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            final ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    @Override
+    public boolean isCompleted(Path directory) {
+        return completed.contains(key(directory));
+    }
+
+    @Override
+    public boolean isUploaded(Path file, BasicFileAttributes attributes) {
+        // only whole directories are recorded
+        return false;
+    }
+
+    @Override
+    public void directoryFound(Path directory) {
+        final String key = key(directory);
+        final Path parent = directory.toAbsolutePath().getParent();
+        final String parentKey = parent == null ? null : key(parent);
+        if (parentKey != null && inProgress.containsKey(parentKey)) {
+            inProgress.get(parentKey).pending.incrementAndGet();
+            inProgress.put(key, new DirectoryState(parentKey));
+        } else {
+            inProgress.put(key, new DirectoryState(null));
+        }
+    }
+
+    @Override
+    public void fileQueued(Path file) {
+        final DirectoryState state = inProgress.get(parentKey(file));
+        if (state != null) {
+            state.pending.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void directoryListed(Path directory) {
+        release(key(directory));
+    }
+
+    @Override
+    public void fileUploaded(Path file) {
+        release(parentKey(file));
+    }
+
+    private void release(String key) {
+        final DirectoryState state = inProgress.get(key);
+        if (state == null || state.pending.decrementAndGet() > 0) {
+            return;
+        }
+        inProgress.remove(key);
+        append(key);
+        if (state.parent != null) {
+            release(state.parent);
+        }
+    }
+
+    private void append(String directory) {
+        logger.trace("Directory {} is completely uploaded", directory);
+        synchronized (journal) {
+            try {
+                journal.write(directory);
+                journal.write('\n');
+                // A directory only counts as completed on retry once its line is on disk, so don't hold it until close
+                journal.flush();
+            } catch (IOException e) {
+                // Losing the checkpoint only means the directory is uploaded again on retry
+                logger.warn("Failed to record {} in the upload checkpoint", directory, e);
+            }
+        }
+    }
+
+    private String parentKey(Path file) {
+        return key(file.toAbsolutePath().getParent());
+    }
+
+    private String key(Path path) {
+        final Path absolute = path.toAbsolutePath();
+        return absolute.equals(home) ? "" : home.relativize(absolute).toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (journal) {
+            journal.close();
+        }
+    }
+
+    private static final class DirectoryState {
+        private final String parent;
+        // starts at one for the listing of the directory itself
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private DirectoryState(String parent) {
+            this.parent = parent;
+        }
+    }
+}
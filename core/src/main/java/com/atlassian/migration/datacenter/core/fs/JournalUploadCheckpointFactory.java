@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.spi.MigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Opens a {@link JournalUploadCheckpoint} kept in the given directory, normally in the local home. There is one journal
+ * per migration; journals of previous migrations are deleted so a new migration always uploads everything.
+ */
+public class JournalUploadCheckpointFactory implements UploadCheckpointFactory {
+    private static final Logger logger = LoggerFactory.getLogger(JournalUploadCheckpointFactory.class);
+    private static final String JOURNAL_PREFIX = "fs-upload-checkpoint-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final MigrationService migrationService;
+
+    public JournalUploadCheckpointFactory(Path directory, MigrationService migrationService) {
+        this.directory = directory;
+        this.migrationService = migrationService;
+    }
+
+    @Override
+    public UploadCheckpoint open(Path home) throws IOException {
+        final String journalName = JOURNAL_PREFIX + migrationService.getCurrentMigration().getID() + JOURNAL_SUFFIX;
+        Files.createDirectories(directory);
+        deleteOtherJournals(journalName);
+
+        return JournalUploadCheckpoint.open(directory.resolve(journalName), home);
+    }
+
+    private void deleteOtherJournals(String journalName) throws IOException {
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*")) {
+            for (Path journal : journals) {
+                if (!journal.getFileName().toString().startsWith(journalName)) {
+                    logger.info("Deleting upload checkpoint {} of a previous migration", journal);
+                    Files.deleteIfExists(journal);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads small files packed into {@link TarSegment}s, so that thousands of thumbnails and small attachments take one
+ * S3 request instead of one each. Files up to {@link S3UploadConfig#getPackedFileSizeLimit()} are read into the current
+ * segment, which is uploaded once it reaches {@link S3UploadConfig#getPackedSegmentSize()}. Larger files are handed to
+ * an {@link S3Uploader} running alongside on its own queue.
+ * <p>
+ * Packed files are only reported as uploaded when their segment is, and are all reported as failed if it isn't.
+ */
+public class PackingS3Uploader implements Uploader {
+    private static final Logger logger = LoggerFactory.getLogger(PackingS3Uploader.class);
+    private static final int DRAIN_BATCH_SIZE = 64;
+    private static final long HAND_OVER_POLL_MILLIS = 100;
+
+    private final S3UploadConfig config;
+    private final FileSystemMigrationReport report;
+    private final Uploader largeFileUploader;
+    private final Semaphore inFlightSegments;
+    private final UploadCheckpoint checkpoint;
+
+    public PackingS3Uploader(S3UploadConfig config, FileSystemMigrationReport report) {
+        this(config, report, UploadCheckpoint.NONE);
+    }
+
+    public PackingS3Uploader(S3UploadConfig config, FileSystemMigrationReport report, UploadCheckpoint checkpoint) {
+        this(config, report, checkpoint, new S3Uploader(config, report, checkpoint));
+    }
+
+    PackingS3Uploader(S3UploadConfig config, FileSystemMigrationReport report, Uploader largeFileUploader) {
+        this(config, report, UploadCheckpoint.NONE, largeFileUploader);
+    }
+
+    PackingS3Uploader(S3UploadConfig config, FileSystemMigrationReport report, UploadCheckpoint checkpoint, Uploader largeFileUploader) {
+        this.config = config;
+        this.report = report;
+        this.checkpoint = checkpoint;
+        this.largeFileUploader = largeFileUploader;
+        this.inFlightSegments = new Semaphore(config.getMaxInFlightParts());
+    }
+
+    @Override
+    public Integer maxConcurrent() {
+        return largeFileUploader.maxConcurrent();
+    }
+
+    @Override
+    public void upload(UploadQueue<Path> queue) throws FileUploadException {
+        final UploadQueue<Path> largeFiles = new UploadQueue<>(largeFileUploader.maxConcurrent());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<?> largeFileUpload = executor.submit(() -> {
+            largeFileUploader.upload(largeFiles);
+            return null;
+        });
+
+        try {
+            TarSegment segment = new TarSegment();
+            final List<Path> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+            while (queue.drainTo(batch, DRAIN_BATCH_SIZE) >= 0) {
+                for (Path path : batch) {
+                    if (!pack(path, segment)) {
+                        handOver(largeFileUpload, (timeout, unit) -> largeFiles.offer(path, timeout, unit));
+                    } else if (segment.size() >= config.getPackedSegmentSize()) {
+                        uploadSegment(segment);
+                        segment = new TarSegment();
+                    }
+                }
+                batch.clear();
+            }
+            if (!segment.isEmpty()) {
+                uploadSegment(segment);
+            }
+            handOver(largeFileUpload, largeFiles::finish);
+
+            logger.debug("Finished packing files, waiting for segment and large file uploads to complete");
+            largeFileUpload.get();
+            awaitInFlightSegments();
+        } catch (InterruptedException e) {
+            String msg = "InterruptedException while packing files from queue";
+            logger.error(msg, e);
+            largeFileUpload.cancel(true);
+            throw new FileUploadException(msg, e);
+        } catch (ExecutionException e) {
+            throw new FileUploadException("Failed to upload files which are too large to pack", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        logger.info("Finished uploading packed files to S3");
+    }
+
+    @FunctionalInterface
+    private interface TimedOffer {
+        boolean offer(long timeout, TimeUnit unit) throws InterruptedException;
+    }
+
+    /**
+     * Hands a file, or the end of the queue, over to the large file uploader. If the uploader has stopped, e.g. because
+     * it failed, nothing will ever take from its queue again, so its failure is thrown rather than waiting forever.
+     */
+    private void handOver(Future<?> largeFileUpload, TimedOffer offer) throws InterruptedException, ExecutionException, FileUploadException {
+        while (!offer.offer(HAND_OVER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (largeFileUpload.isDone()) {
+                largeFileUpload.get();
+                throw new FileUploadException("Stopped uploading files which are too large to pack before they were all queued");
+            }
+        }
+    }
+
+    /**
+     * Adds the file to the segment if it is small enough.
+     *
+     * @return false if the file should be uploaded on its own
+     */
+    private boolean pack(Path path, TarSegment segment) {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // let the S3Uploader report missing files as it always has
+            return false;
+        }
+        if (!attributes.isRegularFile() || attributes.size() > config.getPackedFileSizeLimit()) {
+            return false;
+        }
+
+        final String key = config.getSharedHome().relativize(path).toString();
+        try {
+            segment.add(key, Files.readAllBytes(path), attributes.lastModifiedTime().toMillis());
+            logger.trace("Packed {} into segment", path);
+        } catch (IOException e) {
+            addFailedFile(path, String.format("Failed to read file for packing: %s", e.getMessage()));
+        }
+        return true;
+    }
+
+    private void uploadSegment(TarSegment segment) throws InterruptedException {
+        final List<TarSegment.Entry> entries = segment.getEntries();
+        final String key = TarSegment.KEY_PREFIX + UUID.randomUUID() + TarSegment.KEY_SUFFIX;
+
+        config.getThrottle().acquireOperation();
+        config.getThrottle().acquireBytes(segment.size());
+        inFlightSegments.acquire();
+        logger.debug("Uploading segment {} with {} files", key, entries.size());
+        final PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(config.getBucketName())
+                .key(key)
+                .build();
+        final CompletableFuture<PutObjectResponse> response;
+        try {
+            response = config.getS3AsyncClient().putObject(putRequest, new ByteBufferAsyncRequestBody(segment.finish()));
+        } catch (RuntimeException e) {
+            inFlightSegments.release();
+            entries.forEach(entry -> addFailedFile(config.getSharedHome().resolve(entry.getKey()), e.getMessage()));
+            return;
+        }
+        entries.forEach(entry -> {
+            report.reportFileUploadCommenced();
+            report.reportBytesUploadCommenced(entry.getSize());
+        });
+
+        response.whenComplete((evaluatedResponse, throwable) -> {
+            try {
+                handleSegmentResponse(key, entries, evaluatedResponse, throwable);
+            } finally {
+                inFlightSegments.release();
+            }
+        });
+    }
+
+    private void handleSegmentResponse(String key, List<TarSegment.Entry> entries, PutObjectResponse evaluatedResponse, Throwable throwable) {
+        final String failure;
+        if (throwable != null) {
+            final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            failure = cause.getMessage();
+        } else if (!evaluatedResponse.sdkHttpResponse().isSuccessful()) {
+            failure = String.format("Error when uploading segment %s to S3, %s", key, evaluatedResponse.sdkHttpResponse().statusText());
+        } else {
+            logger.trace("Segment {} migrated successfully", key);
+            entries.forEach(entry -> {
+                report.reportFileUploaded();
+                report.reportBytesUploaded(entry.getSize());
+                checkpoint.fileUploaded(config.getSharedHome().resolve(entry.getKey()));
+            });
+            return;
+        }
+        logger.warn("Error uploading segment {} to S3 - {}", key, failure);
+        entries.forEach(entry -> {
+            report.reportBytesUploadFailed(entry.getSize());
+            addFailedFile(config.getSharedHome().resolve(entry.getKey()), failure);
+        });
+    }
+
+    private void awaitInFlightSegments() throws InterruptedException {
+        final int windowSize = config.getMaxInFlightParts();
+        inFlightSegments.acquire(windowSize);
+        inFlightSegments.release(windowSize);
+    }
+
+    private void addFailedFile(Path file, String reason) {
+        report.reportFileNotMigrated(new FailedFileMigration(file, reason));
+        logger.error("File {} wasn't uploaded. Reason: {}", file, reason);
+    }
+}
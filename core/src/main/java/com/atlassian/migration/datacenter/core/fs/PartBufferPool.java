@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A bounded pool of direct buffers which multipart uploads read their parts into. Buffers are allocated the first time
+ * they are needed and then reused by the following uploads, so the direct memory used by all the uploads sharing the
+ * pool never grows past its capacity times the largest part size, however many files are uploaded.
+ * <p>
+ * A pooled buffer which is too small for the part size requested is replaced by a larger one, which only happens for
+ * files large enough to need more than {@link S3UploadConfig#getMinPartSize()} per part.
+ */
+class PartBufferPool {
+    private final Semaphore available;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param capacity maximum number of buffers lent out at the same time
+     */
+    PartBufferPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Buffer pool capacity must be at least 1 but was " + capacity);
+        }
+        this.available = new Semaphore(capacity);
+    }
+
+    /**
+     * Borrows a buffer, waiting until one is returned if they are all lent out.
+     *
+     * @param size the number of bytes the buffer must hold
+     * @return a direct buffer with a capacity of at least {@code size} bytes
+     */
+    ByteBuffer acquire(int size) throws InterruptedException {
+        available.acquire();
+        final ByteBuffer buffer = buffers.poll();
+        if (buffer != null && buffer.capacity() >= size) {
+            return buffer;
+        }
+        try {
+            return ByteBuffer.allocateDirect(size);
+        } catch (OutOfMemoryError e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a buffer borrowed by {@link #acquire(int)} so that another part can be read into it.
+     */
+    void release(ByteBuffer buffer) {
+        buffers.add(buffer);
+        available.release();
+    }
+}
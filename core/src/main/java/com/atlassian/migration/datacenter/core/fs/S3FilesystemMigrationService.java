@@ -33,6 +33,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.env.Environment;
 
+import java.util.Collections;
+
 import static com.atlassian.migration.datacenter.spi.MigrationStage.*;
 import static com.atlassian.migration.datacenter.spi.MigrationStage.FS_MIGRATION_COPY;
 import static com.atlassian.migration.datacenter.spi.MigrationStage.FS_MIGRATION_ERROR;
@@ -77,12 +79,24 @@ public class S3FilesystemMigrationService implements FilesystemMigrationService,
     @Override
     public boolean scheduleMigration() throws InvalidMigrationStageError {
         logger.info("Scheduling S3 FS migration");
+        return scheduleUpload(false);
+    }
+
+    @Override
+    public boolean scheduleFailedFileRetry() throws InvalidMigrationStageError {
+        logger.info("Scheduling retry of the files which failed to migrate to S3");
+        return scheduleUpload(true);
+    }
+
+    private boolean scheduleUpload(boolean failedFilesOnly) throws InvalidMigrationStageError {
         migrationService.assertCurrentStage(FS_MIGRATION_COPY);
 
         JobId jobId = getScheduledJobIdForMigration(migrationService.getCurrentMigration().getID());
         S3UploadJobRunner jobRunner = new S3UploadJobRunner(this, reportManager);
 
-        boolean result = migrationRunner.runMigration(jobId, jobRunner);
+        boolean result = failedFilesOnly
+                ? migrationRunner.runMigration(jobId, jobRunner, Collections.singletonMap(S3UploadJobRunner.FAILED_FILES_ONLY_PARAMETER, true))
+                : migrationRunner.runMigration(jobId, jobRunner);
 
         if (!result) {
             migrationService.error("Error starting filesystem migration job.");
@@ -97,6 +111,20 @@ public class S3FilesystemMigrationService implements FilesystemMigrationService,
     @Override
     public void startMigration() throws InvalidMigrationStageError {
         logger.info("Starting S3 filesystem migration");
+        runUpload(false);
+    }
+
+    /**
+     * Start an upload of the files which failed to migrate in the previous upload, then download them on the target as
+     * with a whole migration. This is a blocking operation.
+     */
+    @Override
+    public void startFailedFileRetry() throws InvalidMigrationStageError {
+        logger.info("Starting retry of the files which failed to migrate to S3");
+        runUpload(true);
+    }
+
+    private void runUpload(boolean failedFilesOnly) throws InvalidMigrationStageError {
         if (isRunning()) {
             logger.warn("Filesystem migration is currently in progress, aborting new execution.");
             return;
@@ -111,7 +139,11 @@ public class S3FilesystemMigrationService implements FilesystemMigrationService,
 
         logger.info("commencing upload of shared home");
         try {
-            bulkCopy.copySharedHomeToS3();
+            if (failedFilesOnly) {
+                bulkCopy.retryFailedFiles();
+            } else {
+                bulkCopy.copySharedHomeToS3();
+            }
 
             logger.info("upload of shared home complete. commencing shared home download");
             report.setStatus(DOWNLOADING);
@@ -19,6 +19,7 @@ package com.atlassian.migration.datacenter.core.fs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
@@ -26,18 +27,17 @@ import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.UploadPartRequest;
-import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Uploads file to S3 in multiple parts.
@@ -46,6 +46,16 @@ import java.util.concurrent.ExecutionException;
  * 2. Split the file into same sized parts (except the last one) and upload them to S3
  * 3. Confirm the upload has finished with all the required parts
  * <p>
+ * Up to {@link S3UploadConfig#getMaxInFlightParts()} parts are uploaded concurrently, fewer if the
+ * {@link AdaptiveConcurrencyLimiter} shared with the other uploads has no slots free. Every part waits for the
+ * {@link S3UploadConfig#getThrottle()} limits before taking a slot, so large files count against the same request and
+ * byte rates as the single request uploads. Each part is read by offset with
+ * a positional read into a direct buffer borrowed from a {@link PartBufferPool}, and sent to S3 from that buffer without
+ * copying it onto the heap. The buffers are borrowed when the upload starts and given back when it finishes, and the
+ * pool is shared by all the multipart uploads of an {@link S3Uploader}, so their direct memory stays bounded however
+ * many files are uploaded. A failed part is read again from its offset and retried on its own; if it still fails the
+ * multipart upload is aborted so S3 doesn't keep the orphaned parts.
+ * <p>
  * All files larger than 5MB (hard AWS limit) are required to be uploaded via this method.
  * <p>
  * https://docs.aws.amazon.com/AmazonS3/latest/dev/mpuoverview.html
@@ -53,44 +63,96 @@ import java.util.concurrent.ExecutionException;
  */
 public class S3MultiPartUploader {
     private final static Logger logger = LoggerFactory.getLogger(S3MultiPartUploader.class);
+    private static final int MAX_PART_ATTEMPTS = 3;
+
     private final S3UploadConfig config;
     private final File file;
     private final String key;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final PartBufferPool bufferPool;
 
     private int sizeToUpload = 25 * 1024 * 1024; // 25 MB
     private List<CompletedPart> completedParts = new ArrayList<>();
-    private ByteBuffer buffer;
-    private int uploadPartNumber = 1;
 
     public S3MultiPartUploader(S3UploadConfig config, File file, String key) {
+        this(config, file, key, AdaptiveConcurrencyLimiter.fixed(config.getMaxInFlightParts()), new PartBufferPool(config.getMaxInFlightParts()));
+    }
+
+    /**
+     * @param concurrencyLimiter limits the parts in flight alongside the other uploads sharing the limiter
+     * @param bufferPool         lends the part buffers, alongside the other uploads sharing the pool
+     */
+    S3MultiPartUploader(S3UploadConfig config, File file, String key, AdaptiveConcurrencyLimiter concurrencyLimiter, PartBufferPool bufferPool) {
         this.config = config;
         this.file = file;
         this.key = key;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.bufferPool = bufferPool;
     }
 
-    public void upload() throws ExecutionException, InterruptedException {
-        // lazily loaded to save memory
-        buffer = ByteBuffer.allocate(getSizeToUpload());
-
+    public void upload() throws ExecutionException, InterruptedException, IOException {
         String uploadId = initiateUpload();
 
-        try (FileInputStream fileInputStream = new FileInputStream(file);
-             BufferedInputStream bufferedInputStream = new BufferedInputStream(fileInputStream)) {
-
-            int readBytes;
-            while ((readBytes = bufferedInputStream.read(buffer.array())) > 0) {
-                logger.trace("Read {} bytes from file {}", readBytes, file);
-
-                String etag = uploadChunk(uploadId, uploadPartNumber, readBytes);
-                logger.debug("Uploaded part {} with etag {}", uploadPartNumber, etag);
+        final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        final AtomicBoolean partFailed = new AtomicBoolean(false);
+        try (FilePartSource source = new FilePartSource(file.toPath(), getSizeToUpload())) {
+            final BlockingQueue<ByteBuffer> buffers = borrowBuffers(source);
+            try {
+                for (int partNumber = 1; partNumber <= source.getPartCount() && !partFailed.get(); partNumber++) {
+                    final ByteBuffer buffer = buffers.take();
+                    if (partFailed.get()) {
+                        buffers.add(buffer);
+                        break;
+                    }
 
-                uploadPartNumber = completePart(uploadPartNumber, etag);
+                    final int currentPart = partNumber;
+                    final int partLength = source.getPartLength(currentPart);
+                    final long start;
+                    try {
+                        config.getThrottle().acquireOperation();
+                        config.getThrottle().acquireBytes(partLength);
+                        start = concurrencyLimiter.acquire();
+                    } catch (InterruptedException e) {
+                        buffers.add(buffer);
+                        throw e;
+                    }
+                    final CompletableFuture<CompletedPart> part = uploadPart(source, uploadId, currentPart, buffer, 1);
+                    // the buffer is back in the queue by the time the part counts as done
+                    parts.add(part.whenComplete((completedPart, throwable) -> {
+                        concurrencyLimiter.release(start, partLength, throwable == null
+                                ? AdaptiveConcurrencyLimiter.Outcome.SUCCESS
+                                : AdaptiveConcurrencyLimiter.outcomeOf(throwable));
+                        if (throwable != null) {
+                            logger.error("Failed to upload part {} of {}", currentPart, key, throwable);
+                            partFailed.set(true);
+                        } else {
+                            logger.debug("Uploaded part {} with etag {}", currentPart, completedPart.eTag());
+                        }
+                        buffers.add(buffer);
+                    }));
+                }
+            } finally {
+                // retries read from the source, so it must stay open until every part is done
+                awaitParts(parts);
+                buffers.forEach(bufferPool::release);
             }
         } catch (IOException e) {
-            logger.error("Cannot open file for the multi-part upload", e);
+            logger.error("Cannot read file for the multi-part upload", e);
+            abortUpload(uploadId);
+            throw e;
+        } catch (InterruptedException e) {
+            abortUpload(uploadId);
+            throw e;
+        }
+
+        try {
+            for (CompletableFuture<CompletedPart> part : parts) {
+                completedParts.add(part.get());
+            }
+        } catch (ExecutionException e) {
+            abortUpload(uploadId);
+            throw e;
         }
-        // The re-typing is to provide compatibility when compiling with Java 9+ and running on Java 8
-        ((Buffer) buffer).clear();
 
         logger.trace("Finished uploading parts, sending complete request.");
         try {
@@ -98,6 +160,8 @@ public class S3MultiPartUploader {
             logger.debug("Finished multipart upload for {} with {} parts", key, completedParts.size());
         } catch (InterruptedException | ExecutionException e) {
             logger.error("Encountered error when uploading multipart file.", e);
+            abortUpload(uploadId);
+            throw e;
         }
     }
 
@@ -119,6 +183,26 @@ public class S3MultiPartUploader {
         this.sizeToUpload = sizeToUpload;
     }
 
+    /**
+     * Borrows only as many buffers as there can be parts in flight, each large enough for a part of this file. They are
+     * given back to the pool once every part is done.
+     */
+    private BlockingQueue<ByteBuffer> borrowBuffers(FilePartSource source) throws InterruptedException {
+        final int partCount = source.getPartCount();
+        final int bufferCount = Math.max(1, Math.min(config.getMaxInFlightParts(), partCount));
+        final int bufferSize = partCount > 0 ? source.getPartLength(1) : 0;
+        final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(bufferCount);
+        try {
+            for (int i = 0; i < bufferCount; i++) {
+                buffers.add(bufferPool.acquire(bufferSize));
+            }
+        } catch (InterruptedException e) {
+            buffers.forEach(bufferPool::release);
+            throw e;
+        }
+        return buffers;
+    }
+
     private String initiateUpload() throws InterruptedException, ExecutionException {
         CreateMultipartUploadRequest createMultipartUploadRequest = CreateMultipartUploadRequest.builder()
                 .bucket(config.getBucketName())
@@ -128,7 +212,45 @@ public class S3MultiPartUploader {
         return response.uploadId();
     }
 
-    private String uploadChunk(String uploadId, int uploadPartNumber, int readBytes) throws InterruptedException, ExecutionException {
+    /**
+     * Reads the part from its offset in the file and uploads it. A failed part is read again and re-uploaded, up to
+     * {@link #MAX_PART_ATTEMPTS} times, without touching the other parts.
+     */
+    private CompletableFuture<CompletedPart> uploadPart(FilePartSource source, String uploadId, int partNumber, ByteBuffer buffer, int attempt) {
+        try {
+            source.readPart(partNumber, buffer);
+        } catch (IOException e) {
+            CompletableFuture<CompletedPart> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        logger.trace("Read {} bytes of part {} from file {}", buffer.remaining(), partNumber, file);
+
+        final CompletableFuture<CompletedPart> result = new CompletableFuture<>();
+        uploadChunk(uploadId, partNumber, buffer).whenComplete((completedPart, throwable) -> {
+            if (throwable == null) {
+                result.complete(completedPart);
+            } else if (attempt < MAX_PART_ATTEMPTS) {
+                if (AdaptiveConcurrencyLimiter.outcomeOf(throwable) == AdaptiveConcurrencyLimiter.Outcome.DROPPED) {
+                    // the retry keeps the part's slot, but the limiter should still back off
+                    concurrencyLimiter.dropped();
+                }
+                logger.warn("Failed to upload part {} of {} on attempt {}, retrying", partNumber, key, attempt, throwable);
+                uploadPart(source, uploadId, partNumber, buffer, attempt + 1).whenComplete((retried, retryFailure) -> {
+                    if (retryFailure == null) {
+                        result.complete(retried);
+                    } else {
+                        result.completeExceptionally(retryFailure);
+                    }
+                });
+            } else {
+                result.completeExceptionally(throwable);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<CompletedPart> uploadChunk(String uploadId, int uploadPartNumber, ByteBuffer buffer) {
         UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
                 .bucket(config.getBucketName())
                 .key(key)
@@ -136,29 +258,36 @@ public class S3MultiPartUploader {
                 .partNumber(uploadPartNumber)
                 .build();
 
-        AsyncRequestBody body;
-        if (readBytes < buffer.limit()) {
-            // We need to limit the buffer if the rest of the file is smaller than the allocated size.
-            // If don't do this, the size of the sent part will be always equal to the buffer size.
-            // The re-typing is to provide compatibility when compiling with Java 9+ and running on Java 8
-            body = AsyncRequestBody.fromByteBuffer((ByteBuffer) ((Buffer) buffer).limit(readBytes));
-        } else {
-            body = AsyncRequestBody.fromByteBuffer(buffer);
+        // Publishes the part straight from the direct buffer; AsyncRequestBody.fromByteBuffer would copy it to the heap
+        AsyncRequestBody body = new ByteBufferAsyncRequestBody(buffer);
+        try {
+            return config.getS3AsyncClient()
+                    .uploadPart(uploadPartRequest, body)
+                    .thenApply(response -> completePart(uploadPartNumber, response.eTag()));
+        } catch (RuntimeException e) {
+            CompletableFuture<CompletedPart> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
         }
-        final CompletableFuture<UploadPartResponse> uploadPartResponseCompletableFuture = config.getS3AsyncClient().uploadPart(uploadPartRequest, body);
-
-        UploadPartResponse uploadPartResponse = uploadPartResponseCompletableFuture.get();
-        return uploadPartResponse.eTag();
     }
 
-    private int completePart(int uploadPartNumber, String etag) {
-        CompletedPart part = CompletedPart.builder()
+    private static CompletedPart completePart(int uploadPartNumber, String etag) {
+        return CompletedPart.builder()
                 .partNumber(uploadPartNumber)
                 .eTag(etag)
                 .build();
-        completedParts.add(part);
+    }
 
-        return uploadPartNumber + 1;
+    /**
+     * Waits until every submitted part has either completed or failed, so nothing is in flight when we complete or
+     * abort the upload.
+     */
+    private static void awaitParts(List<CompletableFuture<CompletedPart>> parts) throws InterruptedException {
+        try {
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException e) {
+            logger.trace("At least one part failed to upload", e);
+        }
     }
 
     private CompletableFuture<CompleteMultipartUploadResponse> completeUpload(String key, String uploadId) {
@@ -174,4 +303,21 @@ public class S3MultiPartUploader {
                         .build();
         return config.getS3AsyncClient().completeMultipartUpload(completeMultipartUploadRequest);
     }
+
+    private void abortUpload(String uploadId) {
+        logger.warn("Aborting multipart upload of {}", key);
+        AbortMultipartUploadRequest abortMultipartUploadRequest = AbortMultipartUploadRequest.builder()
+                .bucket(config.getBucketName())
+                .key(key)
+                .uploadId(uploadId)
+                .build();
+        try {
+            config.getS3AsyncClient().abortMultipartUpload(abortMultipartUploadRequest).get();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while aborting multipart upload of {}", key, e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            logger.error("Failed to abort multipart upload of {}. Its parts will remain in the bucket until it is cleaned up.", key, e);
+        }
+    }
 }
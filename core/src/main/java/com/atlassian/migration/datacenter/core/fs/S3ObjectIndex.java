@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Size and modification time of every object in a bucket, held in parallel arrays sorted by a 64-bit hash of the key
+ * rather than in a map or by the keys themselves, so that an index of a few million objects costs 24 bytes per object.
+ * Two keys would have to share a hash, a size and a modification time for a file to be wrongly skipped.
+ * <p>
+ * Segments of packed files are not indexed, as they don't correspond to a file in the home, and neither are the files
+ * packed into them, so packed files are uploaded again by a delta sync.
+ */
+public class S3ObjectIndex {
+    private static final Logger logger = LoggerFactory.getLogger(S3ObjectIndex.class);
+
+    private final long[] hashes;
+    private final long[] sizes;
+    private final long[] lastModified;
+
+    private S3ObjectIndex(long[] hashes, long[] sizes, long[] lastModified) {
+        this.hashes = hashes;
+        this.sizes = sizes;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Lists every object in the bucket, one page at a time.
+     *
+     * @throws IOException if the bucket can't be listed
+     */
+    public static S3ObjectIndex load(S3AsyncClient client, String bucket) throws IOException {
+        final Builder builder = new Builder();
+        String continuationToken = null;
+        try {
+            do {
+                final ListObjectsV2Request request = ListObjectsV2Request.builder()
+                        .bucket(bucket)
+                        .continuationToken(continuationToken)
+                        .build();
+                final ListObjectsV2Response response = client.listObjectsV2(request).join();
+                for (S3Object object : response.contents()) {
+                    if (!object.key().startsWith(TarSegment.KEY_PREFIX)) {
+                        builder.add(object.key(), object.size(), object.lastModified().toEpochMilli());
+                    }
+                }
+                continuationToken = response.isTruncated() ? response.nextContinuationToken() : null;
+            } while (continuationToken != null);
+        } catch (CompletionException e) {
+            throw new IOException(String.format("Failed to list objects in %s", bucket), e.getCause());
+        }
+
+        final S3ObjectIndex index = builder.build();
+        logger.info("Indexed {} objects already in {}", index.size(), bucket);
+        return index;
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    /**
+     * A file is considered uploaded if an object with the same size was created after the file was last modified.
+     * S3 sets the modification time of an object when its upload is initiated, so a file changed during its upload
+     * won't match.
+     *
+     * @param key          key the file would be uploaded to
+     * @param size         size of the file in bytes
+     * @param lastModified modification time of the file in milliseconds since the epoch
+     */
+    public boolean isUploaded(String key, long size, long lastModified) {
+        final long hash = hash(key);
+        final int found = Arrays.binarySearch(hashes, hash);
+        if (found < 0) {
+            return false;
+        }
+        int i = found;
+        while (i > 0 && hashes[i - 1] == hash) {
+            i--;
+        }
+        for (; i < hashes.length && hashes[i] == hash; i++) {
+            if (sizes[i] == size && this.lastModified[i] >= lastModified) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units of the key, finished with the MurmurHash3 mix so that keys which differ only in
+     * their last characters are spread over the whole range.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static class Builder {
+        private long[] hashes = new long[1024];
+        private long[] sizes = new long[1024];
+        private long[] lastModified = new long[1024];
+        private int count;
+
+        Builder add(String key, long size, long lastModified) {
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+                this.lastModified = Arrays.copyOf(this.lastModified, count * 2);
+            }
+            hashes[count] = hash(key);
+            sizes[count] = size;
+            this.lastModified[count] = lastModified;
+            count++;
+            return this;
+        }
+
+        S3ObjectIndex build() {
+            final long[] sortedHashes = Arrays.copyOf(hashes, count);
+            final long[] sortedSizes = Arrays.copyOf(sizes, count);
+            final long[] sortedLastModified = Arrays.copyOf(lastModified, count);
+            sort(sortedHashes, sortedSizes, sortedLastModified);
+            return new S3ObjectIndex(sortedHashes, sortedSizes, sortedLastModified);
+        }
+
+        /**
+         * Heapsorts the hashes in place, moving the sizes and modification times with them, so that sorting needs no
+         * boxed or temporary arrays.
+         */
+        private static void sort(long[] hashes, long[] sizes, long[] lastModified) {
+            final int n = hashes.length;
+            for (int i = n / 2 - 1; i >= 0; i--) {
+                siftDown(hashes, sizes, lastModified, i, n);
+            }
+            for (int end = n - 1; end > 0; end--) {
+                swap(hashes, sizes, lastModified, 0, end);
+                siftDown(hashes, sizes, lastModified, 0, end);
+            }
+        }
+
+        private static void siftDown(long[] hashes, long[] sizes, long[] lastModified, int root, int end) {
+            while (2 * root + 1 < end) {
+                int child = 2 * root + 1;
+                if (child + 1 < end && hashes[child + 1] > hashes[child]) {
+                    child++;
+                }
+                if (hashes[root] >= hashes[child]) {
+                    return;
+                }
+                swap(hashes, sizes, lastModified, root, child);
+                root = child;
+            }
+        }
+
+        private static void swap(long[] hashes, long[] sizes, long[] lastModified, int i, int j) {
+            final long hash = hashes[i];
+            hashes[i] = hashes[j];
+            hashes[j] = hash;
+            final long size = sizes[i];
+            sizes[i] = sizes[j];
+            sizes[j] = size;
+            final long modified = lastModified[i];
+            lastModified[i] = lastModified[j];
+            lastModified[j] = modified;
+        }
+    }
+}
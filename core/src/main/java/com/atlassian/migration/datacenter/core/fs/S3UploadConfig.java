@@ -16,6 +16,7 @@
 
 package com.atlassian.migration.datacenter.core.fs;
 
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
 import java.nio.file.Path;
@@ -24,14 +25,69 @@ import java.nio.file.Path;
  * Contains configuration for S3 upload calls
  */
 public class S3UploadConfig {
+    public static final int DEFAULT_MAX_IN_FLIGHT_UPLOADS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.maxInFlightUploads", 50);
+    public static final int DEFAULT_MIN_IN_FLIGHT_UPLOADS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.minInFlightUploads", 4);
+    public static final int DEFAULT_MAX_ADAPTIVE_IN_FLIGHT_UPLOADS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.maxAdaptiveInFlightUploads", 512);
+    public static final int DEFAULT_MAX_IN_FLIGHT_PARTS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.maxInFlightParts", 4);
+    public static final int DEFAULT_MAX_CONCURRENT_MULTIPART_UPLOADS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.maxConcurrentMultipartUploads", 4);
+    public static final long DEFAULT_MULTIPART_THRESHOLD = Long
+            .getLong("com.atlassian.migration.datacenter.fs.multipartThreshold", 64 * 1024 * 1024L); // 64MB
+    public static final int DEFAULT_MIN_PART_SIZE = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.minPartSize", 8 * 1024 * 1024); // 8MB
+    public static final int DEFAULT_PACKED_FILE_SIZE_LIMIT = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.packedFileSizeLimit", 64 * 1024); // 64KB
+    public static final int DEFAULT_PACKED_SEGMENT_SIZE = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.packedSegmentSize", 8 * 1024 * 1024); // 8MB
+    public static final int DEFAULT_MAX_UPLOAD_ATTEMPTS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.maxUploadAttempts", 5);
+    public static final long DEFAULT_RETRY_BASE_DELAY_MILLIS = Long
+            .getLong("com.atlassian.migration.datacenter.fs.retryBaseDelayMillis", 200L);
+    public static final long DEFAULT_RETRY_MAX_DELAY_MILLIS = Long
+            .getLong("com.atlassian.migration.datacenter.fs.retryMaxDelayMillis", 20_000L);
+    public static final int DEFAULT_RETRY_BUDGET = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.retryBudget", 10_000);
+
+    // https://docs.aws.amazon.com/AmazonS3/latest/dev/qfacts.html
+    static final long MAXIMUM_SINGLE_UPLOAD_SIZE = 5 * 1024 * 1024 * 1024L; // 5GB
+    static final int MINIMUM_PART_SIZE = 5 * 1024 * 1024; // 5MB
+    static final int MAXIMUM_PART_COUNT = 10_000;
+    private static final int PART_SIZE_ALIGNMENT = 1024 * 1024;
+
     private String bucketName;
     private S3AsyncClient s3AsyncClient;
     private Path sharedHome;
+    private int maxInFlightUploads;
+    private int minInFlightUploads = DEFAULT_MIN_IN_FLIGHT_UPLOADS;
+    private int maxAdaptiveInFlightUploads = DEFAULT_MAX_ADAPTIVE_IN_FLIGHT_UPLOADS;
+    private int maxInFlightParts = DEFAULT_MAX_IN_FLIGHT_PARTS;
+    private int maxConcurrentMultipartUploads = DEFAULT_MAX_CONCURRENT_MULTIPART_UPLOADS;
+    private long multipartThreshold = DEFAULT_MULTIPART_THRESHOLD;
+    private int minPartSize = DEFAULT_MIN_PART_SIZE;
+    private int packedFileSizeLimit = DEFAULT_PACKED_FILE_SIZE_LIMIT;
+    private int packedSegmentSize = DEFAULT_PACKED_SEGMENT_SIZE;
+    private int maxUploadAttempts = DEFAULT_MAX_UPLOAD_ATTEMPTS;
+    private long retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+    private long retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+    private int retryBudget = DEFAULT_RETRY_BUDGET;
+    private UploadThrottle throttle = UploadThrottle.unlimited();
 
     public S3UploadConfig(String bucketName, S3AsyncClient s3AsyncClient, Path sharedHome) {
+        this(bucketName, s3AsyncClient, sharedHome, DEFAULT_MAX_IN_FLIGHT_UPLOADS);
+    }
+
+    public S3UploadConfig(String bucketName, S3AsyncClient s3AsyncClient, Path sharedHome, int maxInFlightUploads) {
+        if (maxInFlightUploads < 1) {
+            throw new IllegalArgumentException("Maximum in-flight uploads must be at least 1 but was " + maxInFlightUploads);
+        }
         this.bucketName = bucketName;
         this.s3AsyncClient = s3AsyncClient;
         this.sharedHome = sharedHome;
+        this.maxInFlightUploads = maxInFlightUploads;
     }
 
     /**
@@ -60,4 +116,290 @@ public class S3UploadConfig {
     public Path getSharedHome() {
         return sharedHome;
     }
+
+    /**
+     * Starting size of the upload window, i.e. the maximum number of S3 uploads which may be in progress at the same
+     * time. A new upload is started as soon as any in-flight upload completes. The window then grows or shrinks with
+     * the throughput and latency of the uploads, between {@link #getMinInFlightUploads()} and
+     * {@link #getMaxAdaptiveInFlightUploads()}.
+     *
+     * @return starting number of concurrent uploads
+     */
+    public int getMaxInFlightUploads() {
+        return maxInFlightUploads;
+    }
+
+    /**
+     * Smallest the upload window shrinks to when S3 throttles the uploads or their latency rises. Capped at
+     * {@link #getMaxInFlightUploads()}.
+     *
+     * @return minimum number of concurrent uploads
+     */
+    public int getMinInFlightUploads() {
+        return minInFlightUploads;
+    }
+
+    /**
+     * Largest the upload window grows to while throughput keeps up. Never below {@link #getMaxInFlightUploads()}.
+     *
+     * @return maximum number of concurrent uploads once the window has adapted
+     */
+    public int getMaxAdaptiveInFlightUploads() {
+        return maxAdaptiveInFlightUploads;
+    }
+
+    /**
+     * Changes how far the upload window may adapt. Setting both to {@link #getMaxInFlightUploads()} keeps the window
+     * fixed.
+     *
+     * @param minInFlightUploads         minimum number of concurrent uploads
+     * @param maxAdaptiveInFlightUploads maximum number of concurrent uploads
+     */
+    public void setInFlightUploadLimits(int minInFlightUploads, int maxAdaptiveInFlightUploads) {
+        if (minInFlightUploads < 1 || maxAdaptiveInFlightUploads < minInFlightUploads) {
+            throw new IllegalArgumentException(String.format("In-flight upload limits must be at least 1 with the minimum no more than the maximum but were %d and %d", minInFlightUploads, maxAdaptiveInFlightUploads));
+        }
+        this.minInFlightUploads = minInFlightUploads;
+        this.maxAdaptiveInFlightUploads = maxAdaptiveInFlightUploads;
+    }
+
+    /**
+     * Maximum number of parts of a single multipart upload which are uploaded concurrently. Each in-flight part holds
+     * one part-sized buffer, so this also bounds the memory used by a multipart upload.
+     *
+     * @return maximum number of concurrent part uploads per file
+     */
+    public int getMaxInFlightParts() {
+        return maxInFlightParts;
+    }
+
+    /**
+     * Changes the number of parts of a multipart upload which are uploaded concurrently
+     *
+     * @param maxInFlightParts maximum number of concurrent part uploads per file, 1 uploads parts one by one
+     */
+    public void setMaxInFlightParts(int maxInFlightParts) {
+        if (maxInFlightParts < 1) {
+            throw new IllegalArgumentException("Maximum in-flight parts must be at least 1 but was " + maxInFlightParts);
+        }
+        this.maxInFlightParts = maxInFlightParts;
+    }
+
+    /**
+     * Maximum number of files which are uploaded in parts at the same time, alongside the single request uploads. They
+     * share a pool of this many times {@link #getMaxInFlightParts()} part buffers, so this bounds the direct memory used
+     * by multipart uploads.
+     *
+     * @return maximum number of concurrent multipart uploads
+     */
+    public int getMaxConcurrentMultipartUploads() {
+        return maxConcurrentMultipartUploads;
+    }
+
+    /**
+     * Changes the number of files which are uploaded in parts at the same time
+     *
+     * @param maxConcurrentMultipartUploads maximum number of concurrent multipart uploads, at least 1
+     */
+    public void setMaxConcurrentMultipartUploads(int maxConcurrentMultipartUploads) {
+        if (maxConcurrentMultipartUploads < 1) {
+            throw new IllegalArgumentException("Maximum concurrent multipart uploads must be at least 1 but was " + maxConcurrentMultipartUploads);
+        }
+        this.maxConcurrentMultipartUploads = maxConcurrentMultipartUploads;
+    }
+
+    /**
+     * Files larger than this are uploaded in parts, so their parts are sent concurrently and a failed part can be
+     * retried on its own. It is never larger than 5GB, which is the largest object S3 accepts in a single upload.
+     *
+     * @return size in bytes above which a file is uploaded with a multipart upload
+     */
+    public long getMultipartThreshold() {
+        return Math.min(multipartThreshold, MAXIMUM_SINGLE_UPLOAD_SIZE);
+    }
+
+    /**
+     * Changes the size above which files are uploaded with a multipart upload
+     *
+     * @param multipartThreshold size in bytes, capped at 5GB
+     */
+    public void setMultipartThreshold(long multipartThreshold) {
+        if (multipartThreshold < 1) {
+            throw new IllegalArgumentException("Multipart threshold must be at least 1 byte but was " + multipartThreshold);
+        }
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    /**
+     * Smallest part size used for multipart uploads. Smaller parts give more parts to upload concurrently but more
+     * requests per file.
+     *
+     * @return minimum part size in bytes
+     */
+    public int getMinPartSize() {
+        return minPartSize;
+    }
+
+    /**
+     * Changes the smallest part size used for multipart uploads
+     *
+     * @param minPartSize minimum part size in bytes, at least 5MB as required by S3
+     */
+    public void setMinPartSize(int minPartSize) {
+        if (minPartSize < MINIMUM_PART_SIZE) {
+            throw new IllegalArgumentException("Minimum part size must be at least " + MINIMUM_PART_SIZE + " bytes but was " + minPartSize);
+        }
+        this.minPartSize = minPartSize;
+    }
+
+    /**
+     * Picks the part size for a multipart upload of a file. This is the smallest size, starting from
+     * {@link #getMinPartSize()}, which keeps the upload within the S3 limit of 10,000 parts, so that as many parts as
+     * possible can be uploaded concurrently. Part sizes above the minimum are rounded up to a whole MB.
+     *
+     * @param fileSize size of the file in bytes
+     * @return part size in bytes
+     */
+    public int getPartSize(long fileSize) {
+        final long smallestAllowed = (fileSize + MAXIMUM_PART_COUNT - 1) / MAXIMUM_PART_COUNT;
+        if (smallestAllowed <= minPartSize) {
+            return minPartSize;
+        }
+        final long aligned = (smallestAllowed + PART_SIZE_ALIGNMENT - 1) / PART_SIZE_ALIGNMENT * PART_SIZE_ALIGNMENT;
+        return (int) Math.min(aligned, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Files up to this size are packed into tar segments by {@link PackingS3Uploader} instead of being uploaded one by one
+     *
+     * @return largest size in bytes of a packed file
+     */
+    public int getPackedFileSizeLimit() {
+        return packedFileSizeLimit;
+    }
+
+    /**
+     * Changes the largest size of a file which is packed into a segment
+     *
+     * @param packedFileSizeLimit size in bytes, 0 disables packing
+     */
+    public void setPackedFileSizeLimit(int packedFileSizeLimit) {
+        if (packedFileSizeLimit < 0) {
+            throw new IllegalArgumentException("Packed file size limit must not be negative but was " + packedFileSizeLimit);
+        }
+        this.packedFileSizeLimit = packedFileSizeLimit;
+    }
+
+    /**
+     * Size at which a tar segment is sealed and uploaded. Segments are built in memory, and up to
+     * {@link #getMaxInFlightParts()} of them are uploaded at the same time.
+     *
+     * @return segment size in bytes
+     */
+    public int getPackedSegmentSize() {
+        return packedSegmentSize;
+    }
+
+    /**
+     * Changes the size at which a tar segment is sealed and uploaded
+     *
+     * @param packedSegmentSize segment size in bytes
+     */
+    public void setPackedSegmentSize(int packedSegmentSize) {
+        if (packedSegmentSize < 1) {
+            throw new IllegalArgumentException("Packed segment size must be at least 1 byte but was " + packedSegmentSize);
+        }
+        this.packedSegmentSize = packedSegmentSize;
+    }
+
+    /**
+     * Number of times a file is tried when its upload fails with a transient error, such as S3 throttling, before it
+     * is reported as not migrated.
+     *
+     * @return maximum attempts per file, 1 never retries
+     */
+    public int getMaxUploadAttempts() {
+        return maxUploadAttempts;
+    }
+
+    /**
+     * Changes the number of times a file is tried when its upload fails with a transient error
+     *
+     * @param maxUploadAttempts maximum attempts per file, 1 never retries
+     */
+    public void setMaxUploadAttempts(int maxUploadAttempts) {
+        if (maxUploadAttempts < 1) {
+            throw new IllegalArgumentException("Maximum upload attempts must be at least 1 but was " + maxUploadAttempts);
+        }
+        this.maxUploadAttempts = maxUploadAttempts;
+    }
+
+    /**
+     * Longest delay before the first retry of a file. The longest delay doubles with each further retry, up to
+     * {@link #getRetryMaxDelayMillis()}.
+     *
+     * @return delay in milliseconds
+     */
+    public long getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+
+    /**
+     * Longest delay before any retry of a file
+     *
+     * @return delay in milliseconds
+     */
+    public long getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+
+    /**
+     * Changes the delays before a file is retried
+     *
+     * @param retryBaseDelayMillis longest delay before the first retry, in milliseconds
+     * @param retryMaxDelayMillis  longest delay before any retry, in milliseconds
+     */
+    public void setRetryDelayMillis(long retryBaseDelayMillis, long retryMaxDelayMillis) {
+        if (retryBaseDelayMillis < 1 || retryMaxDelayMillis < retryBaseDelayMillis) {
+            throw new IllegalArgumentException(String.format("Retry delays must be at least 1ms with the base no more than the maximum but were %d and %d", retryBaseDelayMillis, retryMaxDelayMillis));
+        }
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+    }
+
+    /**
+     * Number of retries shared by all the files of an upload. Once it is spent, files are reported as not migrated
+     * on their first failure, so an upload which is failing for good doesn't retry every file.
+     *
+     * @return maximum retries per upload
+     */
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Changes the number of retries shared by all the files of an upload
+     *
+     * @param retryBudget maximum retries per upload, 0 never retries
+     */
+    public void setRetryBudget(int retryBudget) {
+        if (retryBudget < 0) {
+            throw new IllegalArgumentException("Retry budget must not be negative but was " + retryBudget);
+        }
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Limits how fast files are uploaded, so the upload doesn't take all of the network and disk bandwidth of the
+     * application while it is in use
+     *
+     * @return the throttle shared by every upload
+     */
+    public UploadThrottle getThrottle() {
+        return throttle;
+    }
+
+    public void setThrottle(UploadThrottle throttle) {
+        this.throttle = throttle;
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+
+import java.time.Duration;
+
+/**
+ * HTTP client settings of the S3 client used to upload the shared home. The SDK defaults allow 50 connections and wait
+ * 10 seconds for one to free up, which caps the uploaders well below the number of uploads they are allowed to run at
+ * once, so the connection pool here is sized to the largest window the uploaders can open.
+ */
+public final class S3UploadHttpClient {
+    /**
+     * Name the upload client is cached under, apart from the S3 client used for everything else.
+     */
+    public static final String PROFILE = "upload";
+
+    static final int MAX_CONCURRENCY = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.http.maxConcurrency",
+                    Math.max(S3UploadConfig.DEFAULT_MAX_IN_FLIGHT_UPLOADS, S3UploadConfig.DEFAULT_MAX_ADAPTIVE_IN_FLIGHT_UPLOADS));
+    static final int MAX_PENDING_CONNECTION_ACQUIRES = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.http.maxPendingConnectionAcquires", 10_000);
+    static final Duration CONNECTION_ACQUISITION_TIMEOUT = Duration.ofSeconds(Long
+            .getLong("com.atlassian.migration.datacenter.fs.http.connectionAcquisitionTimeoutSeconds", 60));
+    static final Duration READ_TIMEOUT = Duration.ofSeconds(Long
+            .getLong("com.atlassian.migration.datacenter.fs.http.readTimeoutSeconds", 60));
+    static final Duration WRITE_TIMEOUT = Duration.ofSeconds(Long
+            .getLong("com.atlassian.migration.datacenter.fs.http.writeTimeoutSeconds", 60));
+    static final boolean TCP_KEEP_ALIVE = Boolean
+            .parseBoolean(System.getProperty("com.atlassian.migration.datacenter.fs.http.tcpKeepAlive", "true"));
+    /**
+     * Zero keeps the SDK default of two threads per processor.
+     */
+    static final int EVENT_LOOP_THREADS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.http.eventLoopThreads", 0);
+
+    private S3UploadHttpClient() {
+    }
+
+    public static SdkAsyncHttpClient.Builder builder() {
+        final NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(MAX_CONCURRENCY)
+                .maxPendingConnectionAcquires(MAX_PENDING_CONNECTION_ACQUIRES)
+                .connectionAcquisitionTimeout(CONNECTION_ACQUISITION_TIMEOUT)
+                .readTimeout(READ_TIMEOUT)
+                .writeTimeout(WRITE_TIMEOUT)
+                .tcpKeepAlive(TCP_KEEP_ALIVE);
+        if (EVENT_LOOP_THREADS > 0) {
+            builder.eventLoopGroupBuilder(SdkEventLoopGroup.builder().numberOfThreads(EVENT_LOOP_THREADS));
+        }
+        return builder;
+    }
+}
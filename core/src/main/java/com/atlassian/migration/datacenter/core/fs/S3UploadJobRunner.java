@@ -22,6 +22,7 @@ import com.atlassian.migration.datacenter.spi.fs.FilesystemMigrationService;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
 import com.atlassian.scheduler.JobRunnerRequest;
 import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,10 +35,13 @@ import javax.annotation.Nullable;
  * <li>s3bucket: target S3 bucket we are uploading the files into</li>
  * <li>directory: directory to upload</li>
  * </ul>
+ * When the {@link #FAILED_FILES_ONLY_PARAMETER} is true, only the files which failed to migrate in the previous upload
+ * are uploaded.
  */
 public class S3UploadJobRunner implements MigrationJobRunner
 {
     public static final String KEY = "com.atlassian.migration.datacenter.fs.S3UploadJobRunner";
+    public static final String FAILED_FILES_ONLY_PARAMETER = "failedFilesOnly";
     private static Logger log = LoggerFactory.getLogger(S3UploadJobRunner.class);
     private final FilesystemMigrationService fsMigrationService;
     private final FileSystemMigrationReportManager reportManager;
@@ -58,7 +62,11 @@ public class S3UploadJobRunner implements MigrationJobRunner
 
         log.info("Starting S3 migration job");
         try {
-            fsMigrationService.startMigration();
+            if (isFailedFilesOnly(jobRunnerRequest)) {
+                fsMigrationService.startFailedFileRetry();
+            } else {
+                fsMigrationService.startMigration();
+            }
         } catch (InvalidMigrationStageError e) {
             log.error("Invalid migration transition - {}", e.getMessage());
             return JobRunnerResponse.failed(e);
@@ -70,6 +78,11 @@ public class S3UploadJobRunner implements MigrationJobRunner
         return JobRunnerResponse.success("S3 upload completed.");
     }
 
+    private static boolean isFailedFilesOnly(JobRunnerRequest jobRunnerRequest) {
+        final JobConfig jobConfig = jobRunnerRequest.getJobConfig();
+        return jobConfig != null && Boolean.TRUE.equals(jobConfig.getParameters().get(FAILED_FILES_ONLY_PARAMETER));
+    }
+
     @Override
     public String getKey()
     {
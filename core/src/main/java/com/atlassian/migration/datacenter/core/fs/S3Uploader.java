@@ -25,127 +25,263 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedList;
-import java.util.Optional;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Uploads files from the {@link UploadQueue} to S3. The number of uploads in flight is limited by an
+ * {@link AdaptiveConcurrencyLimiter}, starting at {@link S3UploadConfig#getMaxInFlightUploads()} and adapting to the
+ * throughput and latency of the uploads. Each upload releases its slot from its completion callback, so the next file
+ * is sent as soon as any slot frees up rather than waiting for the whole window to drain.
+ * <p>
+ * Files larger than {@link S3UploadConfig#getMultipartThreshold()} are uploaded in parts sized by
+ * {@link S3UploadConfig#getPartSize(long)}. Up to {@link S3UploadConfig#getMaxConcurrentMultipartUploads()} of them run
+ * on their own threads while the queue keeps draining, and their parts take slots from the same window, so a large file
+ * doesn't hold up the small files behind it. They read their parts into buffers from a single {@link PartBufferPool} of
+ * {@link S3UploadConfig#getMaxConcurrentMultipartUploads()} times {@link S3UploadConfig#getMaxInFlightParts()} buffers,
+ * which are reused from file to file.
+ * <p>
+ * Single request uploads which fail with throttling or a server error are retried by an {@link UploadRetryScheduler}
+ * up to {@link S3UploadConfig#getMaxUploadAttempts()} times before the file is reported as not migrated.
+ */
 public class S3Uploader implements Uploader {
     private static final Logger logger = LoggerFactory.getLogger(S3Uploader.class);
-    public static final int MAX_OPEN_CONNECTIONS = 50;
-    private static final long MAXIMUM_FILE_SIZE_TO_UPLOAD = 5 * 1024 * 1024 * 1024L; // 5GB  https://docs.aws.amazon.com/AmazonS3/latest/dev/UploadingObjects.html
+    private static final int DRAIN_BATCH_SIZE = 64;
 
     private final FileSystemMigrationReport report;
-    private final Queue<S3UploadOperation> responsesQueue = new LinkedList<>();
     private final S3UploadConfig config;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final UploadCheckpoint checkpoint;
+    private UploadRetryScheduler retries;
+    private ExecutorService multipartUploads;
+    private Semaphore multipartSlots;
+    private PartBufferPool partBuffers;
 
     public S3Uploader(S3UploadConfig config, FileSystemMigrationReport report) {
+        this(config, report, UploadCheckpoint.NONE);
+    }
+
+    public S3Uploader(S3UploadConfig config, FileSystemMigrationReport report, UploadCheckpoint checkpoint) {
         this.config = config;
         this.report = report;
+        this.checkpoint = checkpoint;
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(config, report::reportUploadConcurrency);
     }
 
     @Override
     public Integer maxConcurrent() {
-        return MAX_OPEN_CONNECTIONS;
+        return config.getMaxInFlightUploads();
     }
 
     @Override
     public void upload(UploadQueue<Path> queue) throws FileUploadException
     {
+        retries = new UploadRetryScheduler(config);
+        multipartSlots = new Semaphore(config.getMaxConcurrentMultipartUploads());
+        partBuffers = new PartBufferPool(config.getMaxConcurrentMultipartUploads() * config.getMaxInFlightParts());
+        multipartUploads = Executors.newFixedThreadPool(config.getMaxConcurrentMultipartUploads(), runnable -> {
+            final Thread thread = new Thread(runnable, "s3-multipart-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            for (Optional<Path> opt = queue.take(); opt.isPresent(); opt = queue.take()) {
-                uploadFile(opt.get());
+            final List<Path> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+            while (queue.drainTo(batch, DRAIN_BATCH_SIZE) >= 0) {
+                for (Path path : batch) {
+                    uploadFile(path);
+                }
+                batch.clear();
             }
+            logger.debug("Finished uploading all files, waiting for in-flight uploads to complete");
+            awaitInFlightUploads();
         } catch (InterruptedException e) {
             String msg = "InterruptedException while fetching file from queue";
             logger.error(msg, e);
             throw new FileUploadException(msg, e);
+        } finally {
+            retries.close();
+            multipartUploads.shutdownNow();
         }
-        logger.debug("Finished uploading all files, acknowledging pending responses");
-        acknowledgeAndFlushResponses();
         logger.info("Finished uploading files to S3");
     }
 
-    private void uploadFile(Path path) {
-        if (responsesQueue.size() >= MAX_OPEN_CONNECTIONS) {
-            logger.trace("Response queue greater than connection threshold. Acknowledging response queue");
-            acknowledgeAndFlushResponses();
-        }
-
+    private void uploadFile(Path path) throws InterruptedException {
         if (Files.exists(path)) {
             logger.trace("Consuming {} from upload queue", path);
             String key = config.getSharedHome().relativize(path).toString();
-            if (path.toFile().length() > MAXIMUM_FILE_SIZE_TO_UPLOAD) {
-                logger.debug("File {} is larger than {}, running multipart upload", path, FileUtils.byteCountToDisplaySize(MAXIMUM_FILE_SIZE_TO_UPLOAD));
-
-                final S3MultiPartUploader multiPartUploader = new S3MultiPartUploader(config, path.toFile(), key);
-                try {
-                    multiPartUploader.upload();
-                } catch (InterruptedException | ExecutionException e) {
-                    logger.error("Error when running multi-part upload for file {} with exception {}", path, e.getMessage());
-                }
-            } else {
-                logger.trace("uploading file {}", path);
-                final PutObjectRequest putRequest = PutObjectRequest.builder()
-                        .bucket(config.getBucketName())
-                        .key(key)
-                        .build();
-                final CompletableFuture<PutObjectResponse> response = config.getS3AsyncClient().putObject(putRequest, path);
-                final S3UploadOperation uploadOperation = new S3UploadOperation(path, response);
-                responsesQueue.add(uploadOperation);
+            final long fileSize = path.toFile().length();
+            if (fileSize > config.getMultipartThreshold()) {
+                logger.debug("File {} is larger than {}, running multipart upload", path, FileUtils.byteCountToDisplaySize(config.getMultipartThreshold()));
 
+                multipartSlots.acquire();
                 report.reportFileUploadCommenced();
+                report.reportBytesUploadCommenced(fileSize);
+                multipartUploads.execute(() -> uploadInParts(path, key, fileSize));
+            } else {
+                awaitThrottle(fileSize);
+                final long start = concurrencyLimiter.acquire();
+                putFile(path, key, fileSize, 1, start);
             }
         } else {
             addFailedFile(path, String.format("File doesn't exist: %s", path));
         }
     }
 
-    private void acknowledgeAndFlushResponses() {
-        final int initialQueueSize = responsesQueue.size();
-        for (int i = 0; i < initialQueueSize; i++) {
-            S3UploadOperation operation = responsesQueue.poll();
-            if (operation != null) {
-                handlePutObjectResponse(operation);
+    /**
+     * Sends a file which fits in a single request. The caller must hold a slot in the upload window, which is released
+     * once the upload has completed.
+     *
+     * @param attempt the number of times the file has been sent, including this one
+     * @param start   the time the slot was taken
+     */
+    private void putFile(Path path, String key, long fileSize, int attempt, long start) {
+        logger.trace("uploading file {}, attempt {}", path, attempt);
+        final PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(config.getBucketName())
+                .key(key)
+                .build();
+        final CompletableFuture<PutObjectResponse> response;
+        try {
+            response = config.getS3AsyncClient().putObject(putRequest, path);
+        } catch (RuntimeException e) {
+            concurrencyLimiter.release(start, 0, AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+            if (attempt > 1) {
+                report.reportBytesUploadFailed(fileSize);
             }
+            addFailedFile(path, e.getMessage());
+            return;
+        }
+        if (attempt == 1) {
+            report.reportFileUploadCommenced();
+            report.reportBytesUploadCommenced(fileSize);
         }
+
+        response.whenComplete((evaluatedResponse, throwable) -> {
+            final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            try {
+                handlePutObjectResponse(path, key, fileSize, attempt, evaluatedResponse, cause);
+            } finally {
+                concurrencyLimiter.release(start, fileSize, cause != null
+                        ? AdaptiveConcurrencyLimiter.outcomeOf(cause)
+                        : AdaptiveConcurrencyLimiter.outcomeOf(evaluatedResponse.sdkHttpResponse()));
+            }
+        });
     }
 
-    private void handlePutObjectResponse(S3UploadOperation operation) {
+    /**
+     * Sends a file in parts from a multipart upload thread. The caller must hold a multipart slot, which is released
+     * once the upload has completed or failed.
+     */
+    private void uploadInParts(Path path, String key, long fileSize) {
         try {
-            logger.trace("acknowledging file upload for {}", operation.path);
-            final PutObjectResponse evaluatedResponse = operation.response.get();
-            if (!evaluatedResponse.sdkHttpResponse().isSuccessful()) {
-                final String errorMessage = String.format(
-                        "Error when uploading %s to S3, %s",
-                        operation.path,
-                        evaluatedResponse.sdkHttpResponse().statusText());
-                logger.warn("error uploading {} to S3 - {}", operation.path, evaluatedResponse);
-                addFailedFile(operation.path, errorMessage);
-            } else {
-                logger.trace("{} migrated successfully", operation.path);
-                report.reportFileUploaded();
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            addFailedFile(operation.path, e.getMessage());
+            final S3MultiPartUploader multiPartUploader = new S3MultiPartUploader(config, path.toFile(), key, concurrencyLimiter, partBuffers);
+            multiPartUploader.setSizeToUpload(config.getPartSize(fileSize));
+            multiPartUploader.upload();
+            report.reportFileUploaded();
+            report.reportBytesUploaded(fileSize);
+            checkpoint.fileUploaded(path);
+        } catch (ExecutionException | IOException | RuntimeException e) {
+            logger.error("Error when running multi-part upload for file {} with exception {}", path, e.getMessage());
+            report.reportBytesUploadFailed(fileSize);
+            addFailedFile(path, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.reportBytesUploadFailed(fileSize);
+            addFailedFile(path, "Interrupted while uploading the file in parts");
+        } finally {
+            multipartSlots.release();
         }
     }
 
-    private void addFailedFile(Path path, String reason) {
-        report.reportFileNotMigrated(new FailedFileMigration(path, reason));
-        logger.error("File {} wasn't uploaded. Reason: {}", path, reason);
+    /**
+     * Sends a file again from the retry scheduler, waiting for a slot in the upload window like any other file.
+     */
+    private void retry(Path path, String key, long fileSize, int attempt) {
+        final long start;
+        try {
+            awaitThrottle(fileSize);
+            start = concurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.reportBytesUploadFailed(fileSize);
+            addFailedFile(path, "Interrupted while waiting to retry the upload");
+            return;
+        }
+        putFile(path, key, fileSize, attempt, start);
     }
 
-    private static class S3UploadOperation {
-        Path path;
-        CompletableFuture<PutObjectResponse> response;
+    /**
+     * Waits before sending a file while it would take the upload over the {@link S3UploadConfig#getThrottle()} limits.
+     * The wait is before taking a slot in the window, so a throttled upload doesn't keep the slot from being adapted.
+     */
+    private void awaitThrottle(long fileSize) throws InterruptedException {
+        config.getThrottle().acquireOperation();
+        config.getThrottle().acquireBytes(fileSize);
+    }
+
+    /**
+     * Blocks until every multipart upload has finished, every upload in the window has completed and no retries are
+     * left. A retry is scheduled before its failed upload gives up its slot, so once the window is empty every retry
+     * which will ever run is pending.
+     */
+    private void awaitInFlightUploads() throws InterruptedException {
+        multipartSlots.acquire(config.getMaxConcurrentMultipartUploads());
+        multipartSlots.release(config.getMaxConcurrentMultipartUploads());
+        do {
+            retries.awaitPending();
+            concurrencyLimiter.awaitIdle();
+        } while (retries.hasPending());
+    }
+
+    private void handlePutObjectResponse(Path path, String key, long fileSize, int attempt, PutObjectResponse evaluatedResponse, Throwable cause) {
+        logger.trace("acknowledging file upload for {}", path);
+        if (cause != null) {
+            if (UploadRetryScheduler.isRetryable(cause) && retryLater(path, key, fileSize, attempt)) {
+                logger.debug("Retrying upload of {} after attempt {} failed with {}", path, attempt, cause.getMessage());
+                return;
+            }
+            report.reportBytesUploadFailed(fileSize);
+            addFailedFile(path, cause.getMessage());
+        } else if (!evaluatedResponse.sdkHttpResponse().isSuccessful()) {
+            final int statusCode = evaluatedResponse.sdkHttpResponse().statusCode();
+            if (UploadRetryScheduler.isRetryableStatus(statusCode) && retryLater(path, key, fileSize, attempt)) {
+                logger.debug("Retrying upload of {} after attempt {} failed with status {}", path, attempt, statusCode);
+                return;
+            }
+            final String errorMessage = String.format(
+                    "Error when uploading %s to S3, %s",
+                    path,
+                    evaluatedResponse.sdkHttpResponse().statusText());
+            logger.warn("error uploading {} to S3 - {}", path, evaluatedResponse);
+            report.reportBytesUploadFailed(fileSize);
+            addFailedFile(path, errorMessage);
+        } else {
+            logger.trace("{} migrated successfully", path);
+            report.reportFileUploaded();
+            report.reportBytesUploaded(fileSize);
+            checkpoint.fileUploaded(path);
+        }
+    }
 
-        S3UploadOperation(Path path, CompletableFuture<PutObjectResponse> response) {
-            this.path = path;
-            this.response = response;
+    private boolean retryLater(Path path, String key, long fileSize, int attempt) {
+        final boolean scheduled = retries.schedule(attempt, () -> retry(path, key, fileSize, attempt + 1));
+        if (scheduled) {
+            report.reportFileUploadRetried();
         }
+        return scheduled;
+    }
+
+    private void addFailedFile(Path path, String reason) {
+        report.reportFileNotMigrated(new FailedFileMigration(path, reason));
+        logger.error("File {} wasn't uploaded. Reason: {}", path, reason);
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory tar archive (POSIX ustar, with pax headers for long names) holding many small files, so they can be uploaded
+ * to S3 as a single object. The last entry is a manifest, named {@link #MANIFEST_NAME}, listing every packed file as a
+ * tab separated line of size, modification time in milliseconds and S3 key.
+ * <p>
+ * Segments are uploaded under {@link #KEY_PREFIX} and unpacked into the target home by the filesystem processor, or
+ * by the shared home copy script on the migration stack.
+ */
+public class TarSegment {
+    public static final String KEY_PREFIX = ".dc-migration-segments/";
+    public static final String KEY_SUFFIX = ".tar";
+    public static final String MANIFEST_NAME = ".dc-migration-segment-manifest";
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_ENTRY_SIZE = 077777777777L; // 11 octal digits
+
+    private final Content content = new Content();
+    private final List<Entry> entries = new ArrayList<>();
+    private final StringBuilder manifest = new StringBuilder();
+
+    /**
+     * Appends a file to the segment.
+     *
+     * @param key          S3 key of the file, which is also its path in the archive
+     * @param data         content of the file
+     * @param lastModified modification time in milliseconds since the epoch
+     */
+    public void add(String key, byte[] data, long lastModified) {
+        writeEntry(key, data, lastModified);
+        manifest.append(data.length).append('\t').append(lastModified).append('\t').append(key).append('\n');
+        entries.add(new Entry(key, data.length));
+    }
+
+    /**
+     * @return number of bytes the segment occupies so far, excluding the manifest
+     */
+    public int size() {
+        return content.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Appends the manifest and the end-of-archive marker. No more files can be added afterwards.
+     *
+     * @return the archive, wrapping the segment's own array rather than a copy
+     */
+    public ByteBuffer finish() {
+        writeEntry(MANIFEST_NAME, manifest.toString().getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+        content.write(new byte[BLOCK_SIZE * 2], 0, BLOCK_SIZE * 2);
+        return content.toByteBuffer();
+    }
+
+    private void writeEntry(String name, byte[] data, long lastModified) {
+        if (data.length > MAX_ENTRY_SIZE) {
+            throw new IllegalArgumentException(String.format("%s is too large to pack (%d bytes)", name, data.length));
+        }
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        final boolean needsPaxHeader = nameBytes.length >= NAME_LENGTH || nameBytes.length != name.length();
+        if (needsPaxHeader) {
+            final byte[] paxRecord = paxRecord("path", name);
+            content.writeBlocks(header("PaxHeaders/" + shortName(name), paxRecord.length, lastModified, 'x'));
+            content.writeBlocks(paxRecord);
+        }
+        content.writeBlocks(header(needsPaxHeader ? shortName(name) : name, data.length, lastModified, '0'));
+        content.writeBlocks(data);
+    }
+
+    /**
+     * Name used in the ustar header when the real name is carried by a pax header. Readers which don't support pax
+     * will still extract the file, under a truncated name.
+     */
+    private static String shortName(String name) {
+        final String ascii = name.replaceAll("[^\\x20-\\x7e]", "_");
+        return ascii.length() > NAME_LENGTH - 12 ? ascii.substring(ascii.length() - (NAME_LENGTH - 12)) : ascii;
+    }
+
+    /**
+     * A pax record is "length key=value\n" where the length is in decimal and includes itself.
+     */
+    private static byte[] paxRecord(String key, String value) {
+        final int payloadLength = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+        int length = payloadLength + String.valueOf(payloadLength).length();
+        if (String.valueOf(length).length() != String.valueOf(payloadLength).length()) {
+            length++;
+        }
+        return (length + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] header(String name, long size, long lastModified, char type) {
+        final byte[] header = new byte[BLOCK_SIZE];
+        putString(header, 0, NAME_LENGTH, name);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, lastModified / 1000);
+        header[156] = (byte) type;
+        putString(header, 257, 6, "ustar");
+        putString(header, 263, 2, "00");
+
+        // The checksum is calculated with its own field filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        putOctal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void putString(byte[] header, int offset, int length, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    /**
+     * Writes a zero padded octal number followed by a NUL, filling the field.
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        final String octal = Long.toOctalString(value);
+        final StringBuilder padded = new StringBuilder();
+        for (int i = octal.length(); i < length - 1; i++) {
+            padded.append('0');
+        }
+        putString(header, offset, length - 1, padded.append(octal).toString());
+        header[offset + length - 1] = 0;
+    }
+
+    public static class Entry {
+        private final String key;
+        private final long size;
+
+        Entry(String key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Lets the finished archive be sent without copying the underlying array.
+     */
+    private static class Content extends ByteArrayOutputStream {
+        Content() {
+            super(64 * 1024);
+        }
+
+        void writeBlocks(byte[] data) {
+            write(data, 0, data.length);
+            final int padding = (BLOCK_SIZE - data.length % BLOCK_SIZE) % BLOCK_SIZE;
+            write(new byte[padding], 0, padding);
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Records which parts of the home have been uploaded, so that a retried upload can skip them. Completion is tracked per
+ * directory: a directory is complete once it has been listed, every file in it has been uploaded and every directory
+ * under it is complete.
+ * <p>
+ * Crawlers report each directory before listing it and once it has been listed, and each file before queueing it.
+ * Uploaders report each file once it has been uploaded. All methods may be called concurrently.
+ */
+public interface UploadCheckpoint {
+    /**
+     * Checkpoint which doesn't record anything, so every directory is uploaded
+     */
+    UploadCheckpoint NONE = new UploadCheckpoint() {
+        @Override
+        public boolean isCompleted(Path directory) {
+            return false;
+        }
+
+        @Override
+        public boolean isUploaded(Path file, BasicFileAttributes attributes) {
+            return false;
+        }
+
+        @Override
+        public void directoryFound(Path directory) {
+        }
+
+        @Override
+        public void fileQueued(Path file) {
+        }
+
+        @Override
+        public void directoryListed(Path directory) {
+        }
+
+        @Override
+        public void fileUploaded(Path file) {
+        }
+    };
+
+    /**
+     * @return true if the directory was completely uploaded by a previous attempt and can be skipped
+     */
+    boolean isCompleted(Path directory);
+
+    /**
+     * @param attributes the attributes the crawler read for the file, or null if they couldn't be read
+     * @return true if the file is already in the bucket and doesn't need to be uploaded again
+     */
+    boolean isUploaded(Path file, BasicFileAttributes attributes);
+
+    /**
+     * Called before the directory is listed. Its parent, if any, can't complete until the directory does.
+     */
+    void directoryFound(Path directory);
+
+    /**
+     * Called before the file is queued for upload. Its directory can't complete until the file is uploaded.
+     */
+    void fileQueued(Path file);
+
+    /**
+     * Called once every entry of the directory has been found. A directory which couldn't be listed completely must
+     * not be reported, so that it is crawled again next time.
+     */
+    void directoryListed(Path directory);
+
+    /**
+     * Called once the file has been uploaded successfully. Files which failed to upload are not reported.
+     */
+    void fileUploaded(Path file);
+}
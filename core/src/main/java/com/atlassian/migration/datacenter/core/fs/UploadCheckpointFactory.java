@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Opens the {@link UploadCheckpoint} for an upload of the given directory
+ */
+@FunctionalInterface
+public interface UploadCheckpointFactory {
+    UploadCheckpointFactory NONE = home -> UploadCheckpoint.NONE;
+
+    UploadCheckpoint open(Path home) throws IOException;
+}
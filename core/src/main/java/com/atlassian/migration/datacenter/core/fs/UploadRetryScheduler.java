@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries uploads which failed with a transient error after an exponential backoff with full jitter, so files throttled
+ * by S3 are spread out over time instead of all being retried at once. Retries run on a single scheduler thread and
+ * never hold up the uploads being sent from the queue.
+ * <p>
+ * Every retry is taken from a budget shared by the whole upload, so an upload which is failing for good, e.g. because
+ * the bucket has been removed, doesn't retry every file it sends.
+ */
+class UploadRetryScheduler implements AutoCloseable {
+    private final ScheduledExecutorService scheduler;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final AtomicInteger budget;
+    private final Object lock = new Object();
+    private int pending;
+
+    UploadRetryScheduler(S3UploadConfig config) {
+        this(config.getMaxUploadAttempts(), config.getRetryBaseDelayMillis(), config.getRetryMaxDelayMillis(), config.getRetryBudget());
+    }
+
+    UploadRetryScheduler(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int budget) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budget = new AtomicInteger(budget);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "s3-upload-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules a retry of an upload which has failed.
+     *
+     * @param attempt the attempt which failed, starting at 1
+     * @param retry   sends the next attempt
+     * @return false if the file has no attempts left or the retry budget is spent, so the file should be failed
+     */
+    boolean schedule(int attempt, Runnable retry) {
+        if (attempt >= maxAttempts || !takeFromBudget()) {
+            return false;
+        }
+        synchronized (lock) {
+            pending++;
+        }
+        scheduler.schedule(() -> {
+            try {
+                retry.run();
+            } finally {
+                synchronized (lock) {
+                    pending--;
+                    lock.notifyAll();
+                }
+            }
+        }, delay(attempt), TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Blocks until every scheduled retry has been sent. The retried uploads may still be in flight.
+     */
+    void awaitPending() throws InterruptedException {
+        synchronized (lock) {
+            while (pending > 0) {
+                lock.wait();
+            }
+        }
+    }
+
+    boolean hasPending() {
+        synchronized (lock) {
+            return pending > 0;
+        }
+    }
+
+    /**
+     * @return a random delay between 0 and the base delay doubled for each earlier retry, capped at the maximum delay
+     */
+    long delay(int attempt) {
+        final int shift = Math.min(attempt - 1, 62);
+        final long cap = baseDelayMillis > maxDelayMillis >> shift ? maxDelayMillis : baseDelayMillis << shift;
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private boolean takeFromBudget() {
+        return budget.getAndUpdate(left -> left > 0 ? left - 1 : 0) > 0;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return true if the upload failed with throttling, a server error or a broken connection, which may succeed if
+     * tried again
+     */
+    static boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof AwsServiceException) {
+            final AwsServiceException serviceException = (AwsServiceException) throwable;
+            return serviceException.isThrottlingException() || isRetryableStatus(serviceException.statusCode());
+        }
+        if (throwable instanceof SdkException) {
+            return ((SdkException) throwable).retryable() || throwable.getCause() instanceof IOException;
+        }
+        return throwable instanceof IOException;
+    }
+
+    static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
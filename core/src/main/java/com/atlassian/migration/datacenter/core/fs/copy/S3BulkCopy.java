@@ -21,10 +21,17 @@ import com.atlassian.migration.datacenter.core.fs.FileUploadException;
 import com.atlassian.migration.datacenter.core.fs.FilesystemUploader;
 import com.atlassian.migration.datacenter.core.fs.FilesystemUploaderFactory;
 import com.atlassian.migration.datacenter.core.fs.ReportType;
+import com.atlassian.migration.datacenter.core.fs.UploadCheckpoint;
+import com.atlassian.migration.datacenter.core.fs.UploadCheckpointFactory;
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournal;
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournalFactory;
+import com.atlassian.migration.datacenter.core.fs.reporting.JournalingMigrationReport;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -39,6 +46,8 @@ public class S3BulkCopy {
     private final Path home;
     private final FileSystemMigrationReportManager reportManager;
     private final FilesystemUploaderFactory filesystemUploaderFactory;
+    private final UploadCheckpointFactory checkpointFactory;
+    private final FailureJournalFactory failureJournalFactory;
 
     private FilesystemUploader fsUploader;
 
@@ -46,28 +55,133 @@ public class S3BulkCopy {
         Path home,
         FilesystemUploaderFactory filesystemUploaderFactory,
         FileSystemMigrationReportManager reportManager)
+    {
+        this(home, filesystemUploaderFactory, reportManager, UploadCheckpointFactory.NONE);
+    }
+
+    public S3BulkCopy(
+        Path home,
+        FilesystemUploaderFactory filesystemUploaderFactory,
+        FileSystemMigrationReportManager reportManager,
+        UploadCheckpointFactory checkpointFactory)
+    {
+        this(home, filesystemUploaderFactory, reportManager, checkpointFactory, FailureJournalFactory.NONE);
+    }
+
+    public S3BulkCopy(
+        Path home,
+        FilesystemUploaderFactory filesystemUploaderFactory,
+        FileSystemMigrationReportManager reportManager,
+        UploadCheckpointFactory checkpointFactory,
+        FailureJournalFactory failureJournalFactory)
     {
         this.home = home;
         this.reportManager = reportManager;
         this.filesystemUploaderFactory = filesystemUploaderFactory;
+        this.checkpointFactory = checkpointFactory;
+        this.failureJournalFactory = failureJournalFactory;
     }
 
     public void copySharedHomeToS3() throws FileUploadException
     {
+        FileSystemMigrationReport report = getReport();
+
+        final Path sharedHome = getSharedHomeDir();
+        final UploadCheckpoint checkpoint = openCheckpoint(sharedHome);
+        final FailureJournal failures = openFailureJournal();
+        fsUploader = filesystemUploaderFactory.newUploader(new JournalingMigrationReport(report, failures), checkpoint);
+
+        logger.info("Commencing upload of shared home");
+
+        try {
+            fsUploader.uploadDirectory(sharedHome);
+        } finally {
+            closeCheckpoint(checkpoint);
+            closeFailureJournal(failures);
+        }
+
+        logger.info("Upload of shared home complete.");
+    }
+
+    /**
+     * Uploads only the files which failed to migrate in the previous upload, as logged in its failure journal.
+     */
+    public void retryFailedFiles() throws FileUploadException
+    {
+        FileSystemMigrationReport report = getReport();
+
+        final FailureJournal failures;
+        try {
+            failures = failureJournalFactory.openForRetry();
+        } catch (IOException e) {
+            throw new FileUploadException("Unable to read the files which failed to migrate", e);
+        }
+        fsUploader = filesystemUploaderFactory.newRetryUploader(new JournalingMigrationReport(report, failures), failures.getFilesToRetry());
+
+        logger.info("Commencing upload of {} files which failed to migrate", failures.getFilesToRetry().size());
+
+        try {
+            fsUploader.uploadDirectory(getSharedHomeDir());
+            completeRetry(failures);
+        } finally {
+            closeFailureJournal(failures);
+        }
+
+        logger.info("Upload of failed files complete.");
+    }
+
+    private FileSystemMigrationReport getReport() throws FileUploadException {
         FileSystemMigrationReport report = reportManager.getCurrentReport(ReportType.Filesystem);
 
         if (report == null) {
             throw new FileUploadException("No files system migration report bound to bulk copy operation");
         }
         report.setStatus(UPLOADING);
+        return report;
+    }
 
-        fsUploader = filesystemUploaderFactory.newUploader(report);
+    private UploadCheckpoint openCheckpoint(Path sharedHome) {
+        try {
+            return checkpointFactory.open(sharedHome);
+        } catch (IOException e) {
+            logger.warn("Unable to open the upload checkpoint, the whole shared home will be uploaded", e);
+            return UploadCheckpoint.NONE;
+        }
+    }
 
-        logger.info("Commencing upload of shared home");
+    private void closeCheckpoint(UploadCheckpoint checkpoint) {
+        if (checkpoint instanceof Closeable) {
+            try {
+                ((Closeable) checkpoint).close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the upload checkpoint", e);
+            }
+        }
+    }
+
+    private FailureJournal openFailureJournal() {
+        try {
+            return failureJournalFactory.open();
+        } catch (IOException e) {
+            logger.warn("Unable to open the failure journal, only the latest failures will be reported", e);
+            return FailureJournal.NONE;
+        }
+    }
 
-        fsUploader.uploadDirectory(getSharedHomeDir());
+    private void completeRetry(FailureJournal failures) {
+        try {
+            failures.completed();
+        } catch (IOException e) {
+            logger.warn("Failed to clean up the list of files being retried, they will be retried again next time", e);
+        }
+    }
 
-        logger.info("Upload of shared home complete.");
+    private void closeFailureJournal(FailureJournal failures) {
+        try {
+            failures.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the failure journal", e);
+        }
     }
 
     public void abortCopy() {
@@ -18,11 +18,12 @@ package com.atlassian.migration.datacenter.core.fs.download.s3sync;
 
 import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
 import com.atlassian.migration.datacenter.core.aws.ssm.SuccessfulSSMCommandConsumer;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import software.amazon.awssdk.services.ssm.model.GetCommandInvocationResponse;
 
 public class EnsureSuccessfulSSMCommandConsumer extends SuccessfulSSMCommandConsumer<Void> {
-    public EnsureSuccessfulSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId) {
-        super(ssmApi, commandId, instanceId);
+    public EnsureSuccessfulSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId, PollingScheduler pollingScheduler) {
+        super(ssmApi, commandId, instanceId, pollingScheduler);
     }
 
     @Override
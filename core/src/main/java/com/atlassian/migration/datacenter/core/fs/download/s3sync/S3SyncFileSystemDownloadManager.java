@@ -16,40 +16,70 @@
 
 package com.atlassian.migration.datacenter.core.fs.download.s3sync;
 
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 public class S3SyncFileSystemDownloadManager {
 
     private static final Logger logger = LoggerFactory.getLogger(S3SyncFileSystemDownloadManager.class);
 
+    private static final long STATUS_INTERVAL_SECONDS = 10;
+
     private final S3SyncFileSystemDownloader downloader;
+    private final PollingScheduler pollingScheduler;
 
-    public S3SyncFileSystemDownloadManager(S3SyncFileSystemDownloader downloader) {
+    public S3SyncFileSystemDownloadManager(S3SyncFileSystemDownloader downloader, PollingScheduler pollingScheduler) {
         this.downloader = downloader;
+        this.pollingScheduler = pollingScheduler;
     }
 
     public void downloadFileSystem(FileSystemMigrationProgress progress) throws S3SyncFileSystemDownloader.CannotLaunchCommandException {
         logger.debug("beginning file system download");
         downloader.initiateFileSystemDownload();
 
-        CompletableFuture<?> syncCompleteFuture = new CompletableFuture<>();
+        CompletableFuture<?> syncCompleteFuture = pollingScheduler.register(new CompletableFuture<>());
 
+        pollDownloadStatus(progress, syncCompleteFuture);
 
-        ScheduledFuture<?> scheduledFuture = Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-            logger.debug("querying file system download status");
-            S3SyncCommandStatus status;
-            try {
-                status = downloader.getFileSystemDownloadStatus();
-            } catch (S3SyncFileSystemDownloader.CannotLaunchCommandException e) {
-                logger.warn("unable to get fs download status, will try again next tick");
+        try {
+            syncCompleteFuture.get();
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
+            syncCompleteFuture.cancel(false);
+            final String errorMessage = "error occured during filesystem download";
+            logger.error(errorMessage, e);
+            throw new S3SyncFileSystemDownloader.CannotLaunchCommandException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Queries the status of the download without holding a thread while the status command runs, then queries it
+     * again {@link #STATUS_INTERVAL_SECONDS} after the status arrives until the download is complete.
+     */
+    private void pollDownloadStatus(FileSystemMigrationProgress progress, CompletableFuture<?> syncCompleteFuture) {
+        if (syncCompleteFuture.isDone()) {
+            return;
+        }
+
+        logger.debug("querying file system download status");
+        CompletableFuture<S3SyncCommandStatus> statusFuture;
+        try {
+            statusFuture = downloader.getFileSystemDownloadStatusAsync();
+        } catch (S3SyncFileSystemDownloader.CannotLaunchCommandException e) {
+            logger.warn("unable to get fs download status, will try again next tick");
+            statusFuture = CompletableFuture.completedFuture(null);
+        }
+
+        statusFuture.thenAccept(status -> {
+            if (status == null) {
+                logger.warn("unable to read fs download status, will try again next tick");
                 return;
             }
 
@@ -64,16 +94,19 @@ public class S3SyncFileSystemDownloadManager {
                 logger.debug("file system download is complete");
                 syncCompleteFuture.complete(null);
             }
-        }, 0, 10, TimeUnit.SECONDS);
-
-        syncCompleteFuture.whenComplete((_i, _j) -> scheduledFuture.cancel(true));
-
-        try {
-            syncCompleteFuture.get();
-        } catch (InterruptedException | ExecutionException e) {
-            final String errorMessage = "error occured during filesystem download";
-            logger.error(errorMessage, e);
-            throw new S3SyncFileSystemDownloader.CannotLaunchCommandException(errorMessage, e);
-        }
+        }).whenComplete((_i, e) -> {
+            if (e != null) {
+                syncCompleteFuture.completeExceptionally(e);
+                return;
+            }
+            if (syncCompleteFuture.isDone()) {
+                return;
+            }
+            try {
+                pollingScheduler.schedule(() -> pollDownloadStatus(progress, syncCompleteFuture), STATUS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException rejected) {
+                syncCompleteFuture.completeExceptionally(rejected);
+            }
+        });
     }
 }
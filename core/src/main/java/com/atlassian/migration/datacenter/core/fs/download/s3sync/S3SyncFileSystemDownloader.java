@@ -19,12 +19,14 @@ package com.atlassian.migration.datacenter.core.fs.download.s3sync;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.AWSMigrationHelperDeploymentService;
 import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
 import com.atlassian.migration.datacenter.core.aws.ssm.SuccessfulSSMCommandConsumer;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.exceptions.FileSystemMigrationFailure;
 import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 public class S3SyncFileSystemDownloader {
 
@@ -34,15 +36,17 @@ public class S3SyncFileSystemDownloader {
 
     private final SSMApi ssmApi;
     private final AWSMigrationHelperDeploymentService migrationHelperDeploymentService;
+    private final PollingScheduler pollingScheduler;
 
-    public S3SyncFileSystemDownloader(SSMApi ssmApi, AWSMigrationHelperDeploymentService migrationHelperDeploymentService) {
-        this(ssmApi, migrationHelperDeploymentService, 10);
+    public S3SyncFileSystemDownloader(SSMApi ssmApi, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, PollingScheduler pollingScheduler) {
+        this(ssmApi, migrationHelperDeploymentService, pollingScheduler, 10);
     }
 
-    S3SyncFileSystemDownloader(SSMApi ssmApi, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, int maxCommandStatusRetries) {
+    S3SyncFileSystemDownloader(SSMApi ssmApi, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, PollingScheduler pollingScheduler, int maxCommandStatusRetries) {
         this.ssmApi = ssmApi;
         this.maxCommandStatusRetries = maxCommandStatusRetries;
         this.migrationHelperDeploymentService = migrationHelperDeploymentService;
+        this.pollingScheduler = pollingScheduler;
     }
 
     public void initiateFileSystemDownload() throws CannotLaunchCommandException {
@@ -57,7 +61,7 @@ public class S3SyncFileSystemDownloader {
 
         String commandID = ssmApi.runSSMDocument(fsRestoreDocument, migrationHost, Collections.emptyMap());
 
-        SuccessfulSSMCommandConsumer consumer = new EnsureSuccessfulSSMCommandConsumer(ssmApi, commandID, migrationHost);
+        SuccessfulSSMCommandConsumer consumer = new EnsureSuccessfulSSMCommandConsumer(ssmApi, commandID, migrationHost, pollingScheduler);
 
         try {
             consumer.handleCommandOutput(maxCommandStatusRetries);
@@ -74,6 +78,32 @@ public class S3SyncFileSystemDownloader {
      * @return the status of the S3 sync or null if the status was not able to be retrieved.
      */
     public S3SyncCommandStatus getFileSystemDownloadStatus() throws CannotLaunchCommandException {
+        try {
+            return startStatusCommand().handleCommandOutput(maxCommandStatusRetries);
+        } catch (SuccessfulSSMCommandConsumer.UnsuccessfulSSMCommandInvocationException e) {
+            logger.error("Status command did not complete successfully", e);
+            return null;
+        } catch (SuccessfulSSMCommandConsumer.SSMCommandInvocationProcessingError e) {
+            logger.error("Unable to read status of s3 sync command", e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the current status of the running download in the new stack without waiting for the status command
+     *
+     * @return completed with the status of the S3 sync, or with null if the status was not able to be retrieved.
+     */
+    public CompletableFuture<S3SyncCommandStatus> getFileSystemDownloadStatusAsync() throws CannotLaunchCommandException {
+        return startStatusCommand()
+                .handleCommandOutputAsync(maxCommandStatusRetries)
+                .exceptionally(e -> {
+                    logger.error("Unable to get status of s3 sync command", e);
+                    return null;
+                });
+    }
+
+    private SuccessfulSSMCommandConsumer<S3SyncCommandStatus> startStatusCommand() throws CannotLaunchCommandException {
         String fsRestoreStatusDocument;
         String migrationHostId;
         try {
@@ -85,17 +115,7 @@ public class S3SyncFileSystemDownloader {
 
         String statusCommandId = ssmApi.runSSMDocument(fsRestoreStatusDocument, migrationHostId, Collections.emptyMap());
 
-        SuccessfulSSMCommandConsumer<S3SyncCommandStatus> consumer = new UnmarshalS3SyncStatusSSMCommandConsumer(ssmApi, statusCommandId, migrationHostId);
-
-        try {
-            return consumer.handleCommandOutput(maxCommandStatusRetries);
-        } catch (SuccessfulSSMCommandConsumer.UnsuccessfulSSMCommandInvocationException e) {
-            logger.error("Status command did not complete successfully", e);
-            return null;
-        } catch (SuccessfulSSMCommandConsumer.SSMCommandInvocationProcessingError e) {
-            logger.error("Unable to read status of s3 sync command", e);
-            return null;
-        }
+        return new UnmarshalS3SyncStatusSSMCommandConsumer(ssmApi, statusCommandId, migrationHostId, pollingScheduler);
     }
 
     private String getMigrationHostId() throws InfrastructureDeploymentError {
@@ -18,6 +18,7 @@ package com.atlassian.migration.datacenter.core.fs.download.s3sync;
 
 import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
 import com.atlassian.migration.datacenter.core.aws.ssm.SuccessfulSSMCommandConsumer;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -29,8 +30,8 @@ import software.amazon.awssdk.services.ssm.model.GetCommandInvocationResponse;
 public class UnmarshalS3SyncStatusSSMCommandConsumer extends SuccessfulSSMCommandConsumer<S3SyncCommandStatus> {
     private static Logger logger = LoggerFactory.getLogger(UnmarshalS3SyncStatusSSMCommandConsumer.class);
 
-    protected UnmarshalS3SyncStatusSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId) {
-        super(ssmApi, commandId, instanceId);
+    protected UnmarshalS3SyncStatusSSMCommandConsumer(SSMApi ssmApi, String commandId, String instanceId, PollingScheduler pollingScheduler) {
+        super(ssmApi, commandId, instanceId, pollingScheduler);
     }
 
     @Override
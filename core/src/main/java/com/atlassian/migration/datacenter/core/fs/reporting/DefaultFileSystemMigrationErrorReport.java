@@ -20,33 +20,45 @@ import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationErrorReport;
 import com.google.common.collect.ImmutableSet;
 
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages files which have had an error throughout the file migration
  * This class is threadsafe and is intended to be added to by any agents which
  * are a part of the file system migration
+ * <p>
+ * Only the most recent failures are kept, one per file, to bound memory. Every failure of an upload is kept on disk by
+ * its {@link FailureJournal}.
  */
 public class DefaultFileSystemMigrationErrorReport implements FileSystemMigrationErrorReport {
+    static final int MAX_REPORTED_FAILURES = 100;
 
-    private final Set<FailedFileMigration> failedMigrations;
+    private final Map<Path, FailedFileMigration> failedMigrations;
 
     public DefaultFileSystemMigrationErrorReport() {
-        this.failedMigrations = ConcurrentHashMap.newKeySet();
+        this.failedMigrations = new LinkedHashMap<Path, FailedFileMigration>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, FailedFileMigration> eldest) {
+                return size() > MAX_REPORTED_FAILURES;
+            }
+        };
     }
 
     /**
-     * tries to report a failed file migration. If 100 files have failed already the report will be dropped to save memory.
-     * In this scenario it is likely the migration will fail and that the lost errors will have the same cause.
+     * Reports a failed file migration. Once 100 files have failed, the file which failed longest ago is dropped to make
+     * room.
      *
      * @param failedFileMigration the failed file migration to report
      */
     public void reportFileNotMigrated(FailedFileMigration failedFileMigration) {
-        if (failedMigrations.size() >= 100) {
-            return;
+        synchronized (failedMigrations) {
+            // Removing first moves a file which failed again to the most recent end
+            failedMigrations.remove(failedFileMigration.getFilePath());
+            failedMigrations.put(failedFileMigration.getFilePath(), failedFileMigration);
         }
-        failedMigrations.add(failedFileMigration);
     }
 
     /**
@@ -54,6 +66,8 @@ public class DefaultFileSystemMigrationErrorReport implements FileSystemMigratio
      * is not backed by the underlying collection so will not be updated as other producers add to it.
      */
     public Set<FailedFileMigration> getFailedFiles() {
-        return ImmutableSet.copyOf(failedMigrations);
+        synchronized (failedMigrations) {
+            return ImmutableSet.copyOf(failedMigrations.values());
+        }
     }
 }
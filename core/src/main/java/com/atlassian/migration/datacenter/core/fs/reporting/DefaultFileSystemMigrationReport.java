@@ -72,6 +72,9 @@ public class DefaultFileSystemMigrationReport implements FileSystemMigrationRepo
 
     @Override
     public Duration getElapsedTime() {
+        if (startTime == null) {
+            return Duration.ZERO;
+        }
         Instant end = completeTime;
         if (isRunning()) {
             end = Instant.now(clock);
@@ -132,6 +135,16 @@ public class DefaultFileSystemMigrationReport implements FileSystemMigrationRepo
         progress.reportFileFound();
     }
 
+    @Override
+    public Long getNumberOfBytesFound() {
+        return progress.getNumberOfBytesFound();
+    }
+
+    @Override
+    public void reportBytesFound(long bytes) {
+        progress.reportBytesFound(bytes);
+    }
+
     @Override
     public boolean isCrawlingFinished() {
         return progress.isCrawlingFinished();
@@ -152,6 +165,16 @@ public class DefaultFileSystemMigrationReport implements FileSystemMigrationRepo
         progress.reportFileUploadCommenced();
     }
 
+    @Override
+    public Long getNumberOfBytesInFlight() {
+        return progress.getNumberOfBytesInFlight();
+    }
+
+    @Override
+    public void reportBytesUploadCommenced(long bytes) {
+        progress.reportBytesUploadCommenced(bytes);
+    }
+
     @Override
     public Long getCountOfUploadedFiles() {
         return progress.getCountOfUploadedFiles();
@@ -162,6 +185,71 @@ public class DefaultFileSystemMigrationReport implements FileSystemMigrationRepo
         progress.reportFileUploaded();
     }
 
+    @Override
+    public Long getCountOfUploadedBytes() {
+        return progress.getCountOfUploadedBytes();
+    }
+
+    @Override
+    public void reportBytesUploaded(long bytes) {
+        progress.reportBytesUploaded(bytes);
+    }
+
+    @Override
+    public void reportBytesUploadFailed(long bytes) {
+        progress.reportBytesUploadFailed(bytes);
+    }
+
+    @Override
+    public Long getNumberOfUploadRetries() {
+        return progress.getNumberOfUploadRetries();
+    }
+
+    @Override
+    public void reportFileUploadRetried() {
+        progress.reportFileUploadRetried();
+    }
+
+    @Override
+    public int getUploadConcurrencyLimit() {
+        return progress.getUploadConcurrencyLimit();
+    }
+
+    @Override
+    public long getUploadLatencyP50Millis() {
+        return progress.getUploadLatencyP50Millis();
+    }
+
+    @Override
+    public long getUploadLatencyP99Millis() {
+        return progress.getUploadLatencyP99Millis();
+    }
+
+    @Override
+    public void reportUploadConcurrency(int limit, long p50Millis, long p99Millis) {
+        progress.reportUploadConcurrency(limit, p50Millis, p99Millis);
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return progress.getBytesPerSecond();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return progress.getFilesPerSecond();
+    }
+
+    @Override
+    public double getAverageBytesPerSecond() {
+        return progress.getAverageBytesPerSecond();
+    }
+
+    @Override
+    public Duration getEstimatedTimeRemaining() {
+        return progress.getEstimatedTimeRemaining();
+    }
+
     @Override
     public Long getCountOfDownloadFiles() {
         return progress.getCountOfDownloadFiles();
@@ -18,29 +18,83 @@ package com.atlassian.migration.datacenter.core.fs.reporting;
 
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationProgress;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counts the progress of the file system migration. The counters are updated by every crawler and upload thread, so
+ * they are {@link LongAdder}s which don't contend on a single value; reading them sums the stripes, which is only done
+ * when the report is polled.
+ */
 public class DefaultFilesystemMigrationProgress implements FileSystemMigrationProgress {
+    private static final int THROUGHPUT_WINDOW_SECONDS = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.throughputWindowSeconds", 60);
+
+    private final LongAdder numFilesUploaded = new LongAdder();
+
+    private final LongAdder filesFound = new LongAdder();
+
+    private final AtomicBoolean allFilesFound = new AtomicBoolean(false);
+
+    private final LongAdder fileUploadsCommenced = new LongAdder();
+
+    private final AtomicLong fileDownloadsCompleted = new AtomicLong(0);
+
+    private final LongAdder bytesFound = new LongAdder();
+
+    private final LongAdder bytesInFlight = new LongAdder();
+
+    private final LongAdder bytesUploaded = new LongAdder();
 
-    private AtomicLong numFilesUploaded = new AtomicLong(0);
+    private final LongAdder bytesFailed = new LongAdder();
 
-    private AtomicLong filesFound = new AtomicLong(0);
+    private final LongAdder uploadRetries = new LongAdder();
 
-    private AtomicBoolean allFilesFound = new AtomicBoolean(false);
+    private volatile int uploadConcurrencyLimit;
 
-    private AtomicLong fileUploadsCommenced = new AtomicLong(0);
+    private volatile long uploadLatencyP50Millis;
 
-    private AtomicLong fileDownloadsCompleted = new AtomicLong(0);
+    private volatile long uploadLatencyP99Millis;
+
+    private final AtomicLong firstUploadCommencedMillis = new AtomicLong(-1);
+
+    private final LongAccumulator lastUploadCompletedMillis = new LongAccumulator(Math::max, -1);
+
+    private final Clock clock;
+
+    private final ThroughputEstimator throughput;
+
+    public DefaultFilesystemMigrationProgress() {
+        this(Clock.systemUTC());
+    }
+
+    public DefaultFilesystemMigrationProgress(Clock clock) {
+        this.clock = clock;
+        this.throughput = new ThroughputEstimator(THROUGHPUT_WINDOW_SECONDS, clock);
+    }
 
     @Override
     public Long getNumberOfFilesFound() {
-        return filesFound.get();
+        return filesFound.sum();
     }
 
     @Override
     public void reportFileFound() {
-        filesFound.incrementAndGet();
+        filesFound.increment();
+    }
+
+    @Override
+    public Long getNumberOfBytesFound() {
+        return bytesFound.sum();
+    }
+
+    @Override
+    public void reportBytesFound(long bytes) {
+        bytesFound.add(bytes);
     }
 
     @Override
@@ -55,22 +109,120 @@ public class DefaultFilesystemMigrationProgress implements FileSystemMigrationPr
 
     @Override
     public Long getNumberOfCommencedFileUploads() {
-        return fileUploadsCommenced.get();
+        return fileUploadsCommenced.sum();
     }
 
     @Override
     public void reportFileUploadCommenced() {
-        fileUploadsCommenced.incrementAndGet();
+        fileUploadsCommenced.increment();
+    }
+
+    @Override
+    public Long getNumberOfBytesInFlight() {
+        return bytesInFlight.sum();
+    }
+
+    @Override
+    public void reportBytesUploadCommenced(long bytes) {
+        bytesInFlight.add(bytes);
+        if (firstUploadCommencedMillis.get() < 0) {
+            firstUploadCommencedMillis.compareAndSet(-1, clock.millis());
+        }
     }
 
     @Override
     public Long getCountOfUploadedFiles() {
-        return numFilesUploaded.get();
+        return numFilesUploaded.sum();
     }
 
     @Override
     public void reportFileUploaded() {
-        numFilesUploaded.incrementAndGet();
+        numFilesUploaded.increment();
+        throughput.record(0, 1);
+    }
+
+    @Override
+    public Long getCountOfUploadedBytes() {
+        return bytesUploaded.sum();
+    }
+
+    @Override
+    public void reportBytesUploaded(long bytes) {
+        bytesInFlight.add(-bytes);
+        bytesUploaded.add(bytes);
+        throughput.record(bytes, 0);
+        lastUploadCompletedMillis.accumulate(clock.millis());
+    }
+
+    @Override
+    public void reportBytesUploadFailed(long bytes) {
+        bytesInFlight.add(-bytes);
+        bytesFailed.add(bytes);
+    }
+
+    @Override
+    public Long getNumberOfUploadRetries() {
+        return uploadRetries.sum();
+    }
+
+    @Override
+    public void reportFileUploadRetried() {
+        uploadRetries.increment();
+    }
+
+    @Override
+    public int getUploadConcurrencyLimit() {
+        return uploadConcurrencyLimit;
+    }
+
+    @Override
+    public long getUploadLatencyP50Millis() {
+        return uploadLatencyP50Millis;
+    }
+
+    @Override
+    public long getUploadLatencyP99Millis() {
+        return uploadLatencyP99Millis;
+    }
+
+    @Override
+    public void reportUploadConcurrency(int limit, long p50Millis, long p99Millis) {
+        uploadConcurrencyLimit = limit;
+        uploadLatencyP50Millis = p50Millis;
+        uploadLatencyP99Millis = p99Millis;
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return throughput.getBytesPerSecond();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return throughput.getFilesPerSecond();
+    }
+
+    @Override
+    public double getAverageBytesPerSecond() {
+        final long first = firstUploadCommencedMillis.get();
+        final long span = lastUploadCompletedMillis.get() - first;
+        if (first < 0 || span <= 0) {
+            return 0;
+        }
+        return bytesUploaded.sum() * 1000.0 / span;
+    }
+
+    @Override
+    public Duration getEstimatedTimeRemaining() {
+        final long remainingBytes = Math.max(bytesFound.sum() - bytesUploaded.sum() - bytesFailed.sum(), 0);
+        if (remainingBytes == 0) {
+            return allFilesFound.get() ? Duration.ZERO : null;
+        }
+        final double bytesPerSecond = throughput.getBytesPerSecond();
+        if (bytesPerSecond <= 0) {
+            return null;
+        }
+        return Duration.ofMillis((long) Math.ceil(remainingBytes * 1000 / bytesPerSecond));
     }
 
     @Override
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of every file which failed to migrate during an upload, one JSON object per line holding the path,
+ * the reason, how many uploads have tried the file and when it failed. The error report only keeps the latest failures
+ * for the UI, the journal keeps all of them so they can be listed page by page and retried.
+ * <p>
+ * A retry passes in the failures it is retrying, so a file failing again is logged with the next attempt number.
+ */
+public final class FailureJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FailureJournal.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public static final FailureJournal NONE = new FailureJournal(null, Collections.emptyList(), null, Clock.systemUTC());
+
+    private final BufferedWriter writer;
+    private final Map<Path, Integer> previousAttempts = new LinkedHashMap<>();
+    private final Path retrySource;
+    private final Clock clock;
+
+    private FailureJournal(BufferedWriter writer, Collection<Entry> retrying, Path retrySource, Clock clock) {
+        this.writer = writer;
+        this.retrySource = retrySource;
+        this.clock = clock;
+        retrying.forEach(entry -> previousAttempts.put(Paths.get(entry.getPath()), entry.getAttempt()));
+    }
+
+    /**
+     * Creates an empty journal, replacing any existing one, for an upload of the whole home.
+     */
+    public static FailureJournal create(Path journalFile) throws IOException {
+        return create(journalFile, Collections.emptyList(), null, Clock.systemUTC());
+    }
+
+    /**
+     * Creates an empty journal, replacing any existing one, for an upload of only the given failures.
+     *
+     * @param retrying    failures of the previous upload which will be retried
+     * @param retrySource file the failures were read from, deleted once the retry is {@link #completed()}
+     */
+    static FailureJournal create(Path journalFile, Collection<Entry> retrying, Path retrySource, Clock clock) throws IOException {
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        final BufferedWriter writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new FailureJournal(writer, retrying, retrySource, clock);
+    }
+
+    /**
+     * @return the files which failed in the previous upload and are being retried, empty unless this is a retry
+     */
+    public Collection<Path> getFilesToRetry() {
+        return Collections.unmodifiableSet(previousAttempts.keySet());
+    }
+
+    public void append(FailedFileMigration failure) {
+        if (writer == null) {
+            return;
+        }
+        final Path path = failure.getFilePath();
+        final Entry entry = new Entry(path.toString(), failure.getReason(),
+                previousAttempts.getOrDefault(path, 0) + 1, clock.millis());
+        synchronized (writer) {
+            try {
+                writer.write(mapper.writeValueAsString(entry));
+                writer.write('\n');
+                // Failures are rare compared to uploads, so make each one durable straight away
+                writer.flush();
+            } catch (IOException e) {
+                logger.warn("Unable to write the failure of {} to the failure journal", path, e);
+            }
+        }
+    }
+
+    /**
+     * Marks the upload as having run to the end. The failures it retried are all either uploaded or logged again in
+     * this journal, so their file is no longer needed.
+     */
+    public void completed() throws IOException {
+        if (retrySource != null) {
+            Files.deleteIfExists(retrySource);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} failures starting at the {@code cursor}, a byte offset into the journal. A line which is
+     * still being written is left for the next page.
+     */
+    public static Page read(Path journalFile, long cursor, int limit) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(journalFile)) {
+            return new Page(entries, cursor);
+        }
+        final long next = readLines(journalFile, cursor, limit, entries::add);
+        return new Page(entries, next);
+    }
+
+    /**
+     * Reads the failures in a journal, keeping the latest failure of each file.
+     */
+    static Map<String, Entry> readLatest(Path journalFile) throws IOException {
+        final Map<String, Entry> latest = new LinkedHashMap<>();
+        if (Files.exists(journalFile)) {
+            readLines(journalFile, 0, Integer.MAX_VALUE, entry -> latest.merge(entry.getPath(), entry, FailureJournal::later));
+        }
+        return latest;
+    }
+
+    static Entry later(Entry a, Entry b) {
+        return b.getAttempt() >= a.getAttempt() ? b : a;
+    }
+
+    /**
+     * Replaces the file with the given failures, one per line.
+     */
+    static void write(Path journalFile, Collection<Entry> entries) throws IOException {
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        final Path temporary = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Entry entry : entries) {
+                writer.write(mapper.writeValueAsString(entry));
+                writer.write('\n');
+            }
+        }
+        Files.move(temporary, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the offset after the last complete line read
+     */
+    private static long readLines(Path journalFile, long cursor, int limit, Consumer<Entry> consumer) throws IOException {
+        long position = cursor;
+        int read = 0;
+        try (InputStream in = new BufferedInputStream(Channels.newInputStream(Files.newByteChannel(journalFile).position(cursor)))) {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while (read < limit && (b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                position += line.size() + 1;
+                if (line.size() > 0) {
+                    parse(line.toByteArray(), journalFile).ifPresent(consumer);
+                    read++;
+                }
+                line.reset();
+            }
+        }
+        return position;
+    }
+
+    private static Optional<Entry> parse(byte[] line, Path journalFile) {
+        try {
+            return Optional.of(mapper.readValue(line, Entry.class));
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable line in failure journal {}", journalFile, e);
+            return Optional.empty();
+        }
+    }
+
+    public static final class Entry {
+        private final String path;
+        private final String reason;
+        private final int attempt;
+        private final long timestamp;
+
+        @JsonCreator
+        public Entry(@JsonProperty("path") String path,
+                     @JsonProperty("reason") String reason,
+                     @JsonProperty("attempt") int attempt,
+                     @JsonProperty("timestamp") long timestamp) {
+            this.path = path;
+            this.reason = reason;
+            this.attempt = attempt;
+            this.timestamp = timestamp;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * @return the number of uploads which have tried the file, including the one which logged this failure
+         */
+        public int getAttempt() {
+            return attempt;
+        }
+
+        /**
+         * @return milliseconds since the epoch when the failure was logged
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /**
+     * A page of failures, and the cursor to read the next page from.
+     */
+    public static final class Page {
+        private final List<Entry> failures;
+        private final long next;
+
+        public Page(List<Entry> failures, long next) {
+            this.failures = Collections.unmodifiableList(failures);
+            this.next = next;
+        }
+
+        public List<Entry> getFailures() {
+            return failures;
+        }
+
+        public long getNext() {
+            return next;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Opens the {@link FailureJournal} for an upload, and reads the journal of the latest upload.
+ */
+public interface FailureJournalFactory {
+    FailureJournalFactory NONE = new FailureJournalFactory() {
+        @Override
+        public FailureJournal open() {
+            return FailureJournal.NONE;
+        }
+
+        @Override
+        public FailureJournal openForRetry() {
+            return FailureJournal.NONE;
+        }
+
+        @Override
+        public FailureJournal.Page read(long cursor, int limit) {
+            return new FailureJournal.Page(new ArrayList<>(), cursor);
+        }
+    };
+
+    /**
+     * Opens an empty journal for an upload of the whole home.
+     */
+    FailureJournal open() throws IOException;
+
+    /**
+     * Opens an empty journal for an upload of the files which failed in the previous upload, which are available from
+     * {@link FailureJournal#getFilesToRetry()}.
+     */
+    FailureJournal openForRetry() throws IOException;
+
+    FailureJournal.Page read(long cursor, int limit) throws IOException;
+}
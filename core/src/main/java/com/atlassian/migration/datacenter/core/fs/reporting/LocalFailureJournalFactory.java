@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import com.atlassian.migration.datacenter.spi.MigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Map;
+
+/**
+ * Keeps the {@link FailureJournal} of the current migration in the given directory, normally in the local home.
+ * Journals of previous migrations are deleted.
+ * <p>
+ * When retrying, the failures being retried are first moved to a separate file which is only deleted once the retry has
+ * run to the end. If the retry is interrupted, the next retry picks up both the failures it didn't get to and the ones
+ * it logged.
+ */
+public class LocalFailureJournalFactory implements FailureJournalFactory {
+    private static final Logger logger = LoggerFactory.getLogger(LocalFailureJournalFactory.class);
+    private static final String JOURNAL_PREFIX = "fs-upload-failures-";
+    private static final String JOURNAL_SUFFIX = ".ndjson";
+    private static final String RETRY_SUFFIX = ".retry.ndjson";
+
+    private final Path directory;
+    private final MigrationService migrationService;
+    private final Clock clock;
+
+    public LocalFailureJournalFactory(Path directory, MigrationService migrationService) {
+        this(directory, migrationService, Clock.systemUTC());
+    }
+
+    LocalFailureJournalFactory(Path directory, MigrationService migrationService, Clock clock) {
+        this.directory = directory;
+        this.migrationService = migrationService;
+        this.clock = clock;
+    }
+
+    @Override
+    public FailureJournal open() throws IOException {
+        Files.createDirectories(directory);
+        deleteOtherJournals();
+        Files.deleteIfExists(retryFile());
+
+        return FailureJournal.create(journalFile());
+    }
+
+    @Override
+    public FailureJournal openForRetry() throws IOException {
+        Files.createDirectories(directory);
+        deleteOtherJournals();
+
+        final Path retryFile = retryFile();
+        final Map<String, FailureJournal.Entry> failures = FailureJournal.readLatest(retryFile);
+        FailureJournal.readLatest(journalFile()).forEach((path, entry) -> failures.merge(path, entry, FailureJournal::later));
+        FailureJournal.write(retryFile, failures.values());
+        logger.info("Retrying the upload of {} files which failed to migrate", failures.size());
+
+        return FailureJournal.create(journalFile(), failures.values(), retryFile, clock);
+    }
+
+    @Override
+    public FailureJournal.Page read(long cursor, int limit) throws IOException {
+        return FailureJournal.read(journalFile(), cursor, limit);
+    }
+
+    private Path journalFile() {
+        return directory.resolve(journalName() + JOURNAL_SUFFIX);
+    }
+
+    private Path retryFile() {
+        return directory.resolve(journalName() + RETRY_SUFFIX);
+    }
+
+    private String journalName() {
+        return JOURNAL_PREFIX + migrationService.getCurrentMigration().getID();
+    }
+
+    private void deleteOtherJournals() throws IOException {
+        // The dot stops migration 1 from keeping the journals of migration 12
+        final String journalPrefix = journalName() + ".";
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*")) {
+            for (Path journal : journals) {
+                if (!journal.getFileName().toString().startsWith(journalPrefix)) {
+                    logger.info("Deleting failure journal {} of a previous migration", journal);
+                    Files.deleteIfExists(journal);
+                }
+            }
+        }
+    }
+}
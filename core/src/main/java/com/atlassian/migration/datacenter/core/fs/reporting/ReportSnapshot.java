@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FilesystemMigrationStatus;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Immutable copy of a {@link FileSystemMigrationReport}, serialised with the same properties as the report. Polling
+ * the report through a snapshot means the live report, which is being updated by the upload threads, is only read once
+ * per snapshot rather than once per request.
+ * <p>
+ * The counters are read without locking, so a snapshot isn't a single point in time. Each file is reported as found,
+ * then commenced, then uploaded, so the counters are read in the reverse order: a snapshot never shows more files
+ * uploaded than commenced, or more commenced than found.
+ */
+public final class ReportSnapshot {
+    private final FilesystemMigrationStatus status;
+    private final Duration elapsedTime;
+    private final Set<FailedFileMigration> failedFiles;
+    private final boolean crawlingFinished;
+    private final Long downloadedFiles;
+    private final Long uploadedFiles;
+    private final Long filesInFlight;
+    private final Long filesFound;
+    private final Long uploadedBytes;
+    private final Long bytesInFlight;
+    private final Long bytesFound;
+    private final Long uploadRetries;
+    private final int uploadConcurrencyLimit;
+    private final long uploadLatencyP50Millis;
+    private final long uploadLatencyP99Millis;
+    private final double bytesPerSecond;
+    private final double filesPerSecond;
+    private final double averageBytesPerSecond;
+    private final Duration estimatedTimeRemaining;
+
+    private ReportSnapshot(FileSystemMigrationReport report) {
+        this.status = report.getStatus();
+        this.elapsedTime = report.getElapsedTime();
+        this.crawlingFinished = report.isCrawlingFinished();
+        this.downloadedFiles = report.getCountOfDownloadFiles();
+        this.uploadedFiles = report.getCountOfUploadedFiles();
+        this.filesInFlight = report.getNumberOfCommencedFileUploads();
+        this.filesFound = report.getNumberOfFilesFound();
+        this.uploadedBytes = report.getCountOfUploadedBytes();
+        this.bytesInFlight = report.getNumberOfBytesInFlight();
+        this.bytesFound = report.getNumberOfBytesFound();
+        this.uploadRetries = report.getNumberOfUploadRetries();
+        this.uploadConcurrencyLimit = report.getUploadConcurrencyLimit();
+        this.uploadLatencyP50Millis = report.getUploadLatencyP50Millis();
+        this.uploadLatencyP99Millis = report.getUploadLatencyP99Millis();
+        this.bytesPerSecond = report.getBytesPerSecond();
+        this.filesPerSecond = report.getFilesPerSecond();
+        this.averageBytesPerSecond = report.getAverageBytesPerSecond();
+        this.estimatedTimeRemaining = report.getEstimatedTimeRemaining();
+        this.failedFiles = report.getFailedFiles();
+    }
+
+    public static ReportSnapshot of(FileSystemMigrationReport report) {
+        return new ReportSnapshot(report);
+    }
+
+    public FilesystemMigrationStatus getStatus() {
+        return status;
+    }
+
+    public Duration getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public Set<FailedFileMigration> getFailedFiles() {
+        return failedFiles;
+    }
+
+    public boolean isCrawlingFinished() {
+        return crawlingFinished;
+    }
+
+    public Long getDownloadedFiles() {
+        return downloadedFiles;
+    }
+
+    public Long getUploadedFiles() {
+        return uploadedFiles;
+    }
+
+    public Long getFilesInFlight() {
+        return filesInFlight;
+    }
+
+    public Long getFilesFound() {
+        return filesFound;
+    }
+
+    public Long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public Long getBytesInFlight() {
+        return bytesInFlight;
+    }
+
+    public Long getBytesFound() {
+        return bytesFound;
+    }
+
+    public Long getUploadRetries() {
+        return uploadRetries;
+    }
+
+    public int getUploadConcurrencyLimit() {
+        return uploadConcurrencyLimit;
+    }
+
+    public long getUploadLatencyP50Millis() {
+        return uploadLatencyP50Millis;
+    }
+
+    public long getUploadLatencyP99Millis() {
+        return uploadLatencyP99Millis;
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public double getFilesPerSecond() {
+        return filesPerSecond;
+    }
+
+    public double getAverageBytesPerSecond() {
+        return averageBytesPerSecond;
+    }
+
+    public Duration getEstimatedTimeRemaining() {
+        return estimatedTimeRemaining;
+    }
+}
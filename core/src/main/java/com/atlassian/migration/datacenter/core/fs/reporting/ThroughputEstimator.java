@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates throughput over a sliding window covering the last few seconds. Samples are summed into one bucket per
+ * second, so the window moves forward a second at a time and memory doesn't grow with the number of samples.
+ * <p>
+ * Until the window has filled up the rate is averaged over the time since the estimator was created.
+ * <p>
+ * Recording doesn't lock, as every upload callback thread records into the current bucket. The first sample of a new
+ * second resets the bucket it reuses, so a sample recorded at the same moment may be lost, which is fine for an
+ * estimate.
+ */
+public class ThroughputEstimator {
+    private static final long MIN_SPAN_MILLIS = 1000;
+
+    private final Clock clock;
+    private final int windowSeconds;
+    private final long startMillis;
+
+    private final AtomicLongArray bucketSeconds;
+    private final LongAdder[] bucketBytes;
+    private final LongAdder[] bucketFiles;
+
+    public ThroughputEstimator(int windowSeconds, Clock clock) {
+        if (windowSeconds < 1) {
+            throw new IllegalArgumentException("The throughput window must be at least one second, was " + windowSeconds);
+        }
+        this.clock = clock;
+        this.windowSeconds = windowSeconds;
+        this.startMillis = clock.millis();
+        this.bucketSeconds = new AtomicLongArray(windowSeconds);
+        this.bucketBytes = new LongAdder[windowSeconds];
+        this.bucketFiles = new LongAdder[windowSeconds];
+        for (int i = 0; i < windowSeconds; i++) {
+            bucketSeconds.set(i, Long.MIN_VALUE);
+            bucketBytes[i] = new LongAdder();
+            bucketFiles[i] = new LongAdder();
+        }
+    }
+
+    public void record(long bytes, long files) {
+        final long second = clock.millis() / 1000;
+        final int bucket = (int) Math.floorMod(second, (long) windowSeconds);
+        final long bucketSecond = bucketSeconds.get(bucket);
+        if (bucketSecond < second && bucketSeconds.compareAndSet(bucket, bucketSecond, second)) {
+            bucketBytes[bucket].reset();
+            bucketFiles[bucket].reset();
+        } else if (bucketSecond > second) {
+            // the clock went backwards or this thread was descheduled for a whole window, drop the stale sample
+            return;
+        }
+        bucketBytes[bucket].add(bytes);
+        bucketFiles[bucket].add(files);
+    }
+
+    public double getBytesPerSecond() {
+        return rate(bucketBytes);
+    }
+
+    public double getFilesPerSecond() {
+        return rate(bucketFiles);
+    }
+
+    private double rate(LongAdder[] counts) {
+        final long now = clock.millis();
+        final long second = now / 1000;
+        final long firstSecond = second - windowSeconds + 1;
+
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            final long bucketSecond = bucketSeconds.get(i);
+            if (bucketSecond >= firstSecond && bucketSecond <= second) {
+                total += counts[i].sum();
+            }
+        }
+        final long windowStart = Math.max(startMillis, firstSecond * 1000);
+        final long span = Math.max(now - windowStart, MIN_SPAN_MILLIS);
+        return total * 1000.0 / span;
+    }
+}
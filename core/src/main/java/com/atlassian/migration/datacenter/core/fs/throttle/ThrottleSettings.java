@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.throttle;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Limits on how fast the file system migration reads the shared home and uploads it, so the application stays
+ * responsive for its users. A limit of 0 is unlimited.
+ * <p>
+ * With a {@link Schedule} the limits only apply during it, e.g. during business hours, and the upload runs at full
+ * speed the rest of the time.
+ */
+public final class ThrottleSettings {
+    public static final ThrottleSettings UNLIMITED = new ThrottleSettings(0, 0, null);
+
+    private final long bytesPerSecond;
+    private final int operationsPerSecond;
+    private final Schedule schedule;
+
+    @JsonCreator
+    public ThrottleSettings(@JsonProperty("bytesPerSecond") long bytesPerSecond,
+                            @JsonProperty("operationsPerSecond") int operationsPerSecond,
+                            @JsonProperty("schedule") Schedule schedule) {
+        if (bytesPerSecond < 0 || operationsPerSecond < 0) {
+            throw new IllegalArgumentException(String.format("Throttle limits must not be negative but were %d bytes/s and %d operations/s", bytesPerSecond, operationsPerSecond));
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.operationsPerSecond = operationsPerSecond;
+        this.schedule = schedule;
+    }
+
+    /**
+     * @return the maximum number of bytes uploaded per second, 0 for unlimited
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return the maximum number of files read from the shared home and requests sent to S3 per second, 0 for unlimited
+     */
+    public int getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    /**
+     * @return when the limits apply, or null if they always apply
+     */
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    @JsonIgnore
+    public boolean isUnlimited() {
+        return bytesPerSecond == 0 && operationsPerSecond == 0;
+    }
+
+    /**
+     * @return true if the limits apply at the given time
+     */
+    boolean appliesAt(ZonedDateTime time) {
+        return !isUnlimited() && (schedule == null || schedule.includes(time));
+    }
+
+    /**
+     * The days, and the time of day in the server's time zone, during which the limits apply. A window which ends
+     * before it starts runs overnight, into the next day.
+     */
+    public static final class Schedule {
+        private final Set<DayOfWeek> days;
+        private final LocalTime from;
+        private final LocalTime to;
+
+        @JsonCreator
+        public Schedule(@JsonProperty("days") Set<DayOfWeek> days,
+                        @JsonProperty("from") String from,
+                        @JsonProperty("to") String to) {
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("Schedule must have both a from and a to time");
+            }
+            try {
+                this.from = LocalTime.parse(from);
+                this.to = LocalTime.parse(to);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(String.format("Schedule times must be given as HH:mm but were %s and %s", from, to), e);
+            }
+            this.days = days == null || days.isEmpty()
+                    ? Collections.unmodifiableSet(EnumSet.allOf(DayOfWeek.class))
+                    : Collections.unmodifiableSet(EnumSet.copyOf(days));
+        }
+
+        public Set<DayOfWeek> getDays() {
+            return days;
+        }
+
+        public String getFrom() {
+            return from.toString();
+        }
+
+        public String getTo() {
+            return to.toString();
+        }
+
+        boolean includes(ZonedDateTime time) {
+            final LocalTime timeOfDay = time.toLocalTime();
+            if (!from.isAfter(to)) {
+                return days.contains(time.getDayOfWeek()) && !timeOfDay.isBefore(from) && timeOfDay.isBefore(to);
+            }
+            // Overnight, so the early hours belong to the window which started the day before
+            if (!timeOfDay.isBefore(from)) {
+                return days.contains(time.getDayOfWeek());
+            }
+            return timeOfDay.isBefore(to) && days.contains(time.getDayOfWeek().minus(1));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.throttle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out permits at a steady rate, storing up to a second's worth while nobody needs them so short bursts aren't
+ * held up.
+ * <p>
+ * A caller may take more permits than are stored, e.g. for a file larger than a second's worth of bytes. It goes ahead
+ * straight away and the bucket goes into debt, which the next caller waits to be paid off. So a large file doesn't wait
+ * for its own permits, but the rate is kept over time.
+ */
+final class TokenBucket {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongSupplier nanoTime;
+    private double permitsPerNano;
+    private double maxPermits;
+    private double storedPermits;
+    private long lastRefill;
+
+    TokenBucket(double permitsPerSecond, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.lastRefill = nanoTime.getAsLong();
+        setRate(permitsPerSecond);
+    }
+
+    /**
+     * @param permitsPerSecond the new rate, which must be positive
+     */
+    synchronized void setRate(double permitsPerSecond) {
+        refill(nanoTime.getAsLong());
+        permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        maxPermits = permitsPerSecond;
+        storedPermits = Math.min(storedPermits, maxPermits);
+    }
+
+    /**
+     * Takes the permits, waiting until any debt left by earlier callers has been paid off.
+     */
+    void acquire(long permits) throws InterruptedException {
+        final long wait = reserve(permits);
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Takes the permits without waiting.
+     *
+     * @return how long the caller must wait before using them, in nanoseconds
+     */
+    synchronized long reserve(long permits) {
+        refill(nanoTime.getAsLong());
+        final long wait = storedPermits >= 0 ? 0 : (long) Math.ceil(-storedPermits / permitsPerNano);
+        storedPermits -= permits;
+        return wait;
+    }
+
+    private void refill(long now) {
+        storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.throttle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits the file system migration with a token bucket for bytes uploaded and another for operations, i.e. files
+ * read while crawling and requests sent to S3. Callers take their permits before they do the work and are held up
+ * while they would go over the limits.
+ * <p>
+ * The limits can be changed while a migration is running and take effect for the next permits taken.
+ */
+public class UploadThrottle {
+    private static final Logger logger = LoggerFactory.getLogger(UploadThrottle.class);
+
+    public static final long DEFAULT_BYTES_PER_SECOND = Long
+            .getLong("com.atlassian.migration.datacenter.fs.throttle.bytesPerSecond", 0L);
+    public static final int DEFAULT_OPERATIONS_PER_SECOND = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.throttle.operationsPerSecond", 0);
+
+    private final Clock clock;
+    private final TokenBucket bytes;
+    private final TokenBucket operations;
+    private volatile ThrottleSettings settings;
+
+    public UploadThrottle() {
+        this(new ThrottleSettings(DEFAULT_BYTES_PER_SECOND, DEFAULT_OPERATIONS_PER_SECOND, null));
+    }
+
+    public UploadThrottle(ThrottleSettings settings) {
+        this(settings, Clock.systemDefaultZone(), System::nanoTime);
+    }
+
+    UploadThrottle(ThrottleSettings settings, Clock clock, LongSupplier nanoTime) {
+        this.clock = clock;
+        // The buckets need a positive rate, they aren't used while their limit is unlimited
+        this.bytes = new TokenBucket(1, nanoTime);
+        this.operations = new TokenBucket(1, nanoTime);
+        apply(settings);
+    }
+
+    /**
+     * A throttle which never holds anything up, until its settings are changed.
+     */
+    public static UploadThrottle unlimited() {
+        return new UploadThrottle(ThrottleSettings.UNLIMITED);
+    }
+
+    public ThrottleSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(ThrottleSettings settings) {
+        apply(settings);
+        logger.info("File system migration throttled to {} bytes/s and {} operations/s (0 is unlimited), {}",
+                settings.getBytesPerSecond(), settings.getOperationsPerSecond(),
+                settings.getSchedule() == null ? "at all times" : "on schedule");
+    }
+
+    private void apply(ThrottleSettings settings) {
+        if (settings.getBytesPerSecond() > 0) {
+            bytes.setRate(settings.getBytesPerSecond());
+        }
+        if (settings.getOperationsPerSecond() > 0) {
+            operations.setRate(settings.getOperationsPerSecond());
+        }
+        this.settings = settings;
+    }
+
+    /**
+     * @return true if the limits apply right now, false if they are unlimited or outside their schedule
+     */
+    public boolean isThrottling() {
+        return settings.appliesAt(now());
+    }
+
+    /**
+     * Waits until the given number of bytes may be uploaded.
+     */
+    public void acquireBytes(long count) throws InterruptedException {
+        final ThrottleSettings current = settings;
+        if (current.getBytesPerSecond() > 0 && count > 0 && current.appliesAt(now())) {
+            bytes.acquire(count);
+        }
+    }
+
+    /**
+     * Waits until another file may be read or request sent.
+     */
+    public void acquireOperation() throws InterruptedException {
+        final ThrottleSettings current = settings;
+        if (current.getOperationsPerSecond() > 0 && current.appliesAt(now())) {
+            operations.acquire(1);
+        }
+    }
+
+    private ZonedDateTime now() {
+        return ZonedDateTime.now(clock);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.util;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.migration.datacenter.events.MigrationResetEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs every loop which polls AWS or the migration state while waiting for something to happen, e.g. a stack to
+ * deploy, a queue to drain or an SSM command to finish. The loops share a small pool of daemon threads, named
+ * {@code migration-poller-N}, instead of each starting a thread of its own which is never stopped.
+ * <p>
+ * Each loop registers the future it completes when it is done watching. Every registered watch is cancelled when the
+ * migration is reset, and the threads are stopped when the plugin is disabled.
+ */
+public class PollingScheduler implements InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PollingScheduler.class);
+
+    private static final int THREADS = Integer.getInteger("com.atlassian.migration.datacenter.polling.threads", 2);
+
+    private final EventPublisher eventPublisher;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Set<CompletableFuture<?>> watches = ConcurrentHashMap.newKeySet();
+
+    public PollingScheduler(EventPublisher eventPublisher) {
+        this(eventPublisher, THREADS);
+    }
+
+    /**
+     * @param threads how many polls can run at the same time
+     */
+    public PollingScheduler(EventPublisher eventPublisher, int threads) {
+        this.eventPublisher = eventPublisher;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(threads, 1), runnable -> {
+            final Thread thread = new Thread(runnable, "migration-poller-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Registers a watch so it is cancelled when the migration is reset or the plugin is disabled. The watch is
+     * forgotten once it completes.
+     *
+     * @return the watch
+     */
+    public <T> CompletableFuture<T> register(CompletableFuture<T> watch) {
+        watches.add(watch);
+        watch.whenComplete((result, thrown) -> watches.remove(watch));
+        if (executor.isShutdown()) {
+            watch.cancel(false);
+        }
+        return watch;
+    }
+
+    /**
+     * Runs the check straight away, then every period until the watch it is given is completed. The watch is
+     * registered, so it is also cancelled when the migration is reset. An error thrown by the check is logged and the
+     * check is run again the next period.
+     *
+     * @param name   what is being watched, for the log
+     * @param check  checks whether whatever is being watched has happened and completes the watch if so
+     * @param period time between the start of each check
+     * @return the watch
+     */
+    public <T> CompletableFuture<T> poll(String name, Consumer<CompletableFuture<T>> check, long period, TimeUnit unit) {
+        final CompletableFuture<T> watch = register(new CompletableFuture<>());
+        try {
+            final ScheduledFuture<?> scheduled = executor.scheduleAtFixedRate(() -> {
+                if (watch.isDone()) {
+                    return;
+                }
+                try {
+                    check.accept(watch);
+                } catch (RuntimeException e) {
+                    logger.warn("Error while polling {}, will try again in {} {}", name, period, unit, e);
+                }
+            }, 0, period, unit);
+            watch.whenComplete((result, thrown) -> scheduled.cancel(false));
+        } catch (RejectedExecutionException e) {
+            watch.completeExceptionally(e);
+        }
+        return watch;
+    }
+
+    /**
+     * Runs a single step of a poll after the delay.
+     *
+     * @throws RejectedExecutionException if the plugin has been disabled
+     */
+    public ScheduledFuture<?> schedule(Runnable step, long delay, TimeUnit unit) {
+        return executor.schedule(step, delay, unit);
+    }
+
+    @EventListener
+    public void onMigrationResetEvent(MigrationResetEvent event) {
+        logger.info("Cancelling polling for migration {}", event.getMigrationId());
+        cancelWatches();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        eventPublisher.register(this);
+    }
+
+    @Override
+    public void destroy() {
+        eventPublisher.unregister(this);
+        executor.shutdownNow();
+        cancelWatches();
+    }
+
+    private void cancelWatches() {
+        final List<CompletableFuture<?>> cancelling = new ArrayList<>(watches);
+        if (!cancelling.isEmpty()) {
+            logger.debug("Cancelling {} polls", cancelling.size());
+        }
+        cancelling.forEach(watch -> watch.cancel(false));
+    }
+}
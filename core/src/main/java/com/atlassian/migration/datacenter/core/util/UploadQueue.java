@@ -16,15 +16,55 @@
 
 package com.atlassian.migration.datacenter.core.util;
 
+import java.util.Collection;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Bounded queue between a producer (e.g. a crawler) and a consumer (e.g. an uploader), backed by a ring buffer so that
+ * queueing a value doesn't allocate anything.
+ * <p>
+ * Any number of threads may put and take concurrently. Each slot carries a sequence number telling whether it is ready
+ * to be written or read, so putting and taking only contend on a compare-and-set of the tail or head respectively.
+ * Threads which find the queue full or empty spin briefly, then sleep on a lock which the other side only takes when
+ * someone is actually sleeping.
+ * <p>
+ * {@link #finish()} puts a sentinel after the last value, so it must be called once, after every producer is done.
+ */
 public class UploadQueue<T> {
-    private BlockingQueue<Optional<T>> queue;
+    private static final Object FINISHED = new Object();
+    private static final int SPINS = 64;
+
+    private final int capacity;
+    private final AtomicReferenceArray<Object> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile boolean finished;
 
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    /**
+     * @param max maximum number of values the queue holds before {@link #put(Object)} blocks. The ring buffer needs at
+     *            least two slots, so the queue holds at least two values.
+     */
     public UploadQueue(Integer max) {
-        this.queue = new LinkedBlockingQueue<>(max);
+        this.capacity = Math.max(2, max);
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
     }
 
     /**
@@ -34,7 +74,17 @@ public class UploadQueue<T> {
      * @throws InterruptedException
      */
     public void put(T v) throws InterruptedException {
-        queue.put(Optional.of(v));
+        enqueue(v, Long.MAX_VALUE);
+    }
+
+    /**
+     * Put a value on the queue to be consumed, waiting up to the given time if the consumer is saturated.
+     *
+     * @return false if the queue was still full when the time ran out
+     * @throws InterruptedException
+     */
+    public boolean offer(T v, long timeout, TimeUnit unit) throws InterruptedException {
+        return enqueue(v, unit.toNanos(timeout));
     }
 
     /**
@@ -43,8 +93,30 @@ public class UploadQueue<T> {
      * @return Optional of value, or Optional.empty() if the producer is finished.
      * @throws InterruptedException
      */
+    @SuppressWarnings("unchecked")
     public Optional<T> take() throws InterruptedException {
-        return queue.take();
+        final Object value = dequeue();
+        return value == FINISHED ? Optional.empty() : Optional.of((T) value);
+    }
+
+    /**
+     * Takes every value available, up to maxElements, blocking until there is at least one. Unlike {@link #take()},
+     * this doesn't allocate anything per value.
+     *
+     * @return number of values added to the collection, or -1 if the producer is finished and there are none left
+     * @throws InterruptedException
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> collection, int maxElements) throws InterruptedException {
+        Object value = dequeue();
+        int count = 0;
+        while (value != FINISHED) {
+            collection.add((T) value);
+            if (++count >= maxElements || (value = poll()) == null) {
+                return count;
+            }
+        }
+        return count == 0 ? -1 : count;
     }
 
     /**
@@ -53,18 +125,181 @@ public class UploadQueue<T> {
      * @throws InterruptedException
      */
     public void finish() throws InterruptedException {
-        queue.put(Optional.empty());
+        enqueue(FINISHED, Long.MAX_VALUE);
+    }
+
+    /**
+     * Signal to the consumer that the producer is finished, waiting up to the given time if the consumer is saturated.
+     *
+     * @return false if the queue was still full when the time ran out, in which case the queue isn't finished
+     * @throws InterruptedException
+     */
+    public boolean finish(long timeout, TimeUnit unit) throws InterruptedException {
+        return enqueue(FINISHED, unit.toNanos(timeout));
     }
 
+    /**
+     * Scans the values currently queued. This is only meant for tests, as it is O(n) and may miss values being put or
+     * taken concurrently.
+     */
     public boolean contains(T o) {
-        return queue.contains(Optional.of(o));
+        for (long i = head.get(), end = tail.get(); i < end; i++) {
+            if (o.equals(buffer.get(index(i)))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return size() == 0;
     }
 
     public int size() {
-        return queue.size();
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * @return false if the queue was still full after the timeout
+     */
+    private boolean enqueue(Object value, long timeoutNanos) throws InterruptedException {
+        final long start = System.nanoTime();
+        for (int attempt = 0; !offer(value); attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final long remaining = timeoutNanos - (System.nanoTime() - start);
+            if (remaining <= 0) {
+                return false;
+            }
+            if (attempt < SPINS) {
+                Thread.yield();
+            } else {
+                awaitNotFull(remaining);
+            }
+        }
+        if (waitingConsumers.get() > 0) {
+            signal(notEmpty);
+        }
+        return true;
+    }
+
+    private Object dequeue() throws InterruptedException {
+        Object value;
+        for (int attempt = 0; (value = poll()) == null; attempt++) {
+            if (finished && isEmpty()) {
+                return FINISHED;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (attempt < SPINS) {
+                Thread.yield();
+            } else {
+                awaitNotEmpty();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return false if the queue is full
+     */
+    private boolean offer(Object value) {
+        long position = tail.get();
+        while (true) {
+            final int index = index(position);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, value);
+                    // publishes the value to the consumer which claims this position
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return the next value, or null if the queue is empty
+     */
+    private Object poll() {
+        long position = head.get();
+        while (true) {
+            final int index = index(position);
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final Object value = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    // frees the slot for the producer which claims this position on the next lap
+                    sequences.set(index, position + capacity);
+                    if (waitingProducers.get() > 0) {
+                        signal(notFull);
+                    }
+                    if (value == FINISHED) {
+                        // leave the queue finished for every other consumer too
+                        finished = true;
+                        signal(notEmpty);
+                    }
+                    return value;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    private int index(long position) {
+        return (int) (position % capacity);
+    }
+
+    /*
+     * The waiting counter is incremented before the queue is checked again under the lock, and the other side checks
+     * it after changing the queue, so either the waiting thread sees the change or it is signalled.
+     */
+
+    private void awaitNotFull(long nanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        waitingProducers.incrementAndGet();
+        try {
+            if (size() >= capacity) {
+                notFull.awaitNanos(nanos);
+            }
+        } finally {
+            waitingProducers.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private void awaitNotEmpty() throws InterruptedException {
+        lock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            if (isEmpty() && !finished) {
+                notEmpty.await();
+            }
+        } finally {
+            waitingConsumers.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 }
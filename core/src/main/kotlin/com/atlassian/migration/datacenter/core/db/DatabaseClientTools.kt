@@ -23,4 +23,9 @@ interface DatabaseClientTools {
     fun getDatabaseServerVersion(): SemVer?
 
     fun getBinaryPath(binaryName: String): String?
+
+    /**
+     * @return the size in bytes of each table in the database by name, or an empty map if they can't be read
+     */
+    fun getTableSizes(): Map<String, Long>
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.atlassian.migration.datacenter.core.db
+
+import org.slf4j.LoggerFactory
+import java.io.IOException
+import java.io.UncheckedIOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Follows a running pg_dump through its `--verbose` output. Each table is weighed by its size in `pg_class`, so the
+ * share of those bytes belonging to tables which have been dumped estimates how far through the dump is. The bytes
+ * written into the dump directory are reported alongside, as the compressed dump is smaller than the tables.
+ *
+ * pg_dump only says when a parallel job has finished a table, so a table is also counted as dumped once more tables
+ * have been started after it than there are jobs.
+ */
+class DatabaseDumpProgress(private val clock: Clock = Clock.systemUTC()) {
+    companion object {
+        private val log = LoggerFactory.getLogger(DatabaseDumpProgress::class.java)
+
+        // "dumping contents of table jiraissue", "dumping contents of table \"public.jiraissue\""
+        private val tableStarted = Regex("dumping contents of table \"?(?:[^\".\\s]+\\.)?([^\"\\s]+)\"?")
+        // "finished item 3012 TABLE DATA jiraissue"
+        private val tableFinished = Regex("finished item \\d+ TABLE DATA (\\S+)")
+    }
+
+    private class Dump(val tableSizes: Map<String, Long>, val directory: Path, val jobs: Int, val started: Instant) {
+        val inProgress = LinkedHashSet<String>()
+        val dumped = HashSet<String>()
+        var finished: Instant? = null
+    }
+
+    @Volatile
+    private var dump: Dump? = null
+
+    /**
+     * Starts following a new dump, forgetting the previous one.
+     *
+     * @param tableSizes bytes of each table by name, without the schema
+     * @param directory  where pg_dump writes the dump
+     * @param jobs       how many tables pg_dump dumps at once
+     */
+    fun start(tableSizes: Map<String, Long>, directory: Path, jobs: Int) {
+        dump = Dump(tableSizes, directory, jobs.coerceAtLeast(1), clock.instant())
+    }
+
+    /**
+     * Reads a line written by pg_dump to stderr
+     */
+    fun onOutput(line: String) {
+        val current = dump ?: return
+        synchronized(current) {
+            tableFinished.find(line)?.let { match ->
+                val table = match.groupValues[1]
+                current.inProgress.remove(table)
+                current.dumped.add(table)
+                return
+            }
+            tableStarted.find(line)?.let { match ->
+                current.inProgress.add(match.groupValues[1])
+                while (current.inProgress.size > current.jobs) {
+                    val oldest = current.inProgress.first()
+                    current.inProgress.remove(oldest)
+                    current.dumped.add(oldest)
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the dump as over, whether it succeeded or not
+     */
+    fun finished() {
+        val current = dump ?: return
+        synchronized(current) {
+            current.dumped.addAll(current.inProgress)
+            current.inProgress.clear()
+            current.finished = clock.instant()
+        }
+    }
+
+    /**
+     * @return the progress of the current dump, or null if no dump has been started
+     */
+    fun snapshot(): Snapshot? {
+        val current = dump ?: return null
+        val tablesDumped: Int
+        val tableBytesDumped: Long
+        val finished: Instant?
+        synchronized(current) {
+            tablesDumped = current.dumped.size
+            tableBytesDumped = current.dumped.map { current.tableSizes[it] ?: 0L }.sum()
+            finished = current.finished
+        }
+        val elapsed = Duration.between(current.started, finished ?: clock.instant())
+        val tableBytes = current.tableSizes.values.sum()
+
+        val remaining = if (finished != null) {
+            Duration.ZERO
+        } else if (tableBytesDumped > 0 && tableBytes > tableBytesDumped) {
+            Duration.ofMillis((elapsed.toMillis() * ((tableBytes - tableBytesDumped).toDouble() / tableBytesDumped)).toLong())
+        } else {
+            null
+        }
+
+        return Snapshot(
+                tablesDumped,
+                current.tableSizes.size,
+                tableBytesDumped,
+                tableBytes,
+                bytesWritten(current.directory),
+                elapsed,
+                remaining)
+    }
+
+    private fun bytesWritten(directory: Path): Long {
+        if (!Files.isDirectory(directory)) {
+            return 0
+        }
+        return try {
+            Files.walk(directory).use { paths ->
+                paths.filter { Files.isRegularFile(it) }
+                        .mapToLong { path -> try { Files.size(path) } catch (e: IOException) { 0L } }
+                        .sum()
+            }
+        } catch (e: IOException) {
+            log.debug("Unable to measure the database dump in {}", directory, e)
+            0
+        } catch (e: UncheckedIOException) {
+            log.debug("Unable to measure the database dump in {}", directory, e)
+            0
+        }
+    }
+
+    /**
+     * @param tablesDumped     tables pg_dump has finished, at least as far as can be told from its output
+     * @param tables           tables in the database
+     * @param tableBytesDumped bytes in `pg_class` of the tables which have been dumped
+     * @param tableBytes       bytes in `pg_class` of all tables
+     * @param bytesWritten     bytes of the compressed dump written to disk so far
+     * @param elapsedTime      time since the dump started, or how long it took once it is over
+     * @param estimatedTimeRemaining extrapolated from the table bytes dumped so far, null until the first table is dumped
+     */
+    data class Snapshot(
+            val tablesDumped: Int,
+            val tables: Int,
+            val tableBytesDumped: Long,
+            val tableBytes: Long,
+            val bytesWritten: Long,
+            val elapsedTime: Duration,
+            val estimatedTimeRemaining: Duration?)
+}
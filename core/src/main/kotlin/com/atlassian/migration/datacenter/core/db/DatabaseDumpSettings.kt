@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.db
+
+/**
+ * How many parallel jobs pg_dump uses and how hard it compresses the dump. Both can be set with system properties,
+ * otherwise they are derived from the number of processors and the upload throughput measured during the file system
+ * migration.
+ */
+data class DatabaseDumpSettings(val jobs: Int, val compression: Int) {
+    companion object {
+        private const val JOBS_PROPERTY = "com.atlassian.migration.datacenter.db.dumpJobs"
+        private const val COMPRESSION_PROPERTY = "com.atlassian.migration.datacenter.db.dumpCompression"
+
+        /**
+         * Each job holds a database connection and a core, which Jira needs as well
+         */
+        const val MAX_AUTO_JOBS = 8
+
+        /**
+         * Used when nothing has been uploaded to measure the network by
+         */
+        const val DEFAULT_COMPRESSION = 3
+
+        /**
+         * Rough compressed output of one core running gzip over pg_dump's table data, strongest level first. These are
+         * assumed figures for typical Jira table data, not measured on the host, so the choice they lead to is only a
+         * starting point; set the compression property when the dump is known to be CPU or network bound.
+         */
+        private val compressedBytesPerSecondPerJob = listOf(
+                9 to 2_000_000.0,
+                6 to 5_000_000.0,
+                3 to 12_000_000.0,
+                1 to 24_000_000.0)
+
+        @JvmStatic
+        fun forHost(processors: Int, uploadBytesPerSecond: Double?): DatabaseDumpSettings {
+            val jobs = Integer.getInteger(JOBS_PROPERTY, 0).takeIf { it > 0 } ?: autoJobs(processors)
+            val compression = Integer.getInteger(COMPRESSION_PROPERTY, -1).takeIf { it in 0..9 }
+                    ?: autoCompression(jobs, uploadBytesPerSecond)
+            return DatabaseDumpSettings(jobs, compression)
+        }
+
+        @JvmStatic
+        fun autoJobs(processors: Int): Int {
+            return (processors / 2).coerceIn(1, MAX_AUTO_JOBS)
+        }
+
+        /**
+         * Picks the strongest compression which still produces the dump at least as fast as it can be uploaded.
+         * Anything stronger leaves the dump waiting on the CPU, anything weaker uploads more bytes than it needs to.
+         */
+        @JvmStatic
+        fun autoCompression(jobs: Int, uploadBytesPerSecond: Double?): Int {
+            if (uploadBytesPerSecond == null || uploadBytesPerSecond <= 0) {
+                return DEFAULT_COMPRESSION
+            }
+            return compressedBytesPerSecondPerJob
+                    .firstOrNull { (_, bytesPerSecond) -> jobs * bytesPerSecond >= uploadBytesPerSecond }
+                    ?.first
+                    ?: compressedBytesPerSecondPerJob.last().first
+        }
+    }
+}
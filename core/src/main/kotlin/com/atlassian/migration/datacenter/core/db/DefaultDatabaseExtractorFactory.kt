@@ -17,18 +17,30 @@ package com.atlassian.migration.datacenter.core.db
 
 import com.atlassian.migration.datacenter.core.application.ApplicationConfiguration
 import com.atlassian.migration.datacenter.core.application.DatabaseConfiguration.DBType
+import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager
+import com.atlassian.migration.datacenter.core.fs.ReportType
 import com.atlassian.migration.datacenter.spi.exceptions.ConfigurationReadException
 import com.atlassian.migration.datacenter.spi.exceptions.DatabaseMigrationFailure
 import org.slf4j.LoggerFactory
+import java.util.function.Supplier
 
-class DefaultDatabaseExtractorFactory(val config: ApplicationConfiguration, private val databaseClientTools: DatabaseClientTools) : DatabaseExtractorFactory {
+class DefaultDatabaseExtractorFactory(val config: ApplicationConfiguration,
+                                      private val databaseClientTools: DatabaseClientTools,
+                                      private val reportManager: FileSystemMigrationReportManager?,
+                                      private val dumpProgress: DatabaseDumpProgress) : DatabaseExtractorFactory {
     companion object {
         val log = LoggerFactory.getLogger(DefaultDatabaseExtractorFactory::class.java)
     }
+
+    constructor(config: ApplicationConfiguration, databaseClientTools: DatabaseClientTools)
+            : this(config, databaseClientTools, null, DatabaseDumpProgress())
+
     override val extractor: DatabaseExtractor by lazy {
         try {
             if (config.databaseConfiguration.type == DBType.POSTGRESQL) {
-                PostgresExtractor(config, databaseClientTools)
+                PostgresExtractor(config, databaseClientTools, Supplier {
+                    DatabaseDumpSettings.forHost(Runtime.getRuntime().availableProcessors(), measuredUploadBytesPerSecond())
+                }, dumpProgress)
             } else {
                 UnSupportedDatabaseExtractor()
             }
@@ -37,4 +49,13 @@ class DefaultDatabaseExtractorFactory(val config: ApplicationConfiguration, priv
             throw DatabaseMigrationFailure("Failed reading database configuration", e)
         }
     }
+
+    /**
+     * The average throughput of the file system upload, which went over the same network the dump will. Only the time
+     * the uploads were running counts, not the crawl before them or the download after them.
+     */
+    private fun measuredUploadBytesPerSecond(): Double? {
+        val snapshot = reportManager?.getCurrentSnapshot(ReportType.Filesystem) ?: return null
+        return snapshot.averageBytesPerSecond.takeIf { it > 0 }
+    }
 }
\ No newline at end of file
@@ -18,10 +18,13 @@ package com.atlassian.migration.datacenter.core.db
 import com.atlassian.migration.datacenter.core.application.ApplicationConfiguration
 import net.swiftzer.semver.SemVer
 import org.slf4j.LoggerFactory
+import java.io.InputStream
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
 
 class PostgresClientTooling(private val applicationConfiguration: ApplicationConfiguration) : DatabaseClientTools {
     companion object {
@@ -33,6 +36,33 @@ class PostgresClientTooling(private val applicationConfiguration: ApplicationCon
             val match = versionPattern.find(text) ?: return null
             return SemVer.parse(match.groupValues[1])
         }
+
+        /**
+         * Table data and TOAST, but not indexes, as pg_dump only dumps the definition of an index
+         */
+        private const val tableSizesQuery = "SELECT c.relname, pg_table_size(c.oid) FROM pg_class c " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE c.relkind = 'r' AND n.nspname NOT IN ('pg_catalog', 'information_schema')"
+
+        private const val tableSizesTimeoutSeconds = 60L
+        private const val tableSizesConnectTimeoutSeconds = 10
+        private const val tableSizesStatementTimeoutMillis = 30_000
+
+        /**
+         * Parses the unaligned `name|bytes` rows psql prints for the table sizes query. Tables of the same name in
+         * different schemas are added together, as pg_dump doesn't always say which schema it is dumping.
+         */
+        @JvmStatic
+        fun parseTableSizes(text: String): Map<String, Long> {
+            val sizes = HashMap<String, Long>()
+            text.lineSequence()
+                    .map { it.split('|') }
+                    .filter { it.size == 2 }
+                    .forEach { (name, bytes) ->
+                        bytes.trim().toLongOrNull()?.let { sizes[name] = (sizes[name] ?: 0L) + it }
+                    }
+            return sizes
+        }
     }
 
     /**
@@ -114,6 +144,64 @@ class PostgresClientTooling(private val applicationConfiguration: ApplicationCon
         }
     }
 
+    /**
+     * Get the size of every table from `pg_class`, to measure the progress of a dump against
+     *
+     * @return bytes of each table by name
+     */
+    override fun getTableSizes(): Map<String, Long> {
+        val psql = getBinaryPath("psql") ?: return emptyMap()
+        val config = applicationConfiguration.databaseConfiguration
+        val url = "postgresql://${config.username}:${config.password}@${config.host}:${config.port}/${config.name}"
+
+        try {
+            val builder = ProcessBuilder(psql,
+                    "-At",
+                    url,
+                    "-c", tableSizesQuery)
+                    .redirectOutput(ProcessBuilder.Redirect.PIPE)
+                    .redirectError(ProcessBuilder.Redirect.PIPE)
+            // Bound the connection and the query on the server too, so a stuck database doesn't leave psql running
+            builder.environment()["PGCONNECT_TIMEOUT"] = tableSizesConnectTimeoutSeconds.toString()
+            builder.environment()["PGOPTIONS"] = "-c statement_timeout=$tableSizesStatementTimeoutMillis"
+            val proc = builder.start()
+
+            // Both pipes are drained on their own threads, so psql can't block on a full pipe and we can stop waiting
+            val output = drain(proc.inputStream, "psql-table-sizes-output")
+            val errors = drain(proc.errorStream, "psql-table-sizes-errors")
+            if (!proc.waitFor(tableSizesTimeoutSeconds, TimeUnit.SECONDS)) {
+                proc.destroyForcibly()
+                log.error("Timed out after {}s getting table sizes from command-line", tableSizesTimeoutSeconds)
+                return emptyMap()
+            }
+            if (proc.exitValue() != 0) {
+                log.error("Failed to get table sizes from command-line, psql exited with {}: {}", proc.exitValue(), errors.join().trim())
+                return emptyMap()
+            }
+
+            return parseTableSizes(output.join())
+
+        } catch (e: Exception) {
+            log.error("Failed to get table sizes from command-line", e)
+            return emptyMap()
+        }
+    }
+
+    /**
+     * Reads a process stream to the end on a daemon thread, rather than a shared pool which the blocking read would tie up
+     */
+    private fun drain(stream: InputStream, name: String): CompletableFuture<String> {
+        val text = CompletableFuture<String>()
+        thread(isDaemon = true, name = name) {
+            try {
+                text.complete(stream.bufferedReader().use { it.readText() })
+            } catch (e: Exception) {
+                text.completeExceptionally(e)
+            }
+        }
+        return text
+    }
+
     private fun resolveBinaryPath(binaryName: String): Array<Path> {
         return try {
             val proc = ProcessBuilder("which",
@@ -17,15 +17,25 @@ package com.atlassian.migration.datacenter.core.db
 
 import com.atlassian.migration.datacenter.core.application.ApplicationConfiguration
 import com.atlassian.migration.datacenter.spi.exceptions.DatabaseMigrationFailure
+import net.swiftzer.semver.SemVer
 import org.apache.commons.io.FileUtils
 import org.slf4j.LoggerFactory
 import java.io.IOException
 import java.nio.file.Files
 import java.nio.file.Path
+import java.util.function.Supplier
 
-class PostgresExtractor(private val applicationConfiguration: ApplicationConfiguration, 
-                        private val databaseClientTools: DatabaseClientTools) : DatabaseExtractor {
+class PostgresExtractor(private val applicationConfiguration: ApplicationConfiguration,
+                        private val databaseClientTools: DatabaseClientTools,
+                        private val dumpSettings: Supplier<DatabaseDumpSettings>,
+                        private val dumpProgress: DatabaseDumpProgress) : DatabaseExtractor {
     private val log = LoggerFactory.getLogger(javaClass)
+    private val problem = Regex("error|fatal|failed", RegexOption.IGNORE_CASE)
+
+    constructor(applicationConfiguration: ApplicationConfiguration, databaseClientTools: DatabaseClientTools)
+            : this(applicationConfiguration, databaseClientTools, Supplier {
+        DatabaseDumpSettings.forHost(Runtime.getRuntime().availableProcessors(), null)
+    }, DatabaseDumpProgress())
 
     @Throws(DatabaseMigrationFailure::class)
     override fun startDatabaseDump(target: Path): Process {
@@ -37,19 +47,20 @@ class PostgresExtractor(private val applicationConfiguration: ApplicationConfigu
      *
      *
      *  * It is the responsibility of the caller to ensure that the filesystems the target resides on has sufficient space.
-     *  * stdio & stderr are redirected to the stderr of the calling process.
+     *  * stdout is redirected to the stdout of the calling process, stderr is logged and followed by the [DatabaseDumpProgress].
      *
      *
      * @param target   - The directory to dump the compressed database export to.
-     * @param parallel - Whether to use parallel dump strategy.
+     * @param parallel - Whether to use parallel dump strategy, with the number of jobs from the [DatabaseDumpSettings].
      * @return The underlying process object.
      * @throws DatabaseMigrationFailure on failure.
      */
     @Throws(DatabaseMigrationFailure::class)
     override fun startDatabaseDump(target: Path, parallel: Boolean): Process {
-        val numJobs = if (parallel) 4 else 1 // Common-case for now, could be tunable or num-CPUs.
+        val settings = dumpSettings.get()
+        val numJobs = if (parallel && supportsParallelDump()) settings.jobs else 1
 
-        log.info("Dump database to $target using $numJobs threads")
+        log.info("Dump database to $target using $numJobs threads and compression level ${settings.compression}")
 
         val pgdump = databaseClientTools.getBinaryPath("pg_dump") ?: throw DatabaseMigrationFailure("Failed to find appropriate pg_dump executable.")
         val config = applicationConfiguration.databaseConfiguration
@@ -57,16 +68,19 @@ class PostgresExtractor(private val applicationConfiguration: ApplicationConfigu
         val args = listOf(pgdump,
                 "--no-owner",
                 "--no-acl",
-                "--compress=9",
+                "--compress=${settings.compression}",
                 "--format=directory",
-                "--jobs", numJobs.toString(),
+                "--verbose",
                 "--file", target.toString(),
                 "--dbname", config.name,
                 "--host", config.host,
                 "--port", config.port.toString(),
-                "--username", config.username)
+                "--username", config.username) +
+                // pg_dump before 9.3 doesn't know --jobs at all
+                if (numJobs > 1) listOf("--jobs", numJobs.toString()) else emptyList()
         val builder = ProcessBuilder(args)
-                .inheritIO()
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.PIPE)
         builder.environment()["PGPASSWORD"] = config.password
 
         return try {
@@ -74,8 +88,9 @@ class PostgresExtractor(private val applicationConfiguration: ApplicationConfigu
                 log.debug("pg_dump archive [$target] already exists. Deleting now...")
                 deleteDatabaseDump(target)
             }
+            dumpProgress.start(databaseClientTools.getTableSizes(), target, numJobs)
             log.info("Calling pg_dump with: "+args.joinToString(" "))
-            builder.start()
+            followOutput(builder.start())
         } catch (e: IOException) {
             val command = java.lang.String.join(" ", builder.command())
             throw DatabaseMigrationFailure("Failed to start pg_dump process with commandline: $command", e)
@@ -90,7 +105,7 @@ class PostgresExtractor(private val applicationConfiguration: ApplicationConfigu
      */
     @Throws(DatabaseMigrationFailure::class)
     override fun dumpDatabase(to: Path) {
-        val proc = startDatabaseDump(to)
+        val proc = startDatabaseDump(to, true)
         val exit: Int
         exit = try {
             proc.waitFor()
@@ -102,6 +117,41 @@ class PostgresExtractor(private val applicationConfiguration: ApplicationConfigu
         }
     }
     
+    /**
+     * pg_dump blocks once the pipe to stderr is full, so its verbose output has to be read for as long as it runs
+     */
+    private fun followOutput(process: Process): Process {
+        val reader = Thread({
+            try {
+                process.errorStream.bufferedReader().useLines { lines ->
+                    lines.forEach { line ->
+                        if (problem.containsMatchIn(line)) log.warn(line) else log.debug(line)
+                        dumpProgress.onOutput(line)
+                    }
+                }
+            } catch (e: IOException) {
+                log.warn("Stopped reading the output of pg_dump", e)
+            } finally {
+                dumpProgress.finished()
+            }
+        }, "pg_dump-output")
+        reader.isDaemon = true
+        reader.start()
+        return process
+    }
+
+    /**
+     * pg_dump can only dump a directory format archive in parallel from 9.3
+     */
+    private fun supportsParallelDump(): Boolean {
+        val version = databaseClientTools.getDatabaseDumpClientVersion() ?: return true
+        if (version < SemVer(9, 3)) {
+            log.info("pg_dump $version can't dump in parallel, dumping with a single job")
+            return false
+        }
+        return true
+    }
+
     @Throws(IOException::class)
     fun deleteDatabaseDump(target: Path) {
         try {
@@ -1,12 +1,26 @@
 package com.atlassian.migration.datacenter.core.fs
 
 import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport
+import com.atlassian.migration.datacenter.core.fs.reporting.ReportSnapshot
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Component
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
 
 @Component
-class DefaultFileSystemMigrationReportManager : FileSystemMigrationReportManager {
+class DefaultFileSystemMigrationReportManager(private val clock: Clock = Clock.systemUTC()) : FileSystemMigrationReportManager {
+
+    companion object {
+        private val SNAPSHOT_TTL: Duration = Duration.ofMillis(java.lang.Long
+                .getLong("com.atlassian.migration.datacenter.fs.reportSnapshotTtlMillis", 2000))
+    }
+
+    private class CachedSnapshot(val report: FileSystemMigrationReport, val snapshot: ReportSnapshot, val expiry: Instant)
+
+    private val snapshots = ConcurrentHashMap<ReportType, CachedSnapshot>()
 
     val reports: HashMap<ReportType, FileSystemMigrationReport> = hashMapOf(
             ReportType.Filesystem to DefaultFileSystemMigrationReport(),
@@ -23,4 +37,20 @@ class DefaultFileSystemMigrationReportManager : FileSystemMigrationReportManager
     override fun getCurrentReport(type: ReportType): FileSystemMigrationReport? {
         return reports[type]
     }
+
+    /**
+     * Snapshots are cached until they expire or the report is reset. Concurrent requests for an expired snapshot may
+     * each take a new one; the last one taken is cached.
+     */
+    override fun getCurrentSnapshot(type: ReportType): ReportSnapshot? {
+        val report = reports[type] ?: return null
+        val now = clock.instant()
+        val cached = snapshots[type]
+        if (cached != null && cached.report === report && now.isBefore(cached.expiry)) {
+            return cached.snapshot
+        }
+        val snapshot = ReportSnapshot.of(report)
+        snapshots[type] = CachedSnapshot(report, snapshot, now.plus(SNAPSHOT_TTL))
+        return snapshot
+    }
 }
@@ -16,16 +16,34 @@
 
 package com.atlassian.migration.datacenter.core.fs
 
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
+import java.nio.file.Path
 
-class DefaultFilesystemUploaderFactory(private val uploaderFactory: UploaderFactory)
+class DefaultFilesystemUploaderFactory(private val uploaderFactory: UploaderFactory,
+                                       private val throttle: UploadThrottle)
     : FilesystemUploaderFactory
 {
-    override fun newUploader(report: FileSystemMigrationReport): FilesystemUploader {
+    constructor(uploaderFactory: UploaderFactory) : this(uploaderFactory, UploadThrottle.unlimited())
+
+    private val crawlerParallelism = Integer
+            .getInteger("com.atlassian.migration.datacenter.fs.crawlerParallelism", Runtime.getRuntime().availableProcessors())
+
+    override fun newUploader(report: FileSystemMigrationReport, checkpoint: UploadCheckpoint): FilesystemUploader {
         // TODO: Should probably be a factory too
-        val crawler: Crawler = DirectoryStreamCrawler(report)
-        val uploader = uploaderFactory.newUploader(report)
+        val crawler: Crawler = if (crawlerParallelism > 1) {
+            ForkJoinCrawler(report, crawlerParallelism, checkpoint, throttle)
+        } else {
+            DirectoryStreamCrawler(report, checkpoint, throttle)
+        }
+        val uploader = uploaderFactory.newUploader(report, checkpoint)
 
         return DefaultFilesystemUploader(crawler, uploader)
     }
+
+    override fun newRetryUploader(report: FileSystemMigrationReport, failedFiles: Collection<Path>): FilesystemUploader {
+        val uploader = uploaderFactory.newUploader(report, UploadCheckpoint.NONE)
+
+        return DefaultFilesystemUploader(FailedFileCrawler(report, failedFiles, throttle), uploader)
+    }
 }
\ No newline at end of file
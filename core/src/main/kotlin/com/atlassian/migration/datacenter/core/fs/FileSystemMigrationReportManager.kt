@@ -1,5 +1,6 @@
 package com.atlassian.migration.datacenter.core.fs
 
+import com.atlassian.migration.datacenter.core.fs.reporting.ReportSnapshot
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
 
 interface FileSystemMigrationReportManager {
@@ -17,4 +18,12 @@ interface FileSystemMigrationReportManager {
      * @return the new report
      */
     fun resetReport(type: ReportType): FileSystemMigrationReport
-}
\ No newline at end of file
+
+    /**
+     * Return an immutable snapshot of the current migration report for the specified transfer type. The snapshot may
+     * be up to a couple of seconds old, which saves reading the live report for every poll.
+     *
+     * @return snapshot of the migration report
+     */
+    fun getCurrentSnapshot(type: ReportType): ReportSnapshot?
+}
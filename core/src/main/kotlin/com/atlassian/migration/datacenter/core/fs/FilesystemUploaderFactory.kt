@@ -17,7 +17,13 @@
 package com.atlassian.migration.datacenter.core.fs
 
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
+import java.nio.file.Path
 
 interface FilesystemUploaderFactory {
-    fun newUploader(report: FileSystemMigrationReport): FilesystemUploader
+    fun newUploader(report: FileSystemMigrationReport, checkpoint: UploadCheckpoint): FilesystemUploader
+
+    /**
+     * Creates an uploader which only uploads the given files, which failed to migrate in a previous upload.
+     */
+    fun newRetryUploader(report: FileSystemMigrationReport, failedFiles: Collection<Path>): FilesystemUploader
 }
\ No newline at end of file
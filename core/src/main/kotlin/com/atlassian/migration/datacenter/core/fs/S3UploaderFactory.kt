@@ -17,6 +17,7 @@
 package com.atlassian.migration.datacenter.core.fs
 
 import com.atlassian.migration.datacenter.core.aws.infrastructure.AWSMigrationHelperDeploymentService
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
 import software.amazon.awssdk.services.s3.S3AsyncClient
 import java.nio.file.Path
@@ -25,17 +26,28 @@ import java.util.function.Supplier
 
 class S3UploaderFactory(private val deploymentService: AWSMigrationHelperDeploymentService,
                         private val clientSupplier: Supplier<S3AsyncClient>,
-                        private val home: Path)
+                        private val home: Path,
+                        private val throttle: UploadThrottle)
     : UploaderFactory
 {
+    constructor(deploymentService: AWSMigrationHelperDeploymentService, clientSupplier: Supplier<S3AsyncClient>, home: Path)
+            : this(deploymentService, clientSupplier, home, UploadThrottle.unlimited())
+
     private val OVERRIDE_UPLOAD_DIRECTORY = System
             .getProperty("com.atlassian.migration.datacenter.fs.overrideJiraHome", "")
+    private val PACK_SMALL_FILES = java.lang.Boolean
+            .getBoolean("com.atlassian.migration.datacenter.fs.packSmallFiles")
 
-    override fun newUploader(report: FileSystemMigrationReport): Uploader {
+    override fun newUploader(report: FileSystemMigrationReport, checkpoint: UploadCheckpoint): Uploader {
         val s3Bucket = deploymentService.getMigrationS3BucketName()
 
         val s3UploadConfig = S3UploadConfig(s3Bucket, clientSupplier.get(), getSharedHomeDir())
-        val s3Uploader: Uploader = S3Uploader(s3UploadConfig, report)
+        s3UploadConfig.throttle = throttle
+        val s3Uploader: Uploader = if (PACK_SMALL_FILES) {
+            PackingS3Uploader(s3UploadConfig, report, checkpoint)
+        } else {
+            S3Uploader(s3UploadConfig, report, checkpoint)
+        }
 
         return s3Uploader
     }
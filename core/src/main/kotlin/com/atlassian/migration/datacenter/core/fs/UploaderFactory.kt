@@ -19,5 +19,5 @@ package com.atlassian.migration.datacenter.core.fs
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
 
 interface UploaderFactory {
-    fun newUploader(report: FileSystemMigrationReport): Uploader
+    fun newUploader(report: FileSystemMigrationReport, checkpoint: UploadCheckpoint): Uploader
 }
\ No newline at end of file
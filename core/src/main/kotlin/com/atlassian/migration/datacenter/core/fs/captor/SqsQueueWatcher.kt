@@ -17,21 +17,23 @@
 package com.atlassian.migration.datacenter.core.fs.captor
 
 import com.atlassian.migration.datacenter.core.aws.SqsApi
+import com.atlassian.migration.datacenter.core.util.PollingScheduler
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.MigrationStage
 import com.atlassian.migration.datacenter.spi.MigrationStage.FINAL_SYNC_WAIT
 import com.atlassian.migration.datacenter.spi.MigrationStage.VALIDATE
 import org.slf4j.LoggerFactory
 import java.util.concurrent.CompletableFuture
-import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
 
 //TODO: Convert to using co-routines and suspend functions?
 class SqsQueueWatcher(private val sqsAPi: SqsApi,
                       private val migrationService: MigrationService,
+                      private val pollingScheduler: PollingScheduler,
                       private val schedulerPollFrequency: Long) : QueueWatcher {
 
-    constructor(sqsAPi: SqsApi, migrationService: MigrationService) : this(sqsAPi, migrationService, 30)
+    constructor(sqsAPi: SqsApi, migrationService: MigrationService, pollingScheduler: PollingScheduler) : this(sqsAPi, migrationService, pollingScheduler, 30)
 
     companion object {
         private val logger = LoggerFactory.getLogger(SqsQueueWatcher::class.java)
@@ -78,16 +80,6 @@ class SqsQueueWatcher(private val sqsAPi: SqsApi,
     }
 
     private fun awaitRunnableToComplete(runnable: (future: CompletableFuture<Unit>) -> Runnable): CompletableFuture<Unit> {
-        val completableFuture = CompletableFuture<Unit>()
-        val executor = Executors.newSingleThreadScheduledExecutor()
-
-        val scheduledFuture = executor.scheduleAtFixedRate(runnable(completableFuture), 0, schedulerPollFrequency, TimeUnit.SECONDS)
-
-        completableFuture.whenComplete { _, _ ->
-            run {
-                scheduledFuture.cancel(true)
-            }
-        }
-        return completableFuture
+        return pollingScheduler.poll("final sync queue", Consumer { future -> runnable(future).run() }, schedulerPollFrequency, TimeUnit.SECONDS)
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.reporting
+
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport
+
+/**
+ * Report given to the crawler and uploader of a filesystem upload. Everything goes to the migration report, and each
+ * failure is also written to the [FailureJournal] of the upload.
+ */
+class JournalingMigrationReport(private val report: FileSystemMigrationReport,
+                                private val journal: FailureJournal)
+    : FileSystemMigrationReport by report
+{
+    override fun reportFileNotMigrated(failedFileMigration: FailedFileMigration) {
+        journal.append(failedFileMigration)
+        report.reportFileNotMigrated(failedFileMigration)
+    }
+
+    override fun toString(): String = report.toString()
+}
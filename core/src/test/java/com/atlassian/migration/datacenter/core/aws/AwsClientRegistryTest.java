@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.aws;
+
+import com.atlassian.migration.datacenter.core.aws.auth.ReadCredentialsService;
+import com.atlassian.migration.datacenter.core.aws.region.RegionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AwsClientRegistryTest {
+
+    @Mock
+    RegionService regionService;
+
+    @Mock
+    ReadCredentialsService credentialsService;
+
+    AwsClientRegistry registry;
+
+    List<Region> builtFor = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        registry = new AwsClientRegistry(regionService, credentialsService);
+        when(regionService.getRegion()).thenReturn("us-east-1");
+        when(credentialsService.getAccessKeyId()).thenReturn("AKIA1");
+    }
+
+    @Test
+    void shouldReuseClientWhileRegionAndCredentialsAreUnchanged() {
+        final Supplier<S3Client> supplier = registry.supplier(S3Client.class, this::s3Client);
+
+        final S3Client first = supplier.get();
+        final S3Client second = supplier.get();
+
+        assertSame(first, second);
+        assertEquals(1, builtFor.size());
+        verify(first, never()).close();
+    }
+
+    @Test
+    void shouldReplaceAndCloseClientWhenRegionChanges() {
+        final Supplier<S3Client> supplier = registry.supplier(S3Client.class, this::s3Client);
+        final S3Client first = supplier.get();
+
+        when(regionService.getRegion()).thenReturn("ap-southeast-2");
+        final S3Client second = supplier.get();
+
+        assertNotSame(first, second);
+        assertEquals(Region.AP_SOUTHEAST_2, builtFor.get(1));
+        verify(first).close();
+    }
+
+    @Test
+    void shouldReplaceAndCloseClientWhenCredentialsChange() {
+        final Supplier<S3Client> supplier = registry.supplier(S3Client.class, this::s3Client);
+        final S3Client first = supplier.get();
+
+        when(credentialsService.getAccessKeyId()).thenReturn("AKIA2");
+        final S3Client second = supplier.get();
+
+        assertNotSame(first, second);
+        verify(first).close();
+    }
+
+    @Test
+    void shouldCacheOneClientPerService() {
+        final S3Client s3 = registry.get(S3Client.class, this::s3Client);
+        final SqsAsyncClient sqs = registry.get(SqsAsyncClient.class, region -> mock(SqsAsyncClient.class));
+
+        assertSame(s3, registry.get(S3Client.class, this::s3Client));
+        assertSame(sqs, registry.get(SqsAsyncClient.class, region -> mock(SqsAsyncClient.class)));
+        verify(s3, never()).close();
+    }
+
+    @Test
+    void shouldCacheProfilesOfAServiceSeparately() {
+        final S3Client standard = registry.get(S3Client.class, this::s3Client);
+        final S3Client upload = registry.get(S3Client.class, "upload", this::s3Client);
+
+        assertNotSame(standard, upload);
+        assertSame(upload, registry.get(S3Client.class, "upload", this::s3Client));
+        assertSame(standard, registry.get(S3Client.class, this::s3Client));
+    }
+
+    @Test
+    void shouldCloseAllClientsWhenDestroyed() {
+        final S3Client s3 = registry.get(S3Client.class, this::s3Client);
+        final SqsAsyncClient sqs = registry.get(SqsAsyncClient.class, region -> mock(SqsAsyncClient.class));
+
+        registry.destroy();
+
+        verify(s3).close();
+        verify(sqs).close();
+        assertNotSame(s3, registry.get(S3Client.class, this::s3Client));
+    }
+
+    private S3Client s3Client(Region region) {
+        builtFor.add(region);
+        return mock(S3Client.class);
+    }
+}
@@ -33,6 +33,7 @@ import java.nio.file.Path;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -59,7 +60,7 @@ class DatabaseArchivalServiceTest {
 
     @Test
     void shouldArchiveDatabaseSuccessfully() throws Exception {
-        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"))).thenReturn(process);
+        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"), true)).thenReturn(process);
         when(process.waitFor()).thenReturn(0);
         Path target = service.archiveDatabase(tempDir);
         assertTrue(target.endsWith("db.dump"));
@@ -91,7 +92,7 @@ class DatabaseArchivalServiceTest {
 
     @Test
     void shouldThrowExceptionWhenStateTransitionToEndStageIsNotSuccessful() throws Exception {
-        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"))).thenReturn(process);
+        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"), true)).thenReturn(process);
         when(process.waitFor()).thenReturn(0);
         doThrow(InvalidMigrationStageError.class).when(migrationStageCallback).transitionToServiceNextStage();
 
@@ -105,7 +106,7 @@ class DatabaseArchivalServiceTest {
 
     @Test
     void shouldThrowExceptionWhenProcessExecutionFails() throws Exception {
-        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"))).thenReturn(process);
+        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"), true)).thenReturn(process);
         final String errorMessage = "error message";
         when(process.waitFor()).thenThrow(new InterruptedException(errorMessage));
 
@@ -117,4 +118,17 @@ class DatabaseArchivalServiceTest {
         verify(migrationStageCallback).transitionToServiceWaitStage();
         verify(migrationStageCallback).transitionToServiceErrorStage(errorMessage);
     }
+
+    @Test
+    void shouldThrowExceptionWhenProcessExitsWithNonZeroStatus() throws Exception {
+        when(this.databaseExtractor.startDatabaseDump(tempDir.resolve("db.dump"), true)).thenReturn(process);
+        when(process.waitFor()).thenReturn(1);
+
+        assertThrows(DatabaseMigrationFailure.class, () -> {
+            service.archiveDatabase(tempDir);
+        });
+
+        verify(migrationStageCallback).transitionToServiceErrorStage("DB extractor exited with non-zero status: 1");
+        verify(migrationStageCallback, never()).transitionToServiceNextStage();
+    }
 }
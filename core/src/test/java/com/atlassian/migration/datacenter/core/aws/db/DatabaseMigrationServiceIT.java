@@ -16,6 +16,7 @@
 
 package com.atlassian.migration.datacenter.core.aws.db;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.application.ApplicationConfiguration;
 import com.atlassian.migration.datacenter.core.application.DatabaseConfiguration;
 import com.atlassian.migration.datacenter.core.aws.MigrationStageCallback;
@@ -31,6 +32,7 @@ import com.atlassian.migration.datacenter.core.fs.DefaultFileSystemMigrationRepo
 import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager;
 import com.atlassian.migration.datacenter.core.fs.download.s3sync.S3SyncFileSystemDownloader;
 import com.atlassian.migration.datacenter.core.util.MigrationRunner;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.exceptions.InvalidMigrationStageError;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationErrorReport;
@@ -105,6 +107,8 @@ class DatabaseMigrationServiceIT {
     AWSMigrationHelperDeploymentService migrationHelperDeploymentService;
     @Mock
     RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService;
+    @Mock
+    EventPublisher eventPublisher;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -149,7 +153,7 @@ class DatabaseMigrationServiceIT {
 
         DatabaseRestoreStageTransitionCallback restoreStageTransitionCallback  = new DatabaseRestoreStageTransitionCallback(this.migrationService);
 
-        SsmPsqlDatabaseRestoreService restoreService = new SsmPsqlDatabaseRestoreService(ssmApi, migrationHelperDeploymentService, restoreStageTransitionCallback, remoteInstanceCommandRunnerService);
+        SsmPsqlDatabaseRestoreService restoreService = new SsmPsqlDatabaseRestoreService(ssmApi, migrationHelperDeploymentService, restoreStageTransitionCallback, remoteInstanceCommandRunnerService, new PollingScheduler(eventPublisher));
 
         DatabaseMigrationService service = new DatabaseMigrationService(tempDir,
                 migrationService,
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.aws.db;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.exceptions.DatabaseMigrationFailure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DumpDirectoryCrawlerTest {
+    private static final Instant NOW = Instant.parse("2020-06-17T10:00:00Z");
+    private static final Duration SETTLE_TIME = Duration.ofSeconds(30);
+
+    @TempDir
+    Path dumpDirectory;
+
+    @Mock
+    Process dump;
+
+    DefaultFileSystemMigrationReport report;
+    UploadQueue<Path> queue;
+
+    @BeforeEach
+    void setUp() {
+        report = new DefaultFileSystemMigrationReport();
+        queue = new UploadQueue<>(100);
+    }
+
+    @Test
+    void shouldQueueSettledFilesWhileDumpIsRunningAndTheRestOnceItExits() throws Exception {
+        final Path settled = write("1001.dat.gz", "settled", NOW.minusSeconds(60));
+        final Path writing = write("1002.dat.gz", "writing", NOW.minusSeconds(1));
+        final List<List<Path>> queuedWhenFinished = new ArrayList<>();
+
+        when(dump.isAlive()).thenReturn(true, false);
+        when(dump.waitFor(anyLong(), eq(TimeUnit.MILLISECONDS))).thenAnswer(invocation -> {
+            write("toc.dat", "toc", NOW);
+            return true;
+        });
+
+        crawler(() -> queuedWhenFinished.add(drain(false))).crawlDirectory(dumpDirectory, queue);
+
+        assertEquals(Collections.singletonList(Collections.singletonList(settled)), queuedWhenFinished);
+        final List<Path> rest = drain(true);
+        rest.sort(null);
+        assertEquals(Arrays.asList(writing, dumpDirectory.resolve("toc.dat")), rest);
+        assertEquals(3, report.getNumberOfFilesFound());
+    }
+
+    @Test
+    void shouldQueueFileAgainIfItChangedAfterBeingQueued() throws Exception {
+        final Path file = write("1001.dat.gz", "partial", NOW.minusSeconds(60));
+
+        when(dump.isAlive()).thenReturn(true, false);
+        when(dump.waitFor(anyLong(), eq(TimeUnit.MILLISECONDS))).thenAnswer(invocation -> {
+            write("1001.dat.gz", "partial and the rest", NOW);
+            return true;
+        });
+
+        crawler(() -> {}).crawlDirectory(dumpDirectory, queue);
+
+        assertEquals(Arrays.asList(file, file), drain(true));
+        assertEquals(2, report.getNumberOfFilesFound());
+    }
+
+    @Test
+    void shouldWaitForDumpDirectoryToBeCreated() throws Exception {
+        final Path missing = dumpDirectory.resolve("db.dump");
+
+        when(dump.isAlive()).thenReturn(true, false);
+        when(dump.waitFor(anyLong(), eq(TimeUnit.MILLISECONDS))).thenAnswer(invocation -> {
+            Files.createDirectory(missing);
+            Files.write(missing.resolve("toc.dat"), "toc".getBytes());
+            return true;
+        });
+
+        crawler(() -> {}).crawlDirectory(missing, queue);
+
+        assertEquals(Collections.singletonList(missing.resolve("toc.dat")), drain(true));
+    }
+
+    @Test
+    void shouldFailAndFinishQueueWhenDumpFails() throws Exception {
+        write("1001.dat.gz", "partial", NOW);
+        when(dump.isAlive()).thenReturn(false);
+
+        assertThrows(IOException.class, () -> crawler(() -> {
+            throw new DatabaseMigrationFailure("pg_dump exited with non-zero status: 1");
+        }).crawlDirectory(dumpDirectory, queue));
+
+        assertEquals(Collections.emptyList(), drain(true));
+    }
+
+    private DumpDirectoryCrawler crawler(DumpDirectoryCrawler.DumpListener listener) {
+        return new DumpDirectoryCrawler(report, dump, listener, SETTLE_TIME, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private Path write(String name, String content, Instant lastModified) throws IOException {
+        final Path file = dumpDirectory.resolve(name);
+        Files.write(file, content.getBytes());
+        Files.setLastModifiedTime(file, FileTime.from(lastModified));
+        return file;
+    }
+
+    /**
+     * @param untilFinished whether to take values until the crawler finishes the queue, rather than only those queued
+     *                      so far
+     */
+    private List<Path> drain(boolean untilFinished) throws InterruptedException {
+        final List<Path> paths = new ArrayList<>();
+        while (untilFinished || queue.size() > 0) {
+            final Optional<Path> path = queue.take();
+            if (!path.isPresent()) {
+                break;
+            }
+            paths.add(path.get());
+        }
+        return paths;
+    }
+}
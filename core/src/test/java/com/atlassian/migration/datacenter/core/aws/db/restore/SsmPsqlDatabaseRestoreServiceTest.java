@@ -16,10 +16,12 @@
 
 package com.atlassian.migration.datacenter.core.aws.db.restore;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.AWSMigrationHelperDeploymentService;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.RemoteInstanceCommandRunnerService;
 import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
 import com.atlassian.migration.datacenter.core.fs.download.s3sync.S3SyncFileSystemDownloader;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.exceptions.DatabaseMigrationFailure;
 import com.atlassian.migration.datacenter.spi.exceptions.InvalidMigrationStageError;
 import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
@@ -33,9 +35,12 @@ import software.amazon.awssdk.services.ssm.model.CommandInvocationStatus;
 import software.amazon.awssdk.services.ssm.model.GetCommandInvocationResponse;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -58,11 +63,17 @@ class SsmPsqlDatabaseRestoreServiceTest {
     @Mock
     RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService;        
 
+    @Mock
+    EventPublisher eventPublisher;
+
+    PollingScheduler pollingScheduler;
+
     SsmPsqlDatabaseRestoreService sut;
 
     @BeforeEach
     void setUp() {
-        sut = new SsmPsqlDatabaseRestoreService(ssmApi, migrationHelperDeploymentService, callback, remoteInstanceCommandRunnerService);
+        pollingScheduler = new PollingScheduler(eventPublisher);
+        sut = new SsmPsqlDatabaseRestoreService(ssmApi, migrationHelperDeploymentService, callback, remoteInstanceCommandRunnerService, pollingScheduler);
     }
 
     @Test
@@ -72,6 +83,26 @@ class SsmPsqlDatabaseRestoreServiceTest {
         sut.restoreDatabase();
     }
 
+    @Test
+    void shouldPassConfiguredJobsToTheRestoreDocument() throws InvalidMigrationStageError, S3SyncFileSystemDownloader.CannotLaunchCommandException, InfrastructureDeploymentError {
+        sut = new SsmPsqlDatabaseRestoreService(ssmApi, migrationHelperDeploymentService, callback, remoteInstanceCommandRunnerService, pollingScheduler, 4, true);
+        givenCommandCompletesWithStatus(CommandInvocationStatus.SUCCESS, null, Collections.singletonMap("jobs", Collections.singletonList("4")));
+
+        sut.restoreDatabase();
+
+        verify(ssmApi).runSSMDocument("ssm-document", mockInstance, Collections.singletonMap("jobs", Collections.singletonList("4")));
+    }
+
+    @Test
+    void shouldAskForTheWholeDumpToBeDownloadedWhenRestoreIsNotPipelined() throws InvalidMigrationStageError, S3SyncFileSystemDownloader.CannotLaunchCommandException, InfrastructureDeploymentError {
+        sut = new SsmPsqlDatabaseRestoreService(ssmApi, migrationHelperDeploymentService, callback, remoteInstanceCommandRunnerService, pollingScheduler, 0, false);
+        givenCommandCompletesWithStatus(CommandInvocationStatus.SUCCESS, null, Collections.singletonMap("pipelined", Collections.singletonList("false")));
+
+        sut.restoreDatabase();
+
+        verify(ssmApi).runSSMDocument("ssm-document", mockInstance, Collections.singletonMap("pipelined", Collections.singletonList("false")));
+    }
+
     @Test
     void shouldThrowWhenCommandStatusIsFailed() throws S3SyncFileSystemDownloader.CannotLaunchCommandException, InfrastructureDeploymentError {
         givenCommandCompletesWithStatus(CommandInvocationStatus.FAILED, null);
@@ -228,6 +259,10 @@ class SsmPsqlDatabaseRestoreServiceTest {
     }
 
     private void givenCommandCompletesWithStatus(CommandInvocationStatus status, String errorContent) throws InfrastructureDeploymentError, S3SyncFileSystemDownloader.CannotLaunchCommandException {
+        givenCommandCompletesWithStatus(status, errorContent, Collections.emptyMap());
+    }
+
+    private void givenCommandCompletesWithStatus(CommandInvocationStatus status, String errorContent, Map<String, List<String>> parameters) throws InfrastructureDeploymentError, S3SyncFileSystemDownloader.CannotLaunchCommandException {
         final String mocument = "ssm-document";
         final String outputUrl = "output-url";
         final String errorUrl = "error-url";
@@ -235,7 +270,7 @@ class SsmPsqlDatabaseRestoreServiceTest {
         when(migrationHelperDeploymentService.getDbRestoreDocument()).thenReturn(mocument);
         when(migrationHelperDeploymentService.getMigrationHostInstanceId()).thenReturn(mockInstance);
 
-        when(ssmApi.runSSMDocument(mocument, mockInstance, Collections.emptyMap())).thenReturn(mockCommandId);
+        when(ssmApi.runSSMDocument(mocument, mockInstance, parameters)).thenReturn(mockCommandId);
 
         when(ssmApi.getSSMCommand(mockCommandId, mockInstance)).thenReturn(
                 (GetCommandInvocationResponse) GetCommandInvocationResponse.builder()
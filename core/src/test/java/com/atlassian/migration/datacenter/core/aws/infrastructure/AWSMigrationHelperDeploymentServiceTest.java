@@ -16,7 +16,9 @@
 
 package com.atlassian.migration.datacenter.core.aws.infrastructure;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.dto.MigrationContext;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.MigrationStage;
@@ -84,6 +86,9 @@ class AWSMigrationHelperDeploymentServiceTest {
     @Mock
     MigrationContext mockContext;
 
+    @Mock
+    EventPublisher eventPublisher;
+
     private AtomicReference<String> deploymentId;
 
     @BeforeEach
@@ -94,7 +99,7 @@ class AWSMigrationHelperDeploymentServiceTest {
 
         lenient().when(mockContext.getHelperStackDeploymentId()).thenReturn(deploymentId.get());
 
-        sut = new AWSMigrationHelperDeploymentService(mockCfn, () -> mockAutoscaling, mockMigrationService, 1);
+        sut = new AWSMigrationHelperDeploymentService(mockCfn, () -> mockAutoscaling, mockMigrationService, new PollingScheduler(eventPublisher), 1);
     }
 
     @Test
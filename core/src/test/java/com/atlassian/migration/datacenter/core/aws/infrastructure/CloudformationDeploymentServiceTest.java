@@ -16,7 +16,9 @@
 
 package com.atlassian.migration.datacenter.core.aws.infrastructure;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.dto.MigrationContext;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
@@ -31,11 +33,14 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -55,16 +60,21 @@ class CloudformationDeploymentServiceTest {
     @Mock
     MigrationContext context;
 
+    @Mock
+    EventPublisher eventPublisher;
+
     CloudformationDeploymentService sut;
 
     boolean deploymentFailed;
     boolean deploymentSucceeded;
+    RuntimeException successHandlerError;
+    final AtomicInteger successHandlerCalls = new AtomicInteger();
 
     @BeforeEach
     void setup() {
         lenient().doNothing().when(context).save();
         lenient().when(migrationService.getCurrentContext()).thenReturn(context);
-        sut = new CloudformationDeploymentService(mockCfnApi, migrationService) {
+        sut = new CloudformationDeploymentService(mockCfnApi, 1, migrationService, new PollingScheduler(eventPublisher)) {
             @Override
             protected void handleFailedDeployment(String message) {
                 deploymentFailed = true;
@@ -72,6 +82,10 @@ class CloudformationDeploymentServiceTest {
 
             @Override
             protected void handleSuccessfulDeployment() {
+                successHandlerCalls.incrementAndGet();
+                if (successHandlerError != null) {
+                    throw successHandlerError;
+                }
                 deploymentSucceeded = true;
             }
         };
@@ -131,6 +145,33 @@ class CloudformationDeploymentServiceTest {
         assertFalse(deploymentFailed);
     }
 
+    @Test
+    void shouldReportFailedDeploymentOnceWhenSuccessHandlerThrows() throws Exception {
+        when(mockCfnApi.getStatus(STACK_NAME)).thenReturn(InfrastructureDeploymentState.CREATE_COMPLETE);
+        successHandlerError = new RuntimeException("stack was not found by DescribeStack");
+
+        deploySimpleStack().get(5, TimeUnit.SECONDS);
+        // give the poll a chance to run again, which it mustn't
+        Thread.sleep(1500);
+
+        assertEquals(1, successHandlerCalls.get());
+        assertTrue(deploymentFailed);
+        verify(mockCfnApi, times(1)).getStatus(STACK_NAME);
+    }
+
+    @Test
+    void shouldRetryReadingTheStatusAfterAnError() throws Exception {
+        when(mockCfnApi.getStatus(STACK_NAME))
+                .thenThrow(new RuntimeException("Rate exceeded"))
+                .thenReturn(InfrastructureDeploymentState.CREATE_COMPLETE);
+
+        deploySimpleStack().get(5, TimeUnit.SECONDS);
+
+        assertTrue(deploymentSucceeded);
+        assertFalse(deploymentFailed);
+        assertEquals(1, successHandlerCalls.get());
+    }
+
     private CompletableFuture<?> deploySimpleStack() throws InfrastructureDeploymentError {
         return sut.deployCloudformationStack(TEMPLATE_URL, STACK_NAME, STACK_PARAMS);
     }
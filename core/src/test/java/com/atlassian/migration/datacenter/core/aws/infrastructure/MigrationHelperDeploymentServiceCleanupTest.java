@@ -37,7 +37,7 @@ public class MigrationHelperDeploymentServiceCleanupTest {
 
     @Test
     void shouldClearMigrationStackPersistedStackDetails(){
-        DeploymentService migrationHelperService = new AWSMigrationHelperDeploymentService(null, () -> null, migrationService);
+        DeploymentService migrationHelperService = new AWSMigrationHelperDeploymentService(null, () -> null, migrationService, null);
         when(migrationService.getCurrentContext()).thenReturn(migrationContext);
 
         migrationHelperService.clearPersistedStackDetails();
@@ -37,7 +37,7 @@ public class QuickstartDeploymentServiceCleanupTest {
 
     @Test
     void shouldClearMigrationStackPersistedStackDetails(){
-        DeploymentService migrationHelperService = new QuickstartDeploymentService(null, migrationService, null, null, null);
+        DeploymentService migrationHelperService = new QuickstartDeploymentService(null, migrationService, null, null, null, null);
         when(migrationService.getCurrentContext()).thenReturn(migrationContext);
 
         migrationHelperService.clearPersistedStackDetails();
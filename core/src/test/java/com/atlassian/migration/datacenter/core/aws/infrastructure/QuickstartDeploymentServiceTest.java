@@ -16,11 +16,13 @@
 
 package com.atlassian.migration.datacenter.core.aws.infrastructure;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
 import com.atlassian.migration.datacenter.core.aws.db.restore.TargetDbCredentialsStorageService;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.migrationStack.MigrationStackInputGatheringStrategyFactory;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.migrationStack.QuickstartStandaloneMigrationStackInputGatheringStrategy;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.migrationStack.QuickstartWithVPCMigrationStackInputGatheringStrategy;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.dto.MigrationContext;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.MigrationStage;
@@ -100,6 +102,9 @@ class QuickstartDeploymentServiceTest {
     @Mock
     MigrationContext mockContext;
 
+    @Mock
+    EventPublisher eventPublisher;
+
     @BeforeEach
     void setUp() {
         Properties properties = new Properties();
@@ -119,7 +124,8 @@ class QuickstartDeploymentServiceTest {
                 mockMigrationService,
                 dbCredentialsStorageService,
                 migrationHelperDeploymentService,
-                strategyFactory
+                strategyFactory,
+                new PollingScheduler(eventPublisher)
         );
     }
 
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.aws.ssm;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
+import com.atlassian.migration.datacenter.events.MigrationResetEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.ssm.model.CommandInvocationStatus;
+import software.amazon.awssdk.services.ssm.model.GetCommandInvocationResponse;
+import software.amazon.awssdk.services.ssm.model.InvocationDoesNotExistException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SuccessfulSSMCommandConsumerTest {
+
+    @Mock
+    SSMApi ssmApi;
+
+    @Mock
+    EventPublisher eventPublisher;
+
+    PollingScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new PollingScheduler(eventPublisher, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void shouldKeepPollingUntilTheCommandSucceeds() throws Exception {
+        when(ssmApi.getSSMCommand(anyString(), anyString()))
+                .thenThrow(InvocationDoesNotExistException.builder().build())
+                .thenReturn(commandWithStatus(CommandInvocationStatus.PENDING))
+                .thenReturn(commandWithStatus(CommandInvocationStatus.IN_PROGRESS))
+                .thenReturn(commandWithStatus(CommandInvocationStatus.SUCCESS));
+
+        assertEquals("output", consumer().handleCommandOutputAsync().get(5, TimeUnit.SECONDS));
+
+        verify(ssmApi, times(4)).getSSMCommand("command", "instance");
+    }
+
+    @Test
+    void shouldFailWhenTheCommandFails() {
+        when(ssmApi.getSSMCommand(anyString(), anyString())).thenReturn(commandWithStatus(CommandInvocationStatus.FAILED));
+
+        assertThrows(SuccessfulSSMCommandConsumer.UnsuccessfulSSMCommandInvocationException.class, () -> consumer().handleCommandOutput());
+    }
+
+    @Test
+    void shouldFailWhenTheCommandTimesOut() {
+        when(ssmApi.getSSMCommand(anyString(), anyString())).thenReturn(commandWithStatus(CommandInvocationStatus.TIMED_OUT));
+
+        assertThrows(SuccessfulSSMCommandConsumer.UnsuccessfulSSMCommandInvocationException.class, () -> consumer().handleCommandOutput());
+    }
+
+    @Test
+    void shouldStopPollingWhenCancelled() throws Exception {
+        when(ssmApi.getSSMCommand(anyString(), anyString())).thenReturn(commandWithStatus(CommandInvocationStatus.IN_PROGRESS));
+
+        final CompletableFuture<String> result = consumer().handleCommandOutputAsync();
+        Thread.sleep(100);
+        result.cancel(false);
+        final int polls = mockingDetails(ssmApi).getInvocations().size();
+        Thread.sleep(200);
+
+        verify(ssmApi, atMost(polls + 1)).getSSMCommand("command", "instance");
+    }
+
+    @Test
+    void shouldStopPollingWhenTheMigrationIsReset() throws Exception {
+        when(ssmApi.getSSMCommand(anyString(), anyString())).thenReturn(commandWithStatus(CommandInvocationStatus.IN_PROGRESS));
+
+        final CompletableFuture<String> result = consumer().handleCommandOutputAsync();
+        scheduler.onMigrationResetEvent(new MigrationResetEvent(1));
+
+        assertTrue(result.isCancelled());
+    }
+
+    private SuccessfulSSMCommandConsumer<String> consumer() {
+        return new SuccessfulSSMCommandConsumer<String>(ssmApi, "command", "instance", scheduler, Duration.ofMillis(5), Duration.ofMillis(20)) {
+            @Override
+            protected String handleSuccessfulCommand(GetCommandInvocationResponse commandInvocation) {
+                return "output";
+            }
+        };
+    }
+
+    private static GetCommandInvocationResponse commandWithStatus(CommandInvocationStatus status) {
+        return (GetCommandInvocationResponse) GetCommandInvocationResponse.builder()
+                .status(status)
+                .sdkHttpResponse(SdkHttpResponse.builder().statusText("status").build())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long MB = 1024 * 1024;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicLong reportedLimit = new AtomicLong();
+    private final AtomicLong reportedP99 = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter limiter(int min, int initial, int max) {
+        return new AdaptiveConcurrencyLimiter(min, initial, max, (limit, p50, p99) -> {
+            reportedLimit.set(limit);
+            reportedP99.set(p99);
+        }, now::get);
+    }
+
+    @Test
+    void shouldGrowLimitWhileThroughputHoldsUp() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(1, 10, 100);
+
+        completeWindow(sut, 10);
+        completeWindow(sut, 10);
+
+        assertEquals(12, sut.getLimit());
+        assertEquals(12, reportedLimit.get());
+        assertEquals(10, reportedP99.get());
+    }
+
+    @Test
+    void shouldNotGrowBeyondMaximum() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(1, 10, 10);
+
+        completeWindow(sut, 10);
+
+        assertEquals(10, sut.getLimit());
+    }
+
+    @Test
+    void shouldCutLimitOnceWhenThrottled() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(1, 40, 100);
+
+        final long first = sut.acquire();
+        final long second = sut.acquire();
+        sut.release(first, MB, AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+        sut.release(second, MB, AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+
+        assertEquals(30, sut.getLimit());
+    }
+
+    @Test
+    void shouldNotCutLimitBelowMinimum() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(8, 10, 100);
+
+        sut.release(sut.acquire(), MB, AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+
+        assertEquals(8, sut.getLimit());
+    }
+
+    @Test
+    void shouldCutLimitWhenLatencyRises() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(1, 40, 100);
+
+        completeWindow(sut, 10);
+        completeWindow(sut, 50);
+
+        assertEquals(30, sut.getLimit());
+        assertEquals(50, reportedP99.get());
+    }
+
+    @Test
+    void shouldNotCutLimitWhenLargerRequestsTakeProportionallyLonger() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(1, 10, 100);
+
+        completeWindow(sut, 10, MB);
+        completeWindow(sut, 160, 16 * MB);
+
+        assertEquals(12, sut.getLimit());
+        assertEquals(10, reportedP99.get());
+    }
+
+    @Test
+    void shouldCutLimitWhenLatencyRisesForSmallRequests() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = limiter(1, 40, 100);
+
+        completeWindow(sut, 10, 1024);
+        completeWindow(sut, 50, 1024);
+
+        assertEquals(30, sut.getLimit());
+    }
+
+    @Test
+    void shouldBlockWhenLimitIsReached() throws Exception {
+        final AdaptiveConcurrencyLimiter sut = AdaptiveConcurrencyLimiter.fixed(1);
+        final long start = sut.acquire();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Long> waiting = executor.submit(sut::acquire);
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+            sut.release(start, MB, AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+            sut.release(waiting.get(5, TimeUnit.SECONDS), MB, AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+            sut.awaitIdle();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldTreatThrottlingAndTimeoutsAsDropped() {
+        assertEquals(AdaptiveConcurrencyLimiter.Outcome.DROPPED,
+                AdaptiveConcurrencyLimiter.outcomeOf(new CompletionException(S3Exception.builder().statusCode(503).build())));
+        assertEquals(AdaptiveConcurrencyLimiter.Outcome.DROPPED,
+                AdaptiveConcurrencyLimiter.outcomeOf(ApiCallAttemptTimeoutException.create("timed out")));
+        assertEquals(AdaptiveConcurrencyLimiter.Outcome.DROPPED,
+                AdaptiveConcurrencyLimiter.outcomeOf(new RuntimeException(new TimeoutException())));
+        assertEquals(AdaptiveConcurrencyLimiter.Outcome.IGNORED,
+                AdaptiveConcurrencyLimiter.outcomeOf(S3Exception.builder().statusCode(403).build()));
+        assertEquals(AdaptiveConcurrencyLimiter.Outcome.IGNORED,
+                AdaptiveConcurrencyLimiter.outcomeOf(new RuntimeException("Access denied")));
+    }
+
+    private void completeWindow(AdaptiveConcurrencyLimiter sut, long latencyMillis) throws InterruptedException {
+        completeWindow(sut, latencyMillis, MB);
+    }
+
+    /**
+     * Completes a window of requests, one at a time, each sending the given number of bytes and taking the given latency
+     */
+    private void completeWindow(AdaptiveConcurrencyLimiter sut, long latencyMillis, long bytes) throws InterruptedException {
+        final int windowSize = Math.max(AdaptiveConcurrencyLimiter.MIN_WINDOW_SIZE, sut.getLimit());
+        for (int i = 0; i < windowSize; i++) {
+            final long start = sut.acquire();
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            sut.release(start, bytes, AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        }
+    }
+}
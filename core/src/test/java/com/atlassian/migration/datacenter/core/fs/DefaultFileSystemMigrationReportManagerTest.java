@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.ReportSnapshot;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static com.atlassian.migration.datacenter.spi.fs.reporting.FilesystemMigrationStatus.NOT_STARTED;
+import static com.atlassian.migration.datacenter.spi.fs.reporting.FilesystemMigrationStatus.UPLOADING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultFileSystemMigrationReportManagerTest {
+    private Clock clock;
+    private DefaultFileSystemMigrationReportManager sut;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        at(0);
+        sut = new DefaultFileSystemMigrationReportManager(clock);
+    }
+
+    @Test
+    void shouldSnapshotTheCurrentReport() {
+        final FileSystemMigrationReport report = sut.resetReport(ReportType.Filesystem);
+        report.setStatus(UPLOADING);
+        report.reportFileFound();
+        report.reportBytesFound(100);
+
+        final ReportSnapshot snapshot = sut.getCurrentSnapshot(ReportType.Filesystem);
+
+        assertEquals(UPLOADING, snapshot.getStatus());
+        assertEquals(1, snapshot.getFilesFound());
+        assertEquals(100, snapshot.getBytesFound());
+    }
+
+    @Test
+    void shouldReuseSnapshotUntilItExpires() {
+        final FileSystemMigrationReport report = sut.resetReport(ReportType.Filesystem);
+        final ReportSnapshot snapshot = sut.getCurrentSnapshot(ReportType.Filesystem);
+
+        report.reportFileFound();
+        at(1000);
+
+        assertSame(snapshot, sut.getCurrentSnapshot(ReportType.Filesystem));
+        assertEquals(0, sut.getCurrentSnapshot(ReportType.Filesystem).getFilesFound());
+
+        at(2000);
+
+        assertEquals(1, sut.getCurrentSnapshot(ReportType.Filesystem).getFilesFound());
+    }
+
+    @Test
+    void shouldNotReuseSnapshotOfAReportWhichWasReset() {
+        final FileSystemMigrationReport report = sut.resetReport(ReportType.Filesystem);
+        report.setStatus(UPLOADING);
+        final ReportSnapshot snapshot = sut.getCurrentSnapshot(ReportType.Filesystem);
+
+        sut.resetReport(ReportType.Filesystem);
+
+        final ReportSnapshot afterReset = sut.getCurrentSnapshot(ReportType.Filesystem);
+        assertNotSame(snapshot, afterReset);
+        assertEquals(NOT_STARTED, afterReset.getStatus());
+    }
+
+    @Test
+    void shouldKeepSnapshotsOfEachReportTypeApart() {
+        sut.resetReport(ReportType.Filesystem).setStatus(UPLOADING);
+
+        assertEquals(UPLOADING, sut.getCurrentSnapshot(ReportType.Filesystem).getStatus());
+        assertEquals(NOT_STARTED, sut.getCurrentSnapshot(ReportType.Final).getStatus());
+    }
+
+    private void at(long millis) {
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(millis));
+    }
+}
@@ -97,6 +97,17 @@ class DirectoryStreamCrawlerTest {
         assertEquals(expectedPaths.size(), report.getNumberOfFilesFound());
     }
 
+    @Test
+    void shouldReportSizeOfFilesFound() throws Exception {
+        directoryStreamCrawler.crawlDirectory(tempDir, queue);
+
+        long expectedBytes = 0;
+        for (Path path : expectedPaths) {
+            expectedBytes += Files.size(path);
+        }
+        assertEquals(expectedBytes, report.getNumberOfBytesFound());
+    }
+
     @Test
     void shouldReportAllFilesFoundWhenComplete() throws IOException {
         directoryStreamCrawler = new DirectoryStreamCrawler(report);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FailedFileCrawlerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldQueueFailedFilesAndEverythingInFailedDirectories() throws Exception {
+        final Path file = Files.write(tempDir.resolve("file"), "content".getBytes());
+        final Path directory = Files.createDirectories(tempDir.resolve("directory/nested"));
+        final Path nested = Files.write(directory.resolve("nested-file"), "nested content".getBytes());
+        final Path deleted = tempDir.resolve("deleted");
+        Files.write(tempDir.resolve("not-failed"), "content".getBytes());
+
+        final FileSystemMigrationReport report = new DefaultFileSystemMigrationReport();
+        final UploadQueue<Path> queue = new UploadQueue<>(10);
+        new FailedFileCrawler(report, Arrays.asList(file, tempDir.resolve("directory"), deleted)).crawlDirectory(tempDir, queue);
+
+        final List<Path> queued = new ArrayList<>();
+        for (Optional<Path> path = queue.take(); path.isPresent(); path = queue.take()) {
+            queued.add(path.get());
+        }
+        assertThat(queued, containsInAnyOrder(file, nested, deleted));
+        assertEquals(3, report.getNumberOfFilesFound());
+        assertEquals(Files.size(file) + Files.size(nested), report.getNumberOfBytesFound());
+        assertTrue(report.isCrawlingFinished());
+    }
+
+    @Test
+    void shouldSkipIgnoredPathsInFailedDirectories() throws Exception {
+        final Path plugins = Files.createDirectories(tempDir.resolve("plugins"));
+        Files.createDirectories(plugins.resolve(".bundled_plugins"));
+        Files.write(plugins.resolve(".bundled_plugins/bundled.jar"), "bundled".getBytes());
+        final Path installed = Files.write(Files.createDirectories(plugins.resolve("installed-plugins")).resolve("installed.jar"), "installed".getBytes());
+
+        final FileSystemMigrationReport report = new DefaultFileSystemMigrationReport();
+        final UploadQueue<Path> queue = new UploadQueue<>(10);
+        new FailedFileCrawler(report, Arrays.asList(plugins)).crawlDirectory(tempDir, queue);
+
+        final List<Path> queued = new ArrayList<>();
+        for (Optional<Path> path = queue.take(); path.isPresent(); path = queue.take()) {
+            queued.add(path.get());
+        }
+        assertThat(queued, containsInAnyOrder(installed));
+        assertEquals(1, report.getNumberOfFilesFound());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilePartSourceTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSplitFileIntoPartsWithShorterLastPart() throws Exception {
+        final Path file = Files.write(tempDir.resolve("file"), "0123456789".getBytes());
+
+        try (FilePartSource source = new FilePartSource(file, 4)) {
+            assertEquals(3, source.getPartCount());
+            assertEquals(0, source.getPartOffset(1));
+            assertEquals(8, source.getPartOffset(3));
+            assertEquals(4, source.getPartLength(2));
+            assertEquals(2, source.getPartLength(3));
+            assertThrows(IndexOutOfBoundsException.class, () -> source.getPartOffset(4));
+        }
+    }
+
+    @Test
+    void shouldReadPartsIndependentlyInAnyOrder() throws Exception {
+        final Path file = Files.write(tempDir.resolve("file"), "0123456789".getBytes());
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+
+        try (FilePartSource source = new FilePartSource(file, 4)) {
+            assertEquals("89", read(source.readPart(3, buffer)));
+            assertEquals("0123", read(source.readPart(1, buffer)));
+            assertEquals("4567", read(source.readPart(2, buffer)));
+            assertEquals("89", read(source.readPart(3, buffer)));
+        }
+    }
+
+    @Test
+    void shouldFailWhenFileIsTruncatedAfterOpening() throws Exception {
+        final Path file = Files.write(tempDir.resolve("file"), "0123456789".getBytes());
+
+        try (FilePartSource source = new FilePartSource(file, 4)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(5);
+            }
+            assertThrows(EOFException.class, () -> source.readPart(2, ByteBuffer.allocate(4)));
+        }
+    }
+
+    private static String read(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes);
+    }
+}
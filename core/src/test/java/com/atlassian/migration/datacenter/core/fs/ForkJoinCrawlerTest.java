@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForkJoinCrawlerTest {
+    @TempDir
+    Path tempDir;
+
+    private Crawler crawler;
+    private UploadQueue<Path> queue;
+    private Set<Path> expectedPaths;
+    private Set<Path> ignoredPaths;
+    private FileSystemMigrationReport report;
+
+    @BeforeEach
+    void createFiles() throws Exception {
+        queue = new UploadQueue<>(10);
+        expectedPaths = new HashSet<>();
+        ignoredPaths = new HashSet<>();
+        report = new DefaultFileSystemMigrationReport();
+        crawler = new ForkJoinCrawler(report, 4);
+
+        final Path sub1 = Files.createDirectory(tempDir.resolve("subdirectory"));
+        final Path sub2 = Files.createDirectory(tempDir.resolve("subdirectory/import"));
+        expectedPaths.add(Files.write(tempDir.resolve("newfile.txt"), "newfile content".getBytes()));
+        expectedPaths.add(Files.write(sub1.resolve("subfile.txt"), "subfile content in the subdirectory".getBytes()));
+        expectedPaths.add(Files.write(sub2.resolve("subfile2.txt"), "subfile content in the subdirectory".getBytes()));
+
+        final Path ignored1 = Files.createDirectory(tempDir.resolve("import"));
+        final Path ignored2 = Files.createDirectories(tempDir.resolve("plugins/.osgi-plugins"));
+        ignoredPaths.add(Files.write(tempDir.resolve("dbconfig.xml"), "subfile".getBytes()));
+        ignoredPaths.add(Files.write(ignored1.resolve("ignore1.txt"), "subfile".getBytes()));
+        ignoredPaths.add(Files.write(ignored2.resolve("ignore2.txt"), "subfile".getBytes()));
+    }
+
+    @Test
+    void shouldListAllSubdirectories() throws Exception {
+        crawler.crawlDirectory(tempDir, queue);
+
+        expectedPaths.forEach(path -> assertTrue(queue.contains(path), String.format("Expected %s is absent from crawler queue", path)));
+        ignoredPaths.forEach(path -> assertFalse(queue.contains(path), String.format("Expected %s should have been ignored", path)));
+    }
+
+    @Test
+    void incorrectStartDirectoryShouldReport() {
+        assertThrows(IOException.class, () -> crawler.crawlDirectory(Paths.get("nonexistent-directory-2010"), queue));
+        assertEquals(1, report.getFailedFiles().size());
+        assertTrue(report.isCrawlingFinished());
+    }
+
+    @Test
+    void shouldReportAllFilesFoundOnlyOnceWhenComplete() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            final Path dir = Files.createDirectories(tempDir.resolve("data/attachments/PROJ/" + i));
+            for (int j = 0; j < 10; j++) {
+                expectedPaths.add(Files.write(dir.resolve("file" + j), "content".getBytes()));
+            }
+        }
+
+        // The queue is smaller than the tree, so the crawler relies on a concurrent consumer to make progress
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<Set<Path>> consumed = executor.submit(() -> {
+            Set<Path> paths = new HashSet<>();
+            for (Optional<Path> p = queue.take(); p.isPresent(); p = queue.take()) {
+                paths.add(p.get());
+            }
+            return paths;
+        });
+
+        crawler.crawlDirectory(tempDir, queue);
+
+        assertEquals(expectedPaths, consumed.get());
+        assertEquals(expectedPaths.size(), report.getNumberOfFilesFound());
+        assertTrue(report.isCrawlingFinished());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalUploadCheckpointTest {
+    @TempDir
+    Path tempDir;
+
+    private Path home;
+    private Path journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        home = Files.createDirectories(tempDir.resolve("home"));
+        journal = tempDir.resolve("checkpoint.journal");
+    }
+
+    @Test
+    void shouldCompleteDirectoriesOnceAllTheirFilesAreUploaded() throws Exception {
+        final Path data = home.resolve("data");
+        final Path attachments = data.resolve("attachments");
+
+        try (JournalUploadCheckpoint checkpoint = JournalUploadCheckpoint.open(journal, home)) {
+            checkpoint.directoryFound(home);
+            checkpoint.directoryFound(data);
+            checkpoint.directoryFound(attachments);
+            checkpoint.fileQueued(attachments.resolve("1"));
+            checkpoint.fileQueued(attachments.resolve("2"));
+            checkpoint.directoryListed(attachments);
+            checkpoint.directoryListed(data);
+            checkpoint.directoryListed(home);
+
+            checkpoint.fileUploaded(attachments.resolve("1"));
+            checkpoint.fileUploaded(attachments.resolve("2"));
+        }
+
+        assertThat(Files.readAllLines(journal), contains("data/attachments", "data", ""));
+    }
+
+    @Test
+    void shouldWriteCompletedDirectoriesBeforeClose() throws Exception {
+        final Path data = home.resolve("data");
+
+        try (JournalUploadCheckpoint checkpoint = JournalUploadCheckpoint.open(journal, home)) {
+            checkpoint.directoryFound(data);
+            checkpoint.fileQueued(data.resolve("file"));
+            checkpoint.directoryListed(data);
+            checkpoint.fileUploaded(data.resolve("file"));
+
+            assertThat(Files.readAllLines(journal), contains("data"));
+        }
+    }
+
+    @Test
+    void shouldNotCompleteDirectoryWhenAFileFailedToUpload() throws Exception {
+        final Path ok = home.resolve("ok");
+        final Path failed = home.resolve("failed");
+
+        try (JournalUploadCheckpoint checkpoint = JournalUploadCheckpoint.open(journal, home)) {
+            checkpoint.directoryFound(home);
+            checkpoint.directoryFound(ok);
+            checkpoint.fileQueued(ok.resolve("file"));
+            checkpoint.directoryListed(ok);
+            checkpoint.directoryFound(failed);
+            checkpoint.fileQueued(failed.resolve("file"));
+            checkpoint.directoryListed(failed);
+            checkpoint.directoryListed(home);
+
+            checkpoint.fileUploaded(ok.resolve("file"));
+        }
+
+        try (JournalUploadCheckpoint checkpoint = JournalUploadCheckpoint.open(journal, home)) {
+            assertTrue(checkpoint.isCompleted(ok));
+            assertFalse(checkpoint.isCompleted(failed));
+            assertFalse(checkpoint.isCompleted(home));
+        }
+    }
+
+    @Test
+    void shouldCompactDescendantsOfCompletedDirectoriesWhenReopened() throws Exception {
+        Files.write(journal, Arrays.asList("data/attachments/PROJ-1", "data/attachments", "data/avatars", "data", "export"), StandardCharsets.UTF_8);
+
+        try (JournalUploadCheckpoint checkpoint = JournalUploadCheckpoint.open(journal, home)) {
+            assertTrue(checkpoint.isCompleted(home.resolve("data")));
+            assertFalse(checkpoint.isCompleted(home.resolve("data").resolve("attachments")));
+        }
+
+        assertThat(Files.readAllLines(journal), contains("data", "export"));
+    }
+
+    @Test
+    void shouldNotConfuseSiblingsSharingAPrefix() throws Exception {
+        Files.write(journal, Arrays.asList("data-old/file", "data", "data-old"), StandardCharsets.UTF_8);
+
+        assertThat(JournalUploadCheckpoint.load(journal), contains("data", "data-old"));
+    }
+
+    @Test
+    void shouldIgnoreLastLineWhenItWasCutShort() throws Exception {
+        Files.write(journal, "data/attachments\ndata/avat".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(JournalUploadCheckpoint.load(journal), contains("data/attachments"));
+    }
+}
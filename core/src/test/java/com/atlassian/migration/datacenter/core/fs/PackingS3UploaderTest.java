@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFileSystemMigrationReport;
+import com.atlassian.migration.datacenter.core.util.UploadQueue;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PackingS3UploaderTest {
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    S3AsyncClient client;
+    @Mock
+    SdkHttpResponse sdkHttpResponse;
+    @Mock
+    Uploader largeFileUploader;
+    @Captor
+    ArgumentCaptor<PutObjectRequest> requestCaptor;
+
+    private final List<Path> largeFiles = Collections.synchronizedList(new ArrayList<>());
+    private FileUploadException largeFileFailure;
+    private UploadQueue<Path> queue;
+    private FileSystemMigrationReport report;
+    private S3UploadConfig config;
+
+    @BeforeEach
+    void setup() throws Exception {
+        queue = new UploadQueue<>(20);
+        report = new DefaultFileSystemMigrationReport();
+        config = new S3UploadConfig("bucket", client, tempDir);
+        config.setPackedFileSizeLimit(16);
+
+        when(largeFileUploader.maxConcurrent()).thenReturn(10);
+        doAnswer(invocation -> {
+            if (largeFileFailure != null) {
+                throw largeFileFailure;
+            }
+            UploadQueue<Path> largeFileQueue = invocation.getArgument(0);
+            for (Optional<Path> p = largeFileQueue.take(); p.isPresent(); p = largeFileQueue.take()) {
+                largeFiles.add(p.get());
+            }
+            return null;
+        }).when(largeFileUploader).upload(any());
+    }
+
+    @Test
+    void shouldPackSmallFilesIntoSegmentsAndUploadLargeFilesOnTheirOwn() throws Exception {
+        config.setPackedSegmentSize(2048);
+        givenSuccessfulUploads();
+
+        for (int i = 0; i < 5; i++) {
+            queue.put(Files.write(tempDir.resolve("small" + i), "small".getBytes()));
+        }
+        final Path large = Files.write(tempDir.resolve("large"), "larger than the packing limit".getBytes());
+        queue.put(large);
+        queue.finish();
+
+        new PackingS3Uploader(config, report, largeFileUploader).upload(queue);
+
+        // each small file takes two blocks, so the segment is sealed after two files
+        verify(client, times(3)).putObject(requestCaptor.capture(), any(AsyncRequestBody.class));
+        requestCaptor.getAllValues().forEach(request -> {
+            assertTrue(request.key().startsWith(TarSegment.KEY_PREFIX));
+            assertTrue(request.key().endsWith(TarSegment.KEY_SUFFIX));
+        });
+        assertEquals(Collections.singletonList(large), largeFiles);
+        assertEquals(5, report.getCountOfUploadedFiles());
+    }
+
+    @Test
+    void shouldReportEveryPackedFileAsFailedWhenSegmentUploadFails() throws Exception {
+        final CompletableFuture<PutObjectResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("SlowDown"));
+        when(client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenReturn(failed);
+
+        for (int i = 0; i < 3; i++) {
+            queue.put(Files.write(tempDir.resolve("small" + i), "small".getBytes()));
+        }
+        queue.finish();
+
+        new PackingS3Uploader(config, report, largeFileUploader).upload(queue);
+
+        verify(client).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+        assertEquals(3, report.getFailedFiles().size());
+        assertEquals(0, report.getCountOfUploadedFiles());
+    }
+
+    @Test
+    void shouldFailRatherThanWaitForeverWhenLargeFileUploaderFails() throws Exception {
+        largeFileFailure = new FileUploadException("Access denied");
+
+        // more large files than the large file uploader's queue holds
+        for (int i = 0; i < 15; i++) {
+            queue.put(Files.write(tempDir.resolve("large" + i), "larger than the packing limit".getBytes()));
+        }
+        queue.finish();
+
+        final FileUploadException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(FileUploadException.class, () -> new PackingS3Uploader(config, report, largeFileUploader).upload(queue)));
+        assertEquals(largeFileFailure, e.getCause());
+    }
+
+    private void givenSuccessfulUploads() {
+        final PutObjectResponse response = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
+        when(sdkHttpResponse.isSuccessful()).thenReturn(true);
+        when(client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenReturn(CompletableFuture.completedFuture(response));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartBufferPoolTest {
+
+    @Test
+    void shouldReuseReturnedBuffers() throws Exception {
+        final PartBufferPool pool = new PartBufferPool(1);
+
+        final ByteBuffer buffer = pool.acquire(8);
+        assertTrue(buffer.isDirect());
+        pool.release(buffer);
+
+        assertSame(buffer, pool.acquire(4));
+    }
+
+    @Test
+    void shouldReplaceBuffersWhichAreTooSmall() throws Exception {
+        final PartBufferPool pool = new PartBufferPool(1);
+
+        pool.release(pool.acquire(4));
+
+        assertEquals(8, pool.acquire(8).capacity());
+    }
+
+    @Test
+    void shouldWaitForABufferWhenAllAreLentOut() throws Exception {
+        final PartBufferPool pool = new PartBufferPool(2);
+        final ByteBuffer first = pool.acquire(4);
+        pool.acquire(4);
+
+        final CompletableFuture<ByteBuffer> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire(4);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(third.isDone());
+
+        pool.release(first);
+        assertSame(first, third.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -26,6 +26,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
@@ -38,12 +40,22 @@ import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.Assume.assumeThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -57,6 +69,10 @@ class S3MultiPartUploaderTest {
     S3AsyncClient client;
     @Captor
     ArgumentCaptor<AsyncRequestBody> valueCaptor;
+    @Captor
+    ArgumentCaptor<CompleteMultipartUploadRequest> completeRequestCaptor;
+    @Captor
+    ArgumentCaptor<UploadPartRequest> partRequestCaptor;
     private String content = "123";
 
     @Test
@@ -120,6 +136,101 @@ class S3MultiPartUploaderTest {
         assertEquals(1, allValues.get(1).contentLength().get());
     }
 
+    @Test
+    void shouldCompletePartsInPartOrderWhenUploadedConcurrently() throws Exception {
+        File file = createFile();
+
+        S3UploadConfig config = new S3UploadConfig("bucket", client, tempDir);
+        config.setMaxInFlightParts(3);
+        final S3MultiPartUploader uploader = new S3MultiPartUploader(config, file, "file");
+        uploader.setSizeToUpload(1); // one part per byte
+
+        when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().build()));
+
+        final CompletableFuture<UploadPartResponse> slowFirstPart = new CompletableFuture<>();
+        when(client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(slowFirstPart,
+                        CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("2").build()),
+                        CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("3").build()));
+
+        when(client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<?> upload = executor.submit(() -> {
+            uploader.upload();
+            return null;
+        });
+
+        // all parts are in flight while the first one is still uploading
+        verify(client, timeout(5000).times(3)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        slowFirstPart.complete(UploadPartResponse.builder().eTag("1").build());
+        upload.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        verify(client).completeMultipartUpload(completeRequestCaptor.capture());
+        final List<CompletedPart> parts = completeRequestCaptor.getValue().multipartUpload().parts();
+        assertEquals(Arrays.asList(1, 2, 3), parts.stream().map(CompletedPart::partNumber).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("1", "2", "3"), parts.stream().map(CompletedPart::eTag).collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldAbortUploadWhenPartFails() throws Exception {
+        File file = createFile();
+
+        S3UploadConfig config = new S3UploadConfig("bucket", client, tempDir);
+        final S3MultiPartUploader uploader = new S3MultiPartUploader(config, file, "file");
+        uploader.setSizeToUpload(1);
+
+        when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("upload-id").build()));
+
+        final CompletableFuture<UploadPartResponse> failedPart = new CompletableFuture<>();
+        failedPart.completeExceptionally(new RuntimeException("part failed"));
+        when(client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(failedPart);
+
+        when(client.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+
+        assertThrows(ExecutionException.class, uploader::upload);
+
+        verify(client).abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket("bucket").key("file").uploadId("upload-id").build());
+        verify(client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldRetryFailedPartByReadingItAgainFromItsOffset() throws Exception {
+        File file = createFile();
+
+        S3UploadConfig config = new S3UploadConfig("bucket", client, tempDir);
+        config.setMaxInFlightParts(1);
+        final S3MultiPartUploader uploader = new S3MultiPartUploader(config, file, "file");
+        uploader.setSizeToUpload(1);
+
+        when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().build()));
+
+        final CompletableFuture<UploadPartResponse> failedPart = new CompletableFuture<>();
+        failedPart.completeExceptionally(new RuntimeException("part failed"));
+        when(client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("1").build()),
+                        failedPart,
+                        CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("2").build()),
+                        CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("3").build()));
+
+        when(client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        uploader.upload();
+
+        verify(client, times(4)).uploadPart(partRequestCaptor.capture(), any(AsyncRequestBody.class));
+        assertEquals(Arrays.asList(1, 2, 2, 3), partRequestCaptor.getAllValues().stream().map(UploadPartRequest::partNumber).collect(Collectors.toList()));
+        verify(client).completeMultipartUpload(completeRequestCaptor.capture());
+        assertEquals(Arrays.asList("1", "2", "3"), completeRequestCaptor.getValue().multipartUpload().parts().stream().map(CompletedPart::eTag).collect(Collectors.toList()));
+    }
+
     private File createFile() throws Exception {
         final String filename = "file_to_upload.txt";
         final Path file = tempDir.resolve(filename);
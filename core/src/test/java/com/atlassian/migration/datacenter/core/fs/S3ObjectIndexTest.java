@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class S3ObjectIndexTest {
+    private static final Instant UPLOADED = Instant.parse("2020-06-01T10:00:00Z");
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Test
+    void shouldIndexEveryPageExceptSegments() throws Exception {
+        when(s3AsyncClient.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && request.continuationToken() == null)))
+                .thenReturn(CompletableFuture.completedFuture(ListObjectsV2Response.builder()
+                        .contents(object(TarSegment.KEY_PREFIX + "segment.tar", 100), object("data/attachments/1", 10))
+                        .isTruncated(true)
+                        .nextContinuationToken("page-2")
+                        .build()));
+        when(s3AsyncClient.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && "page-2".equals(request.continuationToken()))))
+                .thenReturn(CompletableFuture.completedFuture(ListObjectsV2Response.builder()
+                        .contents(object("data/attachments/2", 20))
+                        .isTruncated(false)
+                        .build()));
+
+        final S3ObjectIndex index = S3ObjectIndex.load(s3AsyncClient, "bucket");
+
+        assertEquals(2, index.size());
+        assertTrue(index.isUploaded("data/attachments/2", 20, UPLOADED.toEpochMilli()));
+        assertFalse(index.isUploaded(TarSegment.KEY_PREFIX + "segment.tar", 100, UPLOADED.toEpochMilli()));
+    }
+
+    @Test
+    void shouldOnlyMatchFilesWithSameSizeWhichWereNotModifiedSinceTheUpload() {
+        final S3ObjectIndex index = new S3ObjectIndex.Builder()
+                .add("file", 10, UPLOADED.toEpochMilli())
+                .build();
+
+        assertTrue(index.isUploaded("file", 10, UPLOADED.minusSeconds(60).toEpochMilli()));
+        assertFalse(index.isUploaded("file", 11, UPLOADED.minusSeconds(60).toEpochMilli()));
+        assertFalse(index.isUploaded("file", 10, UPLOADED.plusSeconds(1).toEpochMilli()));
+        assertFalse(index.isUploaded("other", 10, UPLOADED.minusSeconds(60).toEpochMilli()));
+    }
+
+    @Test
+    void shouldFindKeysListedOutOfStringOrder() {
+        // S3 sorts by UTF-8 bytes, which puts U+FF21 before U+1F600 while Java strings sort the other way
+        final S3ObjectIndex index = new S3ObjectIndex.Builder()
+                .add("a", 1, 0)
+                .add("b\uFF21", 2, 0)
+                .add("b\uD83D\uDE00", 3, 0)
+                .add("c", 4, 0)
+                .build();
+
+        assertTrue(index.isUploaded("a", 1, 0));
+        assertTrue(index.isUploaded("b\uFF21", 2, 0));
+        assertTrue(index.isUploaded("b\uD83D\uDE00", 3, 0));
+        assertTrue(index.isUploaded("c", 4, 0));
+    }
+
+    @Test
+    void shouldFindEveryKeyOfAnIndexBuiltInAnyOrder() {
+        final S3ObjectIndex.Builder builder = new S3ObjectIndex.Builder();
+        for (int i = 5000; i > 0; i--) {
+            builder.add("data/attachments/" + i, i, 0);
+        }
+        final S3ObjectIndex index = builder.build();
+
+        assertEquals(5000, index.size());
+        for (int i = 1; i <= 5000; i++) {
+            assertTrue(index.isUploaded("data/attachments/" + i, i, 0));
+            assertFalse(index.isUploaded("data/attachments/" + i, i + 1, 0));
+        }
+        assertFalse(index.isUploaded("data/attachments/0", 0, 0));
+    }
+
+    @Test
+    void shouldFailWhenBucketCannotBeListed() {
+        final CompletableFuture<ListObjectsV2Response> failed = new CompletableFuture<>();
+        failed.completeExceptionally(NoSuchBucketException.builder().message("no bucket").build());
+        when(s3AsyncClient.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(failed);
+
+        assertThrows(IOException.class, () -> S3ObjectIndex.load(s3AsyncClient, "bucket"));
+    }
+
+    private static S3Object object(String key, long size) {
+        return S3Object.builder().key(key).size(size).lastModified(UPLOADED).build();
+    }
+}
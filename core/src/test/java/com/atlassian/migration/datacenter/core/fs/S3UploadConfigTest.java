@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3UploadConfigTest {
+    private static final int MB = 1024 * 1024;
+    private static final long GB = 1024L * MB;
+
+    private S3UploadConfig config;
+
+    @BeforeEach
+    void setup() {
+        config = new S3UploadConfig("bucket", null, Paths.get("home"));
+        config.setMinPartSize(8 * MB);
+    }
+
+    @Test
+    void shouldUseMinimumPartSizeWhileFileFitsInMaximumPartCount() {
+        assertEquals(8 * MB, config.getPartSize(65 * MB));
+        assertEquals(8 * MB, config.getPartSize(8 * MB * 10_000L));
+    }
+
+    @Test
+    void shouldGrowPartSizeToStayWithinMaximumPartCount() {
+        final long fileSize = 200 * GB;
+        final int partSize = config.getPartSize(fileSize);
+
+        assertEquals(21 * MB, partSize);
+        assertTrue((fileSize + partSize - 1) / partSize <= S3UploadConfig.MAXIMUM_PART_COUNT);
+    }
+
+    @Test
+    void shouldNeverUseMultipartThresholdAboveSingleUploadLimit() {
+        config.setMultipartThreshold(10 * GB);
+
+        assertEquals(S3UploadConfig.MAXIMUM_SINGLE_UPLOAD_SIZE, config.getMultipartThreshold());
+    }
+
+    @Test
+    void shouldRejectPartSizeBelowS3Minimum() {
+        assertThrows(IllegalArgumentException.class, () -> config.setMinPartSize(MB));
+    }
+
+    @Test
+    void shouldRejectRetryBaseDelayAboveMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> config.setRetryDelayMillis(1000, 100));
+    }
+
+    @Test
+    void shouldRejectMinimumInFlightUploadsAboveMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> config.setInFlightUploadLimits(100, 10));
+    }
+}
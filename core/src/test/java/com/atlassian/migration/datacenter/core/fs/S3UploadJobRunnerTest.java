@@ -22,6 +22,8 @@ import com.atlassian.migration.datacenter.spi.fs.FilesystemMigrationService;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FilesystemMigrationStatus;
 import com.atlassian.scheduler.JobRunnerRequest;
 import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobRunnerKey;
 import com.atlassian.scheduler.status.RunOutcome;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -31,6 +33,8 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Collections;
+
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -79,4 +83,19 @@ class S3UploadJobRunnerTest {
         JobRunnerResponse jobRunnerResponse = s3UploadJobRunner.runJob(jobRunnerRequest);
         Assertions.assertEquals(RunOutcome.SUCCESS, jobRunnerResponse.getRunOutcome());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldOnlyRetryFailedFilesWhenAsked() throws Exception {
+        JobConfig jobConfig = JobConfig.forJobRunnerKey(JobRunnerKey.of(S3UploadJobRunner.KEY))
+                .withParameters(Collections.singletonMap(S3UploadJobRunner.FAILED_FILES_ONLY_PARAMETER, true));
+        when(jobRunnerRequest.getJobConfig()).thenReturn(jobConfig);
+        when(filesystemMigrationService.isRunning()).thenReturn(false);
+        when(reportManager.getCurrentReport(ReportType.Filesystem)).thenReturn(new DefaultFileSystemMigrationReport());
+
+        JobRunnerResponse jobRunnerResponse = s3UploadJobRunner.runJob(jobRunnerRequest);
+
+        Assertions.assertEquals(RunOutcome.SUCCESS, jobRunnerResponse.getRunOutcome());
+        Mockito.verify(filesystemMigrationService).startFailedFileRetry();
+        Mockito.verify(filesystemMigrationService, Mockito.never()).startMigration();
+    }
+}
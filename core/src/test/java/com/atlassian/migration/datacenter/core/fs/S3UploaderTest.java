@@ -25,10 +25,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -46,6 +54,10 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,9 +66,6 @@ class S3UploaderTest {
     @Mock
     private S3AsyncClient s3AsyncClient;
 
-    @Mock
-    private CompletableFuture<PutObjectResponse> s3response;
-
     @Mock
     private SdkHttpResponse sdkHttpResponse;
 
@@ -80,8 +89,7 @@ class S3UploaderTest {
     void uploadShouldConsumePathsWhileCrawlingIsRunning() throws IOException, InterruptedException, ExecutionException {
         PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
         when(sdkHttpResponse.isSuccessful()).thenReturn(true);
-        when(s3response.get()).thenReturn(putObjectResponse);
-        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(s3response);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(CompletableFuture.completedFuture(putObjectResponse));
 
         addFileToQueue("file1");
 
@@ -115,8 +123,7 @@ class S3UploaderTest {
     void uploadShouldReportFileAsMigrated() throws IOException, ExecutionException, InterruptedException {
         PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
         when(sdkHttpResponse.isSuccessful()).thenReturn(true);
-        when(s3response.get()).thenReturn(putObjectResponse);
-        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(s3response);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(CompletableFuture.completedFuture(putObjectResponse));
 
         Path testPath = addFileToQueue("file1");
         queue.finish();
@@ -149,8 +156,7 @@ class S3UploaderTest {
     void shouldReportFileAsInFlightWhenUploadStarts() throws Exception {
         PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
         when(sdkHttpResponse.isSuccessful()).thenReturn(true);
-        when(s3response.get()).thenReturn(putObjectResponse);
-        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(s3response);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(CompletableFuture.completedFuture(putObjectResponse));
 
         addFileToQueue("file1");
 
@@ -181,6 +187,201 @@ class S3UploaderTest {
         assertTrue(pass.get());
     }
 
+    @Test
+    void uploadShouldStartNextFileAsSoonAsAnyInFlightUploadCompletes() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir, 2);
+        uploader = new S3Uploader(config, report);
+
+        PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
+        when(sdkHttpResponse.isSuccessful()).thenReturn(true);
+        final CompletableFuture<PutObjectResponse> slowUpload = new CompletableFuture<>();
+        final CompletableFuture<PutObjectResponse> fastUpload = new CompletableFuture<>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class)))
+                .thenReturn(slowUpload, fastUpload, CompletableFuture.completedFuture(putObjectResponse));
+
+        addFileToQueue("slow");
+        addFileToQueue("fast");
+        addFileToQueue("next");
+        queue.finish();
+
+        final Future<?> submit = Executors.newFixedThreadPool(1).submit(() -> {
+            try {
+                uploader.upload(queue);
+            } catch (FileUploadException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // the window is full, so the third file waits for a free slot
+        Thread.sleep(500);
+        verify(s3AsyncClient, times(2)).putObject(any(PutObjectRequest.class), any(Path.class));
+
+        // completing the second upload frees a slot even though the first is still in flight
+        fastUpload.complete(putObjectResponse);
+        verify(s3AsyncClient, timeout(5000).times(3)).putObject(any(PutObjectRequest.class), any(Path.class));
+        assertFalse(submit.isDone());
+
+        slowUpload.complete(putObjectResponse);
+        submit.get(5, TimeUnit.SECONDS);
+        assertEquals(3, report.getCountOfUploadedFiles());
+    }
+
+    @Test
+    void failedUploadShouldBeReportedAndReleaseItsSlot() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir, 1);
+        uploader = new S3Uploader(config, report);
+
+        final CompletableFuture<PutObjectResponse> failedUpload = new CompletableFuture<>();
+        failedUpload.completeExceptionally(new RuntimeException("SlowDown"));
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(failedUpload);
+
+        addFileToQueue("file1");
+        addFileToQueue("file2");
+        queue.finish();
+
+        uploader.upload(queue);
+
+        assertEquals(2, report.getFailedFiles().size());
+        assertEquals(0, report.getCountOfUploadedFiles());
+    }
+
+    @Test
+    void throttledUploadShouldBeRetriedUntilItSucceeds() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir, 1);
+        config.setRetryDelayMillis(1, 10);
+        uploader = new S3Uploader(config, report);
+
+        final CompletableFuture<PutObjectResponse> throttledUpload = new CompletableFuture<>();
+        throttledUpload.completeExceptionally(S3Exception.builder().statusCode(503).message("Slow Down").build());
+        PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
+        when(sdkHttpResponse.isSuccessful()).thenReturn(true);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class)))
+                .thenReturn(throttledUpload, throttledUpload, CompletableFuture.completedFuture(putObjectResponse));
+
+        addFileToQueue("file1");
+        queue.finish();
+
+        uploader.upload(queue);
+
+        verify(s3AsyncClient, times(3)).putObject(any(PutObjectRequest.class), any(Path.class));
+        assertEquals(1, report.getCountOfUploadedFiles());
+        assertEquals(2, report.getNumberOfUploadRetries());
+        assertEquals(1, report.getNumberOfCommencedFileUploads());
+        assertTrue(report.getFailedFiles().isEmpty());
+    }
+
+    @Test
+    void uploadShouldFailOnceItRunsOutOfAttempts() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir, 1);
+        config.setRetryDelayMillis(1, 10);
+        config.setMaxUploadAttempts(3);
+        uploader = new S3Uploader(config, report);
+
+        PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
+        when(sdkHttpResponse.isSuccessful()).thenReturn(false);
+        when(sdkHttpResponse.statusCode()).thenReturn(500);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(CompletableFuture.completedFuture(putObjectResponse));
+
+        addFileToQueue("file1");
+        queue.finish();
+
+        uploader.upload(queue);
+
+        verify(s3AsyncClient, times(3)).putObject(any(PutObjectRequest.class), any(Path.class));
+        assertEquals(2, report.getNumberOfUploadRetries());
+        assertEquals(1, report.getFailedFiles().size());
+        assertEquals(0, report.getNumberOfBytesInFlight());
+    }
+
+    @Test
+    void uploadShouldNotBeRetriedWhenTheRetryBudgetIsSpent() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir, 1);
+        config.setRetryBudget(0);
+        uploader = new S3Uploader(config, report);
+
+        final CompletableFuture<PutObjectResponse> throttledUpload = new CompletableFuture<>();
+        throttledUpload.completeExceptionally(S3Exception.builder().statusCode(503).message("Slow Down").build());
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(throttledUpload);
+
+        addFileToQueue("file1");
+        queue.finish();
+
+        uploader.upload(queue);
+
+        verify(s3AsyncClient, times(1)).putObject(any(PutObjectRequest.class), any(Path.class));
+        assertEquals(0, report.getNumberOfUploadRetries());
+        assertEquals(1, report.getFailedFiles().size());
+    }
+
+    @Test
+    void filesAboveMultipartThresholdShouldBeUploadedInParts() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir);
+        config.setMultipartThreshold(2);
+        uploader = new S3Uploader(config, report);
+
+        when(s3AsyncClient.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().build()));
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().build()));
+        when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        final Path file = tempDir.resolve("large");
+        Files.write(file, "more than two bytes".getBytes());
+        queue.put(file);
+        queue.finish();
+
+        uploader.upload(queue);
+
+        verify(s3AsyncClient).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        verify(s3AsyncClient, never()).putObject(any(PutObjectRequest.class), any(Path.class));
+        assertEquals(1, report.getCountOfUploadedFiles());
+        assertEquals(Files.size(file), report.getCountOfUploadedBytes());
+        assertEquals(0, report.getNumberOfBytesInFlight());
+    }
+
+    @Test
+    void smallFilesShouldBeUploadedWhileAMultipartUploadIsInFlight() throws Exception {
+        S3UploadConfig config = new S3UploadConfig("bucket-name", s3AsyncClient, tempDir);
+        config.setMultipartThreshold(2);
+        uploader = new S3Uploader(config, report);
+
+        final CompletableFuture<CreateMultipartUploadResponse> slowCreate = new CompletableFuture<>();
+        when(s3AsyncClient.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenReturn(slowCreate);
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().build()));
+        when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+        PutObjectResponse putObjectResponse = (PutObjectResponse) PutObjectResponse.builder().sdkHttpResponse(sdkHttpResponse).build();
+        when(sdkHttpResponse.isSuccessful()).thenReturn(true);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(Path.class))).thenReturn(CompletableFuture.completedFuture(putObjectResponse));
+
+        final Path large = tempDir.resolve("large");
+        Files.write(large, "more than two bytes".getBytes());
+        queue.put(large);
+        addFileToQueue("small");
+        queue.finish();
+
+        final Future<?> submit = Executors.newFixedThreadPool(1).submit(() -> {
+            try {
+                uploader.upload(queue);
+            } catch (FileUploadException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // the small file is sent while the large one is still waiting for its multipart upload to start
+        verify(s3AsyncClient, timeout(5000)).putObject(any(PutObjectRequest.class), any(Path.class));
+        Thread.sleep(200);
+        assertFalse(submit.isDone());
+
+        slowCreate.complete(CreateMultipartUploadResponse.builder().build());
+        submit.get(5, TimeUnit.SECONDS);
+        verify(s3AsyncClient).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        assertEquals(2, report.getCountOfUploadedFiles());
+        assertEquals(0, report.getNumberOfBytesInFlight());
+    }
+
     Path addFileToQueue(String fileName) throws IOException, InterruptedException {
         final Path file = tempDir.resolve(fileName);
         Files.write(file, "".getBytes());
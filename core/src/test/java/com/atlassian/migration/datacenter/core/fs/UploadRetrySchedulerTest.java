@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadRetrySchedulerTest {
+    private UploadRetryScheduler sut;
+
+    @AfterEach
+    void tearDown() {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    @Test
+    void shouldCapDelayAtDoubledBaseDelayUpToMaximum() {
+        sut = new UploadRetryScheduler(100, 100, 1000, 10);
+
+        IntStream.range(0, 1000).forEach(i -> {
+            assertTrue(sut.delay(1) <= 100);
+            assertTrue(sut.delay(3) <= 400);
+            assertTrue(sut.delay(10) <= 1000);
+            assertTrue(sut.delay(100) <= 1000);
+        });
+    }
+
+    @Test
+    void shouldNotRetryOnceAttemptsRunOut() {
+        sut = new UploadRetryScheduler(3, 1, 1, 10);
+
+        assertTrue(sut.schedule(2, () -> {}));
+        assertFalse(sut.schedule(3, () -> {}));
+    }
+
+    @Test
+    void shouldNotRetryOnceBudgetIsSpent() {
+        sut = new UploadRetryScheduler(5, 1, 1, 2);
+
+        assertTrue(sut.schedule(1, () -> {}));
+        assertTrue(sut.schedule(1, () -> {}));
+        assertFalse(sut.schedule(1, () -> {}));
+    }
+
+    @Test
+    void shouldWaitForScheduledRetriesToRun() throws Exception {
+        sut = new UploadRetryScheduler(5, 50, 50, 10);
+        final CountDownLatch retried = new CountDownLatch(2);
+
+        sut.schedule(1, retried::countDown);
+        sut.schedule(1, retried::countDown);
+        sut.awaitPending();
+
+        assertTrue(retried.await(0, TimeUnit.MILLISECONDS));
+        assertFalse(sut.hasPending());
+    }
+
+    @Test
+    void shouldOnlyRetryTransientFailures() {
+        assertTrue(UploadRetryScheduler.isRetryable(S3Exception.builder().statusCode(503).build()));
+        assertTrue(UploadRetryScheduler.isRetryable(S3Exception.builder().statusCode(429).build()));
+        assertTrue(UploadRetryScheduler.isRetryable(SdkClientException.create("Connection reset", new IOException())));
+        assertTrue(UploadRetryScheduler.isRetryable(new IOException("Connection reset")));
+        assertFalse(UploadRetryScheduler.isRetryable(S3Exception.builder().statusCode(403).build()));
+        assertFalse(UploadRetryScheduler.isRetryable(new RuntimeException("Access denied")));
+    }
+}
@@ -21,6 +21,10 @@ import com.atlassian.migration.datacenter.core.fs.DefaultFilesystemUploader;
 import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager;
 import com.atlassian.migration.datacenter.core.fs.FilesystemUploader;
 import com.atlassian.migration.datacenter.core.fs.FilesystemUploaderFactory;
+import com.atlassian.migration.datacenter.core.fs.ReportType;
+import com.atlassian.migration.datacenter.core.fs.UploadCheckpointFactory;
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournal;
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournalFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,7 +37,9 @@ import java.nio.file.Paths;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -49,7 +55,7 @@ class S3BulkCopyTest {
 
     @BeforeEach
     void setup() {
-        when(filesystemUploaderFactory.newUploader(any())).thenReturn(filesystemUploader);
+        when(filesystemUploaderFactory.newUploader(any(), any())).thenReturn(filesystemUploader);
     }
 
 
@@ -65,6 +71,22 @@ class S3BulkCopyTest {
         verify(uploader).abort();
     }
 
+    @Test
+    void shouldOnlyUploadFailedFilesWhenRetrying() throws Exception {
+        Path fakeHome = givenSharedHomeDoesNotExist();
+        FailureJournalFactory failureJournalFactory = mock(FailureJournalFactory.class);
+        when(failureJournalFactory.openForRetry()).thenReturn(FailureJournal.NONE);
+        when(filesystemUploaderFactory.newRetryUploader(any(), any())).thenReturn(filesystemUploader);
+        reportManager.resetReport(ReportType.Filesystem);
+        S3BulkCopy sut = new S3BulkCopy(fakeHome, filesystemUploaderFactory, reportManager, UploadCheckpointFactory.NONE, failureJournalFactory);
+
+        sut.retryFailedFiles();
+
+        verify(filesystemUploaderFactory).newRetryUploader(any(), eq(FailureJournal.NONE.getFilesToRetry()));
+        verify(filesystemUploaderFactory, never()).newUploader(any(), any());
+        verify(filesystemUploader).uploadDirectory(fakeHome);
+    }
+
     private Path givenSharedHomeDoesNotExist() {
         Path nonexistentDir = Paths.get(UUID.randomUUID().toString());
         return nonexistentDir;
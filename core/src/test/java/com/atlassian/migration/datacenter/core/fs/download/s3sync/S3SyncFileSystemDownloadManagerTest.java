@@ -16,14 +16,18 @@
 
 package com.atlassian.migration.datacenter.core.fs.download.s3sync;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.fs.reporting.DefaultFilesystemMigrationProgress;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.fs.reporting.FileSystemMigrationProgress;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.concurrent.CompletableFuture;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
@@ -36,12 +40,19 @@ class S3SyncFileSystemDownloadManagerTest {
     @Mock
     private S3SyncCommandStatus mockStatus;
 
-    @InjectMocks
+    @Mock
+    private EventPublisher eventPublisher;
+
     private S3SyncFileSystemDownloadManager sut;
 
+    @BeforeEach
+    void setUp() {
+        sut = new S3SyncFileSystemDownloadManager(mockDownloader, new PollingScheduler(eventPublisher));
+    }
+
     @Test
     void shouldSetDownloadedFiles() throws S3SyncFileSystemDownloader.CannotLaunchCommandException, InterruptedException {
-        when(mockDownloader.getFileSystemDownloadStatus()).thenReturn(mockStatus);
+        when(mockDownloader.getFileSystemDownloadStatusAsync()).thenReturn(CompletableFuture.completedFuture(mockStatus));
         when(mockStatus.getFilesRemainingToDownload()).thenReturn(100);
 
         FileSystemMigrationProgress progress = new DefaultFilesystemMigrationProgress();
@@ -16,8 +16,10 @@
 
 package com.atlassian.migration.datacenter.core.fs.download.s3sync;
 
+import com.atlassian.event.api.EventPublisher;
 import com.atlassian.migration.datacenter.core.aws.infrastructure.AWSMigrationHelperDeploymentService;
 import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.infrastructure.InfrastructureDeploymentError;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -56,6 +58,9 @@ class S3SyncFileSystemDownloaderTest {
     @Mock
     AWSMigrationHelperDeploymentService migrationHelperDeploymentService;
 
+    @Mock
+    EventPublisher eventPublisher;
+
     S3SyncFileSystemDownloader sut;
 
     @BeforeEach
@@ -64,7 +69,7 @@ class S3SyncFileSystemDownloaderTest {
         lenient().when(migrationHelperDeploymentService.getFsRestoreStatusDocument()).thenReturn("fs-restore-status-do");
         lenient().when(migrationHelperDeploymentService.getMigrationHostInstanceId()).thenReturn("i-0123456789");
 
-        sut = new S3SyncFileSystemDownloader(mockSsmApi, migrationHelperDeploymentService, 1);
+        sut = new S3SyncFileSystemDownloader(mockSsmApi, migrationHelperDeploymentService, new PollingScheduler(eventPublisher), 1);
     }
 
     @Test
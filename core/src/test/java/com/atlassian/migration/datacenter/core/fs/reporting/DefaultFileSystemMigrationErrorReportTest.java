@@ -24,6 +24,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DefaultFileSystemMigrationErrorReportTest {
@@ -50,4 +51,25 @@ public class DefaultFileSystemMigrationErrorReportTest {
 
         assertTrue(sut.getFailedFiles().contains(new FailedFileMigration(testFile, testReason)));
     }
+
+    @Test
+    void shouldKeepOnlyTheMostRecentFailures() {
+        for (int i = 0; i < DefaultFileSystemMigrationErrorReport.MAX_REPORTED_FAILURES + 10; i++) {
+            sut.reportFileNotMigrated(new FailedFileMigration(Paths.get("file" + i), "it broke"));
+        }
+
+        assertEquals(DefaultFileSystemMigrationErrorReport.MAX_REPORTED_FAILURES, sut.getFailedFiles().size());
+        assertFalse(sut.getFailedFiles().contains(new FailedFileMigration(Paths.get("file9"), "it broke")));
+        assertTrue(sut.getFailedFiles().contains(new FailedFileMigration(Paths.get("file10"), "it broke")));
+    }
+
+    @Test
+    void shouldKeepTheLatestFailureOfAFile() {
+        final Path testFile = Paths.get("file");
+        sut.reportFileNotMigrated(new FailedFileMigration(testFile, "it broke"));
+        sut.reportFileNotMigrated(new FailedFileMigration(testFile, "it broke again"));
+
+        assertEquals(1, sut.getFailedFiles().size());
+        assertTrue(sut.getFailedFiles().contains(new FailedFileMigration(testFile, "it broke again")));
+    }
 }
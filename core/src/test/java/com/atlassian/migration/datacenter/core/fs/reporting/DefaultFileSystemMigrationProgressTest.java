@@ -19,10 +19,15 @@ package com.atlassian.migration.datacenter.core.fs.reporting;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class DefaultFileSystemMigrationProgressTest {
 
@@ -72,4 +77,97 @@ public class DefaultFileSystemMigrationProgressTest {
         sut.reportCrawlingFinished();
         assertTrue(sut.isCrawlingFinished());
     }
+
+    @Test
+    void shouldTrackBytesThroughTheUpload() {
+        sut.reportBytesFound(100);
+        sut.reportBytesFound(50);
+        sut.reportBytesFound(25);
+        sut.reportBytesUploadCommenced(100);
+        sut.reportBytesUploadCommenced(50);
+
+        assertEquals(175, sut.getNumberOfBytesFound());
+        assertEquals(150, sut.getNumberOfBytesInFlight());
+        assertEquals(0, sut.getCountOfUploadedBytes());
+
+        sut.reportBytesUploaded(100);
+        sut.reportBytesUploadFailed(50);
+
+        assertEquals(0, sut.getNumberOfBytesInFlight());
+        assertEquals(100, sut.getCountOfUploadedBytes());
+    }
+
+    @Test
+    void shouldCountRetriesWithoutCommencingTheFileAgain() {
+        sut.reportFileUploadCommenced();
+        sut.reportFileUploadRetried();
+        sut.reportFileUploadRetried();
+
+        assertEquals(2, sut.getNumberOfUploadRetries());
+        assertEquals(1, sut.getNumberOfCommencedFileUploads());
+    }
+
+    @Test
+    void shouldEstimateTimeRemainingFromRecentThroughput() {
+        final Clock clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        sut = new DefaultFilesystemMigrationProgress(clock);
+
+        sut.reportBytesFound(10000);
+        sut.reportBytesFound(2000);
+        assertNull(sut.getEstimatedTimeRemaining());
+
+        when(clock.millis()).thenReturn(2000L);
+        sut.reportBytesUploaded(2000);
+        sut.reportFileUploaded();
+
+        assertEquals(1000, sut.getBytesPerSecond(), 0.001);
+        assertEquals(0.5, sut.getFilesPerSecond(), 0.001);
+        assertEquals(Duration.ofSeconds(10), sut.getEstimatedTimeRemaining());
+    }
+
+    @Test
+    void shouldAverageThroughputOverTheUploadsOnly() {
+        final Clock clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        sut = new DefaultFilesystemMigrationProgress(clock);
+        assertEquals(0, sut.getAverageBytesPerSecond(), 0.001);
+
+        when(clock.millis()).thenReturn(10_000L);
+        sut.reportBytesUploadCommenced(4000);
+        sut.reportBytesUploadCommenced(4000);
+        when(clock.millis()).thenReturn(12_000L);
+        sut.reportBytesUploaded(4000);
+        when(clock.millis()).thenReturn(14_000L);
+        sut.reportBytesUploaded(4000);
+
+        // long after the uploads finished, the average still only covers the four seconds they were running
+        when(clock.millis()).thenReturn(600_000L);
+        assertEquals(2000, sut.getAverageBytesPerSecond(), 0.001);
+    }
+
+    @Test
+    void shouldNotCountFailedBytesAsRemaining() {
+        final Clock clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        sut = new DefaultFilesystemMigrationProgress(clock);
+
+        sut.reportBytesFound(3000);
+        when(clock.millis()).thenReturn(1000L);
+        sut.reportBytesUploaded(1000);
+        sut.reportBytesUploadFailed(1000);
+
+        assertEquals(Duration.ofSeconds(1), sut.getEstimatedTimeRemaining());
+    }
+
+    @Test
+    void shouldEstimateNoTimeRemainingOnceEverythingFoundIsUploaded() {
+        sut.reportBytesFound(1000);
+        sut.reportBytesUploaded(1000);
+        assertNull(sut.getEstimatedTimeRemaining());
+
+        sut.reportCrawlingFinished();
+
+        assertEquals(Duration.ZERO, sut.getEstimatedTimeRemaining());
+    }
 }
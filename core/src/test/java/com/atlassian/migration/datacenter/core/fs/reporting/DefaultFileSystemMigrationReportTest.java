@@ -100,6 +100,22 @@ public class DefaultFileSystemMigrationReportTest {
         verify(progress).getCountOfUploadedFiles();
     }
 
+    @Test
+    void shouldDelegateByteProgressToWrappedProgress() {
+        sut.reportBytesUploadCommenced(10);
+        sut.reportBytesUploaded(10);
+        sut.getEstimatedTimeRemaining();
+
+        verify(progress).reportBytesUploadCommenced(10);
+        verify(progress).reportBytesUploaded(10);
+        verify(progress).getEstimatedTimeRemaining();
+    }
+
+    @Test
+    void shouldHaveNoElapsedTimeBeforeStarting() {
+        assertEquals(Duration.ZERO, sut.getElapsedTime());
+    }
+
     @Test
     void shouldGiveDurationBetweenStartedAndGetElapsedTime() {
         Clock testClock = Clock.fixed(Instant.ofEpochMilli(0), ZoneId.systemDefault());
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FailureJournalTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldPageThroughFailures() throws Exception {
+        final Path journalFile = tempDir.resolve("failures.ndjson");
+        try (FailureJournal journal = FailureJournal.create(journalFile)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(new FailedFileMigration(Paths.get("file" + i), "it broke"));
+            }
+        }
+
+        final FailureJournal.Page first = FailureJournal.read(journalFile, 0, 3);
+        assertEquals(3, first.getFailures().size());
+        assertEquals("file0", first.getFailures().get(0).getPath());
+        assertEquals("it broke", first.getFailures().get(0).getReason());
+        assertEquals(1, first.getFailures().get(0).getAttempt());
+
+        final FailureJournal.Page second = FailureJournal.read(journalFile, first.getNext(), 3);
+        assertEquals(2, second.getFailures().size());
+        assertEquals("file3", second.getFailures().get(0).getPath());
+        assertEquals(Files.size(journalFile), second.getNext());
+
+        assertTrue(FailureJournal.read(journalFile, second.getNext(), 3).getFailures().isEmpty());
+    }
+
+    @Test
+    void shouldLeaveLineBeingWrittenForTheNextPage() throws Exception {
+        final Path journalFile = tempDir.resolve("failures.ndjson");
+        try (FailureJournal journal = FailureJournal.create(journalFile)) {
+            journal.append(new FailedFileMigration(Paths.get("file"), "it broke"));
+        }
+        final long complete = Files.size(journalFile);
+        Files.write(journalFile, "{\"path\":\"fi".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        final FailureJournal.Page page = FailureJournal.read(journalFile, 0, 10);
+
+        assertEquals(1, page.getFailures().size());
+        assertEquals(complete, page.getNext());
+    }
+
+    @Test
+    void shouldReadNoFailuresWhenThereIsNoJournal() throws Exception {
+        final FailureJournal.Page page = FailureJournal.read(tempDir.resolve("missing.ndjson"), 0, 10);
+
+        assertTrue(page.getFailures().isEmpty());
+        assertEquals(0, page.getNext());
+    }
+}
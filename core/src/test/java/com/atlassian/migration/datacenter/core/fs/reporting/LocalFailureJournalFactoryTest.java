@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import com.atlassian.migration.datacenter.dto.Migration;
+import com.atlassian.migration.datacenter.spi.MigrationService;
+import com.atlassian.migration.datacenter.spi.fs.reporting.FailedFileMigration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocalFailureJournalFactoryTest {
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    MigrationService migrationService;
+
+    @Mock
+    Migration migration;
+
+    private LocalFailureJournalFactory sut;
+
+    @BeforeEach
+    void setUp() {
+        when(migrationService.getCurrentMigration()).thenReturn(migration);
+        when(migration.getID()).thenReturn(1);
+        sut = new LocalFailureJournalFactory(tempDir, migrationService);
+    }
+
+    @Test
+    void shouldRetryFailuresOfThePreviousUpload() throws Exception {
+        try (FailureJournal journal = sut.open()) {
+            journal.append(new FailedFileMigration(Paths.get("a"), "it broke"));
+            journal.append(new FailedFileMigration(Paths.get("b"), "it broke"));
+        }
+
+        try (FailureJournal journal = sut.openForRetry()) {
+            assertThat(journal.getFilesToRetry(), containsInAnyOrder(Paths.get("a"), Paths.get("b")));
+            journal.append(new FailedFileMigration(Paths.get("b"), "it broke again"));
+            journal.completed();
+        }
+
+        final List<FailureJournal.Entry> failures = sut.read(0, 10).getFailures();
+        assertEquals(1, failures.size());
+        assertEquals("b", failures.get(0).getPath());
+        assertEquals("it broke again", failures.get(0).getReason());
+        assertEquals(2, failures.get(0).getAttempt());
+    }
+
+    @Test
+    void shouldRetryAgainFilesAnInterruptedRetryDidNotGetTo() throws Exception {
+        try (FailureJournal journal = sut.open()) {
+            journal.append(new FailedFileMigration(Paths.get("a"), "it broke"));
+            journal.append(new FailedFileMigration(Paths.get("b"), "it broke"));
+        }
+        try (FailureJournal journal = sut.openForRetry()) {
+            journal.append(new FailedFileMigration(Paths.get("a"), "it broke again"));
+            // interrupted before completing
+        }
+
+        try (FailureJournal journal = sut.openForRetry()) {
+            assertThat(journal.getFilesToRetry(), containsInAnyOrder(Paths.get("a"), Paths.get("b")));
+            journal.append(new FailedFileMigration(Paths.get("a"), "still broken"));
+        }
+
+        assertEquals(3, sut.read(0, 10).getFailures().get(0).getAttempt());
+    }
+
+    @Test
+    void shouldNotRetryAnythingAfterANewUpload() throws Exception {
+        try (FailureJournal journal = sut.open()) {
+            journal.append(new FailedFileMigration(Paths.get("a"), "it broke"));
+        }
+        try (FailureJournal ignored = sut.openForRetry()) {
+            // interrupted before completing
+        }
+        sut.open().close();
+
+        try (FailureJournal journal = sut.openForRetry()) {
+            assertThat(journal.getFilesToRetry(), empty());
+        }
+    }
+
+    @Test
+    void shouldDeleteJournalsOfOtherMigrations() throws Exception {
+        final Path otherMigration = Files.createFile(tempDir.resolve("fs-upload-failures-12.ndjson"));
+
+        sut.open().close();
+
+        assertFalse(Files.exists(otherMigration));
+        assertTrue(Files.exists(tempDir.resolve("fs-upload-failures-1.ndjson")));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.fs.reporting;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ThroughputEstimatorTest {
+    private static final double DELTA = 0.001;
+
+    private Clock clock;
+    private ThroughputEstimator sut;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        at(0);
+        sut = new ThroughputEstimator(10, clock);
+    }
+
+    @Test
+    void shouldHaveNoThroughputBeforeAnythingIsRecorded() {
+        at(5000);
+
+        assertEquals(0, sut.getBytesPerSecond(), DELTA);
+        assertEquals(0, sut.getFilesPerSecond(), DELTA);
+    }
+
+    @Test
+    void shouldAverageOverTimeSinceStartUntilWindowIsFull() {
+        at(500);
+        sut.record(1000, 1);
+        at(1500);
+        sut.record(3000, 1);
+
+        at(4000);
+
+        assertEquals(1000, sut.getBytesPerSecond(), DELTA);
+        assertEquals(0.5, sut.getFilesPerSecond(), DELTA);
+    }
+
+    @Test
+    void shouldNotSpikeWhenMeasuredStraightAfterStarting() {
+        at(10);
+        sut.record(100, 1);
+
+        assertEquals(100, sut.getBytesPerSecond(), DELTA);
+    }
+
+    @Test
+    void shouldOnlyCountSamplesWithinTheWindow() {
+        at(1000);
+        sut.record(50000, 5);
+        at(12000);
+        sut.record(9000, 9);
+
+        at(15000);
+
+        // The window covers seconds 6 to 15, which started 9 seconds ago
+        assertEquals(1000, sut.getBytesPerSecond(), DELTA);
+        assertEquals(1, sut.getFilesPerSecond(), DELTA);
+    }
+
+    @Test
+    void shouldResetBucketWhenWindowWrapsAround() {
+        at(3000);
+        sut.record(100000, 1);
+        at(13000);
+        sut.record(900, 0);
+
+        at(13000);
+
+        assertEquals(100, sut.getBytesPerSecond(), DELTA);
+        assertEquals(0, sut.getFilesPerSecond(), DELTA);
+    }
+
+    @Test
+    void shouldDropToZeroWhenNothingIsRecordedForTheWholeWindow() {
+        at(1000);
+        sut.record(1000, 1);
+
+        at(30000);
+
+        assertEquals(0, sut.getBytesPerSecond(), DELTA);
+    }
+
+    @Test
+    void shouldRejectEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new ThroughputEstimator(0, clock));
+    }
+
+    private void at(long millis) {
+        when(clock.millis()).thenReturn(millis);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldNotWaitWhilePermitsAreStored() {
+        final TokenBucket sut = new TokenBucket(100, now::get);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, sut.reserve(60));
+        assertEquals(0, sut.reserve(40));
+    }
+
+    @Test
+    void shouldMakeNextCallerWaitForDebtToBePaidOff() {
+        final TokenBucket sut = new TokenBucket(100, now::get);
+
+        assertEquals(0, sut.reserve(300));
+        assertEquals(TimeUnit.SECONDS.toNanos(3), sut.reserve(1), 1);
+    }
+
+    @Test
+    void shouldStoreAtMostOneSecondOfPermits() {
+        final TokenBucket sut = new TokenBucket(100, now::get);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(0, sut.reserve(150));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), sut.reserve(1), 1);
+    }
+
+    @Test
+    void shouldPayOffDebtAtNewRate() {
+        final TokenBucket sut = new TokenBucket(100, now::get);
+        sut.reserve(200);
+
+        sut.setRate(200);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(1), sut.reserve(1), 1);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.fs.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadThrottleTest {
+    // A Wednesday
+    private static final Instant MIDDAY = Instant.parse("2020-06-17T12:00:00Z");
+    private static final Instant MIDNIGHT = Instant.parse("2020-06-17T00:30:00Z");
+
+    private static final ThrottleSettings.Schedule BUSINESS_HOURS = new ThrottleSettings.Schedule(
+            EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), "09:00", "17:00");
+
+    @Test
+    void shouldNotThrottleWhenUnlimited() {
+        assertFalse(throttleAt(MIDDAY, ThrottleSettings.UNLIMITED).isThrottling());
+    }
+
+    @Test
+    void shouldAlwaysThrottleWithoutSchedule() {
+        assertTrue(throttleAt(MIDNIGHT, new ThrottleSettings(1024, 0, null)).isThrottling());
+    }
+
+    @Test
+    void shouldOnlyThrottleDuringSchedule() {
+        final ThrottleSettings settings = new ThrottleSettings(1024, 100, BUSINESS_HOURS);
+
+        assertTrue(throttleAt(MIDDAY, settings).isThrottling());
+        assertFalse(throttleAt(MIDNIGHT, settings).isThrottling());
+        assertFalse(throttleAt(Instant.parse("2020-06-20T12:00:00Z"), settings).isThrottling());
+    }
+
+    @Test
+    void shouldThrottleOvernightIntoTheNextDay() {
+        final ThrottleSettings settings = new ThrottleSettings(1024, 0,
+                new ThrottleSettings.Schedule(EnumSet.of(DayOfWeek.TUESDAY), "22:00", "06:00"));
+
+        assertTrue(throttleAt(MIDNIGHT, settings).isThrottling());
+        assertFalse(throttleAt(MIDDAY, settings).isThrottling());
+    }
+
+    @Test
+    void shouldApplyNewSettingsStraightAway() {
+        final UploadThrottle sut = throttleAt(MIDDAY, ThrottleSettings.UNLIMITED);
+
+        sut.setSettings(new ThrottleSettings(0, 10, null));
+
+        assertTrue(sut.isThrottling());
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleSettings(-1, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleSettings.Schedule(null, "9am", "17:00"));
+    }
+
+    private static UploadThrottle throttleAt(Instant instant, ThrottleSettings settings) {
+        return new UploadThrottle(settings, Clock.fixed(instant, ZoneOffset.UTC), System::nanoTime);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.util;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.migration.datacenter.events.MigrationResetEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PollingSchedulerTest {
+
+    @Mock
+    EventPublisher eventPublisher;
+
+    PollingScheduler sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new PollingScheduler(eventPublisher, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.destroy();
+    }
+
+    @Test
+    void shouldPollUntilTheWatchIsCompleted() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+
+        final CompletableFuture<Integer> watch = sut.poll("test", future -> {
+            if (checks.incrementAndGet() == 3) {
+                future.complete(3);
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+
+        assertEquals(3, watch.get(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(3, checks.get());
+    }
+
+    @Test
+    void shouldKeepPollingWhenACheckFails() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+
+        final CompletableFuture<Integer> watch = sut.poll("test", future -> {
+            if (checks.incrementAndGet() == 1) {
+                throw new IllegalStateException("transient");
+            }
+            future.complete(checks.get());
+        }, 10, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, watch.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRunPollsOnNamedDaemonThreads() throws Exception {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+
+        sut.poll("test", future -> {
+            thread.set(Thread.currentThread());
+            future.complete(null);
+        }, 10, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread.get().getName().startsWith("migration-poller-"));
+        assertTrue(thread.get().isDaemon());
+    }
+
+    @Test
+    void shouldCancelWatchesWhenTheMigrationIsReset() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        final CompletableFuture<Object> polled = sut.poll("test", future -> checks.incrementAndGet(), 10, TimeUnit.MILLISECONDS);
+        final CompletableFuture<Object> registered = sut.register(new CompletableFuture<>());
+
+        sut.onMigrationResetEvent(new MigrationResetEvent(1));
+
+        assertTrue(polled.isCancelled());
+        assertTrue(registered.isCancelled());
+        final int checksWhenCancelled = checks.get();
+        Thread.sleep(50);
+        assertTrue(checks.get() <= checksWhenCancelled + 1);
+    }
+
+    @Test
+    void shouldListenForResetsUntilDestroyed() {
+        sut.afterPropertiesSet();
+        verify(eventPublisher).register(sut);
+
+        sut.destroy();
+        verify(eventPublisher).unregister(sut);
+    }
+
+    @Test
+    void shouldStopPollingWhenDestroyed() {
+        final CompletableFuture<Object> registered = sut.register(new CompletableFuture<>());
+
+        sut.destroy();
+
+        assertTrue(registered.isCancelled());
+        assertTrue(sut.register(new CompletableFuture<>()).isCancelled());
+        assertTrue(sut.poll("test", future -> {
+        }, 10, TimeUnit.MILLISECONDS).isCompletedExceptionally());
+        assertThrows(RejectedExecutionException.class, () -> sut.schedule(() -> {
+        }, 10, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadQueueTest {
+
+    @Test
+    void shouldTakeValuesInOrderThenEmptyOnceFinished() throws Exception {
+        final UploadQueue<String> queue = new UploadQueue<>(5);
+        queue.put("a");
+        queue.put("b");
+        queue.finish();
+
+        assertTrue(queue.contains("b"));
+        assertEquals(Optional.of("a"), queue.take());
+        assertEquals(Optional.of("b"), queue.take());
+        assertEquals(Optional.empty(), queue.take());
+        assertEquals(Optional.empty(), queue.take());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void shouldDrainInBatchesUntilFinished() throws Exception {
+        final UploadQueue<Integer> queue = new UploadQueue<>(10);
+        for (int i = 0; i < 5; i++) {
+            queue.put(i);
+        }
+        queue.finish();
+
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drainTo(drained, 3));
+        assertEquals(2, queue.drainTo(drained, 3));
+        assertEquals(-1, queue.drainTo(drained, 3));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), drained);
+    }
+
+    @Test
+    void shouldBlockProducerUntilThereIsRoom() throws Exception {
+        final UploadQueue<Integer> queue = new UploadQueue<>(2);
+        queue.put(1);
+        queue.put(2);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> blockedPut = executor.submit(() -> {
+                queue.put(3);
+                return null;
+            });
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertFalse(blockedPut.isDone());
+            assertEquals(2, queue.size());
+
+            assertEquals(Optional.of(1), queue.take());
+            blockedPut.get(5, TimeUnit.SECONDS);
+            assertTrue(queue.contains(3));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldGiveUpOfferingOnceTimeoutPassesWithQueueFull() throws Exception {
+        final UploadQueue<Integer> queue = new UploadQueue<>(2);
+        assertTrue(queue.offer(1, 0, TimeUnit.MILLISECONDS));
+        queue.put(2);
+
+        assertFalse(queue.offer(3, 200, TimeUnit.MILLISECONDS));
+        assertFalse(queue.finish(0, TimeUnit.MILLISECONDS));
+        assertEquals(2, queue.size());
+
+        assertEquals(Optional.of(1), queue.take());
+        assertTrue(queue.offer(3, 200, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(2), queue.take());
+        assertTrue(queue.finish(200, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(3), queue.take());
+        assertEquals(Optional.empty(), queue.take());
+    }
+
+    @Test
+    void shouldReleaseEveryWaitingConsumerWhenFinished() throws Exception {
+        final UploadQueue<Integer> queue = new UploadQueue<>(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<Future<Optional<Integer>>> consumers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                consumers.add(executor.submit(queue::take));
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+            queue.finish();
+
+            for (Future<Optional<Integer>> consumer : consumers) {
+                assertEquals(Optional.empty(), consumer.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldDeliverEveryValueOnceWithManyProducersAndConsumers() throws Exception {
+        final int producers = 4;
+        final int valuesPerProducer = 10_000;
+        final UploadQueue<Integer> queue = new UploadQueue<>(16);
+        final ExecutorService executor = Executors.newFixedThreadPool(producers * 2);
+        final CountDownLatch produced = new CountDownLatch(producers);
+        final Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        try {
+            for (int p = 0; p < producers; p++) {
+                final int offset = p * valuesPerProducer;
+                executor.submit(() -> {
+                    for (int i = 0; i < valuesPerProducer; i++) {
+                        queue.put(offset + i);
+                    }
+                    produced.countDown();
+                    return null;
+                });
+            }
+            final List<Future<Integer>> consumers = new ArrayList<>();
+            for (int c = 0; c < producers; c++) {
+                consumers.add(executor.submit(() -> {
+                    final List<Integer> batch = new ArrayList<>();
+                    int count = 0;
+                    while (queue.drainTo(batch, 8) >= 0) {
+                        batch.forEach(value -> assertTrue(consumed.add(value), "Consumed twice: " + value));
+                        count += batch.size();
+                        batch.clear();
+                    }
+                    return count;
+                }));
+            }
+
+            assertTrue(produced.await(30, TimeUnit.SECONDS));
+            queue.finish();
+
+            int total = 0;
+            for (Future<Integer> consumer : consumers) {
+                total += consumer.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(producers * valuesPerProducer, total);
+            assertEquals(producers * valuesPerProducer, consumed.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldStopWaitingWhenInterrupted() throws Exception {
+        final UploadQueue<Integer> queue = new UploadQueue<>(2);
+        Thread.currentThread().interrupt();
+
+        assertThrows(InterruptedException.class, queue::take);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
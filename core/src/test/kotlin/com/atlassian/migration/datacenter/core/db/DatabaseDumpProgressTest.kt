@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.core.db
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+
+internal class DatabaseDumpProgressTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private val clock = object : Clock() {
+        var now: Instant = Instant.EPOCH
+        override fun getZone(): ZoneId = ZoneOffset.UTC
+        override fun withZone(zone: ZoneId?): Clock = this
+        override fun instant(): Instant = now
+    }
+
+    private val tableSizes = mapOf("jiraissue" to 600L, "changeitem" to 300L, "worklog" to 100L)
+
+    private val sut = DatabaseDumpProgress(clock)
+
+    @Test
+    fun shouldHaveNoProgressBeforeADumpStarts() {
+        assertNull(sut.snapshot())
+    }
+
+    @Test
+    fun shouldCountATableAsDumpedWhenTheNextOneStartsInASingleJobDump() {
+        sut.start(tableSizes, tempDir, 1)
+        sut.onOutput("pg_dump: dumping contents of table jiraissue")
+        assertEquals(0, sut.snapshot()!!.tablesDumped)
+
+        sut.onOutput("pg_dump: dumping contents of table changeitem")
+        val snapshot = sut.snapshot()!!
+
+        assertEquals(1, snapshot.tablesDumped)
+        assertEquals(3, snapshot.tables)
+        assertEquals(600, snapshot.tableBytesDumped)
+        assertEquals(1000, snapshot.tableBytes)
+    }
+
+    @Test
+    fun shouldCountATableAsDumpedWhenAParallelJobFinishesIt() {
+        sut.start(tableSizes, tempDir, 2)
+        sut.onOutput("pg_dump: dumping contents of table \"public.jiraissue\"")
+        sut.onOutput("pg_dump: dumping contents of table \"public.changeitem\"")
+        sut.onOutput("pg_dump: finished item 3012 TABLE DATA changeitem")
+
+        val snapshot = sut.snapshot()!!
+
+        assertEquals(1, snapshot.tablesDumped)
+        assertEquals(300, snapshot.tableBytesDumped)
+    }
+
+    @Test
+    fun shouldEstimateTimeRemainingFromTheTableBytesDumped() {
+        sut.start(tableSizes, tempDir, 1)
+        sut.onOutput("pg_dump: dumping contents of table jiraissue")
+        assertNull(sut.snapshot()!!.estimatedTimeRemaining)
+
+        clock.now = Instant.EPOCH.plusSeconds(60)
+        sut.onOutput("pg_dump: dumping contents of table changeitem")
+        val snapshot = sut.snapshot()!!
+
+        assertEquals(Duration.ofSeconds(60), snapshot.elapsedTime)
+        assertEquals(Duration.ofSeconds(40), snapshot.estimatedTimeRemaining)
+    }
+
+    @Test
+    fun shouldCountEveryTableAsDumpedWhenTheDumpFinishes() {
+        sut.start(tableSizes, tempDir, 4)
+        sut.onOutput("pg_dump: dumping contents of table jiraissue")
+        sut.onOutput("pg_dump: dumping contents of table worklog")
+        clock.now = Instant.EPOCH.plusSeconds(30)
+        sut.finished()
+        clock.now = Instant.EPOCH.plusSeconds(90)
+
+        val snapshot = sut.snapshot()!!
+
+        assertEquals(2, snapshot.tablesDumped)
+        assertEquals(700, snapshot.tableBytesDumped)
+        assertEquals(Duration.ofSeconds(30), snapshot.elapsedTime)
+        assertEquals(Duration.ZERO, snapshot.estimatedTimeRemaining)
+    }
+
+    @Test
+    fun shouldIgnoreOtherOutput() {
+        sut.start(tableSizes, tempDir, 1)
+        sut.onOutput("pg_dump: reading table inheritance information")
+        sut.onOutput("pg_dump: saving encoding = UTF8")
+
+        assertEquals(0, sut.snapshot()!!.tablesDumped)
+    }
+
+    @Test
+    fun shouldMeasureBytesWrittenToTheDumpDirectory() {
+        val dump = tempDir.resolve("db.dump")
+        sut.start(tableSizes, dump, 1)
+        assertEquals(0, sut.snapshot()!!.bytesWritten)
+
+        Files.createDirectories(dump)
+        Files.write(dump.resolve("toc.dat"), ByteArray(10))
+        Files.write(dump.resolve("3012.dat.gz"), ByteArray(25))
+
+        assertEquals(35, sut.snapshot()!!.bytesWritten)
+    }
+
+    @Test
+    fun shouldForgetThePreviousDumpWhenStarted() {
+        sut.start(tableSizes, tempDir, 1)
+        sut.onOutput("pg_dump: dumping contents of table jiraissue")
+        sut.finished()
+
+        sut.start(tableSizes, tempDir, 1)
+
+        assertEquals(0, sut.snapshot()!!.tablesDumped)
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.atlassian.migration.datacenter.core.db
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+internal class DatabaseDumpSettingsTest {
+
+    @Test
+    fun shouldUseHalfOfTheProcessorsForJobs() {
+        assertEquals(1, DatabaseDumpSettings.autoJobs(1))
+        assertEquals(2, DatabaseDumpSettings.autoJobs(4))
+        assertEquals(DatabaseDumpSettings.MAX_AUTO_JOBS, DatabaseDumpSettings.autoJobs(64))
+    }
+
+    @Test
+    fun shouldUseDefaultCompressionWithoutMeasuredThroughput() {
+        assertEquals(DatabaseDumpSettings.DEFAULT_COMPRESSION, DatabaseDumpSettings.autoCompression(4, null))
+        assertEquals(DatabaseDumpSettings.DEFAULT_COMPRESSION, DatabaseDumpSettings.autoCompression(4, 0.0))
+    }
+
+    @Test
+    fun shouldCompressHarderOnSlowerNetworks() {
+        assertEquals(9, DatabaseDumpSettings.autoCompression(4, 5_000_000.0))
+        assertEquals(6, DatabaseDumpSettings.autoCompression(4, 15_000_000.0))
+        assertEquals(3, DatabaseDumpSettings.autoCompression(4, 40_000_000.0))
+        assertEquals(1, DatabaseDumpSettings.autoCompression(4, 500_000_000.0))
+    }
+
+    @Test
+    fun shouldCompressHarderWithMoreJobs() {
+        assertEquals(3, DatabaseDumpSettings.autoCompression(2, 20_000_000.0))
+        assertEquals(6, DatabaseDumpSettings.autoCompression(4, 20_000_000.0))
+    }
+
+    @Test
+    fun shouldDeriveSettingsForHost() {
+        assertEquals(DatabaseDumpSettings(4, 6), DatabaseDumpSettings.forHost(8, 20_000_000.0))
+    }
+}
@@ -18,6 +18,7 @@ package com.atlassian.migration.datacenter.core.db
 
 import net.swiftzer.semver.SemVer
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
 import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.MethodSource
 
@@ -69,4 +70,19 @@ internal class PostgresClientToolingTest {
     fun testWithKnownValues(param: Pair<String, SemVer>) {
         assertEquals(param.second, PostgresClientTooling.parsePgDumpVersion(param.first))
     }
+
+    @Test
+    fun shouldParseTableSizes() {
+        val output = "jiraissue|1048576\nchangeitem|524288\nAO_60DB71_RAPIDVIEW|8192\n"
+
+        assertEquals(mapOf("jiraissue" to 1048576L, "changeitem" to 524288L, "AO_60DB71_RAPIDVIEW" to 8192L),
+                PostgresClientTooling.parseTableSizes(output))
+    }
+
+    @Test
+    fun shouldAddUpTablesOfTheSameNameAndSkipUnreadableRows() {
+        val output = "jiraissue|100\njiraissue|50\nbroken\nworklog|unknown\n"
+
+        assertEquals(mapOf("jiraissue" to 150L), PostgresClientTooling.parseTableSizes(output))
+    }
 }
@@ -17,12 +17,14 @@
 package com.atlassian.migration.datacenter.core.fs.captor
 
 import com.atlassian.migration.datacenter.core.aws.SqsApi
+import com.atlassian.migration.datacenter.core.util.PollingScheduler
 import com.atlassian.migration.datacenter.dto.MigrationContext
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.MigrationStage
 import io.mockk.MockKAnnotations
 import io.mockk.every
 import io.mockk.impl.annotations.MockK
+import io.mockk.mockk
 import io.mockk.verify
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.BeforeEach
@@ -44,7 +46,7 @@ internal class SqsQueueWatcherTest {
     @BeforeEach
     fun init() {
         MockKAnnotations.init(this)
-        queueWatcher = SqsQueueWatcher(sqsApi, migrationService, 1)
+        queueWatcher = SqsQueueWatcher(sqsApi, migrationService, PollingScheduler(mockk(relaxed = true)), 1)
     }
 
     @Test
@@ -20,10 +20,12 @@ import cloud.localstack.docker.LocalstackDockerExtension
 import cloud.localstack.docker.annotation.LocalstackDockerProperties
 import com.atlassian.migration.datacenter.core.aws.SqsApiImpl
 import com.atlassian.migration.datacenter.core.aws.StubAwsCredentialsProvider
+import com.atlassian.migration.datacenter.core.util.PollingScheduler
 import com.atlassian.migration.datacenter.dto.MigrationContext
 import com.atlassian.migration.datacenter.spi.MigrationService
 import com.atlassian.migration.datacenter.spi.MigrationStage
 import io.mockk.every
+import io.mockk.mockk
 import io.mockk.mockkClass
 import io.mockk.verify
 import org.junit.jupiter.api.*
@@ -65,7 +67,7 @@ class SqsWatcherIT {
 
         migrationService = mockkClass(MigrationService::class)
         mockContext = mockkClass(MigrationContext::class)
-        sqsWatcher = SqsQueueWatcher(SqsApiImpl(Supplier { sqsAsyncClient }), migrationService, 1)
+        sqsWatcher = SqsQueueWatcher(SqsApiImpl(Supplier { sqsAsyncClient }), migrationService, PollingScheduler(mockk(relaxed = true)), 1)
     }
 
     @AfterEach
@@ -39,6 +39,16 @@ class S3ToFileWriter(private val s3Client: AmazonS3, private val entity: S3Event
                 if (key.endsWith("/")) {
                     log.info("Got request to create directory: $absolutePathString")
                     localPath.mkdirs()
+                } else if (TarSegmentExtractor.isSegment(key)) {
+                    s3object.objectContent.use { inputStream ->
+                        log.info("Got request to unpack segment: $key")
+                        try {
+                            val count = TarSegmentExtractor(jiraHome).extract(inputStream)
+                            log.info("Successfully unpacked $count files from $key")
+                        } catch (e: IOException) {
+                            log.error("Failed to unpack segment $key", e)
+                        }
+                    }
                 } else {
                     s3object.objectContent.use { inputStream ->
                         log.info("Got request to write file: $absolutePathString")
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.fs.processor.services
+
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream
+import org.apache.commons.io.IOUtils
+import org.slf4j.LoggerFactory
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.nio.charset.StandardCharsets
+
+/**
+ * Unpacks a tar segment of small files, uploaded by the migration assistant's packing uploader, into the Jira home.
+ * The last entry of a segment is a manifest listing the packed files, which is used to check that nothing is missing.
+ *
+ * Segments may arrive in any order, so an entry is skipped when the file in the Jira home was modified after it. This
+ * keeps a newer copy of a file from being overwritten by an older segment.
+ */
+class TarSegmentExtractor(private val jiraHome: String) {
+
+    private val log = LoggerFactory.getLogger(TarSegmentExtractor::class.java)
+
+    /**
+     * @return the number of files written
+     */
+    fun extract(segment: InputStream): Int {
+        val home = File(jiraHome).canonicalFile
+        val unpacked = mutableSetOf<String>()
+        var written = 0
+        var manifest: List<String>? = null
+
+        TarArchiveInputStream(segment, StandardCharsets.UTF_8.name()).use { tar ->
+            var entry = tar.nextTarEntry
+            while (entry != null) {
+                if (entry.name == MANIFEST_NAME) {
+                    manifest = IOUtils.toString(tar, StandardCharsets.UTF_8).lines().filter { it.isNotEmpty() }
+                } else if (entry.isFile) {
+                    val localPath = File(home, entry.name).canonicalFile
+                    if (!localPath.toPath().startsWith(home.toPath())) {
+                        throw IOException("Segment entry ${entry.name} is outside of $jiraHome")
+                    }
+                    if (localPath.lastModified() > entry.modTime.time) {
+                        log.trace("Keeping {} which is newer than the copy in the segment", localPath)
+                    } else {
+                        localPath.parentFile.mkdirs()
+                        FileOutputStream(localPath).use { IOUtils.copy(tar, it) }
+                        localPath.setLastModified(entry.modTime.time)
+                        written++
+                    }
+                    unpacked.add(entry.name)
+                }
+                entry = tar.nextTarEntry
+            }
+        }
+
+        val expected = manifest ?: throw IOException("Segment has no manifest")
+        val missing = expected.map { it.split('\t', limit = 3).last() }.filterNot { unpacked.contains(it) }
+        if (missing.isNotEmpty()) {
+            throw IOException("Segment is missing ${missing.size} files listed in its manifest: $missing")
+        }
+        log.debug("Unpacked {} of {} files from segment", written, unpacked.size)
+        return written
+    }
+
+    companion object {
+        const val KEY_PREFIX: String = ".dc-migration-segments/"
+        const val KEY_SUFFIX: String = ".tar"
+        const val MANIFEST_NAME: String = ".dc-migration-segment-manifest"
+
+        fun isSegment(key: String): Boolean {
+            return key.startsWith(KEY_PREFIX) && key.endsWith(KEY_SUFFIX)
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Atlassian
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.atlassian.migration.datacenter.fs.processor.services;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TarSegmentExtractorTest {
+    private static final long SEGMENT_MOD_TIME = 1_577_836_800_000L;
+
+    @TempDir
+    Path jiraHome;
+
+    @Test
+    void shouldUnpackEveryFileListedInTheManifest() throws Exception {
+        final byte[] segment = segment(
+                new String[]{"data/attachments/PROJ/1/10000", "data/attachments/PROJ/1/thumbs/_thumb_10000.png"},
+                "2\t0\tdata/attachments/PROJ/1/10000\n2\t0\tdata/attachments/PROJ/1/thumbs/_thumb_10000.png\n");
+
+        final int count = new TarSegmentExtractor(jiraHome.toString()).extract(new ByteArrayInputStream(segment));
+
+        assertEquals(2, count);
+        assertEquals("data/attachments/PROJ/1/10000", new String(Files.readAllBytes(jiraHome.resolve("data/attachments/PROJ/1/10000"))));
+        assertFalse(Files.exists(jiraHome.resolve(TarSegmentExtractor.MANIFEST_NAME)));
+    }
+
+    @Test
+    void shouldKeepFilesWhichAreNewerThanTheSegment() throws Exception {
+        final Path newer = jiraHome.resolve("data/attachments/PROJ/1/10000");
+        Files.createDirectories(newer.getParent());
+        Files.write(newer, "newer".getBytes(StandardCharsets.UTF_8));
+        final byte[] segment = segment(
+                new String[]{"data/attachments/PROJ/1/10000", "data/attachments/PROJ/1/10001"},
+                "2\t0\tdata/attachments/PROJ/1/10000\n2\t0\tdata/attachments/PROJ/1/10001\n");
+
+        final int count = new TarSegmentExtractor(jiraHome.toString()).extract(new ByteArrayInputStream(segment));
+
+        assertEquals(1, count);
+        assertEquals("newer", new String(Files.readAllBytes(newer)));
+        assertTrue(Files.exists(jiraHome.resolve("data/attachments/PROJ/1/10001")));
+    }
+
+    @Test
+    void shouldFailWhenManifestListsMissingFile() throws Exception {
+        final byte[] segment = segment(new String[]{"a"}, "1\t0\ta\n1\t0\tb\n");
+
+        assertThrows(IOException.class, () -> new TarSegmentExtractor(jiraHome.toString()).extract(new ByteArrayInputStream(segment)));
+    }
+
+    @Test
+    void shouldNotWriteOutsideJiraHome() throws Exception {
+        final byte[] segment = segment(new String[]{"../outside"}, "1\t0\t../outside\n");
+
+        assertThrows(IOException.class, () -> new TarSegmentExtractor(jiraHome.toString()).extract(new ByteArrayInputStream(segment)));
+        assertFalse(Files.exists(jiraHome.resolveSibling("outside")));
+    }
+
+    private static byte[] segment(String[] names, String manifest) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            for (String name : names) {
+                addEntry(tar, name, name.getBytes(StandardCharsets.UTF_8));
+            }
+            addEntry(tar, TarSegmentExtractor.MANIFEST_NAME, manifest.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void addEntry(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setModTime(SEGMENT_MOD_TIME);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+}
@@ -95,10 +95,22 @@ export type FinalFileSyncStatus = {
     hasProgressedToNextStage: boolean;
 };
 
+// See DatabaseDumpProgress.kt
+export type DatabaseExportProgress = {
+    tablesDumped: number;
+    tables: number;
+    tableBytesDumped: number;
+    tableBytes: number;
+    bytesWritten: number;
+    elapsedTime: MigrationDuration;
+    estimatedTimeRemaining?: MigrationDuration;
+};
+
 // See DatabaseMigrationProgress.kt
 export type DatabaseMigrationStatusResult = {
     status: DBMigrationStatus;
     elapsedTime: MigrationDuration;
+    export?: DatabaseExportProgress;
 };
 
 export type CommandDetails = {
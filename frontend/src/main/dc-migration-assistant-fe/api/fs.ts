@@ -22,6 +22,9 @@ enum RestApiPathConstants {
     fsStartRestPath = `migration/fs/start`,
     fsFinalSyncPath = `migration/fs/final-sync`,
     fsRetryPath = `migration/fs/retry`,
+    fsRetryFailedPath = `migration/fs/retry-failed`,
+    fsFailuresPath = `migration/fs/failures`,
+    fsThrottlePath = `migration/fs/throttle`,
 }
 
 type FailedFile = {
@@ -29,6 +32,33 @@ type FailedFile = {
     reason: string;
 };
 
+type FailureJournalEntry = {
+    path: string;
+    reason: string;
+    attempt: number;
+    timestamp: number;
+};
+
+export type GetFailedFilesResponse = {
+    failures: Array<FailureJournalEntry>;
+    next: number;
+};
+
+export type ThrottleSettings = {
+    bytesPerSecond: number;
+    operationsPerSecond: number;
+    schedule: {
+        days: Array<string>;
+        from: string;
+        to: string;
+    } | null;
+};
+
+export type ThrottleResponse = {
+    settings: ThrottleSettings;
+    throttling: boolean;
+};
+
 type GetFinalSyncResponse = {
     files: Array<string>;
 };
@@ -42,6 +72,17 @@ export type FileSystemMigrationStatusResponse = {
     crawlingFinished: boolean;
     filesInFlight: number;
     downloadedFiles: number;
+    bytesFound: number;
+    bytesInFlight: number;
+    uploadedBytes: number;
+    uploadRetries: number;
+    uploadConcurrencyLimit: number;
+    uploadLatencyP50Millis: number;
+    uploadLatencyP99Millis: number;
+    bytesPerSecond: number;
+    filesPerSecond: number;
+    averageBytesPerSecond: number;
+    estimatedTimeRemaining: MigrationDuration | null;
 };
 
 type FileSystemMigrationStartResponse = {
@@ -87,4 +128,30 @@ export const fs = {
     retryFsMigration: async (): Promise<void> => {
         return callAppRest('PUT', RestApiPathConstants.fsRetryPath).then(Promise.resolve);
     },
+
+    retryFailedFiles: async (): Promise<void> => {
+        return callAppRest('PUT', RestApiPathConstants.fsRetryFailedPath).then(Promise.resolve);
+    },
+
+    getFailedFiles: async (cursor = 0, limit = 100): Promise<GetFailedFilesResponse> => {
+        const result = await callAppRest(
+            'GET',
+            `${RestApiPathConstants.fsFailuresPath}?cursor=${cursor}&limit=${limit}`
+        );
+        return result.json();
+    },
+
+    getThrottle: async (): Promise<ThrottleResponse> => {
+        const result = await callAppRest('GET', RestApiPathConstants.fsThrottlePath);
+        return result.json();
+    },
+
+    setThrottle: async (settings: ThrottleSettings): Promise<ThrottleResponse> => {
+        const result = await callAppRest('PUT', RestApiPathConstants.fsThrottlePath, settings);
+        const json = await result.json();
+        if (!result.ok) {
+            return Promise.reject(new Error(json.error));
+        }
+        return json;
+    },
 };
@@ -16,6 +16,7 @@
 
 import React, { FunctionComponent } from 'react';
 import { I18n } from '@atlassian/wrm-react-i18n';
+import moment from 'moment';
 
 import { MigrationTransferProps, MigrationTransferPage } from '../shared/MigrationTransferPage';
 import { Progress, ProgressBuilder } from '../shared/Progress';
@@ -45,11 +46,47 @@ const finalSyncInProgressStages = [
     MigrationStage.VALIDATE, // Because of the auto-transition from FINAL_SYNC_WAIT to VALIDATE, we need to add/hack this in here :(
 ];
 
+const byteUnits = ['B', 'KB', 'MB', 'GB', 'TB'];
+
+const formatBytes = (bytes: number): string => {
+    let value = bytes;
+    let unit = 0;
+    while (value >= 1024 && unit < byteUnits.length - 1) {
+        value /= 1024;
+        unit += 1;
+    }
+    return `${unit === 0 ? value : value.toFixed(1)} ${byteUnits[unit]}`;
+};
+
 const dbStatusToProgress = (status: FinalSyncStatus): Progress => {
     const { db, errorMessage } = status;
     const builder = new ProgressBuilder();
 
-    builder.setPhase(statusToI18nString(db.status));
+    if (db.status === DBMigrationStatus.EXPORTING && db.export && db.export.tables > 0) {
+        const { tablesDumped, tables, bytesWritten, estimatedTimeRemaining } = db.export;
+        if (estimatedTimeRemaining) {
+            builder.setPhase(
+                I18n.getText(
+                    'atlassian.migration.datacenter.db.status.exporting.tables.remaining',
+                    tablesDumped,
+                    tables,
+                    formatBytes(bytesWritten),
+                    moment.duration(estimatedTimeRemaining.seconds, 'seconds').humanize()
+                )
+            );
+        } else {
+            builder.setPhase(
+                I18n.getText(
+                    'atlassian.migration.datacenter.db.status.exporting.tables',
+                    tablesDumped,
+                    tables,
+                    formatBytes(bytesWritten)
+                )
+            );
+        }
+    } else {
+        builder.setPhase(statusToI18nString(db.status));
+    }
     builder.setElapsedSeconds(db.elapsedTime.seconds);
     if (db.status === DBMigrationStatus.FAILED) {
         if (errorMessage) {
@@ -72,7 +109,12 @@ const dbStatusToProgress = (status: FinalSyncStatus): Progress => {
             builder.setCompleteness(1);
             break;
         case 'EXPORTING':
-            builder.setCompleteness(0.25);
+            // The dump is uploaded while it is written, so exporting takes up most of the first half
+            if (db.export && db.export.tableBytes > 0) {
+                builder.setCompleteness((0.5 * db.export.tableBytesDumped) / db.export.tableBytes);
+            } else {
+                builder.setCompleteness(0.25);
+            }
             break;
         case 'UPLOADING':
             builder.setCompleteness(0.5);
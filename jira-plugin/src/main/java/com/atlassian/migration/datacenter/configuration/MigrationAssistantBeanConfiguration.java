@@ -24,6 +24,7 @@ import com.atlassian.jira.util.BuildUtilsInfo;
 import com.atlassian.migration.datacenter.core.application.ApplicationConfiguration;
 import com.atlassian.migration.datacenter.core.application.JiraConfiguration;
 import com.atlassian.migration.datacenter.core.aws.AWSMigrationService;
+import com.atlassian.migration.datacenter.core.aws.AwsClientRegistry;
 import com.atlassian.migration.datacenter.core.aws.AwsMigrationServiceWrapper;
 import com.atlassian.migration.datacenter.core.aws.CancellableMigrationServiceHandler;
 import com.atlassian.migration.datacenter.core.aws.CfnApi;
@@ -62,15 +63,20 @@ import com.atlassian.migration.datacenter.core.aws.region.PluginSettingsRegionMa
 import com.atlassian.migration.datacenter.core.aws.region.RegionService;
 import com.atlassian.migration.datacenter.core.aws.ssm.SSMApi;
 import com.atlassian.migration.datacenter.core.db.DatabaseClientTools;
+import com.atlassian.migration.datacenter.core.db.DatabaseDumpProgress;
 import com.atlassian.migration.datacenter.core.db.DatabaseExtractorFactory;
 import com.atlassian.migration.datacenter.core.db.DefaultDatabaseExtractorFactory;
 import com.atlassian.migration.datacenter.core.db.PostgresClientTooling;
 import com.atlassian.migration.datacenter.core.fs.DefaultFileSystemMigrationReportManager;
+import com.atlassian.migration.datacenter.core.fs.DeltaUploadCheckpointFactory;
 import com.atlassian.migration.datacenter.core.fs.DefaultFilesystemUploaderFactory;
 import com.atlassian.migration.datacenter.core.fs.FileSystemMigrationReportManager;
 import com.atlassian.migration.datacenter.core.fs.FilesystemUploaderFactory;
+import com.atlassian.migration.datacenter.core.fs.JournalUploadCheckpointFactory;
 import com.atlassian.migration.datacenter.core.fs.S3FilesystemMigrationService;
+import com.atlassian.migration.datacenter.core.fs.S3UploadHttpClient;
 import com.atlassian.migration.datacenter.core.fs.S3UploaderFactory;
+import com.atlassian.migration.datacenter.core.fs.UploadCheckpointFactory;
 import com.atlassian.migration.datacenter.core.fs.UploaderFactory;
 import com.atlassian.migration.datacenter.core.fs.captor.AttachmentSyncManager;
 import com.atlassian.migration.datacenter.core.fs.captor.DefaultAttachmentSyncManager;
@@ -84,8 +90,12 @@ import com.atlassian.migration.datacenter.core.fs.download.s3sync.S3SyncFileSyst
 import com.atlassian.migration.datacenter.core.fs.jira.captor.AttachmentCaptor;
 import com.atlassian.migration.datacenter.core.fs.jira.captor.DefaultAttachmentCaptor;
 import com.atlassian.migration.datacenter.core.fs.jira.listener.JiraIssueAttachmentListener;
+import com.atlassian.migration.datacenter.core.fs.reporting.FailureJournalFactory;
+import com.atlassian.migration.datacenter.core.fs.reporting.LocalFailureJournalFactory;
+import com.atlassian.migration.datacenter.core.fs.throttle.UploadThrottle;
 import com.atlassian.migration.datacenter.core.util.EncryptionManager;
 import com.atlassian.migration.datacenter.core.util.MigrationRunner;
+import com.atlassian.migration.datacenter.core.util.PollingScheduler;
 import com.atlassian.migration.datacenter.spi.MigrationService;
 import com.atlassian.migration.datacenter.spi.fs.FilesystemMigrationService;
 import com.atlassian.migration.datacenter.spi.infrastructure.MigrationInfrastructureCleanupService;
@@ -98,8 +108,8 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.autoscaling.AutoScalingClient;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -107,6 +117,7 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.ssm.SsmClient;
 
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.function.Supplier;
 
@@ -114,56 +125,80 @@ import java.util.function.Supplier;
 public class MigrationAssistantBeanConfiguration {
 
     @Bean
-    public Supplier<S3AsyncClient> s3AsyncClientSupplier(AwsCredentialsProvider credentialsProvider, RegionService regionService) {
-        return () -> S3AsyncClient.builder()
+    public AwsClientRegistry awsClientRegistry(RegionService regionService, ReadCredentialsService readCredentialsService) {
+        return new AwsClientRegistry(regionService, readCredentialsService);
+    }
+
+    @Bean
+    public Supplier<S3AsyncClient> s3AsyncClientSupplier(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(S3AsyncClient.class, region -> S3AsyncClient.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.asyncHttpClient())
+                .build());
     }
 
     @Bean
-    public Supplier<S3Client> s3ClientSupplier(AwsCredentialsProvider credentialsProvider, RegionService regionService) {
-        return () -> S3Client.builder()
+    public Supplier<S3Client> s3ClientSupplier(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(S3Client.class, region -> S3Client.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.syncHttpClient())
+                .build());
     }
 
     @Bean
-    public Supplier<SsmClient> ssmClient(AwsCredentialsProvider credentialsProvider, RegionService regionService) {
-        return () -> SsmClient.builder()
+    public Supplier<SsmClient> ssmClient(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(SsmClient.class, region -> SsmClient.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.syncHttpClient())
+                .build());
     }
 
     @Bean
-    public Supplier<SecretsManagerClient> secretsManagerClient(AwsCredentialsProvider credentialsProvider, RegionService regionService) {
-        return () -> SecretsManagerClient.builder()
+    public Supplier<SecretsManagerClient> secretsManagerClient(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(SecretsManagerClient.class, region -> SecretsManagerClient.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.syncHttpClient())
+                .build());
     }
 
-    @Bean Supplier<AutoScalingClient> autoScalingClient(AwsCredentialsProvider credentialsProvider, RegionService regionService) {
-        return () -> AutoScalingClient.builder()
+    @Bean
+    Supplier<AutoScalingClient> autoScalingClient(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(AutoScalingClient.class, region -> AutoScalingClient.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.syncHttpClient())
+                .build());
     }
 
-    @Bean Supplier<SqsAsyncClient> sqsAsyncClient(AwsCredentialsProvider awsCredentialsProvider, RegionService regionService){
-        return () -> SqsAsyncClient.builder()
-                .credentialsProvider(awsCredentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+    @Bean
+    Supplier<SqsAsyncClient> sqsAsyncClient(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(SqsAsyncClient.class, region -> SqsAsyncClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.asyncHttpClient())
+                .build());
     }
 
-    @Bean Supplier<Ec2Client> ec2Client(AwsCredentialsProvider awsCredentialsProvider, RegionService regionService){
-        return () -> Ec2Client.builder()
-                .credentialsProvider(awsCredentialsProvider)
-                .region(Region.of(regionService.getRegion()))
-                .build();
+    @Bean
+    Supplier<Ec2Client> ec2Client(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(Ec2Client.class, region -> Ec2Client.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.syncHttpClient())
+                .build());
+    }
+
+    @Bean
+    Supplier<CloudFormationAsyncClient> cloudFormationClient(AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider) {
+        return awsClientRegistry.supplier(CloudFormationAsyncClient.class, region -> CloudFormationAsyncClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(region)
+                .httpClientBuilder(AwsClientRegistry.asyncHttpClient())
+                .build());
     }
 
     @Bean
@@ -239,8 +274,8 @@ public class MigrationAssistantBeanConfiguration {
     }
 
     @Bean
-    public SsmPsqlDatabaseRestoreService ssmPsqlDatabaseRestoreService(SSMApi ssm, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, DatabaseRestoreStageTransitionCallback restoreStageTransitionCallback, RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService) {
-        return new SsmPsqlDatabaseRestoreService(ssm, migrationHelperDeploymentService, restoreStageTransitionCallback, remoteInstanceCommandRunnerService);
+    public SsmPsqlDatabaseRestoreService ssmPsqlDatabaseRestoreService(SSMApi ssm, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, DatabaseRestoreStageTransitionCallback restoreStageTransitionCallback, RemoteInstanceCommandRunnerService remoteInstanceCommandRunnerService, PollingScheduler pollingScheduler) {
+        return new SsmPsqlDatabaseRestoreService(ssm, migrationHelperDeploymentService, restoreStageTransitionCallback, remoteInstanceCommandRunnerService, pollingScheduler);
     }
     
     @Bean
@@ -276,13 +311,18 @@ public class MigrationAssistantBeanConfiguration {
     }
 
     @Bean
-    public S3SyncFileSystemDownloader s3SyncFileSystemDownloader(SSMApi ssmApi, AWSMigrationHelperDeploymentService migrationHelperDeploymentService) {
-        return new S3SyncFileSystemDownloader(ssmApi, migrationHelperDeploymentService);
+    public S3SyncFileSystemDownloader s3SyncFileSystemDownloader(SSMApi ssmApi, AWSMigrationHelperDeploymentService migrationHelperDeploymentService, PollingScheduler pollingScheduler) {
+        return new S3SyncFileSystemDownloader(ssmApi, migrationHelperDeploymentService, pollingScheduler);
     }
 
     @Bean
-    public DatabaseExtractorFactory databaseExtractorFactory(ApplicationConfiguration applicationConfiguration, DatabaseClientTools databaseClientTools) {
-        return new DefaultDatabaseExtractorFactory(applicationConfiguration, databaseClientTools);
+    public DatabaseDumpProgress databaseDumpProgress() {
+        return new DatabaseDumpProgress();
+    }
+
+    @Bean
+    public DatabaseExtractorFactory databaseExtractorFactory(ApplicationConfiguration applicationConfiguration, DatabaseClientTools databaseClientTools, FileSystemMigrationReportManager reportManager, DatabaseDumpProgress databaseDumpProgress) {
+        return new DefaultDatabaseExtractorFactory(applicationConfiguration, databaseClientTools, reportManager, databaseDumpProgress);
     }
 
     @Bean
@@ -291,8 +331,8 @@ public class MigrationAssistantBeanConfiguration {
     }
 
     @Bean
-    public S3SyncFileSystemDownloadManager s3SyncFileSystemDownloadManager(S3SyncFileSystemDownloader downloader) {
-        return new S3SyncFileSystemDownloadManager(downloader);
+    public S3SyncFileSystemDownloadManager s3SyncFileSystemDownloadManager(S3SyncFileSystemDownloader downloader, PollingScheduler pollingScheduler) {
+        return new S3SyncFileSystemDownloadManager(downloader, pollingScheduler);
     }
 
     @Bean
@@ -306,8 +346,8 @@ public class MigrationAssistantBeanConfiguration {
     }
 
     @Bean
-    public CfnApi cfnApi(AwsCredentialsProvider awsCredentialsProvider, RegionService regionService) {
-        return new CfnApi(awsCredentialsProvider, regionService);
+    public CfnApi cfnApi(Supplier<CloudFormationAsyncClient> cloudFormationClient) {
+        return new CfnApi(cloudFormationClient);
     }
 
     @Bean
@@ -328,18 +368,36 @@ public class MigrationAssistantBeanConfiguration {
     }
 
     @Bean
-    public UploaderFactory uploaderFactory(AWSMigrationHelperDeploymentService helperDeploymentService, Supplier<S3AsyncClient> clientSupplier, JiraHome jiraHome) {
-        return new S3UploaderFactory(helperDeploymentService, clientSupplier, jiraHome.getHome().toPath());
+    public UploadThrottle uploadThrottle() {
+        return new UploadThrottle();
+    }
+
+    @Bean
+    public UploaderFactory uploaderFactory(AWSMigrationHelperDeploymentService helperDeploymentService, AwsClientRegistry awsClientRegistry, AwsCredentialsProvider credentialsProvider, JiraHome jiraHome, UploadThrottle uploadThrottle) {
+        final Supplier<S3AsyncClient> uploadClientSupplier = awsClientRegistry.supplier(S3AsyncClient.class, S3UploadHttpClient.PROFILE, region -> S3AsyncClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(region)
+                .httpClientBuilder(S3UploadHttpClient.builder())
+                .build());
+        return new S3UploaderFactory(helperDeploymentService, uploadClientSupplier, jiraHome.getHome().toPath(), uploadThrottle);
+    }
+
+    @Bean
+    public FilesystemUploaderFactory filesystemUploaderFactory(UploaderFactory uploaderFactory, UploadThrottle uploadThrottle) {
+        return new DefaultFilesystemUploaderFactory(uploaderFactory, uploadThrottle);
     }
 
     @Bean
-    public FilesystemUploaderFactory filesystemUploaderFactory(UploaderFactory uploaderFactory) {
-        return new DefaultFilesystemUploaderFactory(uploaderFactory);
+    public FailureJournalFactory failureJournalFactory(JiraHome jiraHome, MigrationService migrationService) {
+        final Path journalDirectory = jiraHome.getLocalHome().toPath().resolve("caches").resolve("dc-migration-assistant");
+        return new LocalFailureJournalFactory(journalDirectory, migrationService);
     }
 
     @Bean
-    public S3BulkCopy s3BulkCopy(JiraHome jiraHome, FilesystemUploaderFactory filesystemUploaderFactory, FileSystemMigrationReportManager reportManager) {
-        return new S3BulkCopy(jiraHome.getHome().toPath(), filesystemUploaderFactory, reportManager);
+    public S3BulkCopy s3BulkCopy(JiraHome jiraHome, FilesystemUploaderFactory filesystemUploaderFactory, FileSystemMigrationReportManager reportManager, MigrationService migrationService, AWSMigrationHelperDeploymentService helperDeploymentService, Supplier<S3AsyncClient> clientSupplier, FailureJournalFactory failureJournalFactory) {
+        final Path checkpointDirectory = jiraHome.getLocalHome().toPath().resolve("caches").resolve("dc-migration-assistant");
+        final UploadCheckpointFactory checkpointFactory = new DeltaUploadCheckpointFactory(new JournalUploadCheckpointFactory(checkpointDirectory, migrationService), helperDeploymentService, clientSupplier);
+        return new S3BulkCopy(jiraHome.getHome().toPath(), filesystemUploaderFactory, reportManager, checkpointFactory, failureJournalFactory);
     }
 
     @Bean
@@ -348,13 +406,14 @@ public class MigrationAssistantBeanConfiguration {
             MigrationService migrationService,
             TargetDbCredentialsStorageService dbCredentialsStorageService,
             AWSMigrationHelperDeploymentService awsMigrationHelperDeploymentService,
-            MigrationStackInputGatheringStrategyFactory strategyFactory) {
-        return new QuickstartDeploymentService(cfnApi, migrationService, dbCredentialsStorageService, awsMigrationHelperDeploymentService, strategyFactory);
+            MigrationStackInputGatheringStrategyFactory strategyFactory,
+            PollingScheduler pollingScheduler) {
+        return new QuickstartDeploymentService(cfnApi, migrationService, dbCredentialsStorageService, awsMigrationHelperDeploymentService, strategyFactory, pollingScheduler);
     }
 
     @Bean
-    public AWSMigrationHelperDeploymentService awsMigrationHelperDeploymentService(CfnApi cfnApi, MigrationService migrationService, Supplier<AutoScalingClient> autoScalingClientFactory) {
-        return new AWSMigrationHelperDeploymentService(cfnApi, autoScalingClientFactory, migrationService);
+    public AWSMigrationHelperDeploymentService awsMigrationHelperDeploymentService(CfnApi cfnApi, MigrationService migrationService, Supplier<AutoScalingClient> autoScalingClientFactory, PollingScheduler pollingScheduler) {
+        return new AWSMigrationHelperDeploymentService(cfnApi, autoScalingClientFactory, migrationService, pollingScheduler);
     }
 
     @Bean
@@ -378,8 +437,8 @@ public class MigrationAssistantBeanConfiguration {
     }
 
     @Bean
-    public QueueWatcher queueWatcher(MigrationService migrationService, SqsApi sqsApi) {
-        return new SqsQueueWatcher(sqsApi, migrationService);
+    public QueueWatcher queueWatcher(MigrationService migrationService, SqsApi sqsApi, PollingScheduler pollingScheduler) {
+        return new SqsQueueWatcher(sqsApi, migrationService, pollingScheduler);
     }
 
     @Bean
@@ -449,6 +508,11 @@ public class MigrationAssistantBeanConfiguration {
         return new MigrationStackInputGatheringStrategyFactory(withVpcStrategy, standaloneStrategy);
     }
 
+    @Bean
+    public PollingScheduler pollingScheduler(EventPublisher eventPublisher) {
+        return new PollingScheduler(eventPublisher);
+    }
+
     @Bean
     public CancellableMigrationServiceHandler cancellableMigrationServiceWrapper(EventPublisher eventPublisher, S3FinalSyncService s3FinalSyncService, FilesystemMigrationService filesystemMigrationService, DatabaseMigrationService databaseMigrationService) {
         return new CancellableMigrationServiceHandler(eventPublisher,
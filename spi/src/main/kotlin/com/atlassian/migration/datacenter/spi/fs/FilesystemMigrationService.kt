@@ -39,6 +39,22 @@ interface FilesystemMigrationService: CancellableMigrationService {
     @Throws(InvalidMigrationStageError::class)
     fun startMigration()
 
+    /**
+     * Schedules an upload of only the files which failed to migrate in the previous upload, to run asynchronously like
+     * [scheduleMigration].
+     *
+     * @return a `Boolean` value that represents if a migration task has been successfully scheduled.
+     */
+    @Throws(InvalidMigrationStageError::class)
+    fun scheduleFailedFileRetry(): Boolean
+
+    /**
+     * Start an upload of only the files which failed to migrate in the previous upload. Like [startMigration] this is a
+     * long running blocking operation.
+     */
+    @Throws(InvalidMigrationStageError::class)
+    fun startFailedFileRetry()
+
     /**
      * Return true if the filesystem migration is in non-terminal state
      *
@@ -17,6 +17,7 @@ package com.atlassian.migration.datacenter.spi.fs.reporting
 
 import com.fasterxml.jackson.annotation.JsonProperty
 import com.fasterxml.jackson.databind.annotation.JsonSerialize
+import java.time.Duration
 
 /**
  * Tracks the progress of the file system migration
@@ -31,6 +32,17 @@ interface FileSystemMigrationProgress {
 
     fun reportFileFound()
 
+    /**
+     * Gets the total size of the files which have been found to migrate.
+     */
+    @JsonProperty("bytesFound")
+    fun getNumberOfBytesFound(): Long?
+
+    /**
+     * Reports the size of a file which was found to migrate, alongside [FileSystemMigrationProgress.reportFileFound]
+     */
+    fun reportBytesFound(bytes: Long)
+
     /**
      * @return true if all files have been discovered by the migration, false otherwise. At this point, [FileSystemMigrationProgress.getNumberOfFilesFound]
      * should return the number of files that will be migrated
@@ -50,6 +62,18 @@ interface FileSystemMigrationProgress {
     fun getNumberOfCommencedFileUploads(): Long?
     fun reportFileUploadCommenced()
 
+    /**
+     * Gets the total size of the files which are currently being uploaded
+     */
+    @JsonProperty("bytesInFlight")
+    fun getNumberOfBytesInFlight(): Long?
+
+    /**
+     * Reports the size of a file which has had its upload commenced, alongside [FileSystemMigrationProgress.reportFileUploadCommenced].
+     * The bytes stay in flight until they are reported as uploaded or failed.
+     */
+    fun reportBytesUploadCommenced(bytes: Long)
+
     /**
      * Gets the number of files which have been successfully migrated
      */
@@ -62,6 +86,90 @@ interface FileSystemMigrationProgress {
      */
     fun reportFileUploaded()
 
+    /**
+     * Gets the total size of the files which have been successfully migrated
+     */
+    @JsonProperty("uploadedBytes")
+    fun getCountOfUploadedBytes(): Long?
+
+    /**
+     * Reports the size of a file which was migrated successfully, alongside [FileSystemMigrationProgress.reportFileUploaded]
+     */
+    fun reportBytesUploaded(bytes: Long)
+
+    /**
+     * Reports the size of a file which failed to upload after its upload commenced
+     */
+    fun reportBytesUploadFailed(bytes: Long)
+
+    /**
+     * Gets the number of times an upload has been retried after a transient failure, such as S3 throttling
+     */
+    @JsonProperty("uploadRetries")
+    fun getNumberOfUploadRetries(): Long?
+
+    /**
+     * Reports that a failed upload will be tried again. The file stays in flight until it is reported as uploaded or
+     * failed, so it isn't counted as commenced again.
+     */
+    fun reportFileUploadRetried()
+
+    /**
+     * Gets the current limit on concurrent uploads, which adapts to the throughput and latency of the uploads
+     */
+    @JsonProperty("uploadConcurrencyLimit")
+    fun getUploadConcurrencyLimit(): Int
+
+    /**
+     * Gets the median latency of the uploads completed in the latest measurement window
+     */
+    @JsonProperty("uploadLatencyP50Millis")
+    fun getUploadLatencyP50Millis(): Long
+
+    /**
+     * Gets the 99th percentile latency of the uploads completed in the latest measurement window
+     */
+    @JsonProperty("uploadLatencyP99Millis")
+    fun getUploadLatencyP99Millis(): Long
+
+    /**
+     * Reports the limit on concurrent uploads and the latencies it was adapted to, at the end of each measurement window
+     */
+    fun reportUploadConcurrency(limit: Int, p50Millis: Long, p99Millis: Long)
+
+    /**
+     * Gets the upload throughput in bytes per second, averaged over the last few seconds
+     */
+    @JsonProperty("bytesPerSecond")
+    fun getBytesPerSecond(): Double
+
+    /**
+     * Gets the upload throughput in files per second, averaged over the last few seconds
+     */
+    @JsonProperty("filesPerSecond")
+    fun getFilesPerSecond(): Double
+
+    /**
+     * Gets the upload throughput in bytes per second, averaged from the first upload commencing to the latest upload
+     * completing. Unlike [FileSystemMigrationProgress.getBytesPerSecond] this stays available once the uploads are
+     * over, and unlike the elapsed time it leaves out the crawl before the first upload and the download after the last.
+     *
+     * @return the average, or 0 if nothing has been uploaded yet
+     */
+    @JsonProperty("averageBytesPerSecond")
+    fun getAverageBytesPerSecond(): Double
+
+    /**
+     * Estimates the time left to upload the bytes which have been found but not yet uploaded at the current
+     * [FileSystemMigrationProgress.getBytesPerSecond]. Until crawling has finished this only accounts for the
+     * files found so far.
+     *
+     * @return the estimate, or null when nothing has been uploaded recently enough to estimate from or crawling
+     * hasn't found anything left to upload yet
+     */
+    @JsonProperty("estimatedTimeRemaining")
+    fun getEstimatedTimeRemaining(): Duration?
+
     /**
      * Gets the number of files that have been successfully downloaded on the remote application
      */